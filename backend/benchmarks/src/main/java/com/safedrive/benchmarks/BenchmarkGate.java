@@ -0,0 +1,160 @@
+package com.safedrive.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Runs the benchmarks, writes the results as JMH JSON and compares them with
+ * a stored baseline in the same format. Exits with status 1 when any
+ * benchmark is slower than its baseline by more than the threshold, so the
+ * {@code gate} Maven profile fails the build.
+ *
+ * Arguments are passed to JMH unchanged (benchmark regex, {@code -wi},
+ * {@code -i}, {@code -f}, ...). Settings are system properties:
+ * {@code benchmark.result} (default {@code target/jmh-result.json}),
+ * {@code benchmark.baseline} (default {@code baseline/jmh-baseline.json}),
+ * {@code benchmark.threshold} (allowed slowdown as a fraction, default 0.25)
+ * and {@code benchmark.update-baseline} (store the results in the baseline
+ * instead of comparing; entries for benchmarks that did not run are kept).
+ * Without a baseline file the results become the baseline.
+ */
+public class BenchmarkGate {
+
+    public static void main(String[] args) throws Exception {
+        Path resultFile = Paths.get(System.getProperty("benchmark.result", "target/jmh-result.json"));
+        Path baselineFile = Paths.get(System.getProperty("benchmark.baseline", "baseline/jmh-baseline.json"));
+        double threshold = Double.parseDouble(System.getProperty("benchmark.threshold", "0.25"));
+        boolean updateBaseline = Boolean.getBoolean("benchmark.update-baseline");
+
+        Path resultDir = resultFile.toAbsolutePath().getParent();
+        Files.createDirectories(resultDir);
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile.toString())
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        if (updateBaseline || !Files.exists(baselineFile)) {
+            writeBaseline(resultFile, baselineFile);
+            System.out.println("Baseline written to " + baselineFile);
+            return;
+        }
+
+        List<String> regressions = compare(results, readBaseline(baselineFile), threshold);
+        if (!regressions.isEmpty()) {
+            System.out.println();
+            System.out.println(regressions.size() + " benchmark(s) regressed more than "
+                    + Math.round(threshold * 100) + "% against " + baselineFile + ":");
+            regressions.forEach(line -> System.out.println("  " + line));
+            System.exit(1);
+        }
+        System.out.println("No regressions beyond " + Math.round(threshold * 100) + "% against " + baselineFile);
+    }
+
+    static List<String> compare(Collection<RunResult> results, Map<String, Baseline> baseline, double threshold) {
+        List<String> regressions = new ArrayList<>();
+        System.out.println();
+        System.out.printf("%-90s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+        for (RunResult runResult : results) {
+            BenchmarkParams params = runResult.getParams();
+            Result<?> primary = runResult.getPrimaryResult();
+            String key = key(params.getBenchmark(), paramsOf(params));
+            Baseline expected = baseline.get(key);
+            if (expected == null || !expected.unit.equals(primary.getScoreUnit())) {
+                System.out.printf("%-90s %14s %14.3f %9s%n", key, "-", primary.getScore(), "new");
+                continue;
+            }
+
+            double change = (primary.getScore() - expected.score) / expected.score;
+            // Throughput falls when things get slower; every other mode reports time
+            double slowdown = params.getMode() == Mode.Throughput ? -change : change;
+            System.out.printf("%-90s %14.3f %14.3f %+8.1f%%%n", key, expected.score, primary.getScore(),
+                    change * 100);
+            if (slowdown > threshold) {
+                regressions.add(String.format("%s: %.3f -> %.3f %s (%+.1f%%)", key, expected.score,
+                        primary.getScore(), primary.getScoreUnit(), change * 100));
+            }
+        }
+        return regressions;
+    }
+
+    static Map<String, Baseline> readBaseline(Path file) throws IOException {
+        Map<String, Baseline> baseline = new HashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file.toFile())) {
+            JsonNode metric = run.path("primaryMetric");
+            baseline.put(key(run), new Baseline(metric.path("score").asDouble(),
+                    metric.path("scoreUnit").asText()));
+        }
+        return baseline;
+    }
+
+    static void writeBaseline(Path resultFile, Path baselineFile) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        Map<String, JsonNode> runs = new LinkedHashMap<>();
+        if (Files.exists(baselineFile)) {
+            for (JsonNode run : mapper.readTree(baselineFile.toFile())) {
+                runs.put(key(run), run);
+            }
+        }
+        for (JsonNode run : mapper.readTree(resultFile.toFile())) {
+            runs.put(key(run), run);
+        }
+        Files.createDirectories(baselineFile.toAbsolutePath().getParent());
+        mapper.writerWithDefaultPrettyPrinter().writeValue(baselineFile.toFile(), runs.values());
+    }
+
+    private static String key(JsonNode run) {
+        Map<String, String> params = new TreeMap<>();
+        JsonNode paramsNode = run.path("params");
+        Iterator<String> names = paramsNode.fieldNames();
+        while (names.hasNext()) {
+            String name = names.next();
+            params.put(name, paramsNode.get(name).asText());
+        }
+        return key(run.path("benchmark").asText(), params);
+    }
+
+    private static Map<String, String> paramsOf(BenchmarkParams params) {
+        Map<String, String> values = new TreeMap<>();
+        for (String name : params.getParamsKeys()) {
+            values.put(name, params.getParam(name));
+        }
+        return values;
+    }
+
+    private static String key(String benchmark, Map<String, String> params) {
+        return params.isEmpty() ? benchmark : benchmark + params;
+    }
+
+    static class Baseline {
+        private final double score;
+        private final String unit;
+
+        Baseline(double score, String unit) {
+            this.score = score;
+            this.unit = unit;
+        }
+    }
+}
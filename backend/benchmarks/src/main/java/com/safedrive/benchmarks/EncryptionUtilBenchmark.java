@@ -0,0 +1,100 @@
+package com.safedrive.benchmarks;
+
+import com.safedrive.util.EncryptionUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of sealing and opening credential passwords. The {@code contended}
+ * variants run four threads against one shared instance, the way request
+ * threads share the Spring bean. {@code legacyDecrypt} is the old ECB path
+ * with a cipher looked up per call, kept as a reference point.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncryptionUtilBenchmark {
+
+    private static final String SECRET = "MySecretKey12345";
+    private static final String PASSWORD = "correct-horse-battery-staple";
+    private static final int PAGE_SIZE = 50;
+
+    private EncryptionUtil encryptionUtil;
+    private String sealed;
+    private String legacySealed;
+    private List<String> sealedPage;
+
+    @Setup
+    public void setUp() throws Exception {
+        encryptionUtil = new EncryptionUtil();
+        ReflectionTestUtils.setField(encryptionUtil, "encryptionSecret", SECRET);
+        ReflectionTestUtils.setField(encryptionUtil, "keyRing", "");
+        ReflectionTestUtils.setField(encryptionUtil, "activeKeyId", "");
+        encryptionUtil.init();
+
+        sealed = encryptionUtil.encrypt(PASSWORD);
+        Cipher cipher = Cipher.getInstance("AES");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "AES"));
+        legacySealed = Base64.getEncoder().encodeToString(cipher.doFinal(PASSWORD.getBytes(StandardCharsets.UTF_8)));
+
+        List<String> plain = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            plain.add(PASSWORD + i);
+        }
+        sealedPage = encryptionUtil.encryptAll(plain);
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return encryptionUtil.encrypt(PASSWORD);
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return encryptionUtil.decrypt(sealed);
+    }
+
+    @Benchmark
+    public List<String> decryptPage() {
+        return encryptionUtil.decryptAll(sealedPage);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String encryptContended() {
+        return encryptionUtil.encrypt(PASSWORD);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String decryptContended() {
+        return encryptionUtil.decrypt(sealed);
+    }
+
+    @Benchmark
+    public String legacyDecrypt() throws Exception {
+        Cipher cipher = Cipher.getInstance("AES");
+        cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "AES"));
+        return new String(cipher.doFinal(Base64.getDecoder().decode(legacySealed)), StandardCharsets.UTF_8);
+    }
+}
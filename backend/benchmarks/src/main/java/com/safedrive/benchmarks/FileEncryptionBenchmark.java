@@ -0,0 +1,116 @@
+package com.safedrive.benchmarks;
+
+import com.safedrive.crypto.ChunkedGcm;
+import com.safedrive.crypto.ChunkedGcmInputStream;
+import com.safedrive.crypto.FileEncryption;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import javax.crypto.SecretKey;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of at-rest encryption on a 16 MiB body, in memory so the numbers
+ * show the cipher alone. {@code plainCopy} is the same copy without
+ * encryption; MB/s = 16 / (ms/op) * 1000. AES-GCM uses the AES-NI and
+ * carry-less multiply intrinsics when the CPU has them (check with
+ * {@code -XX:+PrintFlagsFinal | grep UseAES}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileEncryptionBenchmark {
+
+    private static final int PAYLOAD_SIZE = 16 * 1024 * 1024;
+
+    @Param({ "16384", "65536", "1048576" })
+    private int chunkSize;
+
+    private FileEncryption fileEncryption;
+    private SecretKey dataKey;
+    private byte[] plain;
+    private byte[] sealed;
+    private OutputStream sink;
+
+    /**
+     * Copies into a fixed buffer so every benchmark pays for the same memory
+     * traffic without allocating.
+     */
+    private static class ArraySink extends OutputStream {
+        private final byte[] target = new byte[PAYLOAD_SIZE + 1024 * 1024];
+        private int position;
+
+        @Override
+        public void write(int b) {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (position + len > target.length) {
+                position = 0;
+            }
+            System.arraycopy(b, off, target, position, len);
+            position += len;
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        fileEncryption = new FileEncryption();
+        ReflectionTestUtils.setField(fileEncryption, "enabled", true);
+        ReflectionTestUtils.setField(fileEncryption, "chunkSize", chunkSize);
+        ReflectionTestUtils.setField(fileEncryption, "masterKeyBase64", "");
+        ReflectionTestUtils.setField(fileEncryption, "encryptionSecret", "benchmark-secret");
+        fileEncryption.init();
+        dataKey = fileEncryption.newDataKey().getKey();
+
+        plain = new byte[PAYLOAD_SIZE];
+        new Random(1).nextBytes(plain);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream encrypting = fileEncryption.encrypt(out, dataKey)) {
+            encrypting.write(plain);
+        }
+        sealed = out.toByteArray();
+        sink = new ArraySink();
+    }
+
+    @Benchmark
+    public long plainCopy() throws IOException {
+        return new ByteArrayInputStream(plain).transferTo(sink);
+    }
+
+    @Benchmark
+    public long encrypt() throws IOException {
+        try (OutputStream out = fileEncryption.encrypt(sink, dataKey)) {
+            return new ByteArrayInputStream(plain).transferTo(out);
+        }
+    }
+
+    @Benchmark
+    public long decrypt() throws IOException {
+        InputStream in = new ByteArrayInputStream(sealed);
+        ChunkedGcm.Header header = ChunkedGcm.readHeader(in);
+        try (InputStream plainIn = new ChunkedGcmInputStream(in, dataKey, header, 0, PAYLOAD_SIZE)) {
+            return plainIn.transferTo(sink);
+        }
+    }
+}
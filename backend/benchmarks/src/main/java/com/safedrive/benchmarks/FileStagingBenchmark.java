@@ -0,0 +1,95 @@
+package com.safedrive.benchmarks;
+
+import com.safedrive.crypto.FileEncryption;
+import com.safedrive.metrics.TransferMetrics;
+import com.safedrive.service.BlobStoreService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileSystemUtils;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the upload copy path: {@link BlobStoreService#stage} hashing and
+ * (optionally) encrypting an 8 MiB body into the staging directory. The
+ * staged file is deleted inside the measured call, so each operation
+ * includes one create and one unlink. Results depend on the disk under
+ * {@code java.io.tmpdir}; compare runs from the same machine only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileStagingBenchmark {
+
+    private static final int PAYLOAD_SIZE = 8 * 1024 * 1024;
+
+    @Param({ "false", "true" })
+    private boolean encrypted;
+
+    private BlobStoreService blobStoreService;
+    private Path uploadDir;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        uploadDir = Files.createTempDirectory("safedrive-bench");
+
+        FileEncryption fileEncryption = new FileEncryption();
+        ReflectionTestUtils.setField(fileEncryption, "enabled", encrypted);
+        ReflectionTestUtils.setField(fileEncryption, "chunkSize", 65536);
+        ReflectionTestUtils.setField(fileEncryption, "masterKeyBase64", "");
+        ReflectionTestUtils.setField(fileEncryption, "encryptionSecret", "benchmark-secret");
+        fileEncryption.init();
+
+        blobStoreService = new BlobStoreService();
+        ReflectionTestUtils.setField(blobStoreService, "fileEncryption", fileEncryption);
+        ReflectionTestUtils.setField(blobStoreService, "transferMetrics",
+                new TransferMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(blobStoreService, "uploadDir", uploadDir.toString());
+
+        payload = new byte[PAYLOAD_SIZE];
+        new Random(1).nextBytes(payload);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(uploadDir);
+    }
+
+    @Benchmark
+    public long stage() throws IOException {
+        return stageOnce();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long stageContended() throws IOException {
+        return stageOnce();
+    }
+
+    private long stageOnce() throws IOException {
+        BlobStoreService.StagedBlob staged = blobStoreService.stage(new ByteArrayInputStream(payload));
+        Files.delete(staged.getTempPath());
+        return staged.getSize();
+    }
+}
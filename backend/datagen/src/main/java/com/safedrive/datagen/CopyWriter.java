@@ -0,0 +1,85 @@
+package com.safedrive.datagen;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Streams rows into one {@code COPY ... FROM STDIN} in PostgreSQL's text
+ * format, buffering about a megabyte at a time.
+ */
+public class CopyWriter {
+
+    private static final int FLUSH_THRESHOLD = 1024 * 1024;
+
+    private final CopyIn copyIn;
+    private final StringBuilder buffer = new StringBuilder(FLUSH_THRESHOLD + 64 * 1024);
+    private long rows;
+
+    public CopyWriter(Connection connection, String table, String columns) throws SQLException {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        this.copyIn = pgConnection.getCopyAPI().copyIn("COPY " + table + " (" + columns + ") FROM STDIN");
+    }
+
+    /**
+     * Write one row; {@code null} fields become SQL NULL.
+     */
+    public void row(Object... fields) throws SQLException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                buffer.append('\t');
+            }
+            if (fields[i] == null) {
+                buffer.append("\\N");
+            } else {
+                escape(fields[i].toString());
+            }
+        }
+        buffer.append('\n');
+        rows++;
+        if (buffer.length() >= FLUSH_THRESHOLD) {
+            flush();
+        }
+    }
+
+    /**
+     * @return the number of rows copied
+     */
+    public long finish() throws SQLException {
+        flush();
+        copyIn.endCopy();
+        return rows;
+    }
+
+    private void escape(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    buffer.append("\\\\");
+                    break;
+                case '\t':
+                    buffer.append("\\t");
+                    break;
+                case '\n':
+                    buffer.append("\\n");
+                    break;
+                case '\r':
+                    buffer.append("\\r");
+                    break;
+                default:
+                    buffer.append(c);
+            }
+        }
+    }
+
+    private void flush() throws SQLException {
+        if (buffer.length() > 0) {
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+    }
+}
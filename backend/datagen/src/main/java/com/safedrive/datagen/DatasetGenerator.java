@@ -0,0 +1,428 @@
+package com.safedrive.datagen;
+
+import com.safedrive.util.EncryptionUtil;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Bulk-loads a synthetic dataset with {@code COPY}: users with a skewed
+ * (log-normal) share of files, notes and credentials, a few "whale" users
+ * with {@code --whale-files} files each, notes of realistic length,
+ * credentials encrypted exactly as the application does it, and blob rows
+ * with matching sparse placeholder files under the upload directory.
+ *
+ * Every value derives from {@code --seed} and the user's index, so the blob
+ * pass and the file pass generate the same files without keeping them in
+ * memory. Rows are appended to the existing data; ids come from the tables'
+ * sequences. Placeholder blobs hold zeros, have no data key and are served
+ * as plaintext.
+ *
+ * All generated users share the password given by {@code --password}.
+ */
+public class DatasetGenerator {
+
+    private static final String EMAIL_DOMAIN = "dataset.example.com";
+
+    private static final String[] WORDS = { "budget", "invoice", "travel", "roadmap", "contract", "meeting",
+            "report", "backup", "project", "design", "archive", "summary", "receipt", "photo", "draft", "release",
+            "security", "network", "payroll", "holiday", "quarterly", "forecast", "customer", "vendor", "server",
+            "migration", "database", "schedule", "review", "proposal", "strategy", "marketing", "campaign",
+            "analysis", "presentation", "agenda", "minutes", "policy", "compliance", "audit", "training",
+            "onboarding", "recipe", "garden", "school", "insurance", "mortgage", "tax", "medical", "warranty",
+            "password", "account", "subscription", "renewal", "shipping", "order", "ticket", "support", "feedback",
+            "interview", "candidate", "offer", "salary", "benefits", "expense", "mileage", "conference", "workshop",
+            "deadline", "milestone", "sprint", "backlog", "feature", "bug", "incident", "postmortem", "runbook",
+            "architecture", "diagram", "prototype", "research", "experiment", "results", "dataset", "model",
+            "family", "vacation", "birthday", "wedding", "renovation", "kitchen", "apartment", "lease", "car" };
+
+    private static final String[] SERVICES = { "github.com", "gitlab.com", "google.com", "microsoft.com",
+            "amazon.com", "netflix.com", "spotify.com", "dropbox.com", "slack.com", "zoom.us", "atlassian.net",
+            "paypal.com", "stripe.com", "digitalocean.com", "heroku.com", "linkedin.com", "twitter.com",
+            "facebook.com", "apple.com", "adobe.com", "figma.com", "notion.so", "trello.com", "bank.example",
+            "airline.example", "hotel.example", "utility.example", "insurer.example", "school.example",
+            "clinic.example" };
+
+    // extension, content type, relative weight, size factor against the median
+    private static final Object[][] FILE_TYPES = {
+            { "jpg", "image/jpeg", 25, 8.0 },
+            { "png", "image/png", 10, 4.0 },
+            { "pdf", "application/pdf", 15, 2.0 },
+            { "docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document", 10, 0.5 },
+            { "xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", 5, 0.5 },
+            { "txt", "text/plain", 8, 0.05 },
+            { "csv", "text/csv", 5, 0.5 },
+            { "mp3", "audio/mpeg", 8, 20.0 },
+            { "mp4", "video/mp4", 5, 200.0 },
+            { "zip", "application/zip", 9, 20.0 } };
+
+    private final GeneratorConfig config;
+    private final EncryptionUtil encryptionUtil = new EncryptionUtil();
+    private final LocalDateTime now = LocalDateTime.now().withNano(0);
+
+    private int[] fileCounts;
+    private int[] noteCounts;
+    private int[] credentialCounts;
+    private long firstUserId;
+
+    /**
+     * Receives the files of one user in order.
+     */
+    private interface FileVisitor {
+        void visit(int index, String digest, long size, boolean duplicate, String originalName, String contentType,
+                LocalDateTime uploaded) throws IOException, SQLException;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new DatasetGenerator(GeneratorConfig.parse(args)).run();
+    }
+
+    public DatasetGenerator(GeneratorConfig config) {
+        this.config = config;
+        ReflectionTestUtils.setField(encryptionUtil, "encryptionSecret", config.getEncryptionSecret());
+        ReflectionTestUtils.setField(encryptionUtil, "keyRing", config.getEncryptionKeys());
+        ReflectionTestUtils.setField(encryptionUtil, "activeKeyId", config.getEncryptionActiveKeyId());
+        encryptionUtil.init();
+    }
+
+    public void run() throws Exception {
+        long started = System.nanoTime();
+        planCounts();
+
+        try (Connection connection = connect()) {
+            firstUserId = reserveUserIds(connection);
+            long users = copyUsers(connection);
+            connection.commit();
+            log(started, "users", users);
+        }
+
+        long blobs = sum(inSlices(this::copyBlobs), 0);
+        log(started, "blobs", blobs);
+
+        List<long[]> loaded = inSlices(this::copyContent);
+        log(started, "files", sum(loaded, 0));
+        log(started, "notes", sum(loaded, 1));
+        log(started, "credentials", sum(loaded, 2));
+
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE users, blobs, files, notes, credentials");
+            connection.commit();
+        }
+        log(started, "analyze", 0);
+        System.out.println("Users log in as " + config.getEmailPrefix() + "-<n>@" + EMAIL_DOMAIN
+                + " (n from 0) with password " + config.getPassword());
+    }
+
+    /**
+     * Give each user a log-normal weight and share the totals out by weight;
+     * whales get a fixed, large number of files on top.
+     */
+    private void planCounts() {
+        int users = config.getUsers();
+        double[] weights = new double[users];
+        Random random = new Random(config.getSeed());
+        double total = 0;
+        for (int i = 0; i < users; i++) {
+            weights[i] = Math.exp(config.getSkew() * random.nextGaussian());
+            total += weights[i];
+        }
+        fileCounts = allocate(config.getFiles(), weights, total, random);
+        noteCounts = allocate(config.getNotes(), weights, total, random);
+        credentialCounts = allocate(config.getCredentials(), weights, total, random);
+        for (int i = 0; i < config.getWhales(); i++) {
+            fileCounts[i] += config.getWhaleFiles();
+        }
+    }
+
+    private static int[] allocate(long amount, double[] weights, double total, Random random) {
+        int[] counts = new int[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            double expected = amount * weights[i] / total;
+            long count = (long) expected + (random.nextDouble() < expected % 1 ? 1 : 0);
+            counts[i] = (int) Math.min(Integer.MAX_VALUE, count);
+        }
+        return counts;
+    }
+
+    // Sequences are not transactional: the range stays reserved even if the load fails
+    private long reserveUserIds(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            ResultSet next = statement.executeQuery("SELECT nextval('users_id_seq')");
+            next.next();
+            long first = next.getLong(1);
+            statement.executeQuery("SELECT setval('users_id_seq', " + (first + config.getUsers() - 1) + ")");
+            return first;
+        }
+    }
+
+    private long copyUsers(Connection connection) throws SQLException {
+        String passwordHash = new BCryptPasswordEncoder().encode(config.getPassword());
+        Random random = new Random(config.getSeed() + 1);
+        CopyWriter users = new CopyWriter(connection, "users",
+                "id, email, password, name, role, created_at, updated_at");
+        for (int i = 0; i < config.getUsers(); i++) {
+            LocalDateTime created = pastDate(random, config.getDays());
+            users.row(firstUserId + i, email(i), passwordHash, "Dataset User " + i, "USER", created, created);
+        }
+        return users.finish();
+    }
+
+    private long[] copyBlobs(Connection connection, int slice) throws SQLException, IOException {
+        CopyWriter blobs = new CopyWriter(connection, "blobs", "digest, size, storage_path, created_at");
+        for (int user = slice; user < config.getUsers(); user += config.getThreads()) {
+            forEachFile(user, (index, digest, size, duplicate, originalName, contentType, uploaded) -> {
+                if (!duplicate) {
+                    String storagePath = storagePath(digest);
+                    blobs.row(digest, size, storagePath, uploaded);
+                    if (config.isBlobs()) {
+                        createPlaceholder(config.getUploadDir().resolve(storagePath), size);
+                    }
+                }
+            });
+        }
+        return new long[] { blobs.finish() };
+    }
+
+    private long[] copyContent(Connection connection, int slice) throws SQLException, IOException {
+        CopyWriter files = new CopyWriter(connection, "files",
+                "filename, original_name, content_type, size, file_path, upload_date, user_id, content_hash");
+        for (int user = slice; user < config.getUsers(); user += config.getThreads()) {
+            long userId = firstUserId + user;
+            forEachFile(user, (index, digest, size, duplicate, originalName, contentType, uploaded) -> {
+                String extension = originalName.substring(originalName.lastIndexOf('.'));
+                String filename = UUID.nameUUIDFromBytes((digest + ":" + userId + ":" + index)
+                        .getBytes(StandardCharsets.UTF_8)) + extension;
+                files.row(filename, originalName, contentType, size, storagePath(digest), uploaded, userId, digest);
+            });
+        }
+        long fileRows = files.finish();
+
+        CopyWriter notes = new CopyWriter(connection, "notes", "title, content, created_date, updated_date, user_id");
+        for (int user = slice; user < config.getUsers(); user += config.getThreads()) {
+            Random random = userRandom(user, 2);
+            for (int n = 0; n < noteCounts[user]; n++) {
+                LocalDateTime created = pastDate(random, config.getDays());
+                LocalDateTime updated = random.nextInt(3) == 0 ? laterDate(random, created) : created;
+                notes.row(title(random), noteContent(random), created, updated, firstUserId + user);
+            }
+        }
+        long noteRows = notes.finish();
+
+        CopyWriter credentials = new CopyWriter(connection, "credentials",
+                "service, username, encrypted_password, url, notes, created_date, updated_date, user_id");
+        for (int user = slice; user < config.getUsers(); user += config.getThreads()) {
+            Random random = userRandom(user, 3);
+            int offset = random.nextInt(SERVICES.length);
+            for (int n = 0; n < credentialCounts[user]; n++) {
+                // Unique per user, as idx_credentials_user_service requires
+                String service = SERVICES[(offset + n) % SERVICES.length]
+                        + (n < SERVICES.length ? "" : "-" + n / SERVICES.length);
+                String username = random.nextBoolean() ? email(user) : word(random) + random.nextInt(1000);
+                String password = randomPassword(random);
+                LocalDateTime created = pastDate(random, config.getDays());
+                credentials.row(service, username, encryptionUtil.encrypt(password), "https://" + service + "/login",
+                        random.nextInt(4) == 0 ? word(random) + " " + word(random) + " account" : null,
+                        created, random.nextInt(4) == 0 ? laterDate(random, created) : created, firstUserId + user);
+            }
+        }
+        long credentialRows = credentials.finish();
+
+        return new long[] { fileRows, noteRows, credentialRows };
+    }
+
+    /**
+     * Generate the files of one user. A share of them repeat an earlier
+     * file's content, so they point at the same blob, as deduplicated
+     * uploads do.
+     */
+    private void forEachFile(int user, FileVisitor visitor) throws IOException, SQLException {
+        Random random = userRandom(user, 1);
+        int count = fileCounts[user];
+        int[] origin = new int[count];
+        long[] sizes = new long[count];
+        for (int i = 0; i < count; i++) {
+            boolean duplicate = i > 0 && random.nextDouble() < config.getDuplicateRatio();
+            Object[] type = pickType(random);
+            origin[i] = duplicate ? origin[random.nextInt(i)] : i;
+            sizes[i] = duplicate ? sizes[origin[i]] : fileSize(random, (Double) type[3]);
+            String originalName = word(random) + "-" + word(random) + "-" + i + "." + type[0];
+            visitor.visit(i, digest(user, origin[i]), sizes[i], duplicate, originalName, (String) type[1],
+                    pastDate(random, config.getDays()));
+        }
+    }
+
+    private List<long[]> inSlices(SliceLoader loader) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(config.getThreads());
+        try {
+            List<Future<long[]>> slices = new ArrayList<>();
+            for (int slice = 0; slice < config.getThreads(); slice++) {
+                int current = slice;
+                slices.add(executor.submit(() -> {
+                    try (Connection connection = connect()) {
+                        long[] rows = loader.load(connection, current);
+                        connection.commit();
+                        return rows;
+                    }
+                }));
+            }
+            List<long[]> results = new ArrayList<>();
+            for (Future<long[]> slice : slices) {
+                results.add(slice.get());
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private interface SliceLoader {
+        long[] load(Connection connection, int slice) throws SQLException, IOException;
+    }
+
+    private Connection connect() throws SQLException {
+        Connection connection = DriverManager.getConnection(config.getJdbcUrl());
+        connection.setAutoCommit(false);
+        return connection;
+    }
+
+    private Random userRandom(int user, int stream) {
+        return new Random(config.getSeed() * 0x9E3779B97F4A7C15L + user * 4L + stream);
+    }
+
+    private String email(int user) {
+        return config.getEmailPrefix() + "-" + user + "@" + EMAIL_DOMAIN;
+    }
+
+    // Unique per run, so repeated runs do not collide on blobs.digest
+    private String digest(int user, int file) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha256.digest((config.getEmailPrefix() + ":" + config.getSeed() + ":" + user + ":" + file)
+                    .getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // Same layout as BlobStoreService
+    private static String storagePath(String digest) {
+        return "blobs/" + digest.substring(0, 2) + "/" + digest.substring(2, 4) + "/" + digest + "-"
+                + digest.substring(56);
+    }
+
+    private static void createPlaceholder(Path path, long size) throws IOException {
+        Files.createDirectories(path.getParent());
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(size);
+        }
+    }
+
+    private Object[] pickType(Random random) {
+        int total = 0;
+        for (Object[] type : FILE_TYPES) {
+            total += (Integer) type[2];
+        }
+        int point = random.nextInt(total);
+        for (Object[] type : FILE_TYPES) {
+            point -= (Integer) type[2];
+            if (point < 0) {
+                return type;
+            }
+        }
+        return FILE_TYPES[0];
+    }
+
+    private long fileSize(Random random, double factor) {
+        double size = config.getMedianFileSize() * factor * Math.exp(1.2 * random.nextGaussian());
+        return Math.max(1, Math.min(config.getMaxFileSize(), (long) size));
+    }
+
+    // Skewed towards recent dates, as activity tends to be
+    private LocalDateTime pastDate(Random random, int days) {
+        double age = random.nextDouble();
+        return now.minusSeconds((long) (age * age * days * 86400L));
+    }
+
+    private LocalDateTime laterDate(Random random, LocalDateTime date) {
+        long span = Duration.between(date, now).getSeconds();
+        return span <= 0 ? date : date.plusSeconds((long) (random.nextDouble() * span));
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static String title(Random random) {
+        StringBuilder title = new StringBuilder();
+        int words = 2 + random.nextInt(4);
+        for (int i = 0; i < words; i++) {
+            String word = word(random);
+            title.append(i == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : " " + word);
+        }
+        return title.toString();
+    }
+
+    // Log-normal lengths: mostly short notes, a long tail of documents
+    private String noteContent(Random random) {
+        double chars = config.getMedianNoteChars() * Math.exp(random.nextGaussian());
+        int length = (int) Math.max(20, Math.min(config.getMaxNoteChars(), chars));
+        StringBuilder content = new StringBuilder(length + 32);
+        int sentence = 0;
+        while (content.length() < length) {
+            String word = word(random);
+            content.append(sentence == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word);
+            sentence++;
+            if (sentence > 6 && random.nextInt(6) == 0) {
+                content.append(random.nextInt(8) == 0 ? ".\n\n" : ". ");
+                sentence = 0;
+            } else {
+                content.append(' ');
+            }
+        }
+        return content.toString().trim();
+    }
+
+    private static String randomPassword(Random random) {
+        String alphabet = "abcdefghijkmnopqrstuvwxyzABCDEFGHJKLMNPQRSTUVWXYZ23456789!@#$%";
+        StringBuilder password = new StringBuilder();
+        int length = 12 + random.nextInt(12);
+        for (int i = 0; i < length; i++) {
+            password.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return password.toString();
+    }
+
+    private static long sum(List<long[]> results, int column) {
+        long total = 0;
+        for (long[] result : results) {
+            total += result[column];
+        }
+        return total;
+    }
+
+    private static void log(long startedNanos, String phase, long rows) {
+        System.out.printf("%-12s %,12d rows  %8.1fs%n", phase, rows, (System.nanoTime() - startedNanos) / 1e9);
+    }
+}
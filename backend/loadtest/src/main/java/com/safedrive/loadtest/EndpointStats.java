@@ -0,0 +1,79 @@
+package com.safedrive.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram and counters for one endpoint. Latencies are recorded
+ * in microseconds; a request counts as an error when it fails with an I/O
+ * error or returns a status of 400 or above.
+ */
+public class EndpointStats {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final Histogram latency = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+    public void record(int status, long responseBytes, long latencyNanos) {
+        count(latencyNanos, Integer.toString(status), status >= 400);
+        bytes.add(responseBytes);
+    }
+
+    public void recordFailure(Exception failure, long latencyNanos) {
+        count(latencyNanos, failure.getClass().getSimpleName(), true);
+    }
+
+    private void count(long latencyNanos, String outcome, boolean error) {
+        latency.recordValue(Math.min(MAX_LATENCY_MICROS, Math.max(1, latencyNanos / 1000)));
+        requests.increment();
+        if (error) {
+            errors.increment();
+        }
+        outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    /**
+     * @return the latency at the given percentile, in milliseconds
+     */
+    public double percentileMillis(double percentile) {
+        return latency.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    public double maxMillis() {
+        return latency.getMaxValue() / 1000.0;
+    }
+
+    public double meanMillis() {
+        return latency.getMean() / 1000.0;
+    }
+
+    /**
+     * Response count per status code or exception name.
+     */
+    public Map<String, Long> getOutcomes() {
+        Map<String, Long> counts = new TreeMap<>();
+        outcomes.forEach((outcome, count) -> counts.put(outcome, count.sum()));
+        return counts;
+    }
+}
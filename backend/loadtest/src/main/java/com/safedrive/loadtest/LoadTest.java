@@ -0,0 +1,362 @@
+package com.safedrive.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end load generator. Starts the application jar against a local
+ * PostgreSQL database (or targets {@code --base-url}), registers and seeds
+ * users, drives the configured request mix from {@code --concurrency}
+ * workers and reports latency percentiles, throughput and errors per
+ * endpoint together with server-side resource usage.
+ *
+ * Workers run closed-loop by default. With {@code --rate} each worker sends
+ * on a fixed schedule and latency is measured from the scheduled start, so
+ * time spent queued behind a slow response is counted.
+ */
+public class LoadTest {
+
+    private static final String PASSWORD = "loadtest-password";
+
+    private static final String[] WORDS = { "budget", "invoice", "travel", "roadmap", "contract", "meeting",
+            "report", "backup", "project", "design", "archive", "summary", "receipt", "photo", "draft",
+            "release", "security", "network", "payroll", "holiday" };
+
+    private final LoadTestConfig config;
+    private final SafeDriveClient client;
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong sequence = new AtomicLong();
+    private final byte[] uploadData;
+    private final List<VirtualUser> users = Collections.synchronizedList(new ArrayList<>());
+
+    private volatile Map<Operation, EndpointStats> stats;
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        ServerProcess server = null;
+        double errorRate;
+        try {
+            if (!config.isExternal()) {
+                System.out.println("Starting " + config.getAppJar() + " on port " + config.getPort());
+                server = ServerProcess.start(config);
+            }
+            String baseUrl = config.isExternal() ? config.getBaseUrl() : "http://localhost:" + config.getPort();
+            Long pid = server != null ? server.pid() : null;
+            errorRate = new LoadTest(config, new SafeDriveClient(baseUrl)).run(pid);
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+        if (errorRate > config.getMaxErrorRate()) {
+            System.out.printf("Error rate %.2f%% is above the allowed %.2f%%%n", errorRate * 100,
+                    config.getMaxErrorRate() * 100);
+            System.exit(1);
+        }
+    }
+
+    public LoadTest(LoadTestConfig config, SafeDriveClient client) {
+        this.config = config;
+        this.client = client;
+        long largest = config.getUploadSizes().values().stream().mapToLong(Long::longValue).max().orElse(0);
+        if (largest > Integer.MAX_VALUE - 64) {
+            throw new IllegalArgumentException("Upload sizes are limited to 2 GB");
+        }
+        uploadData = new byte[(int) largest];
+        new Random(config.getSeed()).nextBytes(uploadData);
+    }
+
+    /**
+     * @return the overall error rate of the measured phase
+     */
+    public double run(Long serverPid) throws Exception {
+        System.out.println("Seeding " + config.getUsers() + " users");
+        seed();
+
+        stats = newStats();
+        ExecutorService workers = Executors.newFixedThreadPool(config.getConcurrency());
+        long warmupEnd = System.nanoTime() + config.getWarmup().toNanos();
+        long end = warmupEnd + config.getDuration().toNanos();
+        List<Future<?>> running = new ArrayList<>();
+        for (int i = 0; i < config.getConcurrency(); i++) {
+            int worker = i;
+            running.add(workers.submit(() -> work(worker, end)));
+        }
+
+        System.out.println("Warming up for " + config.getWarmup().toSeconds() + "s");
+        sleepUntil(warmupEnd);
+        Map<Operation, EndpointStats> measured = newStats();
+        stats = measured;
+        VirtualUser observer = users.get(0);
+        ResourceSampler sampler = new ResourceSampler(client, observer.getEmail(), observer.getPassword(), serverPid);
+        sampler.start();
+        long measureStart = System.nanoTime();
+        System.out.println("Measuring for " + config.getDuration().toSeconds() + "s at concurrency "
+                + config.getConcurrency());
+
+        for (Future<?> future : running) {
+            future.get();
+        }
+        double seconds = (System.nanoTime() - measureStart) / 1e9;
+        workers.shutdown();
+        Map<String, Object> resources = sampler.stop();
+
+        return report(measured, seconds, resources);
+    }
+
+    private void seed() throws Exception {
+        ExecutorService seeding = Executors.newFixedThreadPool(Math.min(config.getUsers(), config.getConcurrency()));
+        List<Future<VirtualUser>> pending = new ArrayList<>();
+        for (int i = 0; i < config.getUsers(); i++) {
+            pending.add(seeding.submit(() -> {
+                Random random = new Random(config.getSeed() + sequence.incrementAndGet());
+                VirtualUser user = register();
+                for (int n = 0; n < config.getFilesPerUser(); n++) {
+                    upload(user, random, false);
+                }
+                for (int n = 0; n < config.getNotesPerUser(); n++) {
+                    expectSuccess(client.createNote(user.getToken(), title(random), noteContent(random)),
+                            "create note");
+                }
+                for (int n = 0; n < config.getCredentialsPerUser(); n++) {
+                    expectSuccess(client.createCredential(user.getToken(), word(random) + n + ".example.com",
+                            user.getEmail(), "secret-" + random.nextInt()), "create credential");
+                }
+                return user;
+            }));
+        }
+        for (Future<VirtualUser> user : pending) {
+            users.add(user.get());
+        }
+        seeding.shutdown();
+    }
+
+    private void work(int worker, long end) {
+        Random random = new Random(config.getSeed() * 31 + worker);
+        VirtualUser user = users.get(worker % users.size());
+        long intervalNanos = config.getRate() > 0
+                ? (long) (TimeUnit.SECONDS.toNanos(1) * config.getConcurrency() / config.getRate())
+                : 0;
+        // Stagger paced workers so their requests do not arrive in bursts
+        long scheduled = System.nanoTime() + (intervalNanos > 0 ? random.nextLong(intervalNanos) : 0);
+
+        while (true) {
+            long start = intervalNanos > 0 ? scheduled : System.nanoTime();
+            if (start >= end) {
+                return;
+            }
+            if (intervalNanos > 0) {
+                sleepUntil(scheduled);
+                scheduled += intervalNanos;
+            }
+
+            Operation operation = config.getMix().next(random);
+            EndpointStats endpoint = stats.get(operation);
+            try {
+                SafeDriveClient.Response response = execute(operation, user, random);
+                if (response != null) {
+                    endpoint.record(response.getStatus(), response.getBytes(), System.nanoTime() - start);
+                }
+            } catch (Exception e) {
+                endpoint.recordFailure(e, System.nanoTime() - start);
+            }
+        }
+    }
+
+    private SafeDriveClient.Response execute(Operation operation, VirtualUser user, Random random)
+            throws IOException {
+        String token = user.getToken();
+        switch (operation) {
+            case REGISTER:
+                return client.register("Load Test", nextEmail(), PASSWORD);
+            case LOGIN: {
+                SafeDriveClient.Response response = client.login(user.getEmail(), user.getPassword());
+                if (response.isSuccess()) {
+                    user.setToken(response.getJson().path("token").asText());
+                }
+                return response;
+            }
+            case UPLOAD:
+                return upload(user, random, false);
+            case UPLOAD_STREAM:
+                return upload(user, random, true);
+            case DOWNLOAD: {
+                long[] file = user.randomFile(random);
+                return file == null ? null : client.download(token, file[0], null);
+            }
+            case DOWNLOAD_RANGE: {
+                long[] file = user.randomFile(random);
+                if (file == null || file[1] < 2) {
+                    return null;
+                }
+                long from = (long) (random.nextDouble() * (file[1] - 1));
+                long to = Math.min(file[1] - 1, from + 64 * 1024 - 1);
+                return client.download(token, file[0], "bytes=" + from + "-" + to);
+            }
+            case LIST_FILES:
+                return client.get(token, "/api/files", Map.of("limit", "50"));
+            case LIST_NOTES:
+                return client.get(token, "/api/notes", Map.of("limit", "50"));
+            case LIST_CREDENTIALS:
+                return client.get(token, "/api/credentials", Map.of("limit", "50"));
+            case SEARCH:
+                return client.get(token, "/api/search", Map.of("q", word(random)));
+            case SEARCH_FILES:
+                return client.get(token, "/api/files/search", Map.of("query", word(random)));
+            case SEARCH_NOTES:
+                return client.get(token, "/api/notes/search", Map.of("query", word(random)));
+            case SEARCH_CREDENTIALS:
+                return client.get(token, "/api/credentials/search", Map.of("query", word(random)));
+            default:
+                throw new IllegalStateException("Unhandled operation " + operation);
+        }
+    }
+
+    private VirtualUser register() throws IOException {
+        String email = nextEmail();
+        SafeDriveClient.Response response = client.register("Load Test", email, PASSWORD);
+        expectSuccess(response, "register " + email);
+        return new VirtualUser(email, PASSWORD, response.getJson().path("token").asText());
+    }
+
+    private SafeDriveClient.Response upload(VirtualUser user, Random random, boolean streaming) throws IOException {
+        int size = config.getUploadSizes().next(random).intValue();
+        SafeDriveClient.Response response = client.upload(user.getToken(),
+                word(random) + "-" + sequence.incrementAndGet() + ".bin", uploadData, size, streaming);
+        if (response.isSuccess() && response.getJson() != null) {
+            user.addFile(response.getJson().path("id").asLong(), size);
+        }
+        return response;
+    }
+
+    private double report(Map<Operation, EndpointStats> measured, double seconds, Map<String, Object> resources)
+            throws IOException {
+        System.out.println();
+        System.out.printf("%-34s %9s %8s %7s %9s %9s %9s %9s %9s%n", "Endpoint", "Requests", "Errors", "Err%",
+                "Req/s", "p50 ms", "p99 ms", "p999 ms", "Max ms");
+
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        long totalRequests = 0;
+        long totalErrors = 0;
+        for (Map.Entry<Operation, EndpointStats> entry : measured.entrySet()) {
+            EndpointStats endpoint = entry.getValue();
+            if (endpoint.getRequests() == 0) {
+                continue;
+            }
+            totalRequests += endpoint.getRequests();
+            totalErrors += endpoint.getErrors();
+            double errorRate = (double) endpoint.getErrors() / endpoint.getRequests();
+            System.out.printf("%-34s %9d %8d %6.2f%% %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    entry.getKey().getEndpoint(), endpoint.getRequests(), endpoint.getErrors(), errorRate * 100,
+                    endpoint.getRequests() / seconds, endpoint.percentileMillis(50), endpoint.percentileMillis(99),
+                    endpoint.percentileMillis(99.9), endpoint.maxMillis());
+
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("requests", endpoint.getRequests());
+            row.put("errors", endpoint.getErrors());
+            row.put("errorRate", errorRate);
+            row.put("throughputPerSecond", endpoint.getRequests() / seconds);
+            row.put("responseBytes", endpoint.getBytes());
+            row.put("meanMs", endpoint.meanMillis());
+            row.put("p50Ms", endpoint.percentileMillis(50));
+            row.put("p99Ms", endpoint.percentileMillis(99));
+            row.put("p999Ms", endpoint.percentileMillis(99.9));
+            row.put("maxMs", endpoint.maxMillis());
+            row.put("outcomes", endpoint.getOutcomes());
+            endpoints.put(entry.getKey().getEndpoint(), row);
+        }
+        double errorRate = totalRequests == 0 ? 0 : (double) totalErrors / totalRequests;
+        System.out.printf("%-34s %9d %8d %6.2f%% %9.1f%n", "Total", totalRequests, totalErrors, errorRate * 100,
+                totalRequests / seconds);
+        System.out.println();
+        System.out.println("Server resources (avg / max over the measured phase):");
+        resources.forEach((name, value) -> {
+            if (value instanceof Map<?, ?> sample) {
+                System.out.printf("  %-20s %16.2f %16.2f%n", name, sample.get("avg"), sample.get("max"));
+            } else {
+                System.out.printf("  %-20s %16s%n", name, value);
+            }
+        });
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("runId", runId);
+        report.put("config", config.describe());
+        report.put("measuredSeconds", seconds);
+        report.put("requests", totalRequests);
+        report.put("errors", totalErrors);
+        report.put("errorRate", errorRate);
+        report.put("throughputPerSecond", totalRequests / seconds);
+        report.put("endpoints", endpoints);
+        report.put("server", resources);
+
+        Path reportFile = config.getReportFile();
+        if (reportFile.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(reportFile.toAbsolutePath().getParent());
+        }
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(reportFile.toFile(), report);
+        System.out.println("Report written to " + reportFile);
+        return errorRate;
+    }
+
+    private static Map<Operation, EndpointStats> newStats() {
+        Map<Operation, EndpointStats> map = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            map.put(operation, new EndpointStats());
+        }
+        return map;
+    }
+
+    private String nextEmail() {
+        return "lt-" + runId + "-" + sequence.incrementAndGet() + "@loadtest.example.com";
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static String title(Random random) {
+        return word(random) + " " + word(random) + " notes";
+    }
+
+    // Notes are mostly short with a long tail, a few kilobytes at most
+    private static String noteContent(Random random) {
+        int words = 20 + (int) Math.min(2000, -200 * Math.log(1 - random.nextDouble()));
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            content.append(word(random)).append(i % 12 == 11 ? ".\n" : " ");
+        }
+        return content.toString();
+    }
+
+    private static void expectSuccess(SafeDriveClient.Response response, String action) {
+        if (!response.isSuccess()) {
+            throw new IllegalStateException("Seeding failed to " + action + ": HTTP " + response.getStatus());
+        }
+    }
+
+    private static void sleepUntil(long deadlineNanos) {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.safedrive.loadtest;
+
+/**
+ * Requests the load generator can issue; the key names it in
+ * {@code --mix}, the endpoint labels it in the report.
+ */
+public enum Operation {
+    REGISTER("register", "POST /api/auth/register"),
+    LOGIN("login", "POST /api/auth/login"),
+    UPLOAD("upload", "POST /api/files/upload"),
+    UPLOAD_STREAM("upload-stream", "POST /api/files/upload/stream"),
+    DOWNLOAD("download", "GET /api/files/{id}"),
+    DOWNLOAD_RANGE("download-range", "GET /api/files/{id} (Range)"),
+    LIST_FILES("list-files", "GET /api/files"),
+    LIST_NOTES("list-notes", "GET /api/notes"),
+    LIST_CREDENTIALS("list-credentials", "GET /api/credentials"),
+    SEARCH("search", "GET /api/search"),
+    SEARCH_FILES("search-files", "GET /api/files/search"),
+    SEARCH_NOTES("search-notes", "GET /api/notes/search"),
+    SEARCH_CREDENTIALS("search-credentials", "GET /api/credentials/search");
+
+    private final String key;
+    private final String endpoint;
+
+    Operation(String key, String endpoint) {
+        this.key = key;
+        this.endpoint = endpoint;
+    }
+
+    public static Operation fromKey(String key) {
+        for (Operation operation : values()) {
+            if (operation.key.equals(key)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation " + key);
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+}
@@ -0,0 +1,191 @@
+package com.safedrive.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples server-side resource usage once a second while the load runs:
+ * CPU, heap, threads, connection pool and transfers from the application's
+ * Prometheus endpoint, plus resident memory from {@code /proc} when the
+ * server was started by this harness on Linux. GC pauses are reported as
+ * the increase over the run.
+ *
+ * Metrics need an authenticated request, so the sampler logs in as the
+ * given user and logs in again when its token expires.
+ */
+public class ResourceSampler {
+
+    private static final String[][] GAUGES = {
+            // name in the report, Prometheus series, required label
+            { "processCpuPercent", "process_cpu_usage", null },
+            { "systemCpuPercent", "system_cpu_usage", null },
+            { "heapUsedBytes", "jvm_memory_used_bytes", "area=\"heap\"" },
+            { "liveThreads", "jvm_threads_live_threads", null },
+            { "dbPoolActive", "hikaricp_connections_active", null },
+            { "dbPoolPending", "hikaricp_connections_pending", null },
+            { "dbPoolSaturation", "safedrive_db_pool_saturation", null },
+            { "activeTransfers", "safedrive_transfer_active", null },
+    };
+
+    private final SafeDriveClient client;
+    private final String email;
+    private final String password;
+    private final Long pid;
+    private final Map<String, Sample> samples = new LinkedHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "resource-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Map<String, Double> first;
+    private Map<String, Double> last;
+    private int failures;
+    private String token;
+
+    private static class Sample {
+        private long count;
+        private double sum;
+        private double max;
+
+        void add(double value) {
+            count++;
+            sum += value;
+            max = Math.max(max, value);
+        }
+    }
+
+    /**
+     * @param pid the server process to read memory for, or null
+     */
+    public ResourceSampler(SafeDriveClient client, String email, String password, Long pid) {
+        this.client = client;
+        this.email = email;
+        this.password = password;
+        this.pid = pid;
+    }
+
+    public void start() {
+        scheduler.scheduleAtFixedRate(this::sample, 0, 1, TimeUnit.SECONDS);
+    }
+
+    public Map<String, Object> stop() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        synchronized (samples) {
+            samples.forEach((name, sample) -> {
+                Map<String, Double> stats = new LinkedHashMap<>();
+                stats.put("avg", sample.sum / sample.count);
+                stats.put("max", sample.max);
+                summary.put(name, stats);
+            });
+            if (first != null && last != null) {
+                summary.put("gcPauses", last.get("count") - first.get("count"));
+                summary.put("gcPauseSeconds", last.get("sum") - first.get("sum"));
+            }
+            summary.put("failedScrapes", failures);
+        }
+        return summary;
+    }
+
+    private String scrape() throws IOException {
+        if (token == null) {
+            SafeDriveClient.Response response = client.login(email, password);
+            if (!response.isSuccess()) {
+                throw new IOException("login for metrics returned " + response.getStatus());
+            }
+            token = response.getJson().path("token").asText();
+        }
+        try {
+            return client.fetch(token, "/actuator/prometheus");
+        } catch (IOException e) {
+            // Most likely the token expired; the next sample logs in again
+            token = null;
+            throw e;
+        }
+    }
+
+    private void sample() {
+        Map<String, Double> values = new LinkedHashMap<>();
+        try {
+            String exposition = scrape();
+            for (String[] gauge : GAUGES) {
+                Double value = sum(exposition, gauge[1], gauge[2]);
+                if (value != null) {
+                    values.put(gauge[0], gauge[0].endsWith("Percent") ? value * 100 : value);
+                }
+            }
+            Map<String, Double> gc = new LinkedHashMap<>();
+            gc.put("count", orZero(sum(exposition, "jvm_gc_pause_seconds_count", null)));
+            gc.put("sum", orZero(sum(exposition, "jvm_gc_pause_seconds_sum", null)));
+            synchronized (samples) {
+                if (first == null) {
+                    first = gc;
+                }
+                last = gc;
+            }
+        } catch (IOException | RuntimeException e) {
+            synchronized (samples) {
+                failures++;
+            }
+        }
+
+        Double rss = residentBytes();
+        if (rss != null) {
+            values.put("residentBytes", rss);
+        }
+        synchronized (samples) {
+            values.forEach((name, value) -> samples.computeIfAbsent(name, key -> new Sample()).add(value));
+        }
+    }
+
+    /**
+     * Sum every series of a metric, optionally only those carrying a label.
+     */
+    static Double sum(String exposition, String metric, String label) {
+        Double total = null;
+        for (String line : exposition.split("\n")) {
+            if (line.startsWith("#") || !(line.startsWith(metric + "{") || line.startsWith(metric + " "))) {
+                continue;
+            }
+            if (label != null && !line.contains(label)) {
+                continue;
+            }
+            double value = Double.parseDouble(line.substring(line.lastIndexOf(' ') + 1));
+            if (!Double.isNaN(value)) {
+                total = (total == null ? 0 : total) + value;
+            }
+        }
+        return total;
+    }
+
+    private static double orZero(Double value) {
+        return value != null ? value : 0;
+    }
+
+    private Double residentBytes() {
+        if (pid == null) {
+            return null;
+        }
+        Path status = Paths.get("/proc", pid.toString(), "status");
+        try {
+            for (String line : Files.readAllLines(status)) {
+                if (line.startsWith("VmRSS:")) {
+                    return Double.parseDouble(line.replaceAll("[^0-9]", "")) * 1024;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not Linux, or the process is gone
+        }
+        return null;
+    }
+}
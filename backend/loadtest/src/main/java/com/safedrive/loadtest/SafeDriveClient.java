@@ -0,0 +1,245 @@
+package com.safedrive.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Thin HTTP client for the SafeDrive API. Every call returns the status and
+ * the number of body bytes read; bodies the generator does not need are
+ * drained and discarded.
+ */
+public class SafeDriveClient {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofMinutes(2);
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+
+    public static class Response {
+        private final int status;
+        private final long bytes;
+        private final JsonNode json;
+
+        Response(int status, long bytes, JsonNode json) {
+            this.status = status;
+            this.bytes = bytes;
+            this.json = json;
+        }
+
+        public boolean isSuccess() {
+            return status >= 200 && status < 300;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public JsonNode getJson() {
+            return json;
+        }
+    }
+
+    public SafeDriveClient(String baseUrl) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    public Response register(String name, String email, String password) throws IOException {
+        Map<String, String> body = new LinkedHashMap<>();
+        body.put("name", name);
+        body.put("email", email);
+        body.put("password", password);
+        return sendJson(post("/api/auth/register", null, body), true);
+    }
+
+    public Response login(String email, String password) throws IOException {
+        Map<String, String> body = new LinkedHashMap<>();
+        body.put("email", email);
+        body.put("password", password);
+        return sendJson(post("/api/auth/login", null, body), true);
+    }
+
+    public Response createNote(String token, String title, String content) throws IOException {
+        Map<String, String> body = new LinkedHashMap<>();
+        body.put("title", title);
+        body.put("content", content);
+        return sendJson(post("/api/notes", token, body), false);
+    }
+
+    public Response createCredential(String token, String service, String username, String password)
+            throws IOException {
+        Map<String, String> body = new LinkedHashMap<>();
+        body.put("service", service);
+        body.put("username", username);
+        body.put("password", password);
+        body.put("url", "https://" + service + "/login");
+        return sendJson(post("/api/credentials", token, body), false);
+    }
+
+    /**
+     * Upload {@code length} bytes of {@code data}, preceded by a random
+     * 16-byte prefix so every upload has distinct content and is actually
+     * stored rather than deduplicated.
+     *
+     * @param streaming use the endpoint that parses the body as it arrives
+     *                  instead of the container's spooling multipart support
+     */
+    public Response upload(String token, String filename, byte[] data, int length, boolean streaming)
+            throws IOException {
+        String boundary = "----safedrive-" + UUID.randomUUID();
+        String head = "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"" + filename + "\"\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n";
+        String tail = "\r\n--" + boundary + "--\r\n";
+        byte[] prefix = UUID.randomUUID().toString().substring(0, 16).getBytes(StandardCharsets.US_ASCII);
+
+        String path = streaming ? "/api/files/upload/stream" : "/api/files/upload";
+        HttpRequest request = authorized(URI.create(baseUrl + path), token)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.concat(
+                        HttpRequest.BodyPublishers.ofString(head),
+                        HttpRequest.BodyPublishers.ofByteArray(prefix),
+                        HttpRequest.BodyPublishers.ofByteArray(data, 0, Math.max(0, length - prefix.length)),
+                        HttpRequest.BodyPublishers.ofString(tail)))
+                .build();
+        return sendJson(request, true);
+    }
+
+    /**
+     * Stream {@code size} random bytes to the streaming upload endpoint at
+     * no more than {@code bytesPerSecond}, like a client on a slow link.
+     */
+    public Response uploadThrottled(String token, String filename, long size, long bytesPerSecond)
+            throws IOException {
+        String boundary = "----safedrive-" + UUID.randomUUID();
+        String head = "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"" + filename + "\"\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n";
+        String tail = "\r\n--" + boundary + "--\r\n";
+
+        HttpRequest request = authorized(URI.create(baseUrl + "/api/files/upload/stream"), token)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.concat(
+                        HttpRequest.BodyPublishers.ofString(head),
+                        HttpRequest.BodyPublishers.ofInputStream(() -> new ThrottledInputStream(size, bytesPerSecond)),
+                        HttpRequest.BodyPublishers.ofString(tail)))
+                .build();
+        return sendJson(request, false);
+    }
+
+    /**
+     * @param range a {@code Range} header value, or null for the whole file
+     */
+    public Response download(String token, long fileId, String range) throws IOException {
+        HttpRequest.Builder builder = authorized(URI.create(baseUrl + "/api/files/" + fileId), token).GET();
+        if (range != null) {
+            builder.header("Range", range);
+        }
+        return sendDrained(builder.build());
+    }
+
+    public Response get(String token, String path, Map<String, String> query) throws IOException {
+        StringBuilder uri = new StringBuilder(baseUrl).append(path);
+        char separator = '?';
+        for (Map.Entry<String, String> entry : query.entrySet()) {
+            uri.append(separator).append(entry.getKey()).append('=')
+                    .append(URLEncoder.encode(entry.getValue(), StandardCharsets.UTF_8));
+            separator = '&';
+        }
+        return sendDrained(authorized(URI.create(uri.toString()), token).GET().build());
+    }
+
+    /**
+     * Plain GET outside the API, for health checks.
+     */
+    public String fetch(String path) throws IOException {
+        return fetch(null, path);
+    }
+
+    /**
+     * Plain GET outside the API with an optional bearer token, for metrics
+     * scraping.
+     */
+    public String fetch(String token, String path) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(10))
+                .GET();
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        HttpRequest request = builder.build();
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IOException(path + " returned " + response.statusCode());
+            }
+            return response.body();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+    }
+
+    private HttpRequest post(String path, String token, Object body) throws IOException {
+        return authorized(URI.create(baseUrl + path), token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+    }
+
+    private HttpRequest.Builder authorized(URI uri, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(REQUEST_TIMEOUT);
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private Response sendJson(HttpRequest request, boolean parse) throws IOException {
+        try {
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            byte[] body = response.body();
+            JsonNode json = null;
+            if (parse && response.statusCode() < 300 && body.length > 0) {
+                json = objectMapper.readTree(body);
+            }
+            return new Response(response.statusCode(), body.length, json);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+    }
+
+    private Response sendDrained(HttpRequest request) throws IOException {
+        try {
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                return new Response(response.statusCode(), body.transferTo(OutputStream.nullOutputStream()), null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.safedrive.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the application jar as a child process against the configured
+ * PostgreSQL database, with its own upload directory, and waits until the
+ * health endpoint reports it ready. Output goes to
+ * {@code target/loadtest-server.log}.
+ */
+public class ServerProcess implements AutoCloseable {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    private final Process process;
+
+    private ServerProcess(Process process) {
+        this.process = process;
+    }
+
+    public static ServerProcess start(LoadTestConfig config) throws IOException, InterruptedException {
+        return start(config, List.of());
+    }
+
+    /**
+     * @param extraJvmArgs added after {@code --jvm-args}, e.g. system properties for one run
+     */
+    public static ServerProcess start(LoadTestConfig config, List<String> extraJvmArgs)
+            throws IOException, InterruptedException {
+        if (!Files.isRegularFile(config.getAppJar())) {
+            throw new IllegalStateException("Application jar not found at " + config.getAppJar()
+                    + "; build it with `mvn package -DskipTests` in the backend directory");
+        }
+        Path log = Path.of("target", "loadtest-server.log");
+        Files.createDirectories(log.getParent());
+        Files.createDirectories(config.getUploadDir());
+
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (!config.getJvmArgs().isBlank()) {
+            command.addAll(Arrays.asList(config.getJvmArgs().trim().split("\\s+")));
+        }
+        command.addAll(extraJvmArgs);
+        command.add("-jar");
+        command.add(config.getAppJar().toString());
+        command.add("--server.port=" + config.getPort());
+
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile());
+        builder.environment().put("DATABASE_URL", config.getDatabaseUrl());
+        builder.environment().put("UPLOAD_DIR", config.getUploadDir().toAbsolutePath().toString());
+        builder.environment().put("LOG_FILE", log.resolveSibling("loadtest-server-app.log").toString());
+        // Every simulated user registers and logs in from the same address
+        builder.environment().put("RATE_LIMIT_ENABLED", "false");
+
+        ServerProcess server = new ServerProcess(builder.start());
+        server.awaitReady(new SafeDriveClient("http://localhost:" + config.getPort()), log);
+        return server;
+    }
+
+    private void awaitReady(SafeDriveClient client, Path log) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Server exited with status " + process.exitValue() + ", see " + log);
+            }
+            try {
+                if (client.fetch("/actuator/health").contains("\"UP\"")) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(500);
+        }
+        close();
+        throw new IllegalStateException("Server did not become healthy within " + STARTUP_TIMEOUT + ", see " + log);
+    }
+
+    public long pid() {
+        return process.pid();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+        }
+    }
+}
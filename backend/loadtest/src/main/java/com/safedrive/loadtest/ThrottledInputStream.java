@@ -0,0 +1,58 @@
+package com.safedrive.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A fixed amount of random bytes, handed out in tenth-of-a-second slices
+ * so the stream never runs faster than the given rate.
+ */
+public class ThrottledInputStream extends InputStream {
+
+    private static final long SLICE_MILLIS = 100;
+
+    private final long sliceBytes;
+    private long remaining;
+    private long sliceLeft;
+
+    public ThrottledInputStream(long size, long bytesPerSecond) {
+        this.remaining = size;
+        this.sliceBytes = Math.max(1, bytesPerSecond * SLICE_MILLIS / 1000);
+        this.sliceLeft = sliceBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int n = read(single, 0, 1);
+        return n < 0 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (remaining == 0) {
+            return -1;
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (sliceLeft == 0) {
+            try {
+                Thread.sleep(SLICE_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while throttling");
+            }
+            sliceLeft = sliceBytes;
+        }
+        int count = (int) Math.min(len, Math.min(remaining, sliceLeft));
+        byte[] chunk = new byte[count];
+        ThreadLocalRandom.current().nextBytes(chunk);
+        System.arraycopy(chunk, 0, b, off, count);
+        remaining -= count;
+        sliceLeft -= count;
+        return count;
+    }
+}
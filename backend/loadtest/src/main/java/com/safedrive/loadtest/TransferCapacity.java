@@ -0,0 +1,166 @@
+package com.safedrive.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compares how many slow uploads the server carries at once with request
+ * handling on platform threads and on virtual threads. For each mode in
+ * {@code --modes} it starts the application jar, opens {@code --transfers}
+ * streaming uploads of {@code --transfer-size} together, each sent at
+ * {@code --transfer-rate} bytes per second, and meanwhile lists files every
+ * 100ms to see how long a cheap request waits behind them.
+ *
+ * The server is always started by this harness, since the mode is fixed at
+ * startup; {@code --base-url} is not supported.
+ */
+public class TransferCapacity {
+
+    private static final String PASSWORD = "loadtest-password";
+    private static final long PROBE_INTERVAL_MILLIS = 100;
+
+    private final LoadTestConfig config;
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        if (config.isExternal()) {
+            throw new IllegalArgumentException("TransferCapacity starts its own server; remove --base-url");
+        }
+        new TransferCapacity(config).run();
+    }
+
+    public TransferCapacity(LoadTestConfig config) {
+        this.config = config;
+    }
+
+    public void run() throws Exception {
+        Map<String, Object> results = new LinkedHashMap<>();
+        for (String mode : config.getModes()) {
+            boolean virtual = switch (mode.trim()) {
+                case "platform" -> false;
+                case "virtual" -> true;
+                default -> throw new IllegalArgumentException("Modes are platform and virtual, got " + mode);
+            };
+            System.out.println("Starting " + config.getAppJar() + " with " + mode.trim() + " threads");
+            try (ServerProcess server = ServerProcess.start(config,
+                    List.of("-Dspring.threads.virtual.enabled=" + virtual))) {
+                results.put(mode.trim(), measure(server));
+            }
+        }
+        report(results);
+    }
+
+    private Map<String, Object> measure(ServerProcess server) throws Exception {
+        SafeDriveClient client = new SafeDriveClient("http://localhost:" + config.getPort());
+        String email = "capacity-" + Long.toString(System.nanoTime(), 36) + "@loadtest.local";
+        SafeDriveClient.Response registered = client.register("Load Test", email, PASSWORD);
+        if (!registered.isSuccess()) {
+            throw new IllegalStateException("register " + email + " returned " + registered.getStatus());
+        }
+        String token = registered.getJson().path("token").asText();
+
+        EndpointStats uploads = new EndpointStats();
+        EndpointStats probes = new EndpointStats();
+        ResourceSampler sampler = new ResourceSampler(client, email, PASSWORD, server.pid());
+        sampler.start();
+
+        long start = System.nanoTime();
+        List<Future<?>> running = new ArrayList<>();
+        try (ExecutorService transfers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < config.getTransfers(); i++) {
+                String filename = "capacity-" + i + ".bin";
+                running.add(transfers.submit(() -> timed(uploads, () -> client.uploadThrottled(token, filename,
+                        config.getTransferSize(), config.getTransferRate()))));
+            }
+            Thread probe = Thread.ofVirtual().start(() -> {
+                while (running.stream().anyMatch(future -> !future.isDone())) {
+                    timed(probes, () -> client.get(token, "/api/files", Map.of("limit", "10")));
+                    try {
+                        Thread.sleep(PROBE_INTERVAL_MILLIS);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+            for (Future<?> future : running) {
+                future.get();
+            }
+            probe.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Map<String, Object> resources = sampler.stop();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("transfers", uploads.getRequests());
+        result.put("failed", uploads.getErrors());
+        result.put("outcomes", uploads.getOutcomes());
+        result.put("wallSeconds", seconds);
+        result.put("transferP50Ms", uploads.percentileMillis(50));
+        result.put("transferMaxMs", uploads.maxMillis());
+        result.put("peakActiveTransfers", peak(resources, "activeTransfers"));
+        result.put("peakLiveThreads", peak(resources, "liveThreads"));
+        result.put("peakResidentBytes", peak(resources, "residentBytes"));
+        result.put("probes", probes.getRequests());
+        result.put("probeErrors", probes.getErrors());
+        result.put("probeP50Ms", probes.percentileMillis(50));
+        result.put("probeP99Ms", probes.percentileMillis(99));
+        result.put("probeMaxMs", probes.maxMillis());
+        result.put("server", resources);
+        return result;
+    }
+
+    private interface Call {
+        SafeDriveClient.Response send() throws IOException;
+    }
+
+    private static void timed(EndpointStats stats, Call call) {
+        long start = System.nanoTime();
+        try {
+            SafeDriveClient.Response response = call.send();
+            stats.record(response.getStatus(), response.getBytes(), System.nanoTime() - start);
+        } catch (IOException | RuntimeException e) {
+            stats.recordFailure(e, System.nanoTime() - start);
+        }
+    }
+
+    private static double peak(Map<String, Object> resources, String name) {
+        return resources.get(name) instanceof Map<?, ?> sample ? (Double) sample.get("max") : Double.NaN;
+    }
+
+    private void report(Map<String, Object> results) throws IOException {
+        System.out.println();
+        System.out.printf("%d transfers of %d KB at %d KB/s each%n", config.getTransfers(),
+                config.getTransferSize() / 1024, config.getTransferRate() / 1024);
+        System.out.printf("%-10s %8s %7s %9s %11s %9s %10s %10s %10s%n", "Mode", "OK", "Failed", "Wall s",
+                "Peak active", "Threads", "Probe p50", "Probe p99", "Probe max");
+        results.forEach((mode, value) -> {
+            Map<?, ?> result = (Map<?, ?>) value;
+            long transfers = (Long) result.get("transfers");
+            long failed = (Long) result.get("failed");
+            System.out.printf("%-10s %8d %7d %9.1f %11.0f %9.0f %10.2f %10.2f %10.2f%n", mode, transfers - failed,
+                    failed, result.get("wallSeconds"), result.get("peakActiveTransfers"),
+                    result.get("peakLiveThreads"), result.get("probeP50Ms"), result.get("probeP99Ms"),
+                    result.get("probeMaxMs"));
+        });
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("transfers", config.getTransfers());
+        report.put("transferSize", config.getTransferSize());
+        report.put("transferRate", config.getTransferRate());
+        report.put("modes", results);
+
+        Path reportFile = Path.of("target", "transfer-capacity.json");
+        Files.createDirectories(reportFile.getParent());
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(reportFile.toFile(), report);
+        System.out.println("Report written to " + reportFile);
+    }
+}
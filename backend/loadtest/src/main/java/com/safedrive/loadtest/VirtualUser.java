@@ -0,0 +1,51 @@
+package com.safedrive.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * An account the generator acts as, with the files it has uploaded so
+ * downloads have something to fetch.
+ */
+public class VirtualUser {
+
+    private final String email;
+    private final String password;
+    private volatile String token;
+    private final List<long[]> files = new ArrayList<>();
+
+    public VirtualUser(String email, String password, String token) {
+        this.email = email;
+        this.password = password;
+        this.token = token;
+    }
+
+    public synchronized void addFile(long id, long size) {
+        files.add(new long[] { id, size });
+    }
+
+    /**
+     * @return {id, size} of a random file, or null before the first upload
+     */
+    public synchronized long[] randomFile(Random random) {
+        return files.isEmpty() ? null : files.get(random.nextInt(files.size()));
+    }
+
+    // Getters and Setters
+    public String getEmail() {
+        return email;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+}
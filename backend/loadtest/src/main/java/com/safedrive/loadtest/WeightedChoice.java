@@ -0,0 +1,68 @@
+package com.safedrive.loadtest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Picks among values with fixed relative weights, parsed from
+ * {@code value=weight,value=weight,...}.
+ */
+public class WeightedChoice<T> {
+
+    private final List<T> values = new ArrayList<>();
+    private final List<Double> weights = new ArrayList<>();
+    private double[] cumulative = new double[0];
+
+    public static <T> WeightedChoice<T> parse(String spec, Function<String, T> parser) {
+        WeightedChoice<T> choice = new WeightedChoice<>();
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected value=weight, got " + entry);
+            }
+            choice.add(parser.apply(parts[0].trim()), Double.parseDouble(parts[1].trim()));
+        }
+        if (choice.values.isEmpty()) {
+            throw new IllegalArgumentException("No choices in " + spec);
+        }
+        return choice;
+    }
+
+    private void add(T value, double weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("Weights cannot be negative");
+        }
+        values.add(value);
+        weights.add(weight);
+        double[] next = new double[cumulative.length + 1];
+        System.arraycopy(cumulative, 0, next, 0, cumulative.length);
+        next[cumulative.length] = (cumulative.length == 0 ? 0 : cumulative[cumulative.length - 1]) + weight;
+        cumulative = next;
+    }
+
+    public T next(Random random) {
+        double point = random.nextDouble() * cumulative[cumulative.length - 1];
+        for (int i = 0; i < cumulative.length; i++) {
+            if (point < cumulative[i]) {
+                return values.get(i);
+            }
+        }
+        return values.get(values.size() - 1);
+    }
+
+    public List<T> values() {
+        return values;
+    }
+
+    public Map<String, Double> describe(Function<T, String> naming) {
+        Map<String, Double> description = new LinkedHashMap<>();
+        for (int i = 0; i < values.size(); i++) {
+            description.put(naming.apply(values.get(i)), weights.get(i));
+        }
+        return description;
+    }
+}
@@ -0,0 +1,32 @@
+package com.safedrive.config;
+
+import jakarta.servlet.*;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts servlet container threads busy with a request. Transfers hand
+ * their body to {@link TransferLane} and give the thread back, so this is
+ * the load on the lane that serves metadata requests.
+ */
+@Component
+public class ApiLaneFilter implements Filter {
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        active.incrementAndGet();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            active.decrementAndGet();
+        }
+    }
+
+    public int getActive() {
+        return active.get();
+    }
+}
@@ -0,0 +1,151 @@
+package com.safedrive.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safedrive.exception.GlobalExceptionHandler.ErrorResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Caps the number of /api requests in progress, per class of endpoint,
+ * with a {@link GradientLimit} that shrinks as latency rises. Requests over
+ * the limit get 503 straight away, before the token is verified or a
+ * connection taken, so under overload the server keeps answering quickly
+ * instead of queueing until clients time out and retry.
+ *
+ * Classes are ranked: authenticated reads, then writes, then login and
+ * other anonymous calls, then transfers. While a class is near its limit,
+ * every class ranked below it is turned away too, so uploads give way to
+ * people browsing their files.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 10)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    // Share of a class's limit in use at which lower-ranked classes are shed
+    private static final double PRESSURE = 0.9;
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private static final Pattern UPLOAD_PATH = Pattern.compile(
+            "/api/files/(upload(/stream)?|uploads/[^/]+/(parts/\\d+|complete))");
+    private static final Pattern DOWNLOAD_PATH = Pattern.compile("/api/files/\\d+");
+
+    public enum RequestClass {
+        READ, WRITE, ANONYMOUS, TRANSFER
+    }
+
+    private final boolean enabled;
+    private final ObjectMapper objectMapper;
+    private final Map<RequestClass, GradientLimit> limits = new EnumMap<>(RequestClass.class);
+    private final Map<RequestClass, Counter> rejected = new EnumMap<>(RequestClass.class);
+
+    public ConcurrencyLimitFilter(ObjectMapper objectMapper, MeterRegistry registry,
+            @Value("${app.limits.enabled:true}") boolean enabled,
+            @Value("${app.limits.initial:20}") int initialLimit,
+            @Value("${app.limits.min:4}") int minLimit,
+            @Value("${app.limits.max:200}") int maxLimit) {
+        this.enabled = enabled;
+        this.objectMapper = objectMapper;
+        for (RequestClass requestClass : RequestClass.values()) {
+            GradientLimit limit = new GradientLimit(initialLimit, minLimit, maxLimit);
+            String tag = requestClass.name().toLowerCase();
+            limits.put(requestClass, limit);
+            Gauge.builder("safedrive.concurrency.limit", limit, GradientLimit::getLimit)
+                    .description("Requests of the class allowed in progress at once")
+                    .tag("class", tag)
+                    .register(registry);
+            Gauge.builder("safedrive.concurrency.inflight", limit, GradientLimit::getInFlight)
+                    .description("Requests of the class in progress")
+                    .tag("class", tag)
+                    .register(registry);
+            rejected.put(requestClass, Counter.builder("safedrive.concurrency.rejected")
+                    .description("Requests turned away with 503 by the concurrency limit")
+                    .tag("class", tag)
+                    .register(registry));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestClass requestClass = classify(request);
+        GradientLimit limit = limits.get(requestClass);
+        if (higherClassUnderPressure(requestClass) || !limit.tryAcquire()) {
+            rejected.get(requestClass).increment();
+            reject(response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean sampled = false;
+        try {
+            filterChain.doFilter(request, response);
+            // Transfers that went async are measured up to the hand-off; the transfer lane bounds the rest
+            if (response.getStatus() < 500) {
+                limit.release(System.nanoTime() - start);
+                sampled = true;
+            }
+        } finally {
+            if (!sampled) {
+                limit.release();
+            }
+        }
+    }
+
+    static RequestClass classify(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        String method = request.getMethod();
+        boolean read = method.equals("GET") || method.equals("HEAD");
+        if (read ? DOWNLOAD_PATH.matcher(path).matches() : UPLOAD_PATH.matcher(path).matches()) {
+            return RequestClass.TRANSFER;
+        }
+        // The token is not verified yet; a forged one is rejected by the JWT filter right after
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (path.startsWith("/api/auth/") || authorization == null || !authorization.startsWith("Bearer ")) {
+            return RequestClass.ANONYMOUS;
+        }
+        return read ? RequestClass.READ : RequestClass.WRITE;
+    }
+
+    private boolean higherClassUnderPressure(RequestClass requestClass) {
+        for (RequestClass higher : RequestClass.values()) {
+            if (higher == requestClass) {
+                return false;
+            }
+            GradientLimit limit = limits.get(higher);
+            if (limit.getInFlight() >= limit.getLimit() * PRESSURE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                new ErrorResponse("SERVICE_BUSY", "Server is overloaded, please retry"));
+    }
+}
@@ -10,6 +10,7 @@ import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Duration;
 
 @Configuration
 public class DatabaseConfig {
@@ -17,6 +18,30 @@ public class DatabaseConfig {
     @Value("${DATABASE_URL:jdbc:postgresql://localhost:5432/safedrive}")
     private String databaseUrl;
 
+    // Uploads only hold a connection for their short metadata transactions, so the pool
+    // is sized for request concurrency rather than for the number of transfers in flight
+    @Value("${spring.datasource.hikari.maximum-pool-size:20}")
+    private int maximumPoolSize;
+
+    @Value("${spring.datasource.hikari.minimum-idle:5}")
+    private int minimumIdle;
+
+    @Value("${spring.datasource.hikari.connection-timeout:30000}")
+    private long connectionTimeout;
+
+    @Value("${spring.datasource.hikari.idle-timeout:600000}")
+    private long idleTimeout;
+
+    @Value("${spring.datasource.hikari.max-lifetime:1800000}")
+    private long maxLifetime;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    // Virtual-thread mode only: callers queued for a connection before new ones are turned away
+    @Value("${app.virtual-threads.max-waiting-for-connection:1000}")
+    private int maxWaitingForConnection;
+
     @Bean
     @Primary
     public DataSource dataSource() throws URISyntaxException {
@@ -44,16 +69,22 @@ public class DatabaseConfig {
             jdbcUrl = databaseUrl;
         }
 
+        config.setPoolName("safedrive");
         config.setJdbcUrl(jdbcUrl);
         config.setDriverClassName("org.postgresql.Driver");
 
         // Connection pool settings
-        config.setMaximumPoolSize(20);
-        config.setMinimumIdle(5);
-        config.setConnectionTimeout(30000);
-        config.setIdleTimeout(600000);
-        config.setMaxLifetime(1800000);
+        config.setMaximumPoolSize(maximumPoolSize);
+        config.setMinimumIdle(minimumIdle);
+        config.setConnectionTimeout(connectionTimeout);
+        config.setIdleTimeout(idleTimeout);
+        config.setMaxLifetime(maxLifetime);
 
-        return new HikariDataSource(config);
+        HikariDataSource pool = new HikariDataSource(config);
+        if (!virtualThreads) {
+            return pool;
+        }
+        return new ConnectionPermitDataSource(pool, maximumPoolSize, Duration.ofMillis(connectionTimeout),
+                maxWaitingForConnection);
     }
 }
@@ -0,0 +1,120 @@
+package com.safedrive.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    @Value("${app.search.threads:8}")
+    private int searchThreads;
+
+    @Value("${app.search.queue-capacity:100}")
+    private int searchQueueCapacity;
+
+    @Value("${app.transfer.threads:64}")
+    private int transferThreads;
+
+    @Value("${app.transfer.queue-capacity:128}")
+    private int transferQueueCapacity;
+
+    @Value("${app.password.threads:0}")
+    private int passwordThreads;
+
+    @Value("${app.password.queue-capacity:64}")
+    private int passwordQueueCapacity;
+
+    @Value("${app.auth.threads:16}")
+    private int authThreads;
+
+    @Value("${app.auth.queue-capacity:256}")
+    private int authQueueCapacity;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    /**
+     * Runs the per-domain queries of a unified search side by side. The queue
+     * is bounded so a burst of searches is rejected instead of piling up. In
+     * virtual-thread mode the workers are virtual threads, but their number
+     * and the queue stay bounded.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor searchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(searchThreads);
+        executor.setMaxPoolSize(searchThreads);
+        executor.setQueueCapacity(searchQueueCapacity);
+        executor.setThreadNamePrefix("search-");
+        if (virtualThreads) {
+            executor.setThreadFactory(Thread.ofVirtual().name("search-", 0).factory());
+        }
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    /**
+     * Runs upload and download bodies (see {@link TransferLane}) so they do
+     * not hold the servlet container's request threads. Like the search pool
+     * it is bounded in threads and queue, and stays bounded in virtual-thread
+     * mode: it is the bulkhead that keeps transfers from crowding out
+     * metadata requests.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor transferExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(transferThreads);
+        executor.setMaxPoolSize(transferThreads);
+        executor.setQueueCapacity(transferQueueCapacity);
+        executor.setThreadNamePrefix("transfer-");
+        if (virtualThreads) {
+            executor.setThreadFactory(Thread.ofVirtual().name("transfer-", 0).factory());
+        }
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Hashes and verifies passwords (see {@link com.safedrive.service.PasswordService}).
+     * The work is pure CPU, so the pool defaults to one platform thread per
+     * core even in virtual-thread mode; a login storm queues here, and past
+     * the queue is refused with 429, while request threads stay free.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor passwordExecutor() {
+        int threads = passwordThreads > 0 ? passwordThreads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(passwordQueueCapacity);
+        executor.setThreadNamePrefix("password-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    /**
+     * Finishes a sign-in once its hash is done: creating the user, issuing
+     * the refresh token, storing an upgraded hash. That work waits for
+     * database connections, so it runs here and the password pool only
+     * hashes.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor authExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(authThreads);
+        executor.setMaxPoolSize(authThreads);
+        executor.setQueueCapacity(authQueueCapacity);
+        executor.setThreadNamePrefix("auth-");
+        if (virtualThreads) {
+            executor.setThreadFactory(Thread.ofVirtual().name("auth-", 0).factory());
+        }
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+}
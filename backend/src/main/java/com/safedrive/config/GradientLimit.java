@@ -0,0 +1,108 @@
+package com.safedrive.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A concurrency limit that follows request latency. Every window of samples
+ * the average latency is compared with a slow-moving baseline: while they
+ * agree the limit grows by roughly its square root, and as latency rises
+ * above the baseline (requests are queueing for CPU, connections or locks)
+ * the limit shrinks in proportion to the rise.
+ *
+ * The limit only grows while at least half of it is in use, so a quiet
+ * period does not leave a large limit behind for the next burst.
+ */
+public class GradientLimit {
+
+    // Latency may rise this much above the baseline before the limit shrinks
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final int WINDOW_SAMPLES = 20;
+    private static final int BASELINE_WINDOWS = 30;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+    private double baselineNanos;
+    private long windowNanos;
+    private int windowCount;
+    private int windowPeakInFlight;
+
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Takes a slot if fewer than {@link #getLimit()} requests are in flight.
+     * A successful call must be followed by exactly one
+     * {@link #release(long)} or {@link #release()}.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= getLimit()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /** Frees the slot and feeds the request's latency into the limit. */
+    public void release(long latencyNanos) {
+        int peak = inFlight.getAndDecrement();
+        sample(latencyNanos, peak);
+    }
+
+    /** Frees the slot without a sample, for requests that failed. */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void sample(long latencyNanos, int peakInFlight) {
+        windowNanos += latencyNanos;
+        windowCount++;
+        windowPeakInFlight = Math.max(windowPeakInFlight, peakInFlight);
+        if (windowCount < WINDOW_SAMPLES) {
+            return;
+        }
+
+        double average = (double) windowNanos / windowCount;
+        int peak = windowPeakInFlight;
+        windowNanos = 0;
+        windowCount = 0;
+        windowPeakInFlight = 0;
+
+        if (baselineNanos == 0) {
+            baselineNanos = average;
+        } else {
+            baselineNanos += (average - baselineNanos) / BASELINE_WINDOWS;
+            // After a long overload the baseline has drifted up; let it come down quickly
+            if (baselineNanos > 2 * average) {
+                baselineNanos = average;
+            }
+        }
+
+        double current = limit;
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * baselineNanos / average));
+        if (gradient == 1.0 && peak < current / 2) {
+            return;
+        }
+        double target = current * gradient + Math.sqrt(current);
+        double next = current * (1 - SMOOTHING) + target * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+}
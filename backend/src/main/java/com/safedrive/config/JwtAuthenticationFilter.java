@@ -1,8 +1,13 @@
 package com.safedrive.config;
 
 import com.safedrive.entity.User;
+import com.safedrive.service.TokenRevocationService;
 import com.safedrive.service.UserService;
 import com.safedrive.util.JwtUtil;
+import com.safedrive.util.ParsedToken;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -16,7 +21,9 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -29,27 +36,36 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Timer verifyValidTimer;
+    private Timer verifyInvalidTimer;
+    private Timer userLookupTimer;
+
+    @PostConstruct
+    void initMetrics() {
+        verifyValidTimer = authTimer("safedrive.auth.jwt.verify", "valid");
+        verifyInvalidTimer = authTimer("safedrive.auth.jwt.verify", "invalid");
+        userLookupTimer = authTimer("safedrive.auth.user.lookup", "loaded");
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
         String authHeader = request.getHeader("Authorization");
-        String token = null;
-        String email = null;
-
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
-            try {
-                email = jwtUtil.extractEmail(token);
-            } catch (Exception e) {
-                logger.error("Invalid JWT token: {}", e.getMessage());
-            }
-        }
 
-        if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            var userOptional = userService.findByEmail(email);
-            if (userOptional.isPresent() && jwtUtil.validateToken(token, email)) {
-                User user = userOptional.get();
+        if (authHeader != null && authHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            User user = resolveUser(authHeader.substring(7));
+            if (user != null) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(user, null,
                         Collections.emptyList());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -59,4 +75,54 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    private User resolveUser(String token) {
+        PrincipalCache.CachedPrincipal cached = principalCache.get(token);
+        if (cached != null) {
+            return revoked(cached.getToken()) ? null : cached.getUser();
+        }
+
+        ParsedToken parsed;
+        long startNanos = System.nanoTime();
+        try {
+            // Parsing verifies the signature and rejects expired tokens
+            parsed = jwtUtil.parseToken(token);
+            verifyValidTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        } catch (Exception e) {
+            verifyInvalidTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            logger.error("Invalid JWT token: {}", e.getMessage());
+            return null;
+        }
+        if (revoked(parsed)) {
+            return null;
+        }
+
+        startNanos = System.nanoTime();
+        var userOptional = userService.findByEmail(parsed.getSubject());
+        userLookupTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        if (userOptional.isEmpty()) {
+            return null;
+        }
+
+        principalCache.put(token, userOptional.get(), parsed);
+        return userOptional.get();
+    }
+
+    // A Bloom filter lookup unless the token might be on the denylist
+    private boolean revoked(ParsedToken parsed) {
+        if (!tokenRevocationService.isRevoked(parsed)) {
+            return false;
+        }
+        logger.warn("Rejected revoked token {} of {}", parsed.getId(), parsed.getSubject());
+        return true;
+    }
+
+    // Cache hits skip both steps; their rate is in the cache_gets metrics of the "principals" cache
+    private Timer authTimer(String name, String result) {
+        return Timer.builder(name)
+                .tag("result", result)
+                .serviceLevelObjectives(Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofMillis(10),
+                        Duration.ofMillis(25), Duration.ofMillis(50), Duration.ofMillis(100))
+                .register(meterRegistry);
+    }
 }
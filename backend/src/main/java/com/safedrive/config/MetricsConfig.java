@@ -0,0 +1,115 @@
+package com.safedrive.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import javax.sql.DataSource;
+
+/**
+ * Application meters that are not tied to a single request path. Request
+ * latency ({@code http.server.requests}), repository calls
+ * ({@code spring.data.repository.invocations}) and the Hikari pool
+ * ({@code hikaricp.connections.*}) are recorded by Spring Boot; their SLO
+ * buckets are configured under {@code management.metrics} in application.yml.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Value("${server.tomcat.threads.max:200}")
+    private int apiThreads;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Bean
+    public MeterBinder principalCacheMetrics(PrincipalCache principalCache) {
+        return registry -> CaffeineCacheMetrics.monitor(registry, principalCache.getCache(), "principals");
+    }
+
+    /**
+     * Share of the pool in use, 0..1; together with
+     * {@code hikaricp.connections.pending} this shows whether requests queue
+     * for a connection.
+     */
+    @Bean
+    public MeterBinder connectionPoolSaturation(DataSource dataSource) {
+        return registry -> {
+            HikariDataSource hikari = DataSourceUnwrapper.unwrap(dataSource, HikariDataSource.class);
+            if (hikari == null) {
+                return;
+            }
+            Gauge.builder("safedrive.db.pool.saturation", hikari, ds -> {
+                        var pool = ds.getHikariPoolMXBean();
+                        int max = ds.getMaximumPoolSize();
+                        return pool == null || max == 0 ? 0 : (double) pool.getActiveConnections() / max;
+                    })
+                    .description("Active connections divided by the maximum pool size")
+                    .tag("pool", hikari.getPoolName())
+                    .register(registry);
+
+            if (dataSource instanceof ConnectionPermitDataSource permits) {
+                Gauge.builder("safedrive.db.permits.waiting", permits, ConnectionPermitDataSource::getWaiting)
+                        .description("Virtual threads queued for a database connection")
+                        .tag("pool", hikari.getPoolName())
+                        .register(registry);
+            }
+        };
+    }
+
+    /**
+     * Load on each execution lane: {@code api} (container request threads),
+     * {@code transfer}, {@code search}, {@code password} and {@code auth}. Saturation is the share of the
+     * lane's threads and queue in use; at 1 the next request is turned away
+     * (transfer, search) or waits for a thread (api).
+     */
+    @Bean
+    public MeterBinder laneMetrics(ApiLaneFilter apiLane,
+            @Qualifier("transferExecutor") ThreadPoolTaskExecutor transferExecutor,
+            @Qualifier("searchExecutor") ThreadPoolTaskExecutor searchExecutor,
+            @Qualifier("passwordExecutor") ThreadPoolTaskExecutor passwordExecutor,
+            @Qualifier("authExecutor") ThreadPoolTaskExecutor authExecutor) {
+        return registry -> {
+            Gauge.builder("safedrive.lane.active", apiLane, ApiLaneFilter::getActive)
+                    .description("Requests being processed in the lane")
+                    .tag("lane", "api")
+                    .register(registry);
+            // Virtual request threads have no fixed limit to saturate
+            if (!virtualThreads) {
+                Gauge.builder("safedrive.lane.saturation", apiLane, lane -> (double) lane.getActive() / apiThreads)
+                        .description("Share of the lane's capacity in use")
+                        .tag("lane", "api")
+                        .register(registry);
+            }
+            executorLane(registry, "transfer", transferExecutor);
+            executorLane(registry, "search", searchExecutor);
+            executorLane(registry, "password", passwordExecutor);
+            executorLane(registry, "auth", authExecutor);
+        };
+    }
+
+    private static void executorLane(MeterRegistry registry, String lane, ThreadPoolTaskExecutor executor) {
+        Gauge.builder("safedrive.lane.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .description("Requests being processed in the lane")
+                .tag("lane", lane)
+                .register(registry);
+        Gauge.builder("safedrive.lane.queued", executor, ThreadPoolTaskExecutor::getQueueSize)
+                .description("Requests waiting for a thread in the lane")
+                .tag("lane", lane)
+                .register(registry);
+        Gauge.builder("safedrive.lane.saturation", executor, pool -> {
+                    int capacity = pool.getMaxPoolSize() + pool.getQueueCapacity();
+                    return (double) (pool.getActiveCount() + pool.getQueueSize()) / capacity;
+                })
+                .description("Share of the lane's capacity in use")
+                .tag("lane", lane)
+                .register(registry);
+    }
+}
@@ -0,0 +1,131 @@
+package com.safedrive.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.safedrive.entity.User;
+import com.safedrive.util.ParsedToken;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+
+/**
+ * Verified tokens and the users they resolved to, keyed by a SHA-256 digest
+ * of the token so raw bearer tokens are never kept in memory. An entry lives
+ * for at most the configured TTL and never past the token's own expiry.
+ */
+@Component
+public class PrincipalCache {
+
+    @Value("${app.jwt.principal-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${app.jwt.principal-cache.ttl:5m}")
+    private Duration ttl;
+
+    private Cache<String, CachedPrincipal> cache;
+
+    public static class CachedPrincipal {
+        private final User user;
+        private final ParsedToken token;
+
+        public CachedPrincipal(User user, ParsedToken token) {
+            this.user = user;
+            this.token = token;
+        }
+
+        public User getUser() {
+            return user;
+        }
+
+        public ParsedToken getToken() {
+            return token;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, CachedPrincipal>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedPrincipal value, long currentTime) {
+                        Instant expiration = value.getToken().getExpiration();
+                        if (expiration == null) {
+                            return ttl.toNanos();
+                        }
+                        long untilTokenExpiry = Duration.between(Instant.now(), expiration).toNanos();
+                        return Math.max(0, Math.min(ttl.toNanos(), untilTokenExpiry));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedPrincipal value, long currentTime,
+                            long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedPrincipal value, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    public CachedPrincipal get(String token) {
+        CachedPrincipal cached = cache.getIfPresent(digest(token));
+        // Expiry is checked here too because eviction is only approximately on time
+        if (cached != null && cached.getToken().isExpired()) {
+            return null;
+        }
+        return cached;
+    }
+
+    public void put(String token, User user, ParsedToken parsed) {
+        cache.put(digest(token), new CachedPrincipal(user, parsed));
+    }
+
+    /**
+     * Drop every cached token of the given user. Inside a transaction the
+     * entries are evicted again once it completes, so a request that read
+     * the old row in the meantime cannot leave it in the cache.
+     */
+    public void invalidateUser(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictUser(userId);
+                }
+            });
+        }
+        evictUser(userId);
+    }
+
+    public Cache<String, CachedPrincipal> getCache() {
+        return cache;
+    }
+
+    private void evictUser(Long userId) {
+        cache.asMap().values().removeIf(cached -> userId.equals(cached.getUser().getId()));
+    }
+
+    private String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.safedrive.config;
+
+import com.safedrive.ratelimit.LocalRateLimiter;
+import com.safedrive.ratelimit.PostgresRateLimiter;
+import com.safedrive.ratelimit.RateLimiter;
+import com.safedrive.repository.RateLimitBucketRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RateLimitConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitConfig.class);
+
+    @Value("${app.rate-limit.store:local}")
+    private String store;
+
+    @Value("${app.rate-limit.max-keys:100000}")
+    private long maxKeys;
+
+    @Bean
+    public RateLimiter rateLimiter(RateLimitBucketRepository bucketRepository) {
+        switch (store.toLowerCase()) {
+            case "local":
+                logger.info("Keeping rate limit buckets in memory (up to {} keys)", maxKeys);
+                return new LocalRateLimiter(maxKeys);
+
+            case "postgres":
+                logger.info("Keeping rate limit buckets in PostgreSQL, shared across nodes");
+                return new PostgresRateLimiter(bucketRepository);
+
+            default:
+                throw new IllegalStateException("Unknown app.rate-limit.store: " + store);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.safedrive.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safedrive.entity.User;
+import com.safedrive.exception.GlobalExceptionHandler.ErrorResponse;
+import com.safedrive.ratelimit.RateLimitDecision;
+import com.safedrive.ratelimit.RateLimitPolicy;
+import com.safedrive.ratelimit.RateLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-client request budgets. Runs right after {@link JwtAuthenticationFilter}
+ * so a signed-in user is counted by id wherever they connect from; anonymous
+ * calls, and login and registration always, are counted by IP address.
+ * Behind a proxy that address must come from {@code X-Forwarded-For}
+ * (see {@code server.forward-headers-strategy} in the prod profile), or
+ * every client would share the proxy's bucket.
+ * Every limited response carries {@code RateLimit-Limit},
+ * {@code RateLimit-Remaining}, {@code RateLimit-Reset} and
+ * {@code RateLimit-Policy}; a request over budget gets 429 with
+ * {@code Retry-After}.
+ *
+ * Policies, first match wins: {@code login} for login and registration
+ * (each attempt costs a BCrypt hash), {@code upload} for uploads and
+ * chunk parts, {@code api} for everything else under /api.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final boolean enabled;
+    private final RateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+    private final RateLimitPolicy login;
+    private final RateLimitPolicy upload;
+    private final RateLimitPolicy api;
+    private final Map<String, Counter> rejected = new HashMap<>();
+
+    public RateLimitFilter(RateLimiter rateLimiter, ObjectMapper objectMapper, MeterRegistry registry,
+            @Value("${app.rate-limit.enabled:true}") boolean enabled,
+            @Value("${app.rate-limit.login.capacity:10}") int loginCapacity,
+            @Value("${app.rate-limit.login.period:1m}") Duration loginPeriod,
+            @Value("${app.rate-limit.upload.capacity:120}") int uploadCapacity,
+            @Value("${app.rate-limit.upload.period:1m}") Duration uploadPeriod,
+            @Value("${app.rate-limit.api.capacity:1200}") int apiCapacity,
+            @Value("${app.rate-limit.api.period:1m}") Duration apiPeriod) {
+        this.enabled = enabled;
+        this.rateLimiter = rateLimiter;
+        this.objectMapper = objectMapper;
+        this.login = new RateLimitPolicy("login", loginCapacity, loginPeriod);
+        this.upload = new RateLimitPolicy("upload", uploadCapacity, uploadPeriod);
+        this.api = new RateLimitPolicy("api", apiCapacity, apiPeriod);
+        for (RateLimitPolicy policy : new RateLimitPolicy[] { login, upload, api }) {
+            rejected.put(policy.getName(), Counter.builder("safedrive.ratelimit.rejected")
+                    .description("Requests turned away with 429 by a rate limit policy")
+                    .tag("policy", policy.getName())
+                    .register(registry));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RateLimitPolicy policy = policyFor(request);
+        Long userId = policy == login ? null : currentUserId();
+        String client = userId != null ? "user:" + userId : "ip:" + request.getRemoteAddr();
+
+        RateLimitDecision decision = rateLimiter.tryConsume(policy.getName() + ":" + client, policy);
+        response.setHeader("RateLimit-Limit", Integer.toString(policy.getCapacity()));
+        response.setHeader("RateLimit-Remaining", Long.toString(decision.getRemaining()));
+        response.setHeader("RateLimit-Reset", Long.toString(seconds(decision.getResetAfter())));
+        response.setHeader("RateLimit-Policy",
+                policy.getCapacity() + ";w=" + policy.getPeriod().toSeconds());
+        if (decision.isAllowed()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        rejected.get(policy.getName()).increment();
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, seconds(decision.getRetryAfter()))));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                new ErrorResponse("RATE_LIMITED", "Too many requests, please slow down"));
+    }
+
+    private RateLimitPolicy policyFor(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        String method = request.getMethod();
+        if (method.equals("POST") && (path.equals("/api/auth/login") || path.equals("/api/auth/register"))) {
+            return login;
+        }
+        if ((method.equals("POST") || method.equals("PUT")) && path.startsWith("/api/files/upload")) {
+            return upload;
+        }
+        return api;
+    }
+
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof User user ? user.getId() : null;
+    }
+
+    private static long seconds(Duration duration) {
+        return (duration.toMillis() + 999) / 1000;
+    }
+}
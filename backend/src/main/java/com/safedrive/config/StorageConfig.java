@@ -0,0 +1,101 @@
+package com.safedrive.config;
+
+import com.safedrive.storage.LocalStorageBackend;
+import com.safedrive.storage.S3StorageBackend;
+import com.safedrive.storage.ShardedStorageBackend;
+import com.safedrive.storage.StorageBackend;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Configuration
+public class StorageConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageConfig.class);
+
+    @Value("${app.storage.type:local}")
+    private String storageType;
+
+    @Value("${app.upload.dir:uploads}")
+    private String uploadDir;
+
+    @Value("${app.storage.sharded.volumes:}")
+    private List<String> shardVolumes;
+
+    @Value("${app.storage.s3.bucket:safedrive}")
+    private String s3Bucket;
+
+    @Value("${app.storage.s3.region:us-east-1}")
+    private String s3Region;
+
+    @Value("${app.storage.s3.endpoint:}")
+    private String s3Endpoint;
+
+    @Value("${app.storage.s3.access-key:}")
+    private String s3AccessKey;
+
+    @Value("${app.storage.s3.secret-key:}")
+    private String s3SecretKey;
+
+    @Value("${app.storage.s3.path-style-access:false}")
+    private boolean s3PathStyleAccess;
+
+    // Objects larger than this are uploaded in parts of this size
+    @Value("${app.storage.s3.part-size:64MB}")
+    private DataSize s3PartSize;
+
+    @Bean
+    public StorageBackend storageBackend() {
+        switch (storageType.toLowerCase()) {
+            case "local":
+                logger.info("Using local storage under {}", uploadDir);
+                return new LocalStorageBackend(Paths.get(uploadDir));
+
+            case "sharded":
+                List<Path> volumes = shardVolumes.stream()
+                        .filter(volume -> !volume.isBlank())
+                        .map(volume -> Paths.get(volume.trim()))
+                        .collect(Collectors.toList());
+                logger.info("Using sharded storage across volumes {}", volumes);
+                return new ShardedStorageBackend(volumes);
+
+            case "s3":
+                S3ClientBuilder builder = S3Client.builder()
+                        .region(Region.of(s3Region))
+                        .forcePathStyle(s3PathStyleAccess);
+
+                // A custom endpoint points the client at MinIO or another S3-compatible server
+                if (!s3Endpoint.isBlank()) {
+                    builder.endpointOverride(URI.create(s3Endpoint));
+                }
+                if (!s3AccessKey.isBlank()) {
+                    builder.credentialsProvider(StaticCredentialsProvider.create(
+                            AwsBasicCredentials.create(s3AccessKey, s3SecretKey)));
+                } else {
+                    builder.credentialsProvider(DefaultCredentialsProvider.builder().build());
+                }
+
+                logger.info("Using S3 storage in bucket {} ({})", s3Bucket,
+                        s3Endpoint.isBlank() ? s3Region : s3Endpoint);
+                return new S3StorageBackend(builder.build(), s3Bucket, s3PartSize.toBytes());
+
+            default:
+                throw new IllegalStateException("Unknown app.storage.type: " + storageType);
+        }
+    }
+}
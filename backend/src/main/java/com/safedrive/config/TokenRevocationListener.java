@@ -0,0 +1,103 @@
+package com.safedrive.config;
+
+import com.safedrive.service.TokenRevocationService;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.stereotype.Component;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+/**
+ * Keeps a dedicated connection (outside the pool) listening on the
+ * {@code token_revoked} channel and feeds each revoked token id to
+ * {@link TokenRevocationService}. After a reconnect the filter is rebuilt,
+ * since notifications sent while disconnected are lost.
+ */
+@Component
+public class TokenRevocationListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationListener.class);
+
+    private static final String CHANNEL = "token_revoked";
+    private static final int POLL_MILLIS = 5000;
+    private static final long RECONNECT_DELAY_MILLIS = 5000;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    @PostConstruct
+    void start() {
+        running = true;
+        thread = Thread.ofPlatform().daemon().name("token-revocation-listener").start(this::listen);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        thread.interrupt();
+        thread.join(POLL_MILLIS);
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = connect()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                tokenRevocationService.rebuild();
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(POLL_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            tokenRevocationService.onRevoked(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("Token revocation listener disconnected, retrying in {}ms: {}", RECONNECT_DELAY_MILLIS,
+                        e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private Connection connect() throws SQLException {
+        HikariDataSource hikari = DataSourceUnwrapper.unwrap(dataSource, HikariDataSource.class);
+        if (hikari == null) {
+            throw new IllegalStateException("Token revocation listener needs a Hikari data source");
+        }
+        Properties properties = new Properties();
+        if (hikari.getUsername() != null) {
+            properties.setProperty("user", hikari.getUsername());
+        }
+        if (hikari.getPassword() != null) {
+            properties.setProperty("password", hikari.getPassword());
+        }
+        return DriverManager.getConnection(hikari.getJdbcUrl(), properties);
+    }
+}
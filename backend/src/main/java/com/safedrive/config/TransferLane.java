@@ -0,0 +1,62 @@
+package com.safedrive.config;
+
+import com.safedrive.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * Moves the body of an upload or download off the servlet container's
+ * request thread onto {@code transferExecutor}. The request thread is
+ * returned as soon as the handler has checked access, so a burst of large
+ * transfers queues here instead of occupying the threads that list notes
+ * or log users in. When every transfer thread is busy and the queue is
+ * full, the request is answered with 503 and a Retry-After header.
+ */
+@Component
+public class TransferLane {
+
+    // A transfer ends when its body is through or the client goes away; the container's
+    // default async timeout (30s) would cut off any large file
+    private static final long NO_TIMEOUT = -1;
+
+    private final ThreadPoolTaskExecutor transferExecutor;
+    private final Duration retryAfter;
+    private final Counter rejected;
+    private final AsyncTaskExecutor admitting = this::admit;
+
+    public TransferLane(@Qualifier("transferExecutor") ThreadPoolTaskExecutor transferExecutor,
+            MeterRegistry registry, @Value("${app.transfer.retry-after:5s}") Duration retryAfter) {
+        this.transferExecutor = transferExecutor;
+        this.retryAfter = retryAfter;
+        this.rejected = Counter.builder("safedrive.lane.rejected")
+                .description("Requests turned away because their lane was full")
+                .tag("lane", "transfer")
+                .register(registry);
+    }
+
+    /**
+     * @param transfer the handler's work; runs with the caller's security
+     *                 context and may use the request and response
+     */
+    public <T> WebAsyncTask<T> run(Callable<T> transfer) {
+        return new WebAsyncTask<>(NO_TIMEOUT, admitting, transfer);
+    }
+
+    private void admit(Runnable task) {
+        try {
+            transferExecutor.execute(task);
+        } catch (TaskRejectedException e) {
+            rejected.increment();
+            throw new ServiceBusyException("Too many transfers in progress, please retry", retryAfter);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.safedrive.content;
+
+import com.safedrive.entity.FileEntity;
+
+/**
+ * What {@link ContentInspector} found out about a body: its type, taken from
+ * the bytes rather than the client, and whatever cheap metadata the format
+ * carries near its start. Fields that do not apply, or could not be read,
+ * are {@code null}.
+ */
+public class ContentInfo {
+    private final String contentType;
+    private Integer width;
+    private Integer height;
+    private Integer pageCount;
+    private Long durationMillis;
+
+    public ContentInfo(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public void applyTo(FileEntity file) {
+        file.setContentType(contentType);
+        file.setWidth(width);
+        file.setHeight(height);
+        file.setPageCount(pageCount);
+        file.setDurationMillis(durationMillis);
+    }
+
+    // Getters and Setters
+    public String getContentType() {
+        return contentType;
+    }
+
+    public Integer getWidth() {
+        return width;
+    }
+
+    public Integer getHeight() {
+        return height;
+    }
+
+    void setDimensions(int width, int height) {
+        if (width > 0 && height > 0) {
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    public Integer getPageCount() {
+        return pageCount;
+    }
+
+    void setPageCount(int pageCount) {
+        if (pageCount > 0) {
+            this.pageCount = pageCount;
+        }
+    }
+
+    public Long getDurationMillis() {
+        return durationMillis;
+    }
+
+    void setDurationMillis(long durationMillis) {
+        if (durationMillis > 0) {
+            this.durationMillis = durationMillis;
+        }
+    }
+}
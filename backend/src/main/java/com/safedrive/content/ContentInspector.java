@@ -0,0 +1,228 @@
+package com.safedrive.content;
+
+/**
+ * Looks at a body as it streams past, so detecting its type and reading
+ * its metadata costs no extra read. The first {@value #HEAD_SIZE} bytes are
+ * kept for the type signature and the header fields of most formats. Two
+ * formats keep what matters further in, and get a scanner fed with every
+ * byte: PDF page objects, and the {@code moov} box of MP4/QuickTime, which
+ * many encoders write at the end of the file. Not thread-safe; one
+ * inspector per body.
+ */
+public class ContentInspector {
+
+    static final int HEAD_SIZE = 64 * 1024;
+    // Enough of moov for mvhd and the first track header
+    private static final int MOVIE_CAPTURE_SIZE = 64 * 1024;
+    private static final int SIGNATURE_LENGTH = 8;
+
+    private final byte[] head = new byte[HEAD_SIZE];
+    private int headLength;
+    private long size;
+    private boolean scannerChosen;
+    private Scanner scanner;
+
+    private interface Scanner {
+        void update(byte[] b, int off, int len);
+
+        void finish(ContentInfo info);
+    }
+
+    public void update(byte[] b, int off, int len) {
+        int copied = 0;
+        if (headLength < HEAD_SIZE) {
+            copied = Math.min(len, HEAD_SIZE - headLength);
+            System.arraycopy(b, off, head, headLength, copied);
+            headLength += copied;
+        }
+        size += len;
+
+        if (!scannerChosen) {
+            if (headLength < SIGNATURE_LENGTH) {
+                return;
+            }
+            scannerChosen = true;
+            scanner = scannerFor(head, headLength);
+            if (scanner != null) {
+                // Everything so far is the head plus whatever of this chunk did not fit in it
+                scanner.update(head, 0, headLength);
+                scanner.update(b, off + copied, len - copied);
+            }
+        } else if (scanner != null) {
+            scanner.update(b, off, len);
+        }
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @param declaredType the type the client sent, used only where the
+     *        bytes do not decide (see {@link ContentTypes#detect})
+     */
+    public ContentInfo inspect(String declaredType) {
+        String type = ContentTypes.detect(head, headLength, size > headLength, declaredType);
+        ContentInfo info = new ContentInfo(type);
+        MediaMetadata.fromHead(type, head, headLength, size, info);
+        if (scanner != null) {
+            scanner.finish(info);
+        }
+        return info;
+    }
+
+    private static Scanner scannerFor(byte[] head, int length) {
+        if (ContentTypes.startsWith(head, length, 0, "%PDF-")) {
+            return new PdfPageCounter();
+        }
+        if (ContentTypes.startsWith(head, length, 4, "ftyp")) {
+            return new MovieScanner();
+        }
+        return null;
+    }
+
+    /**
+     * Counts {@code /Type /Page} dictionaries (not {@code /Pages}). Files
+     * that keep their page objects in compressed object streams show none,
+     * and get no page count rather than a wrong one.
+     */
+    private static class PdfPageCounter implements Scanner {
+        private static final byte[] TYPE = "/Type".getBytes();
+        private static final byte[] PAGE = "/Page".getBytes();
+
+        private enum Phase {
+            TYPE, GAP, PAGE, AFTER
+        }
+
+        private Phase phase = Phase.TYPE;
+        private int matched;
+        private int pages;
+
+        @Override
+        public void update(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                step(b[i]);
+            }
+        }
+
+        private void step(byte c) {
+            switch (phase) {
+                case TYPE -> {
+                    if (c == TYPE[matched]) {
+                        if (++matched == TYPE.length) {
+                            phase = Phase.GAP;
+                        }
+                    } else {
+                        restart(c);
+                    }
+                }
+                case GAP -> {
+                    if (!isWhitespace(c)) {
+                        phase = Phase.PAGE;
+                        matched = 0;
+                        step(c);
+                    }
+                }
+                case PAGE -> {
+                    if (c == PAGE[matched]) {
+                        if (++matched == PAGE.length) {
+                            phase = Phase.AFTER;
+                        }
+                    } else {
+                        restart(c);
+                    }
+                }
+                case AFTER -> {
+                    if (!Character.isLetterOrDigit(c)) {
+                        pages++;
+                    }
+                    restart(c);
+                }
+            }
+        }
+
+        private void restart(byte c) {
+            phase = Phase.TYPE;
+            matched = c == '/' ? 1 : 0;
+        }
+
+        private static boolean isWhitespace(byte c) {
+            return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f' || c == 0;
+        }
+
+        @Override
+        public void finish(ContentInfo info) {
+            info.setPageCount(pages);
+        }
+    }
+
+    /**
+     * Walks the top-level boxes of an ISO media file, skipping their bodies
+     * without looking at them, and keeps the start of {@code moov} wherever
+     * it turns up.
+     */
+    private static class MovieScanner implements Scanner {
+        private final byte[] header = new byte[16];
+        private int headerLength;
+        private long skip;
+        private byte[] movie;
+        private int movieLength;
+        private boolean done;
+
+        @Override
+        public void update(byte[] b, int off, int len) {
+            int i = off;
+            int end = off + len;
+            while (i < end && !done) {
+                if (skip > 0) {
+                    int n = (int) Math.min(skip, end - i);
+                    skip -= n;
+                    i += n;
+                } else if (movie != null) {
+                    int n = Math.min(end - i, movie.length - movieLength);
+                    System.arraycopy(b, i, movie, movieLength, n);
+                    movieLength += n;
+                    i += n;
+                    done = movieLength == movie.length;
+                } else {
+                    header[headerLength++] = b[i++];
+                    boxHeader();
+                }
+            }
+        }
+
+        private void boxHeader() {
+            if (headerLength < 8) {
+                return;
+            }
+            long size = ContentTypes.be32(header, 0);
+            if (size == 1) {
+                if (headerLength < 16) {
+                    return;
+                }
+                size = ContentTypes.be32(header, 8) << 32 | ContentTypes.be32(header, 12);
+            }
+            int length = headerLength;
+            headerLength = 0;
+            if (size < length) {
+                // Zero means "to the end of the file"; anything else this small is not a box
+                done = true;
+                return;
+            }
+            long body = size - length;
+            if (ContentTypes.startsWith(header, 8, 4, "moov")) {
+                movie = new byte[(int) Math.min(body, MOVIE_CAPTURE_SIZE)];
+                done = movie.length == 0;
+            } else {
+                skip = body;
+            }
+        }
+
+        @Override
+        public void finish(ContentInfo info) {
+            if (movie != null) {
+                MediaMetadata.fromMovie(movie, movieLength, info);
+            }
+        }
+    }
+}
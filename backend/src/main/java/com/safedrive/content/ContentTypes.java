@@ -0,0 +1,301 @@
+package com.safedrive.content;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Names the type of a body from its first bytes. Formats with a signature
+ * are recognised by it whatever the client declared. Text is recognised as
+ * such, and then the declared type is kept if it is a text type, since
+ * nothing in the bytes tells CSV from plain text; HTML and SVG are only
+ * reported when the content looks like them. Anything else is
+ * {@code application/octet-stream}.
+ */
+public final class ContentTypes {
+
+    public static final String OCTET_STREAM = "application/octet-stream";
+
+    private static final Set<String> TEXT_TYPES = Set.of("application/json", "application/xml",
+            "application/javascript", "application/x-yaml", "application/yaml", "application/sql",
+            "application/x-sh");
+
+    private static final Set<String> OLE_TYPES = Set.of("application/msword", "application/vnd.ms-excel",
+            "application/vnd.ms-powerpoint", "application/vnd.ms-outlook");
+
+    private ContentTypes() {
+    }
+
+    /**
+     * @param head the first bytes of the body, up to {@code length}
+     * @param truncated whether the body continues past {@code length}
+     * @param declared the type the client sent, possibly {@code null}
+     */
+    public static String detect(byte[] head, int length, boolean truncated, String declared) {
+        String claimed = normalize(declared);
+        String binary = binaryType(head, length, claimed);
+        if (binary != null) {
+            return binary;
+        }
+        String text = decodeText(head, length, truncated);
+        if (text == null) {
+            return OCTET_STREAM;
+        }
+        return textType(text, claimed);
+    }
+
+    /**
+     * The declared type without parameters, lower case; {@code null} if blank.
+     */
+    public static String normalize(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        int semicolon = contentType.indexOf(';');
+        String base = (semicolon >= 0 ? contentType.substring(0, semicolon) : contentType).trim()
+                .toLowerCase(Locale.ROOT);
+        return base.isEmpty() ? null : base;
+    }
+
+    private static String binaryType(byte[] b, int n, String claimed) {
+        if (startsWith(b, n, 0, "%PDF-")) {
+            return "application/pdf";
+        }
+        if (startsWith(b, n, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return "image/png";
+        }
+        if (startsWith(b, n, 0, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(b, n, 0, "GIF87a") || startsWith(b, n, 0, "GIF89a")) {
+            return "image/gif";
+        }
+        if (startsWith(b, n, 0, "RIFF") && n >= 12) {
+            if (startsWith(b, n, 8, "WEBP")) {
+                return "image/webp";
+            }
+            if (startsWith(b, n, 8, "WAVE")) {
+                return "audio/wav";
+            }
+            if (startsWith(b, n, 8, "AVI ")) {
+                return "video/x-msvideo";
+            }
+        }
+        if (startsWith(b, n, 0, "BM") && n >= 26 && le32(b, 14) >= 12 && le32(b, 14) <= 124) {
+            return "image/bmp";
+        }
+        if (startsWith(b, n, 0, 'I', 'I', 42, 0) || startsWith(b, n, 0, 'M', 'M', 0, 42)) {
+            return "image/tiff";
+        }
+        if (startsWith(b, n, 0, 0, 0, 1, 0) && n >= 6 && le16(b, 4) > 0) {
+            return "image/x-icon";
+        }
+        if (startsWith(b, n, 4, "ftyp") && n >= 12) {
+            return isoMediaType(new String(b, 8, 4, StandardCharsets.ISO_8859_1));
+        }
+        if (startsWith(b, n, 0, 0x1A, 0x45, 0xDF, 0xA3)) {
+            return indexOf(b, Math.min(n, 64), "webm") >= 0 ? "video/webm" : "video/x-matroska";
+        }
+        if (startsWith(b, n, 0, "OggS")) {
+            return "audio/ogg";
+        }
+        if (startsWith(b, n, 0, "fLaC")) {
+            return "audio/flac";
+        }
+        if (startsWith(b, n, 0, "ID3") || MediaMetadata.isMp3Frame(b, n, 0)) {
+            return "audio/mpeg";
+        }
+        if (startsWith(b, n, 0, "PK", 3, 4)) {
+            return zipType(b, n);
+        }
+        if (startsWith(b, n, 0, 0x1F, 0x8B)) {
+            return "application/gzip";
+        }
+        if (startsWith(b, n, 0, "BZh")) {
+            return "application/x-bzip2";
+        }
+        if (startsWith(b, n, 0, 0xFD, '7', 'z', 'X', 'Z', 0)) {
+            return "application/x-xz";
+        }
+        if (startsWith(b, n, 0, '7', 'z', 0xBC, 0xAF, 0x27, 0x1C)) {
+            return "application/x-7z-compressed";
+        }
+        if (startsWith(b, n, 0, "Rar!", 0x1A, 0x07)) {
+            return "application/vnd.rar";
+        }
+        if (startsWith(b, n, 0, 0xD0, 0xCF, 0x11, 0xE0, 0xA1, 0xB1, 0x1A, 0xE1)) {
+            // Legacy Office files share one container; which one is not in the first bytes
+            return claimed != null && OLE_TYPES.contains(claimed) ? claimed : "application/x-ole-storage";
+        }
+        if (startsWith(b, n, 0, "wOFF")) {
+            return "font/woff";
+        }
+        if (startsWith(b, n, 0, "wOF2")) {
+            return "font/woff2";
+        }
+        if (startsWith(b, n, 0, "OTTO")) {
+            return "font/otf";
+        }
+        if (startsWith(b, n, 0, 0, 1, 0, 0, 0)) {
+            return "font/ttf";
+        }
+        if (startsWith(b, n, 0, "SQLite format 3", 0)) {
+            return "application/vnd.sqlite3";
+        }
+        if (startsWith(b, n, 0, 0x7F, 'E', 'L', 'F')) {
+            return "application/x-executable";
+        }
+        if (startsWith(b, n, 0, "MZ")) {
+            return "application/vnd.microsoft.portable-executable";
+        }
+        return null;
+    }
+
+    private static String isoMediaType(String brand) {
+        return switch (brand) {
+            case "qt  " -> "video/quicktime";
+            case "M4A ", "M4B " -> "audio/mp4";
+            case "heic", "heix", "heim", "heis" -> "image/heic";
+            case "mif1", "msf1" -> "image/heif";
+            case "avif", "avis" -> "image/avif";
+            case "3gp4", "3gp5", "3gp6", "3g2a" -> "video/3gpp";
+            default -> "video/mp4";
+        };
+    }
+
+    private static String zipType(byte[] b, int n) {
+        // EPUB and OpenDocument store their type uncompressed as the first entry
+        if (n >= 30 && startsWith(b, n, 30, "mimetype")) {
+            int start = 30 + le16(b, 26) + le16(b, 28);
+            int end = start;
+            while (end < n && end - start < 100 && b[end] >= 0x21 && b[end] <= 0x7E) {
+                end++;
+            }
+            String type = new String(b, start, end - start, StandardCharsets.US_ASCII);
+            if (type.startsWith("application/")) {
+                return type;
+            }
+        }
+        if (indexOf(b, n, "word/") >= 0) {
+            return "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+        }
+        if (indexOf(b, n, "xl/") >= 0) {
+            return "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+        }
+        if (indexOf(b, n, "ppt/") >= 0) {
+            return "application/vnd.openxmlformats-officedocument.presentationml.presentation";
+        }
+        if (indexOf(b, n, "META-INF/MANIFEST.MF") >= 0) {
+            return "application/java-archive";
+        }
+        return "application/zip";
+    }
+
+    /**
+     * The head as text, or {@code null} if it is binary: a NUL byte, or
+     * bytes that are not UTF-8. A multi-byte character cut off by the end
+     * of the head does not count against it.
+     */
+    private static String decodeText(byte[] b, int n, boolean truncated) {
+        if (startsWith(b, n, 0, 0xFE, 0xFF) || startsWith(b, n, 0, 0xFF, 0xFE)) {
+            return new String(b, 0, n, StandardCharsets.UTF_16);
+        }
+        for (int i = 0; i < n; i++) {
+            if (b[i] == 0) {
+                return null;
+            }
+        }
+        int end = n;
+        if (truncated) {
+            // Drop a trailing incomplete sequence: up to 3 continuation or lead bytes
+            int back = 0;
+            while (back < 3 && end - back > 0 && (b[end - back - 1] & 0xC0) == 0x80) {
+                back++;
+            }
+            if (end - back > 0 && (b[end - back - 1] & 0xC0) == 0xC0) {
+                end -= back + 1;
+            }
+        }
+        try {
+            return StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(b, 0, end))
+                    .toString();
+        } catch (CharacterCodingException e) {
+            return null;
+        }
+    }
+
+    private static String textType(String text, String claimed) {
+        String start = text.replace("\uFEFF", "").stripLeading();
+        String prefix = start.substring(0, Math.min(start.length(), 512)).toLowerCase(Locale.ROOT);
+        if (prefix.startsWith("<svg") || (prefix.startsWith("<?xml") && text.contains("<svg"))) {
+            return "image/svg+xml";
+        }
+        if (prefix.startsWith("<!doctype html") || prefix.startsWith("<html")) {
+            return "text/html";
+        }
+        if (claimed != null && !claimed.equals("text/html") && !claimed.equals("image/svg+xml")
+                && (claimed.startsWith("text/") || TEXT_TYPES.contains(claimed)
+                        || claimed.endsWith("+json") || claimed.endsWith("+xml"))) {
+            return claimed;
+        }
+        if (prefix.startsWith("<?xml")) {
+            return "application/xml";
+        }
+        return "text/plain";
+    }
+
+    static boolean startsWith(byte[] b, int n, int offset, Object... expected) {
+        int i = offset;
+        for (Object part : expected) {
+            if (part instanceof String s) {
+                for (int j = 0; j < s.length(); j++, i++) {
+                    if (i >= n || b[i] != (byte) s.charAt(j)) {
+                        return false;
+                    }
+                }
+            } else {
+                int value = part instanceof Character c ? c : (Integer) part;
+                if (i >= n || b[i] != (byte) value) {
+                    return false;
+                }
+                i++;
+            }
+        }
+        return true;
+    }
+
+    static int indexOf(byte[] b, int n, String needle) {
+        outer:
+        for (int i = 0; i + needle.length() <= n; i++) {
+            for (int j = 0; j < needle.length(); j++) {
+                if (b[i + j] != (byte) needle.charAt(j)) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    static int le16(byte[] b, int offset) {
+        return (b[offset] & 0xFF) | (b[offset + 1] & 0xFF) << 8;
+    }
+
+    static int le32(byte[] b, int offset) {
+        return le16(b, offset) | le16(b, offset + 2) << 16;
+    }
+
+    static int be16(byte[] b, int offset) {
+        return (b[offset] & 0xFF) << 8 | (b[offset + 1] & 0xFF);
+    }
+
+    static long be32(byte[] b, int offset) {
+        return ((long) be16(b, offset) << 16) | be16(b, offset + 2);
+    }
+}
@@ -0,0 +1,57 @@
+package com.safedrive.content;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Feeds everything read through it to a {@link ContentInspector}, the way
+ * {@link java.security.DigestInputStream} feeds a digest.
+ */
+public class InspectingInputStream extends FilterInputStream {
+
+    private final ContentInspector inspector;
+
+    public InspectingInputStream(InputStream in, ContentInspector inspector) {
+        super(in);
+        this.inspector = inspector;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b >= 0) {
+            inspector.update(new byte[] { (byte) b }, 0, 1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = in.read(b, off, len);
+        if (n > 0) {
+            inspector.update(b, off, n);
+        }
+        return n;
+    }
+
+    // Read rather than skip, so the inspector still sees every byte
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(Math.max(n, 0), 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (read < 0) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+}
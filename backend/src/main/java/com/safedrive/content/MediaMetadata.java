@@ -0,0 +1,241 @@
+package com.safedrive.content;
+
+import static com.safedrive.content.ContentTypes.be16;
+import static com.safedrive.content.ContentTypes.be32;
+import static com.safedrive.content.ContentTypes.le16;
+import static com.safedrive.content.ContentTypes.le32;
+import static com.safedrive.content.ContentTypes.startsWith;
+
+/**
+ * Reads dimensions and durations out of format headers. Each parser gets
+ * the bytes it has (the head of the body, or the start of an MP4 movie box)
+ * and gives up quietly when the field it wants is not among them.
+ */
+final class MediaMetadata {
+
+    private static final int[] SAMPLE_RATES = { 44100, 48000, 32000 };
+    private static final int[] MPEG1_LAYER3_KBPS = { 0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256,
+            320 };
+    private static final int[] MPEG2_LAYER3_KBPS = { 0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160 };
+    // How far past an ID3 tag to look for the first frame
+    private static final int MP3_SYNC_WINDOW = 4096;
+
+    private MediaMetadata() {
+    }
+
+    static void fromHead(String type, byte[] b, int n, long size, ContentInfo info) {
+        switch (type) {
+            case "image/png" -> {
+                if (n >= 24 && startsWith(b, n, 12, "IHDR")) {
+                    info.setDimensions(toInt(be32(b, 16)), toInt(be32(b, 20)));
+                }
+            }
+            case "image/gif" -> {
+                if (n >= 10) {
+                    info.setDimensions(le16(b, 6), le16(b, 8));
+                }
+            }
+            case "image/bmp" -> {
+                if (n >= 26) {
+                    info.setDimensions(le32(b, 18), Math.abs(le32(b, 22)));
+                }
+            }
+            case "image/webp" -> webp(b, n, info);
+            case "image/jpeg" -> jpeg(b, n, info);
+            case "audio/wav" -> wav(b, n, size, info);
+            case "audio/flac" -> flac(b, n, info);
+            case "audio/mpeg" -> mp3(b, n, size, info);
+            default -> {
+            }
+        }
+    }
+
+    private static void webp(byte[] b, int n, ContentInfo info) {
+        if (startsWith(b, n, 12, "VP8 ") && n >= 30 && startsWith(b, n, 23, 0x9D, 0x01, 0x2A)) {
+            info.setDimensions(le16(b, 26) & 0x3FFF, le16(b, 28) & 0x3FFF);
+        } else if (startsWith(b, n, 12, "VP8L") && n >= 25 && (b[20] & 0xFF) == 0x2F) {
+            int bits = le32(b, 21);
+            info.setDimensions((bits & 0x3FFF) + 1, ((bits >> 14) & 0x3FFF) + 1);
+        } else if (startsWith(b, n, 12, "VP8X") && n >= 30) {
+            info.setDimensions(le24(b, 24) + 1, le24(b, 27) + 1);
+        }
+    }
+
+    // Walks the segments up to the first start-of-frame; EXIF thumbnails sit inside APP1 and are skipped
+    private static void jpeg(byte[] b, int n, ContentInfo info) {
+        int i = 2;
+        while (i + 9 < n) {
+            if ((b[i] & 0xFF) != 0xFF) {
+                return;
+            }
+            int marker = b[i + 1] & 0xFF;
+            if (marker == 0xFF) {
+                i++;
+                continue;
+            }
+            if (marker == 0xD8 || marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7)) {
+                i += 2;
+                continue;
+            }
+            if (marker == 0xD9 || marker == 0xDA) {
+                return;
+            }
+            if (marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC) {
+                info.setDimensions(be16(b, i + 7), be16(b, i + 5));
+                return;
+            }
+            i += 2 + be16(b, i + 2);
+        }
+    }
+
+    private static void wav(byte[] b, int n, long size, ContentInfo info) {
+        long byteRate = 0;
+        int i = 12;
+        while (i + 8 <= n) {
+            long length = le32(b, i + 4) & 0xFFFFFFFFL;
+            if (startsWith(b, n, i, "fmt ") && i + 20 <= n) {
+                byteRate = le32(b, i + 16) & 0xFFFFFFFFL;
+            } else if (startsWith(b, n, i, "data")) {
+                // Streamed recordings leave the length unset
+                long data = Math.min(length, size - i - 8);
+                if (byteRate > 0) {
+                    info.setDurationMillis(data * 1000 / byteRate);
+                }
+                return;
+            }
+            i += 8 + length + (length & 1);
+        }
+    }
+
+    private static void flac(byte[] b, int n, ContentInfo info) {
+        if (n < 26 || (b[4] & 0x7F) != 0) {
+            return;
+        }
+        int sampleRate = (b[18] & 0xFF) << 12 | (b[19] & 0xFF) << 4 | (b[20] & 0xFF) >> 4;
+        long samples = (long) (b[21] & 0x0F) << 32 | be32(b, 22);
+        if (sampleRate > 0) {
+            info.setDurationMillis(samples * 1000 / sampleRate);
+        }
+    }
+
+    /**
+     * Whether a valid MPEG audio layer III frame header starts at {@code i}.
+     */
+    static boolean isMp3Frame(byte[] b, int n, int i) {
+        if (i < 0 || i + 4 > n || (b[i] & 0xFF) != 0xFF || (b[i + 1] & 0xE0) != 0xE0) {
+            return false;
+        }
+        int version = (b[i + 1] >> 3) & 3;
+        int layer = (b[i + 1] >> 1) & 3;
+        int bitrate = (b[i + 2] >> 4) & 0x0F;
+        int sampleRate = (b[i + 2] >> 2) & 3;
+        return version != 1 && layer == 1 && bitrate != 0 && bitrate != 15 && sampleRate != 3;
+    }
+
+    // Frame count from a Xing/Info or VBRI header if there is one, otherwise size over the first frame's bitrate
+    private static void mp3(byte[] b, int n, long size, ContentInfo info) {
+        int i = 0;
+        if (startsWith(b, n, 0, "ID3") && n >= 10) {
+            int tagSize = (b[6] & 0x7F) << 21 | (b[7] & 0x7F) << 14 | (b[8] & 0x7F) << 7 | (b[9] & 0x7F);
+            i = 10 + tagSize + ((b[5] & 0x10) != 0 ? 10 : 0);
+        }
+        int limit = Math.min(n - 4, i + MP3_SYNC_WINDOW);
+        while (i < limit && !isMp3Frame(b, n, i)) {
+            i++;
+        }
+        if (!isMp3Frame(b, n, i)) {
+            return;
+        }
+
+        int version = (b[i + 1] >> 3) & 3;
+        boolean mpeg1 = version == 3;
+        int sampleRate = SAMPLE_RATES[(b[i + 2] >> 2) & 3] >> (mpeg1 ? 0 : version == 2 ? 1 : 2);
+        int samplesPerFrame = mpeg1 ? 1152 : 576;
+        boolean mono = ((b[i + 3] >> 6) & 3) == 3;
+
+        int xing = i + 4 + (mpeg1 ? (mono ? 17 : 32) : (mono ? 9 : 17));
+        if ((startsWith(b, n, xing, "Xing") || startsWith(b, n, xing, "Info")) && xing + 12 <= n
+                && (be32(b, xing + 4) & 1) != 0) {
+            info.setDurationMillis(be32(b, xing + 8) * samplesPerFrame * 1000 / sampleRate);
+            return;
+        }
+        int vbri = i + 4 + 32;
+        if (startsWith(b, n, vbri, "VBRI") && vbri + 18 <= n) {
+            info.setDurationMillis(be32(b, vbri + 14) * samplesPerFrame * 1000 / sampleRate);
+            return;
+        }
+        int kbps = (mpeg1 ? MPEG1_LAYER3_KBPS : MPEG2_LAYER3_KBPS)[(b[i + 2] >> 4) & 0x0F];
+        info.setDurationMillis((size - i) * 8 / kbps);
+    }
+
+    /**
+     * Duration from {@code mvhd} and dimensions from the first track with
+     * any, given the start of the body of an MP4/QuickTime {@code moov} box.
+     */
+    static void fromMovie(byte[] b, int n, ContentInfo info) {
+        int i = 0;
+        while (i + 8 <= n) {
+            long size = be32(b, i);
+            int header = 8;
+            if (size == 1 && i + 16 <= n) {
+                size = be32(b, i + 8) << 32 | be32(b, i + 12);
+                header = 16;
+            }
+            if (size < header) {
+                return;
+            }
+            int body = i + header;
+            int end = (int) Math.min(i + size, n);
+            if (startsWith(b, n, i + 4, "mvhd")) {
+                movieHeader(b, body, end, info);
+            } else if (startsWith(b, n, i + 4, "trak") && info.getWidth() == null) {
+                fromTrack(b, body, end, info);
+            }
+            if (i + size >= n) {
+                return;
+            }
+            i += (int) size;
+        }
+    }
+
+    private static void movieHeader(byte[] b, int body, int end, ContentInfo info) {
+        boolean wide = body < end && b[body] == 1;
+        int timescaleAt = body + (wide ? 20 : 12);
+        if (timescaleAt + (wide ? 12 : 8) > end) {
+            return;
+        }
+        long timescale = be32(b, timescaleAt);
+        long duration = wide ? be32(b, timescaleAt + 4) << 32 | be32(b, timescaleAt + 8) : be32(b, timescaleAt + 4);
+        if (timescale > 0 && duration != 0xFFFFFFFFL) {
+            info.setDurationMillis(duration * 1000 / timescale);
+        }
+    }
+
+    private static void fromTrack(byte[] b, int start, int end, ContentInfo info) {
+        int i = start;
+        while (i + 8 <= end) {
+            long size = be32(b, i);
+            if (size < 8) {
+                return;
+            }
+            if (startsWith(b, end, i + 4, "tkhd")) {
+                int body = i + 8;
+                // Width and height are the last two 16.16 fields
+                int widthAt = body + (b[body] == 1 ? 88 : 76);
+                if (widthAt + 8 <= end) {
+                    info.setDimensions(toInt(be32(b, widthAt) >> 16), toInt(be32(b, widthAt + 4) >> 16));
+                }
+                return;
+            }
+            i += (int) Math.min(size, end - i);
+        }
+    }
+
+    private static int le24(byte[] b, int offset) {
+        return le16(b, offset) | (b[offset + 2] & 0xFF) << 16;
+    }
+
+    private static int toInt(long value) {
+        return (int) Math.min(value, Integer.MAX_VALUE);
+    }
+}
@@ -1,24 +1,37 @@
 package com.safedrive.controller;
 
 import com.safedrive.dto.request.LoginRequest;
+import com.safedrive.dto.request.RefreshRequest;
 import com.safedrive.dto.request.RegisterRequest;
 import com.safedrive.dto.response.AuthResponse;
 import com.safedrive.dto.response.UserResponse;
 import com.safedrive.entity.User;
+import com.safedrive.exception.TooManyRequestsException;
+import com.safedrive.service.PasswordService;
+import com.safedrive.service.RefreshTokenService;
+import com.safedrive.service.TokenRevocationService;
 import com.safedrive.service.UserService;
 import com.safedrive.util.JwtUtil;
+import com.safedrive.util.ParsedToken;
 import com.safedrive.util.SecurityUtil;
 import com.safedrive.util.EncryptionUtil;
+import io.jsonwebtoken.JwtException;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.bind.annotation.*;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @RestController
@@ -31,49 +44,82 @@ public class AuthController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private PasswordService passwordService;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     @Autowired
     private JwtUtil jwtUtil;
 
     @Autowired
     private EncryptionUtil encryptionUtil;
 
-    @PostMapping("/register")
-    public ResponseEntity<AuthResponse> register(@Valid @RequestBody RegisterRequest request) {
-        logger.info("Registration attempt for email: {}", request.getEmail());
+    @Autowired
+    @Qualifier("authExecutor")
+    private ThreadPoolTaskExecutor authExecutor;
 
-        User user = userService.createUser(request.getEmail(), request.getPassword(), request.getName());
-        String token = jwtUtil.generateToken(user.getEmail());
+    @Value("${app.password.retry-after:2s}")
+    private Duration retryAfter;
 
-        UserResponse userResponse = new UserResponse(
-                user.getId(),
-                user.getName(),
-                user.getEmail(),
-                user.getRole(),
-                user.getCreatedAt());
+    // Register and login hash on the password pool and finish on the auth pool, which does the
+    // database work; the request thread is released as soon as the hash is queued
+    @PostMapping("/register")
+    public CompletableFuture<ResponseEntity<AuthResponse>> register(@Valid @RequestBody RegisterRequest request) {
+        logger.info("Registration attempt for email: {}", request.getEmail());
 
-        AuthResponse response = new AuthResponse(token, userResponse);
-        logger.info("User registered successfully: {}", user.getEmail());
+        // Checked again in createUser; this only avoids hashing for a taken address
+        userService.checkEmailAvailable(request.getEmail());
 
-        return ResponseEntity.ok(response);
+        return passwordService.encode(request.getPassword()).thenApplyAsync(passwordHash -> {
+            User user = userService.createUser(request.getEmail(), passwordHash, request.getName());
+            logger.info("User registered successfully: {}", user.getEmail());
+            return ResponseEntity.ok(authResponse(user));
+        }, this::afterHash);
     }
 
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request) {
+    public CompletableFuture<ResponseEntity<AuthResponse>> login(@Valid @RequestBody LoginRequest request) {
         logger.info("Login attempt for email: {}", request.getEmail());
 
         Optional<User> userOptional = userService.findByEmail(request.getEmail());
 
         if (userOptional.isEmpty()) {
             logger.warn("Login failed - user not found: {}", request.getEmail());
-            return ResponseEntity.badRequest().build();
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
         }
 
         User user = userOptional.get();
-        if (!userService.validatePassword(request.getPassword(), user.getPassword())) {
-            logger.warn("Login failed - invalid password for: {}", request.getEmail());
-            return ResponseEntity.badRequest().build();
-        }
+        return passwordService.matches(request.getPassword(), user.getPassword()).thenApplyAsync(valid -> {
+            if (!valid) {
+                logger.warn("Login failed - invalid password for: {}", request.getEmail());
+                return ResponseEntity.badRequest().<AuthResponse>build();
+            }
+            if (passwordService.needsUpgrade(user.getPassword())) {
+                upgradePasswordHash(user, request.getPassword());
+            }
+
+            logger.info("User logged in successfully: {}", user.getEmail());
+            return ResponseEntity.ok(authResponse(user));
+        }, this::afterHash);
+    }
 
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthResponse> refresh(@Valid @RequestBody RefreshRequest request) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(request.getRefreshToken());
+        User user = userService.getUserById(rotation.getUserId());
+        return ResponseEntity.ok(authResponse(user, rotation.getRefreshToken()));
+    }
+
+    private AuthResponse authResponse(User user) {
+        return authResponse(user, refreshTokenService.issue(user.getId()));
+    }
+
+    private AuthResponse authResponse(User user, String refreshToken) {
         String token = jwtUtil.generateToken(user.getEmail());
 
         UserResponse userResponse = new UserResponse(
@@ -83,19 +129,79 @@ public class AuthController {
                 user.getRole(),
                 user.getCreatedAt());
 
-        AuthResponse response = new AuthResponse(token, userResponse);
-        logger.info("User logged in successfully: {}", user.getEmail());
+        return new AuthResponse(token, jwtUtil.getExpirationMillis() / 1000, refreshToken, userResponse);
+    }
 
-        return ResponseEntity.ok(response);
+    // Runs the part of a sign-in after the hash; a full auth pool is refused like a full password pool
+    private void afterHash(Runnable task) {
+        try {
+            authExecutor.execute(task);
+        } catch (TaskRejectedException e) {
+            throw new TooManyRequestsException("Too many sign-ins in progress, please retry", retryAfter);
+        }
+    }
+
+    // The password was just verified, so this is the one chance to rehash it; the login does not wait for it
+    private void upgradePasswordHash(User user, String rawPassword) {
+        try {
+            passwordService.encode(rawPassword)
+                    .thenAcceptAsync(passwordHash -> userService.updatePasswordHash(user.getId(), passwordHash),
+                            authExecutor)
+                    .whenComplete((ignored, e) -> {
+                        if (e != null) {
+                            logger.warn("Could not upgrade password hash for user {}: {}", user.getId(),
+                                    e.getMessage());
+                        } else {
+                            logger.info("Upgraded password hash for user {}", user.getId());
+                        }
+                    });
+        } catch (TooManyRequestsException e) {
+            logger.debug("Password pool busy, leaving hash of user {} for a later login", user.getId());
+        }
     }
 
+    /**
+     * Revokes the access token in the Authorization header and, when the
+     * body carries one, the refresh token and the rest of its family.
+     */
     @PostMapping("/logout")
-    public ResponseEntity<?> logout() {
-        // In a stateless JWT setup, logout is typically handled on the frontend
-        // by removing the token from storage
+    public ResponseEntity<?> logout(@RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestBody(required = false) RefreshRequest request) {
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            try {
+                tokenRevocationService.revoke(jwtUtil.parseToken(authHeader.substring(7)));
+            } catch (JwtException | IllegalArgumentException e) {
+                logger.debug("Logout with an invalid access token: {}", e.getMessage());
+            }
+        }
+        if (request != null && request.getRefreshToken() != null) {
+            refreshTokenService.revoke(request.getRefreshToken());
+        }
         return ResponseEntity.ok().build();
     }
 
+    @GetMapping("/validate")
+    public ResponseEntity<?> validateToken(@RequestHeader(value = "Authorization", required = false) String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return ResponseEntity.status(401).body(Map.of("valid", false));
+        }
+
+        try {
+            ParsedToken token = jwtUtil.parseToken(authHeader.substring(7));
+            if (tokenRevocationService.isRevoked(token)) {
+                return ResponseEntity.status(401).body(Map.of("valid", false));
+            }
+            return ResponseEntity.ok(Map.of(
+                    "valid", true,
+                    "email", token.getSubject(),
+                    "issuedAt", token.getIssuedAt(),
+                    "expiresAt", token.getExpiration()));
+        } catch (JwtException | IllegalArgumentException e) {
+            logger.debug("Token validation failed: {}", e.getMessage());
+            return ResponseEntity.status(401).body(Map.of("valid", false));
+        }
+    }
+
     @GetMapping("/security-audit")
     public ResponseEntity<?> securityAudit() {
         try {
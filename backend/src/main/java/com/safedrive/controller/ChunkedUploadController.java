@@ -0,0 +1,125 @@
+package com.safedrive.controller;
+
+import com.safedrive.config.TransferLane;
+import com.safedrive.dto.request.UploadInitRequest;
+import com.safedrive.dto.response.FileResponse;
+import com.safedrive.dto.response.UploadSessionResponse;
+import com.safedrive.entity.FileEntity;
+import com.safedrive.entity.UploadSession;
+import com.safedrive.entity.User;
+import com.safedrive.service.ChunkedUploadService;
+import com.safedrive.util.SecurityUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+@RestController
+@RequestMapping("/api/files/uploads")
+@CrossOrigin(origins = "*")
+public class ChunkedUploadController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedUploadController.class);
+
+    @Autowired
+    private ChunkedUploadService chunkedUploadService;
+
+    @Autowired
+    private TransferLane transferLane;
+
+    @PostMapping
+    public ResponseEntity<UploadSessionResponse> initUpload(@Valid @RequestBody UploadInitRequest request) {
+        User user = SecurityUtil.getCurrentUser();
+        UploadSession session = chunkedUploadService.initUpload(
+                request.getFilename(),
+                request.getContentType(),
+                request.getSize(),
+                user);
+
+        return ResponseEntity.ok()
+                .header("Cache-Control", "no-cache, no-store, must-revalidate")
+                .header("Pragma", "no-cache")
+                .header("Expires", "0")
+                .body(toResponse(session));
+    }
+
+    @PutMapping(value = "/{uploadId}/parts/{partNumber}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public WebAsyncTask<ResponseEntity<?>> uploadPart(@PathVariable String uploadId, @PathVariable int partNumber,
+            HttpServletRequest request) {
+        User user = SecurityUtil.getCurrentUser();
+        logger.debug("Receiving part {} of upload {}", partNumber, uploadId);
+
+        return transferLane.run(() -> {
+            chunkedUploadService.uploadPart(
+                    uploadId,
+                    partNumber,
+                    request.getInputStream(),
+                    request.getContentLengthLong(),
+                    user.getId());
+
+            return ResponseEntity.noContent()
+                    .header("Cache-Control", "no-cache, no-store, must-revalidate")
+                    .header("Pragma", "no-cache")
+                    .header("Expires", "0")
+                    .build();
+        });
+    }
+
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<UploadSessionResponse> getUpload(@PathVariable String uploadId) {
+        User user = SecurityUtil.getCurrentUser();
+        UploadSession session = chunkedUploadService.getUpload(uploadId, user.getId());
+
+        return ResponseEntity.ok()
+                .header("Cache-Control", "no-cache, no-store, must-revalidate")
+                .header("Pragma", "no-cache")
+                .header("Expires", "0")
+                .body(toResponse(session));
+    }
+
+    // Assembling reads and hashes the whole file, so it runs in the transfer lane too
+    @PostMapping("/{uploadId}/complete")
+    public WebAsyncTask<ResponseEntity<FileResponse>> completeUpload(@PathVariable String uploadId) {
+        User user = SecurityUtil.getCurrentUser();
+        return transferLane.run(() -> {
+            FileEntity uploadedFile = chunkedUploadService.completeUpload(uploadId, user);
+
+            FileResponse response = FileResponse.from(uploadedFile);
+
+            return ResponseEntity.ok()
+                    .header("Cache-Control", "no-cache, no-store, must-revalidate")
+                    .header("Pragma", "no-cache")
+                    .header("Expires", "0")
+                    .body(response);
+        });
+    }
+
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<?> abortUpload(@PathVariable String uploadId) {
+        User user = SecurityUtil.getCurrentUser();
+        chunkedUploadService.abortUpload(uploadId, user.getId());
+        return ResponseEntity.ok()
+                .header("Cache-Control", "no-cache, no-store, must-revalidate")
+                .header("Pragma", "no-cache")
+                .header("Expires", "0")
+                .build();
+    }
+
+    private UploadSessionResponse toResponse(UploadSession session) {
+        return new UploadSessionResponse(
+                session.getId(),
+                session.getOriginalName(),
+                session.getTotalSize(),
+                session.getPartSize(),
+                session.getPartCount(),
+                chunkedUploadService.getReceivedParts(session),
+                session.getStatus(),
+                session.getFileId(),
+                session.getExpiresAt());
+    }
+}
@@ -2,6 +2,7 @@ package com.safedrive.controller;
 
 import com.safedrive.dto.request.CredentialRequest;
 import com.safedrive.dto.response.CredentialResponse;
+import com.safedrive.dto.response.CursorPage;
 import com.safedrive.entity.Credential;
 import com.safedrive.entity.User;
 import com.safedrive.service.CredentialService;
@@ -54,20 +55,12 @@ public class CredentialController {
         }
 
         @GetMapping
-        public ResponseEntity<List<CredentialResponse>> getUserCredentials() {
+        public ResponseEntity<CursorPage<CredentialResponse>> getUserCredentials(
+                        @RequestParam(required = false) String cursor,
+                        @RequestParam(defaultValue = "50") int limit) {
                 User user = SecurityUtil.getCurrentUser();
-                List<Credential> credentials = credentialService.getUserCredentials(user.getId());
-
-                List<CredentialResponse> response = credentials.stream()
-                                .map(credential -> new CredentialResponse(
-                                                credential.getId(),
-                                                credential.getService(),
-                                                credential.getUsername(),
-                                                credential.getUrl(),
-                                                credential.getNotes(),
-                                                credential.getCreatedDate(),
-                                                credential.getUpdatedDate()))
-                                .collect(Collectors.toList());
+                CursorPage<CredentialResponse> response = credentialService.getUserCredentialsPage(user.getId(),
+                                cursor, limit);
 
                 return ResponseEntity.ok()
                                 .header("Cache-Control", "no-cache, no-store, must-revalidate")
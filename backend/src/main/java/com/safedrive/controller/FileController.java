@@ -1,25 +1,31 @@
 package com.safedrive.controller;
 
+import com.safedrive.config.TransferLane;
+import com.safedrive.dto.response.CursorPage;
 import com.safedrive.dto.response.FileResponse;
 import com.safedrive.entity.FileEntity;
 import com.safedrive.entity.User;
+import com.safedrive.exception.InvalidUploadException;
+import com.safedrive.preview.ThumbnailService;
+import com.safedrive.service.FileDownloadService;
 import com.safedrive.service.FileService;
 import com.safedrive.util.SecurityUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import org.springframework.web.multipart.MultipartFile;
-import java.net.MalformedURLException;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import org.springframework.web.multipart.MultipartHttpServletRequest;
+import javax.crypto.SecretKey;
+import java.io.IOException;
 import java.util.List;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
 @RestController
@@ -32,42 +38,64 @@ public class FileController {
     @Autowired
     private FileService fileService;
 
-    @PostMapping("/upload")
-    public ResponseEntity<FileResponse> uploadFile(@RequestParam("file") MultipartFile file) {
-        logger.info("File upload request: {}", file.getOriginalFilename());
+    @Autowired
+    private FileDownloadService fileDownloadService;
+
+    @Autowired
+    private TransferLane transferLane;
 
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    // The multipart body is parsed on first access, so in the transfer lane rather than here
+    @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public WebAsyncTask<ResponseEntity<FileResponse>> uploadFile(MultipartHttpServletRequest request) {
         User user = SecurityUtil.getCurrentUser();
-        FileEntity uploadedFile = fileService.uploadFile(file, user);
+        return transferLane.run(() -> {
+            MultipartFile file = request.getFile("file");
+            if (file == null) {
+                throw new InvalidUploadException("Request has no file part");
+            }
+            logger.info("File upload request: {}", file.getOriginalFilename());
+            FileEntity uploadedFile = fileService.uploadFile(file, user);
 
-        FileResponse response = new FileResponse(
-                uploadedFile.getId(),
-                uploadedFile.getFilename(),
-                uploadedFile.getOriginalName(),
-                uploadedFile.getContentType(),
-                uploadedFile.getSize(),
-                uploadedFile.getUploadDate());
+            FileResponse response = FileResponse.from(uploadedFile);
 
-        return ResponseEntity.ok()
-                .header("Cache-Control", "no-cache, no-store, must-revalidate")
-                .header("Pragma", "no-cache")
-                .header("Expires", "0")
-                .body(response);
+            return ResponseEntity.ok()
+                    .header("Cache-Control", "no-cache, no-store, must-revalidate")
+                    .header("Pragma", "no-cache")
+                    .header("Expires", "0")
+                    .body(response);
+        });
     }
 
-    @GetMapping
-    public ResponseEntity<List<FileResponse>> getUserFiles() {
+    /**
+     * Same form as {@code /upload}, but the body is parsed while it arrives
+     * and the file goes straight to the blob store instead of being spooled to
+     * a temporary file first. Limited by {@code app.upload.max-size}.
+     */
+    @PostMapping(value = "/upload/stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public WebAsyncTask<ResponseEntity<FileResponse>> uploadFileStream(HttpServletRequest request) {
         User user = SecurityUtil.getCurrentUser();
-        List<FileEntity> files = fileService.getUserFiles(user.getId());
+        return transferLane.run(() -> {
+            FileEntity uploadedFile = fileService.uploadStream(request.getInputStream(), request.getContentType(),
+                    user);
 
-        List<FileResponse> response = files.stream()
-                .map(file -> new FileResponse(
-                        file.getId(),
-                        file.getFilename(),
-                        file.getOriginalName(),
-                        file.getContentType(),
-                        file.getSize(),
-                        file.getUploadDate()))
-                .collect(Collectors.toList());
+            FileResponse response = FileResponse.from(uploadedFile);
+
+            return ResponseEntity.ok()
+                    .header("Cache-Control", "no-cache, no-store, must-revalidate")
+                    .header("Pragma", "no-cache")
+                    .header("Expires", "0")
+                    .body(response);
+        });
+    }
+
+    @GetMapping
+    public ResponseEntity<CursorPage<FileResponse>> getUserFiles(@RequestParam(required = false) String type,
+            @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "50") int limit) {
+        User user = SecurityUtil.getCurrentUser();
+        CursorPage<FileResponse> response = fileService.getUserFilesPage(user.getId(), type, cursor, limit);
 
         return ResponseEntity.ok()
                 .header("Cache-Control", "no-cache, no-store, must-revalidate")
@@ -77,41 +105,40 @@ public class FileController {
     }
 
     @GetMapping("/{fileId}")
-    public ResponseEntity<Resource> downloadFile(@PathVariable Long fileId) {
-        try {
-            User user = SecurityUtil.getCurrentUser();
-            Optional<FileEntity> fileEntity = fileService.getFile(fileId, user.getId());
-
-            if (fileEntity.isEmpty()) {
-                logger.warn("File not found for user: fileId={}, userId={}", fileId, user.getId());
-                return ResponseEntity.notFound().build();
-            }
-
-            FileEntity file = fileEntity.get();
-            Path filePath = Paths.get(file.getFilePath()).toAbsolutePath();
-            logger.info("Attempting to download file: path={}, exists={}", filePath, filePath.toFile().exists());
-
-            Resource resource = new UrlResource(filePath.toUri());
-
-            if (!resource.exists() || !resource.isReadable()) {
-                logger.error("File not accessible: path={}, exists={}, readable={}",
-                        filePath, resource.exists(), resource.isReadable());
-                return ResponseEntity.notFound().build();
-            }
+    public WebAsyncTask<Void> downloadFile(@PathVariable Long fileId, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        User user = SecurityUtil.getCurrentUser();
+        FileEntity file = fileService.getFileById(fileId, user.getId());
+
+        logger.info("Serving file {} (range={})", file.getOriginalName(), request.getHeader(HttpHeaders.RANGE));
+        SecretKey dataKey = fileDownloadService.dataKeyOf(file);
+        if (fileDownloadService.canSendfile(file, dataKey, request)) {
+            // Tomcat sends the file after we return, without holding this thread
+            fileDownloadService.serve(file, dataKey, request, response);
+            return null;
+        }
+        return transferLane.run(() -> {
+            fileDownloadService.serve(file, dataKey, request, response);
+            return null;
+        });
+    }
 
-            logger.info("File download successful: {}", file.getOriginalName());
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(file.getContentType()))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getOriginalName() + "\"")
-                    .header("Cache-Control", "no-cache, no-store, must-revalidate")
-                    .header("Pragma", "no-cache")
-                    .header("Expires", "0")
-                    .body(resource);
+    @GetMapping("/{fileId}/thumbnail")
+    public ResponseEntity<byte[]> getThumbnail(@PathVariable Long fileId, @RequestParam(required = false) Integer size,
+            HttpServletRequest request, HttpServletResponse response) {
+        User user = SecurityUtil.getCurrentUser();
+        FileEntity file = fileService.getFileById(fileId, user.getId());
+        String variant = thumbnailService.variant(file, size);
 
-        } catch (MalformedURLException e) {
-            logger.error("Error downloading file: {}", e.getMessage());
-            return ResponseEntity.badRequest().build();
+        // A file's content never changes, so neither do its thumbnails
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=86400");
+        if (new ServletWebRequest(request, response).checkNotModified("\"" + fileId + "-" + variant + "\"")) {
+            return null;
         }
+        ThumbnailService.Thumbnail thumbnail = thumbnailService.get(file, variant);
+        return ResponseEntity.ok()
+                .contentType(thumbnail.getContentType())
+                .body(thumbnail.getData());
     }
 
     @DeleteMapping("/{fileId}")
@@ -131,13 +158,7 @@ public class FileController {
         List<FileEntity> files = fileService.searchFiles(query, user.getId());
 
         List<FileResponse> response = files.stream()
-                .map(file -> new FileResponse(
-                        file.getId(),
-                        file.getFilename(),
-                        file.getOriginalName(),
-                        file.getContentType(),
-                        file.getSize(),
-                        file.getUploadDate()))
+                .map(FileResponse::from)
                 .collect(Collectors.toList());
 
         return ResponseEntity.ok()
@@ -1,7 +1,9 @@
 package com.safedrive.controller;
 
 import com.safedrive.dto.request.NoteRequest;
+import com.safedrive.dto.response.CursorPage;
 import com.safedrive.dto.response.NoteResponse;
+import com.safedrive.dto.response.NoteSummaryResponse;
 import com.safedrive.entity.Note;
 import com.safedrive.entity.User;
 import com.safedrive.service.NoteService;
@@ -46,18 +48,10 @@ public class NoteController {
     }
 
     @GetMapping
-    public ResponseEntity<List<NoteResponse>> getUserNotes() {
+    public ResponseEntity<CursorPage<NoteSummaryResponse>> getUserNotes(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
         User user = SecurityUtil.getCurrentUser();
-        List<Note> notes = noteService.getUserNotes(user.getId());
-
-        List<NoteResponse> response = notes.stream()
-                .map(note -> new NoteResponse(
-                        note.getId(),
-                        note.getTitle(),
-                        note.getContent(),
-                        note.getCreatedDate(),
-                        note.getUpdatedDate()))
-                .collect(Collectors.toList());
+        CursorPage<NoteSummaryResponse> response = noteService.getUserNotesPage(user.getId(), cursor, limit);
 
         return ResponseEntity.ok()
                 .header("Cache-Control", "no-cache, no-store, must-revalidate")
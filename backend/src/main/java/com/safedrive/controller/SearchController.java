@@ -0,0 +1,33 @@
+package com.safedrive.controller;
+
+import com.safedrive.dto.response.SearchResponse;
+import com.safedrive.entity.User;
+import com.safedrive.service.SearchService;
+import com.safedrive.util.SecurityUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/search")
+@CrossOrigin(origins = "*")
+public class SearchController {
+
+    @Autowired
+    private SearchService searchService;
+
+    @GetMapping
+    public ResponseEntity<SearchResponse> search(@RequestParam String q,
+            @RequestParam(required = false) String types,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        User user = SecurityUtil.getCurrentUser();
+        SearchResponse response = searchService.search(user.getId(), q, SearchService.parseTypes(types), page, size);
+
+        return ResponseEntity.ok()
+                .header("Cache-Control", "no-cache, no-store, must-revalidate")
+                .header("Pragma", "no-cache")
+                .header("Expires", "0")
+                .body(response);
+    }
+}
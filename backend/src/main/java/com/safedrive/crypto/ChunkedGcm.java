@@ -0,0 +1,105 @@
+package com.safedrive.crypto;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+
+/**
+ * Layout of an encrypted object:
+ *
+ * <pre>
+ * header:  "SDE1" | chunk size (int) | nonce prefix (8 bytes)
+ * chunk i: AES-GCM(plaintext[i * chunkSize .. (i + 1) * chunkSize]) | 16-byte tag
+ * </pre>
+ *
+ * Every chunk is sealed on its own with IV {@code noncePrefix || i} and the
+ * chunk index plus a final-chunk flag as associated data, so chunks cannot
+ * be reordered or the object truncated without failing authentication, and
+ * any plaintext offset can be decrypted by seeking to its chunk. An empty
+ * object still has one (empty) final chunk.
+ */
+public final class ChunkedGcm {
+
+    static final byte[] MAGIC = { 'S', 'D', 'E', '1' };
+    public static final int HEADER_LENGTH = 16;
+    public static final int TAG_LENGTH = 16;
+    static final int NONCE_PREFIX_LENGTH = 8;
+    static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
+    private ChunkedGcm() {
+    }
+
+    public static class Header {
+        private final int chunkSize;
+        private final byte[] noncePrefix;
+
+        Header(int chunkSize, byte[] noncePrefix) {
+            this.chunkSize = chunkSize;
+            this.noncePrefix = noncePrefix;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        byte[] getNoncePrefix() {
+            return noncePrefix;
+        }
+    }
+
+    public static long encryptedLength(long plaintextLength, int chunkSize) {
+        return HEADER_LENGTH + chunkCount(plaintextLength, chunkSize) * TAG_LENGTH + plaintextLength;
+    }
+
+    public static long chunkCount(long plaintextLength, int chunkSize) {
+        return plaintextLength == 0 ? 1 : (plaintextLength + chunkSize - 1) / chunkSize;
+    }
+
+    /**
+     * Offset of the first ciphertext byte of chunk {@code index}.
+     */
+    public static long chunkOffset(long index, int chunkSize) {
+        return HEADER_LENGTH + index * (chunkSize + (long) TAG_LENGTH);
+    }
+
+    static byte[] encodeHeader(Header header) {
+        return ByteBuffer.allocate(HEADER_LENGTH)
+                .put(MAGIC)
+                .putInt(header.getChunkSize())
+                .put(header.getNoncePrefix())
+                .array();
+    }
+
+    public static Header readHeader(InputStream in) throws IOException {
+        byte[] bytes = in.readNBytes(HEADER_LENGTH);
+        if (bytes.length != HEADER_LENGTH || !Arrays.equals(Arrays.copyOf(bytes, MAGIC.length), MAGIC)) {
+            throw new IOException("Not an encrypted object");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, MAGIC.length, HEADER_LENGTH - MAGIC.length);
+        int chunkSize = buffer.getInt();
+        if (chunkSize <= 0) {
+            throw new IOException("Invalid chunk size " + chunkSize);
+        }
+        byte[] noncePrefix = new byte[NONCE_PREFIX_LENGTH];
+        buffer.get(noncePrefix);
+        return new Header(chunkSize, noncePrefix);
+    }
+
+    static void init(Cipher cipher, int mode, SecretKey key, Header header, long index, boolean last)
+            throws GeneralSecurityException {
+        byte[] iv = ByteBuffer.allocate(NONCE_PREFIX_LENGTH + Integer.BYTES)
+                .put(header.getNoncePrefix())
+                .putInt((int) index)
+                .array();
+        cipher.init(mode, key, new GCMParameterSpec(TAG_LENGTH * 8, iv));
+        cipher.updateAAD(ByteBuffer.allocate(Long.BYTES + 1)
+                .putLong(index)
+                .put((byte) (last ? 1 : 0))
+                .array());
+    }
+}
@@ -0,0 +1,107 @@
+package com.safedrive.crypto;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+
+/**
+ * Decrypts a run of {@link ChunkedGcm} chunks. The source must be positioned
+ * at the start of chunk {@code firstChunk}; the plaintext length of the whole
+ * object tells which chunk is the final one and how long it is, so a
+ * truncated object fails instead of ending early.
+ */
+public class ChunkedGcmInputStream extends InputStream {
+
+    private final InputStream in;
+    private final SecretKey key;
+    private final ChunkedGcm.Header header;
+    private final long chunkCount;
+    private final int lastChunkLength;
+    private final Cipher cipher;
+    private final byte[] sealed;
+    private final byte[] plain;
+    private long index;
+    private int position;
+    private int available;
+
+    public ChunkedGcmInputStream(InputStream in, SecretKey key, ChunkedGcm.Header header, long firstChunk,
+            long plaintextLength) {
+        this.in = in;
+        this.key = key;
+        this.header = header;
+        int chunkSize = header.getChunkSize();
+        this.chunkCount = ChunkedGcm.chunkCount(plaintextLength, chunkSize);
+        this.lastChunkLength = (int) (plaintextLength - (chunkCount - 1) * chunkSize);
+        this.index = firstChunk;
+        this.sealed = new byte[chunkSize + ChunkedGcm.TAG_LENGTH];
+        this.plain = new byte[chunkSize];
+        try {
+            this.cipher = Cipher.getInstance(ChunkedGcm.TRANSFORMATION);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES-GCM not available", e);
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return plain[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int n = Math.min(len, available - position);
+        System.arraycopy(plain, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && fill()) {
+            int step = (int) Math.min(n - skipped, available - position);
+            position += step;
+            skipped += step;
+        }
+        return skipped;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private boolean fill() throws IOException {
+        while (position == available) {
+            if (index >= chunkCount) {
+                return false;
+            }
+            boolean last = index == chunkCount - 1;
+            int sealedLength = (last ? lastChunkLength : header.getChunkSize()) + ChunkedGcm.TAG_LENGTH;
+            int read = in.readNBytes(sealed, 0, sealedLength);
+            if (read != sealedLength) {
+                throw new IOException("Encrypted object truncated in chunk " + index);
+            }
+            try {
+                ChunkedGcm.init(cipher, Cipher.DECRYPT_MODE, key, header, index, last);
+                available = cipher.doFinal(sealed, 0, sealedLength, plain, 0);
+            } catch (GeneralSecurityException e) {
+                throw new IOException("Chunk " + index + " failed authentication", e);
+            }
+            position = 0;
+            index++;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,94 @@
+package com.safedrive.crypto;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+
+/**
+ * Encrypts everything written to it into the {@link ChunkedGcm} format. A
+ * full chunk is held back until more data arrives, because only
+ * {@link #close()} knows which chunk is the last one.
+ */
+public class ChunkedGcmOutputStream extends OutputStream {
+
+    private final OutputStream out;
+    private final SecretKey key;
+    private final ChunkedGcm.Header header;
+    private final Cipher cipher;
+    private final byte[] plain;
+    private final byte[] sealed;
+    private int buffered;
+    private long index;
+    private boolean finished;
+
+    public ChunkedGcmOutputStream(OutputStream out, SecretKey key, ChunkedGcm.Header header) throws IOException {
+        this.out = out;
+        this.key = key;
+        this.header = header;
+        this.plain = new byte[header.getChunkSize()];
+        this.sealed = new byte[header.getChunkSize() + ChunkedGcm.TAG_LENGTH];
+        try {
+            this.cipher = Cipher.getInstance(ChunkedGcm.TRANSFORMATION);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES-GCM not available", e);
+        }
+        out.write(ChunkedGcm.encodeHeader(header));
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (finished) {
+            throw new IOException("Stream already finished");
+        }
+        while (len > 0) {
+            if (buffered == plain.length) {
+                sealChunk(false);
+            }
+            int n = Math.min(len, plain.length - buffered);
+            System.arraycopy(b, off, plain, buffered, n);
+            buffered += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Write the final chunk without closing the underlying stream, so the
+     * caller can still sync or reuse it.
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        sealChunk(true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void sealChunk(boolean last) throws IOException {
+        try {
+            ChunkedGcm.init(cipher, Cipher.ENCRYPT_MODE, key, header, index, last);
+            int n = cipher.doFinal(plain, 0, buffered, sealed, 0);
+            out.write(sealed, 0, n);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Failed to encrypt chunk " + index, e);
+        }
+        index++;
+        buffered = 0;
+    }
+}
@@ -0,0 +1,189 @@
+package com.safedrive.crypto;
+
+import com.safedrive.storage.BoundedInputStream;
+import com.safedrive.storage.StorageBackend;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import jakarta.annotation.PostConstruct;
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Envelope encryption for stored file bodies. Every blob gets a random
+ * 256-bit data key; only the data key wrapped by the master key is stored
+ * (in {@code blobs.wrapped_key}), and the body is encrypted with
+ * {@link ChunkedGcm} while it streams to storage.
+ */
+@Component
+public class FileEncryption {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileEncryption.class);
+
+    private static final byte WRAP_VERSION = 1;
+    private static final int WRAP_IV_LENGTH = 12;
+    private static final byte[] WRAP_AAD = "safedrive-data-key".getBytes(StandardCharsets.US_ASCII);
+
+    @Value("${app.encryption.files.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.encryption.files.chunk-size:65536}")
+    private int chunkSize;
+
+    @Value("${app.encryption.files.master-key:}")
+    private String masterKeyBase64;
+
+    @Value("${app.encryption.secret:MySecretKey12345}")
+    private String encryptionSecret;
+
+    private final SecureRandom random = new SecureRandom();
+
+    private SecretKey masterKey;
+
+    /**
+     * A freshly generated data key and its wrapped form.
+     */
+    public static class DataKey {
+        private final SecretKey key;
+        private final byte[] wrapped;
+
+        DataKey(SecretKey key, byte[] wrapped) {
+            this.key = key;
+            this.wrapped = wrapped;
+        }
+
+        public SecretKey getKey() {
+            return key;
+        }
+
+        public byte[] getWrapped() {
+            return wrapped;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        if (masterKeyBase64 != null && !masterKeyBase64.isBlank()) {
+            byte[] raw = Base64.getDecoder().decode(masterKeyBase64.trim());
+            if (raw.length != 32) {
+                throw new IllegalStateException("app.encryption.files.master-key must be 32 bytes, base64 encoded");
+            }
+            masterKey = new SecretKeySpec(raw, "AES");
+        } else {
+            masterKey = new SecretKeySpec(sha256("safedrive-file-master-key:" + encryptionSecret), "AES");
+            if (enabled) {
+                logger.warn("No app.encryption.files.master-key set, deriving it from app.encryption.secret");
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public DataKey newDataKey() {
+        try {
+            KeyGenerator generator = KeyGenerator.getInstance("AES");
+            generator.init(256, random);
+            SecretKey key = generator.generateKey();
+
+            byte[] iv = new byte[WRAP_IV_LENGTH];
+            random.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance(ChunkedGcm.TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, masterKey, new GCMParameterSpec(ChunkedGcm.TAG_LENGTH * 8, iv));
+            cipher.updateAAD(WRAP_AAD);
+            byte[] sealed = cipher.doFinal(key.getEncoded());
+
+            byte[] wrapped = ByteBuffer.allocate(1 + iv.length + sealed.length)
+                    .put(WRAP_VERSION)
+                    .put(iv)
+                    .put(sealed)
+                    .array();
+            return new DataKey(key, wrapped);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to generate data key", e);
+        }
+    }
+
+    public SecretKey unwrap(byte[] wrapped) {
+        if (wrapped.length < 1 + WRAP_IV_LENGTH + ChunkedGcm.TAG_LENGTH || wrapped[0] != WRAP_VERSION) {
+            throw new IllegalStateException("Unsupported wrapped key format");
+        }
+        try {
+            Cipher cipher = Cipher.getInstance(ChunkedGcm.TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, masterKey,
+                    new GCMParameterSpec(ChunkedGcm.TAG_LENGTH * 8, wrapped, 1, WRAP_IV_LENGTH));
+            cipher.updateAAD(WRAP_AAD);
+            byte[] raw = cipher.doFinal(wrapped, 1 + WRAP_IV_LENGTH, wrapped.length - 1 - WRAP_IV_LENGTH);
+            return new SecretKeySpec(raw, "AES");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to unwrap data key", e);
+        }
+    }
+
+    /**
+     * Wrap {@code out} so that everything written is encrypted with
+     * {@code key}. Closing or finishing the returned stream writes the final
+     * chunk.
+     */
+    public ChunkedGcmOutputStream encrypt(OutputStream out, SecretKey key) throws IOException {
+        byte[] noncePrefix = new byte[ChunkedGcm.NONCE_PREFIX_LENGTH];
+        random.nextBytes(noncePrefix);
+        return new ChunkedGcmOutputStream(out, key, new ChunkedGcm.Header(chunkSize, noncePrefix));
+    }
+
+    /**
+     * Plaintext bytes {@code [offset, offset + length)} of an encrypted
+     * object. Only the chunks covering the range are fetched from the
+     * backend.
+     */
+    public InputStream openRange(StorageBackend backend, String objectKey, SecretKey key, long plaintextLength,
+            long offset, long length) throws IOException {
+        if (length == 0) {
+            return InputStream.nullInputStream();
+        }
+
+        ChunkedGcm.Header header;
+        try (InputStream in = backend.getRange(objectKey, 0, ChunkedGcm.HEADER_LENGTH)) {
+            header = ChunkedGcm.readHeader(in);
+        }
+
+        int size = header.getChunkSize();
+        long firstChunk = offset / size;
+        long lastChunk = (offset + length - 1) / size;
+        long start = ChunkedGcm.chunkOffset(firstChunk, size);
+        long end = Math.min(ChunkedGcm.chunkOffset(lastChunk + 1, size),
+                ChunkedGcm.encryptedLength(plaintextLength, size));
+
+        InputStream plain = new ChunkedGcmInputStream(backend.getRange(objectKey, start, end - start), key, header,
+                firstChunk, plaintextLength);
+        try {
+            plain.skipNBytes(offset - firstChunk * size);
+        } catch (IOException e) {
+            plain.close();
+            throw e;
+        }
+        return new BoundedInputStream(plain, length);
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.safedrive.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+public class UploadInitRequest {
+    @NotBlank(message = "Filename is required")
+    @Size(max = 255, message = "Filename cannot exceed 255 characters")
+    private String filename;
+
+    @Size(max = 255, message = "Content type cannot exceed 255 characters")
+    private String contentType;
+
+    @NotNull(message = "File size is required")
+    @Positive(message = "File size must be positive")
+    private Long size;
+
+    // Constructors
+    public UploadInitRequest() {
+    }
+
+    public UploadInitRequest(String filename, String contentType, Long size) {
+        this.filename = filename;
+        this.contentType = contentType;
+        this.size = size;
+    }
+
+    // Getters and Setters
+    public String getFilename() {
+        return filename;
+    }
+
+    public void setFilename(String filename) {
+        this.filename = filename;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public Long getSize() {
+        return size;
+    }
+
+    public void setSize(Long size) {
+        this.size = size;
+    }
+}
@@ -3,6 +3,8 @@ package com.safedrive.dto.response;
 public class AuthResponse {
     private String token;
     private String type = "Bearer";
+    private long expiresIn;
+    private String refreshToken;
     private UserResponse user;
 
     public AuthResponse(String token, UserResponse user) {
@@ -10,6 +12,13 @@ public class AuthResponse {
         this.user = user;
     }
 
+    public AuthResponse(String token, long expiresIn, String refreshToken, UserResponse user) {
+        this.token = token;
+        this.expiresIn = expiresIn;
+        this.refreshToken = refreshToken;
+        this.user = user;
+    }
+
     // Getters and Setters
     public String getToken() {
         return token;
@@ -27,6 +36,25 @@ public class AuthResponse {
         this.type = type;
     }
 
+    /**
+     * Seconds until {@link #getToken()} expires.
+     */
+    public long getExpiresIn() {
+        return expiresIn;
+    }
+
+    public void setExpiresIn(long expiresIn) {
+        this.expiresIn = expiresIn;
+    }
+
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+
     public UserResponse getUser() {
         return user;
     }
@@ -1,5 +1,7 @@
 package com.safedrive.dto.response;
 
+import com.safedrive.entity.FileEntity;
+
 import java.time.LocalDateTime;
 
 public class FileResponse {
@@ -9,6 +11,10 @@ public class FileResponse {
     private String contentType;
     private Long size;
     private LocalDateTime uploadDate;
+    private Integer width;
+    private Integer height;
+    private Integer pageCount;
+    private Long durationMillis;
 
     public FileResponse(Long id, String filename, String originalName, String contentType, Long size,
             LocalDateTime uploadDate) {
@@ -20,6 +26,21 @@ public class FileResponse {
         this.uploadDate = uploadDate;
     }
 
+    public FileResponse(Long id, String filename, String originalName, String contentType, Long size,
+            LocalDateTime uploadDate, Integer width, Integer height, Integer pageCount, Long durationMillis) {
+        this(id, filename, originalName, contentType, size, uploadDate);
+        this.width = width;
+        this.height = height;
+        this.pageCount = pageCount;
+        this.durationMillis = durationMillis;
+    }
+
+    public static FileResponse from(FileEntity file) {
+        return new FileResponse(file.getId(), file.getFilename(), file.getOriginalName(), file.getContentType(),
+                file.getSize(), file.getUploadDate(), file.getWidth(), file.getHeight(), file.getPageCount(),
+                file.getDurationMillis());
+    }
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -68,4 +89,36 @@ public class FileResponse {
     public void setUploadDate(LocalDateTime uploadDate) {
         this.uploadDate = uploadDate;
     }
+
+    public Integer getWidth() {
+        return width;
+    }
+
+    public void setWidth(Integer width) {
+        this.width = width;
+    }
+
+    public Integer getHeight() {
+        return height;
+    }
+
+    public void setHeight(Integer height) {
+        this.height = height;
+    }
+
+    public Integer getPageCount() {
+        return pageCount;
+    }
+
+    public void setPageCount(Integer pageCount) {
+        this.pageCount = pageCount;
+    }
+
+    public Long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(Long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
 }
@@ -0,0 +1,64 @@
+package com.safedrive.dto.response;
+
+import java.time.LocalDateTime;
+
+/**
+ * List view of a note: a short preview instead of the full content.
+ */
+public class NoteSummaryResponse {
+    private Long id;
+    private String title;
+    private String preview;
+    private LocalDateTime createdDate;
+    private LocalDateTime updatedDate;
+
+    public NoteSummaryResponse(Long id, String title, String preview, LocalDateTime createdDate,
+            LocalDateTime updatedDate) {
+        this.id = id;
+        this.title = title;
+        this.preview = preview;
+        this.createdDate = createdDate;
+        this.updatedDate = updatedDate;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getPreview() {
+        return preview;
+    }
+
+    public void setPreview(String preview) {
+        this.preview = preview;
+    }
+
+    public LocalDateTime getCreatedDate() {
+        return createdDate;
+    }
+
+    public void setCreatedDate(LocalDateTime createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    public LocalDateTime getUpdatedDate() {
+        return updatedDate;
+    }
+
+    public void setUpdatedDate(LocalDateTime updatedDate) {
+        this.updatedDate = updatedDate;
+    }
+}
@@ -0,0 +1,85 @@
+package com.safedrive.dto.response;
+
+import java.time.LocalDateTime;
+
+/**
+ * One result of the unified search. {@code highlight} is HTML-escaped with
+ * the matched terms wrapped in {@code <mark>}.
+ */
+public class SearchHit {
+    private String type;
+    private Long id;
+    private String title;
+    private String subtitle;
+    private String highlight;
+    private Double rank;
+    private LocalDateTime date;
+
+    public SearchHit(String type, Long id, String title, String subtitle, String highlight, Double rank,
+            LocalDateTime date) {
+        this.type = type;
+        this.id = id;
+        this.title = title;
+        this.subtitle = subtitle;
+        this.highlight = highlight;
+        this.rank = rank;
+        this.date = date;
+    }
+
+    // Getters and Setters
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getSubtitle() {
+        return subtitle;
+    }
+
+    public void setSubtitle(String subtitle) {
+        this.subtitle = subtitle;
+    }
+
+    public String getHighlight() {
+        return highlight;
+    }
+
+    public void setHighlight(String highlight) {
+        this.highlight = highlight;
+    }
+
+    public Double getRank() {
+        return rank;
+    }
+
+    public void setRank(Double rank) {
+        this.rank = rank;
+    }
+
+    public LocalDateTime getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDateTime date) {
+        this.date = date;
+    }
+}
@@ -0,0 +1,69 @@
+package com.safedrive.dto.response;
+
+/**
+ * Unified search response. Each domain is paged independently; a domain
+ * that was not requested is {@code null}.
+ */
+public class SearchResponse {
+    private String query;
+    private int page;
+    private int size;
+    private SearchResults files;
+    private SearchResults notes;
+    private SearchResults credentials;
+
+    public SearchResponse(String query, int page, int size) {
+        this.query = query;
+        this.page = page;
+        this.size = size;
+    }
+
+    // Getters and Setters
+    public String getQuery() {
+        return query;
+    }
+
+    public void setQuery(String query) {
+        this.query = query;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public SearchResults getFiles() {
+        return files;
+    }
+
+    public void setFiles(SearchResults files) {
+        this.files = files;
+    }
+
+    public SearchResults getNotes() {
+        return notes;
+    }
+
+    public void setNotes(SearchResults notes) {
+        this.notes = notes;
+    }
+
+    public SearchResults getCredentials() {
+        return credentials;
+    }
+
+    public void setCredentials(SearchResults credentials) {
+        this.credentials = credentials;
+    }
+}
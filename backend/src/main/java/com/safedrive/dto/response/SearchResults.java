@@ -0,0 +1,30 @@
+package com.safedrive.dto.response;
+
+import java.util.List;
+
+public class SearchResults {
+    private List<SearchHit> hits;
+    private boolean hasMore;
+
+    public SearchResults(List<SearchHit> hits, boolean hasMore) {
+        this.hits = hits;
+        this.hasMore = hasMore;
+    }
+
+    // Getters and Setters
+    public List<SearchHit> getHits() {
+        return hits;
+    }
+
+    public void setHits(List<SearchHit> hits) {
+        this.hits = hits;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
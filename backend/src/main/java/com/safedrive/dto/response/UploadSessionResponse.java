@@ -0,0 +1,103 @@
+package com.safedrive.dto.response;
+
+import com.safedrive.entity.UploadStatus;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class UploadSessionResponse {
+    private String uploadId;
+    private String filename;
+    private Long size;
+    private Long partSize;
+    private Integer partCount;
+    private List<Integer> receivedParts;
+    private UploadStatus status;
+    private Long fileId;
+    private LocalDateTime expiresAt;
+
+    public UploadSessionResponse(String uploadId, String filename, Long size, Long partSize, Integer partCount,
+            List<Integer> receivedParts, UploadStatus status, Long fileId, LocalDateTime expiresAt) {
+        this.uploadId = uploadId;
+        this.filename = filename;
+        this.size = size;
+        this.partSize = partSize;
+        this.partCount = partCount;
+        this.receivedParts = receivedParts;
+        this.status = status;
+        this.fileId = fileId;
+        this.expiresAt = expiresAt;
+    }
+
+    // Getters and Setters
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public void setUploadId(String uploadId) {
+        this.uploadId = uploadId;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public void setFilename(String filename) {
+        this.filename = filename;
+    }
+
+    public Long getSize() {
+        return size;
+    }
+
+    public void setSize(Long size) {
+        this.size = size;
+    }
+
+    public Long getPartSize() {
+        return partSize;
+    }
+
+    public void setPartSize(Long partSize) {
+        this.partSize = partSize;
+    }
+
+    public Integer getPartCount() {
+        return partCount;
+    }
+
+    public void setPartCount(Integer partCount) {
+        this.partCount = partCount;
+    }
+
+    public List<Integer> getReceivedParts() {
+        return receivedParts;
+    }
+
+    public void setReceivedParts(List<Integer> receivedParts) {
+        this.receivedParts = receivedParts;
+    }
+
+    public UploadStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(UploadStatus status) {
+        this.status = status;
+    }
+
+    public Long getFileId() {
+        return fileId;
+    }
+
+    public void setFileId(Long fileId) {
+        this.fileId = fileId;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -9,7 +9,10 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "files", indexes = {
         @Index(name = "idx_files_user_id", columnList = "user_id"),
-        @Index(name = "idx_files_filename", columnList = "filename")
+        @Index(name = "idx_files_filename", columnList = "filename"),
+        @Index(name = "idx_files_content_hash", columnList = "content_hash"),
+        @Index(name = "idx_files_user_content_type", columnList = "user_id, content_type, upload_date DESC, id DESC"),
+        @Index(name = "idx_files_user_content_family", columnList = "user_id, content_family, upload_date DESC, id DESC")
 })
 @EntityListeners(AuditingEntityListener.class)
 public class FileEntity {
@@ -23,15 +26,38 @@ public class FileEntity {
     @Column(name = "original_name", nullable = false)
     private String originalName;
 
+    // Detected from the bytes at upload (see ContentInspector)
     @Column(name = "content_type", nullable = false)
     private String contentType;
 
+    // As sent by the client; informational only
+    @Column(name = "declared_content_type")
+    private String declaredContentType;
+
+    // Generated by the database from content_type ("image" for image/png), for listings by family
+    @Column(name = "content_family", insertable = false, updatable = false)
+    private String contentFamily;
+
     @Column(nullable = false)
     private Long size;
 
+    // Storage key resolved by the StorageBackend; older rows hold a local path
     @Column(name = "file_path", nullable = false)
     private String filePath;
 
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    private Integer width;
+
+    private Integer height;
+
+    @Column(name = "page_count")
+    private Integer pageCount;
+
+    @Column(name = "duration_ms")
+    private Long durationMillis;
+
     @CreatedDate
     @Column(name = "upload_date", nullable = false, updatable = false)
     private LocalDateTime uploadDate;
@@ -86,6 +112,18 @@ public class FileEntity {
         this.contentType = contentType;
     }
 
+    public String getDeclaredContentType() {
+        return declaredContentType;
+    }
+
+    public void setDeclaredContentType(String declaredContentType) {
+        this.declaredContentType = declaredContentType;
+    }
+
+    public String getContentFamily() {
+        return contentFamily;
+    }
+
     public Long getSize() {
         return size;
     }
@@ -102,6 +140,46 @@ public class FileEntity {
         this.filePath = filePath;
     }
 
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public Integer getWidth() {
+        return width;
+    }
+
+    public void setWidth(Integer width) {
+        this.width = width;
+    }
+
+    public Integer getHeight() {
+        return height;
+    }
+
+    public void setHeight(Integer height) {
+        this.height = height;
+    }
+
+    public Integer getPageCount() {
+        return pageCount;
+    }
+
+    public void setPageCount(Integer pageCount) {
+        this.pageCount = pageCount;
+    }
+
+    public Long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(Long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
     public LocalDateTime getUploadDate() {
         return uploadDate;
     }
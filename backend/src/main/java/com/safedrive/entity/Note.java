@@ -21,7 +21,7 @@ public class Note {
     @Column(nullable = false)
     private String title;
 
-    @Lob
+    // Plain TEXT, not @Lob: on PostgreSQL @Lob stores a large-object OID in the column
     @Column(columnDefinition = "TEXT")
     private String content;
 
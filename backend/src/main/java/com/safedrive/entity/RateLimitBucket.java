@@ -0,0 +1,51 @@
+package com.safedrive.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * A token bucket in the shared rate-limit store. Only written through
+ * {@link com.safedrive.repository.RateLimitBucketRepository#consume}.
+ */
+@Entity
+@Table(name = "rate_limit_buckets")
+public class RateLimitBucket {
+    @Id
+    @Column(name = "bucket_key", length = 200)
+    private String bucketKey;
+
+    @Column(name = "full_at_us", nullable = false)
+    private Long fullAtMicros;
+
+    // Outcome of the last request against the bucket
+    @Column(nullable = false)
+    private Boolean allowed;
+
+    // Constructors
+    public RateLimitBucket() {
+    }
+
+    // Getters and Setters
+    public String getBucketKey() {
+        return bucketKey;
+    }
+
+    public void setBucketKey(String bucketKey) {
+        this.bucketKey = bucketKey;
+    }
+
+    public Long getFullAtMicros() {
+        return fullAtMicros;
+    }
+
+    public void setFullAtMicros(Long fullAtMicros) {
+        this.fullAtMicros = fullAtMicros;
+    }
+
+    public Boolean getAllowed() {
+        return allowed;
+    }
+
+    public void setAllowed(Boolean allowed) {
+        this.allowed = allowed;
+    }
+}
@@ -0,0 +1,5 @@
+package com.safedrive.entity;
+
+public enum UploadStatus {
+    ACTIVE, ASSEMBLING, COMPLETED
+}
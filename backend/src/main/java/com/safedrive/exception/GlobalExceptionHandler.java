@@ -2,6 +2,7 @@ package com.safedrive.exception;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -26,13 +27,21 @@ public class GlobalExceptionHandler {
     }
 
     @ExceptionHandler({ UserNotFoundException.class, FileNotFoundException.class,
-            NoteNotFoundException.class, CredentialNotFoundException.class })
+            NoteNotFoundException.class, CredentialNotFoundException.class,
+            UploadSessionNotFoundException.class })
     public ResponseEntity<ErrorResponse> handleNotFound(RuntimeException ex) {
         logger.error("Resource not found: {}", ex.getMessage());
         ErrorResponse error = new ErrorResponse("RESOURCE_NOT_FOUND", ex.getMessage());
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
     }
 
+    @ExceptionHandler(PreviewUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handlePreviewUnavailable(PreviewUnavailableException ex) {
+        logger.error("Preview unavailable: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse("PREVIEW_UNAVAILABLE", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    }
+
     @ExceptionHandler(FileStorageException.class)
     public ResponseEntity<ErrorResponse> handleFileStorage(FileStorageException ex) {
         logger.error("File storage error: {}", ex.getMessage());
@@ -40,6 +49,59 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
     }
 
+    @ExceptionHandler(InvalidUploadException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidUpload(InvalidUploadException ex) {
+        logger.error("Invalid upload: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse("INVALID_UPLOAD", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidCursor(InvalidCursorException ex) {
+        logger.error("Invalid cursor: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse("INVALID_CURSOR", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    @ExceptionHandler(InvalidSearchQueryException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidSearchQuery(InvalidSearchQueryException ex) {
+        logger.error("Invalid search query: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse("INVALID_SEARCH_QUERY", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    @ExceptionHandler(SearchUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleSearchUnavailable(SearchUnavailableException ex) {
+        logger.error("Search unavailable: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse("SEARCH_UNAVAILABLE", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+    }
+
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<ErrorResponse> handleServiceBusy(ServiceBusyException ex) {
+        logger.error("Service busy: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse("SERVICE_BUSY", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, ex.getRetryAfter().toSeconds())))
+                .body(error);
+    }
+
+    @ExceptionHandler(InvalidRefreshTokenException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidRefreshToken(InvalidRefreshTokenException ex) {
+        logger.error("Invalid refresh token: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse("INVALID_REFRESH_TOKEN", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ErrorResponse> handleTooManyRequests(TooManyRequestsException ex) {
+        logger.error("Too many requests: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse("TOO_MANY_REQUESTS", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, ex.getRetryAfter().toSeconds())))
+                .body(error);
+    }
+
     @ExceptionHandler(DuplicateCredentialException.class)
     public ResponseEntity<ErrorResponse> handleDuplicateCredential(DuplicateCredentialException ex) {
         logger.error("Duplicate credential: {}", ex.getMessage());
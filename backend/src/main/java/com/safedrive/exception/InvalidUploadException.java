@@ -0,0 +1,7 @@
+package com.safedrive.exception;
+
+public class InvalidUploadException extends RuntimeException {
+    public InvalidUploadException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.safedrive.exception;
+
+public class PreviewUnavailableException extends RuntimeException {
+    public PreviewUnavailableException(String message) {
+        super(message);
+    }
+}
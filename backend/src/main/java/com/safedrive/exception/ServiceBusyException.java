@@ -0,0 +1,21 @@
+package com.safedrive.exception;
+
+import java.time.Duration;
+
+/**
+ * The server has no capacity left for this kind of request right now; the
+ * client should try again after {@link #getRetryAfter()}.
+ */
+public class ServiceBusyException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public ServiceBusyException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,21 @@
+package com.safedrive.exception;
+
+import java.time.Duration;
+
+/**
+ * The work this request needs is queued too deep to accept more; the
+ * client should slow down and try again after {@link #getRetryAfter()}.
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public TooManyRequestsException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,41 @@
+package com.safedrive.jobs;
+
+import com.safedrive.storage.StorageBackend;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Deletes a stored object that no row references any more. Queued in the
+ * transaction that dropped the reference, so the object is removed only
+ * once that commits, and a storage outage delays the delete instead of
+ * losing it. The payload is the storage key.
+ */
+@Component
+public class BlobDeleteJob implements JobHandler {
+
+    public static final String TYPE = "blob-delete";
+
+    private static final Logger logger = LoggerFactory.getLogger(BlobDeleteJob.class);
+
+    @Autowired
+    private StorageBackend storageBackend;
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    @Override
+    public int getConcurrency() {
+        return 4;
+    }
+
+    @Override
+    public void handle(String key) throws Exception {
+        if (storageBackend.delete(key)) {
+            logger.info("Deleted stored object {}", key);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.safedrive.jobs;
+
+import com.safedrive.crypto.FileEncryption;
+import com.safedrive.entity.BlobEntity;
+import com.safedrive.exception.FileStorageException;
+import com.safedrive.repository.BlobRepository;
+import com.safedrive.storage.StorageBackend;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Reads a newly stored blob back from the storage backend, decrypting it
+ * if needed, and checks it against its digest, so an object that was
+ * truncated or corrupted on its way into the backend is caught while the
+ * uploader still has the original. The payload is the digest. A mismatch
+ * fails the job; once out of attempts it stays DEAD as the record.
+ */
+@Component
+public class BlobVerifyJob implements JobHandler {
+
+    public static final String TYPE = "blob-verify";
+
+    private static final Logger logger = LoggerFactory.getLogger(BlobVerifyJob.class);
+
+    @Autowired
+    private BlobRepository blobRepository;
+
+    @Autowired
+    private StorageBackend storageBackend;
+
+    @Autowired
+    private FileEncryption fileEncryption;
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    @Override
+    public void handle(String digest) throws Exception {
+        Optional<BlobEntity> found = blobRepository.findById(digest);
+        if (found.isEmpty()) {
+            // Released since; nothing left to check
+            return;
+        }
+
+        BlobEntity blob = found.get();
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+        long size;
+        try (InputStream in = new DigestInputStream(open(blob), sha256)) {
+            size = in.transferTo(OutputStream.nullOutputStream());
+        }
+
+        String actual = HexFormat.of().formatHex(sha256.digest());
+        if (size != blob.getSize() || !actual.equals(digest)) {
+            throw new FileStorageException("Blob " + blob.getStoragePath() + " reads back as " + size + " bytes with digest "
+                    + actual + ", expected " + blob.getSize() + " bytes with digest " + digest);
+        }
+        logger.debug("Verified blob {}", digest);
+    }
+
+    private InputStream open(BlobEntity blob) throws Exception {
+        if (blob.getWrappedKey() == null) {
+            return storageBackend.get(blob.getStoragePath());
+        }
+        return fileEncryption.openRange(storageBackend, blob.getStoragePath(),
+                fileEncryption.unwrap(blob.getWrappedKey()), blob.getSize(), 0, blob.getSize());
+    }
+}
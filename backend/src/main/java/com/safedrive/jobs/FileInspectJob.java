@@ -0,0 +1,75 @@
+package com.safedrive.jobs;
+
+import com.safedrive.content.ContentInfo;
+import com.safedrive.content.ContentInspector;
+import com.safedrive.content.InspectingInputStream;
+import com.safedrive.entity.FileEntity;
+import com.safedrive.repository.FileRepository;
+import com.safedrive.service.FileDownloadService;
+import com.safedrive.storage.StorageBackend;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Optional;
+
+/**
+ * Reads a stored file once through a {@link ContentInspector} and records
+ * its detected type and metadata. New uploads are inspected while they are
+ * staged; this job covers files stored before detection existed, which the
+ * V13 migration queues. The payload is the file id.
+ */
+@Component
+public class FileInspectJob implements JobHandler {
+
+    public static final String TYPE = "file-inspect";
+
+    private static final Logger logger = LoggerFactory.getLogger(FileInspectJob.class);
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private FileDownloadService fileDownloadService;
+
+    @Autowired
+    private StorageBackend storageBackend;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    @Override
+    public void handle(String payload) throws Exception {
+        Long fileId = Long.valueOf(payload);
+        Optional<FileEntity> found = fileRepository.findById(fileId);
+        if (found.isEmpty()) {
+            // Deleted since it was queued
+            return;
+        }
+
+        FileEntity file = found.get();
+        if (storageBackend.stat(file.getFilePath()).isEmpty()) {
+            // Retrying will not bring it back; downloads of this file fail the same way
+            logger.warn("Cannot inspect file {}: object {} is missing", fileId, file.getFilePath());
+            return;
+        }
+        ContentInspector inspector = new ContentInspector();
+        try (InputStream in = new InspectingInputStream(fileDownloadService.open(file), inspector)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        ContentInfo info = inspector.inspect(file.getDeclaredContentType());
+
+        // Reload so only the inspected columns change, whatever happened to the row meanwhile
+        transactionTemplate.executeWithoutResult(status -> fileRepository.findById(fileId)
+                .ifPresent(info::applyTo));
+        logger.debug("Inspected file {} as {}", fileId, info.getContentType());
+    }
+}
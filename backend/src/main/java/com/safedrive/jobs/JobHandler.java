@@ -0,0 +1,20 @@
+package com.safedrive.jobs;
+
+/**
+ * Runs the jobs of one type. Jobs are delivered at least once: a retry, or
+ * a worker whose lease ran out, can run the same payload again, so handlers
+ * must be idempotent. Throwing schedules a retry with backoff until the
+ * job runs out of attempts.
+ */
+public interface JobHandler {
+
+    /** Stored in {@code jobs.type}; also the key for per-type settings. */
+    String getType();
+
+    /** Jobs of this type run at once on each node, unless overridden in config. */
+    default int getConcurrency() {
+        return 2;
+    }
+
+    void handle(String payload) throws Exception;
+}
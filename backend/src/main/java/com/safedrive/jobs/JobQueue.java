@@ -0,0 +1,42 @@
+package com.safedrive.jobs;
+
+import com.safedrive.entity.Job;
+import com.safedrive.repository.JobRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Queues background work in the {@code jobs} table. Called inside the
+ * transaction that makes the change the job follows up on, the job commits
+ * or rolls back with it, so work is neither lost after a commit nor run
+ * for a change that never happened. {@link JobRunner} picks it up.
+ */
+@Service
+@Transactional
+public class JobQueue {
+
+    @Autowired
+    private JobRepository jobRepository;
+
+    @Autowired
+    private JobRunner jobRunner;
+
+    @Value("${app.jobs.max-attempts:8}")
+    private int maxAttempts;
+
+    public Job enqueue(String type, String payload) {
+        Job job = jobRepository.save(new Job(type, payload, maxAttempts));
+        // Start on this node right away instead of at the next poll
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                jobRunner.wake();
+            }
+        });
+        return job;
+    }
+}
@@ -0,0 +1,296 @@
+package com.safedrive.jobs;
+
+import com.safedrive.entity.Job;
+import com.safedrive.repository.JobRepository;
+import com.safedrive.repository.JobStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Claims jobs from the {@code jobs} table and runs them on a bounded pool
+ * per job type, so a backlog of one type cannot starve the others or use
+ * more than its share of connections and storage bandwidth. A single poller
+ * thread claims only as many jobs as a type has free workers; it wakes on
+ * {@link #wake()} (a job was queued on this node, or a worker finished) and
+ * otherwise every {@code app.jobs.poll-interval}, which is how jobs queued
+ * on other nodes are found.
+ *
+ * A failed job is retried with exponential backoff and jitter until it has
+ * used {@code app.jobs.max-attempts}, then left as DEAD with its last error
+ * for an operator to look at.
+ */
+@Component
+public class JobRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobRunner.class);
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final JobRepository jobRepository;
+    private final Map<String, Worker> workers = new LinkedHashMap<>();
+    private final boolean enabled;
+    private final Duration pollInterval;
+    private final Duration lease;
+    private final Duration backoffBase;
+    private final Duration backoffMax;
+    private final Duration deadRetention;
+    private final int batchSize;
+    private final String workerId = ManagementFactory.getRuntimeMXBean().getName();
+    private final Semaphore wakeups = new Semaphore(0);
+
+    private volatile boolean running;
+    private Thread poller;
+
+    private class Worker {
+        private final JobHandler handler;
+        private final int concurrency;
+        private final ThreadPoolTaskExecutor executor;
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicLong ready = new AtomicLong();
+        private final AtomicLong dead = new AtomicLong();
+        private final AtomicLong lagMillis = new AtomicLong();
+        private final Timer duration;
+        private final Counter succeeded;
+        private final Counter retried;
+        private final Counter buried;
+
+        Worker(JobHandler handler, int concurrency, boolean virtualThreads, MeterRegistry registry) {
+            this.handler = handler;
+            this.concurrency = concurrency;
+            String type = handler.getType();
+            executor = new ThreadPoolTaskExecutor();
+            executor.setCorePoolSize(concurrency);
+            executor.setMaxPoolSize(concurrency);
+            // Never more queued than the poller claimed for free workers
+            executor.setQueueCapacity(concurrency);
+            executor.setThreadNamePrefix("job-" + type + "-");
+            if (virtualThreads) {
+                executor.setThreadFactory(Thread.ofVirtual().name("job-" + type + "-", 0).factory());
+            }
+            executor.setWaitForTasksToCompleteOnShutdown(true);
+            executor.setAwaitTerminationSeconds(30);
+            executor.initialize();
+
+            Gauge.builder("safedrive.jobs.active", active, AtomicInteger::get)
+                    .description("Jobs of the type running on this node")
+                    .tag("type", type)
+                    .register(registry);
+            Gauge.builder("safedrive.jobs.ready", ready, AtomicLong::get)
+                    .description("Jobs of the type due and waiting for a worker")
+                    .tag("type", type)
+                    .register(registry);
+            Gauge.builder("safedrive.jobs.dead", dead, AtomicLong::get)
+                    .description("Jobs of the type that ran out of attempts")
+                    .tag("type", type)
+                    .register(registry);
+            Gauge.builder("safedrive.jobs.lag", lagMillis, millis -> millis.get() / 1000.0)
+                    .description("How long the oldest due job of the type has waited")
+                    .baseUnit("seconds")
+                    .tag("type", type)
+                    .register(registry);
+            duration = Timer.builder("safedrive.jobs.duration")
+                    .description("Time to run one job")
+                    .tag("type", type)
+                    .register(registry);
+            succeeded = processed(registry, type, "succeeded");
+            retried = processed(registry, type, "retried");
+            buried = processed(registry, type, "dead");
+        }
+
+        private Counter processed(MeterRegistry registry, String type, String outcome) {
+            return Counter.builder("safedrive.jobs.processed")
+                    .description("Jobs run, by outcome")
+                    .tag("type", type)
+                    .tag("outcome", outcome)
+                    .register(registry);
+        }
+    }
+
+    public JobRunner(List<JobHandler> handlers, JobRepository jobRepository, MeterRegistry registry,
+            Environment environment,
+            @Value("${app.jobs.enabled:true}") boolean enabled,
+            @Value("${app.jobs.poll-interval:PT1S}") Duration pollInterval,
+            @Value("${app.jobs.lease:PT5M}") Duration lease,
+            @Value("${app.jobs.batch-size:20}") int batchSize,
+            @Value("${app.jobs.backoff.base:PT5S}") Duration backoffBase,
+            @Value("${app.jobs.backoff.max:PT1H}") Duration backoffMax,
+            @Value("${app.jobs.dead-retention:7d}") Duration deadRetention,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.jobRepository = jobRepository;
+        this.enabled = enabled;
+        this.pollInterval = pollInterval;
+        this.lease = lease;
+        this.batchSize = batchSize;
+        this.backoffBase = backoffBase;
+        this.backoffMax = backoffMax;
+        this.deadRetention = deadRetention;
+        for (JobHandler handler : handlers) {
+            int concurrency = environment.getProperty("app.jobs.types." + handler.getType() + ".concurrency",
+                    Integer.class, handler.getConcurrency());
+            workers.put(handler.getType(), new Worker(handler, concurrency, virtualThreads, registry));
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            logger.info("Background jobs are disabled on this node; jobs are queued but not run");
+            return;
+        }
+        running = true;
+        poller = Thread.ofPlatform().daemon().name("job-poller").start(this::pollLoop);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (poller != null) {
+            poller.interrupt();
+            poller.join(pollInterval.toMillis() + 1000);
+        }
+        // Jobs still running finish here; any cut short are claimed again once their lease ends
+        workers.values().forEach(worker -> worker.executor.shutdown());
+    }
+
+    /** Claims due jobs now instead of at the next poll. */
+    public void wake() {
+        wakeups.release();
+    }
+
+    private void pollLoop() {
+        while (running) {
+            boolean more = false;
+            for (Worker worker : workers.values()) {
+                try {
+                    more |= poll(worker);
+                } catch (RuntimeException e) {
+                    logger.warn("Could not claim {} jobs: {}", worker.handler.getType(), e.getMessage());
+                }
+            }
+            try {
+                if (!more) {
+                    wakeups.tryAcquire(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+                }
+                wakeups.drainPermits();
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return whether a full batch was claimed, so more jobs may be due
+     */
+    private boolean poll(Worker worker) {
+        int wanted = Math.min(worker.concurrency - worker.active.get(), batchSize);
+        if (wanted <= 0) {
+            return false;
+        }
+        List<Job> jobs = jobRepository.claim(worker.handler.getType(), wanted, workerId, lease.toSeconds());
+        for (Job job : jobs) {
+            worker.active.incrementAndGet();
+            worker.executor.execute(() -> run(worker, job));
+        }
+        return jobs.size() == wanted;
+    }
+
+    private void run(Worker worker, Job job) {
+        long startNanos = System.nanoTime();
+        try {
+            worker.handler.handle(job.getPayload());
+            jobRepository.complete(job.getId(), job.getAttempts());
+            worker.succeeded.increment();
+        } catch (Exception e) {
+            fail(worker, job, e);
+        } finally {
+            worker.duration.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            worker.active.decrementAndGet();
+            wake();
+        }
+    }
+
+    private void fail(Worker worker, Job job, Exception e) {
+        String error = describe(e);
+        try {
+            if (job.getAttempts() >= job.getMaxAttempts()) {
+                jobRepository.bury(job.getId(), job.getAttempts(), error);
+                worker.buried.increment();
+                logger.error("Job {} ({} {}) failed after {} attempts: {}", job.getId(), job.getType(),
+                        job.getPayload(), job.getAttempts(), error);
+            } else {
+                Duration delay = backoff(job.getAttempts(), backoffBase, backoffMax);
+                jobRepository.retry(job.getId(), job.getAttempts(), delay.toMillis() / 1000.0, error);
+                worker.retried.increment();
+                logger.warn("Job {} ({} {}) failed on attempt {}, retrying in {}s: {}", job.getId(), job.getType(),
+                        job.getPayload(), job.getAttempts(), delay.toSeconds(), error);
+            }
+        } catch (RuntimeException recordFailure) {
+            // The lease runs out and the job is claimed again
+            logger.warn("Could not record failure of job {}: {}", job.getId(), recordFailure.getMessage());
+        }
+    }
+
+    /**
+     * Delay before retry {@code attempt + 1}: doubling from {@code base} up
+     * to {@code max}, then jittered down by up to half so jobs that failed
+     * together (say, while storage was down) do not all come back at once.
+     */
+    static Duration backoff(int attempt, Duration base, Duration max) {
+        long ceiling = base.toMillis() << Math.min(attempt - 1, 30);
+        long millis = Math.min(Math.max(ceiling, base.toMillis()), max.toMillis());
+        return Duration.ofMillis(millis / 2 + ThreadLocalRandom.current().nextLong(millis / 2 + 1));
+    }
+
+    /**
+     * Dead-letters jobs whose worker died during their last attempt, drops
+     * dead jobs past {@code app.jobs.dead-retention} and refreshes the queue
+     * gauges.
+     */
+    @Scheduled(fixedDelayString = "${app.jobs.maintenance-interval:PT1M}")
+    public void maintain() {
+        int abandoned = jobRepository.buryAbandoned();
+        if (abandoned > 0) {
+            logger.error("Dead-lettered {} jobs whose worker stopped during the last attempt", abandoned);
+        }
+        int purged = jobRepository.deleteDead(deadRetention.toSeconds());
+        if (purged > 0) {
+            logger.info("Deleted {} dead jobs older than {}", purged, deadRetention);
+        }
+
+        Map<String, JobStats> byType = new HashMap<>();
+        jobRepository.stats().forEach(stats -> byType.put(stats.getType(), stats));
+        workers.forEach((type, worker) -> {
+            JobStats stats = byType.get(type);
+            worker.ready.set(stats != null ? stats.getReady() : 0);
+            worker.dead.set(stats != null ? stats.getDead() : 0);
+            worker.lagMillis.set(stats != null ? (long) (stats.getLagSeconds() * 1000) : 0);
+        });
+    }
+
+    private static String describe(Exception e) {
+        String error = e.getClass().getSimpleName() + (e.getMessage() != null ? ": " + e.getMessage() : "");
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
@@ -0,0 +1,56 @@
+package com.safedrive.jobs;
+
+import com.safedrive.entity.FileEntity;
+import com.safedrive.exception.PreviewUnavailableException;
+import com.safedrive.preview.ThumbnailService;
+import com.safedrive.repository.FileRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import java.util.Optional;
+
+/**
+ * Renders the default thumbnail of a newly uploaded image ahead of the
+ * first listing that shows it. The payload is the file id.
+ */
+@Component
+public class ThumbnailJob implements JobHandler {
+
+    public static final String TYPE = "thumbnail";
+
+    private static final Logger logger = LoggerFactory.getLogger(ThumbnailJob.class);
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    // ThumbnailService queues through the JobQueue, which needs the runner built from these handlers
+    @Autowired
+    @Lazy
+    private ThumbnailService thumbnailService;
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    @Override
+    public int getConcurrency() {
+        return 1;
+    }
+
+    @Override
+    public void handle(String payload) throws Exception {
+        Optional<FileEntity> file = fileRepository.findById(Long.valueOf(payload));
+        if (file.isEmpty()) {
+            return;
+        }
+        try {
+            thumbnailService.renderDefault(file.get());
+        } catch (PreviewUnavailableException e) {
+            // Not decodable; a request for it gets the same answer
+            logger.debug("No thumbnail for file {}: {}", payload, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.safedrive.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Meters for moving file bodies: bytes and per-transfer throughput of
+ * uploads and downloads, transfers in flight, and timers for the storage
+ * steps (staging to local disk, handing the object to the backend) and the
+ * upload's database transactions, so a slow upload can be told apart from a
+ * slow database or slow authentication.
+ */
+@Component
+public class TransferMetrics {
+
+    private static final double MB = 1024 * 1024;
+
+    public enum Direction {
+        UPLOAD, DOWNLOAD;
+
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final Map<Direction, AtomicInteger> active = new EnumMap<>(Direction.class);
+    private final Map<Direction, DistributionSummary> throughput = new EnumMap<>(Direction.class);
+
+    @Value("${app.storage.type:local}")
+    private String backend = "local";
+
+    public TransferMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (Direction direction : Direction.values()) {
+            AtomicInteger inFlight = new AtomicInteger();
+            active.put(direction, inFlight);
+            Gauge.builder("safedrive.transfer.active", inFlight, AtomicInteger::get)
+                    .description("File transfers in progress")
+                    .tag("direction", direction.tag())
+                    .register(registry);
+            throughput.put(direction, DistributionSummary.builder("safedrive.transfer.throughput")
+                    .description("Throughput of individual file transfers")
+                    .baseUnit("bytes.per.second")
+                    .tag("direction", direction.tag())
+                    .serviceLevelObjectives(MB, 10 * MB, 50 * MB, 100 * MB, 250 * MB, 500 * MB, 1024 * MB)
+                    .register(registry));
+        }
+    }
+
+    /**
+     * @return a start timestamp to pass to {@link #finishTransfer}
+     */
+    public long startTransfer(Direction direction) {
+        active.get(direction).incrementAndGet();
+        return System.nanoTime();
+    }
+
+    /**
+     * @param kind        how the bytes moved, e.g. {@code multipart},
+     *                    {@code chunked}, {@code stream} or {@code sendfile}
+     * @param recordRate  false when the transfer continues after this call
+     *                    (sendfile), so its duration is unknown
+     */
+    public void finishTransfer(Direction direction, String kind, long bytes, long startNanos, boolean recordRate) {
+        active.get(direction).decrementAndGet();
+        if (bytes <= 0) {
+            return;
+        }
+        Counter.builder("safedrive.transfer.bytes")
+                .description("File bytes transferred")
+                .baseUnit("bytes")
+                .tag("direction", direction.tag())
+                .tag("kind", kind)
+                .register(registry)
+                .increment(bytes);
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+        if (recordRate && elapsedNanos > 0) {
+            throughput.get(direction).record(bytes * 1e9 / elapsedNanos);
+        }
+    }
+
+    /**
+     * Record a storage step that started at {@code startNanos}:
+     * {@code stage}, {@code assemble} or {@code put}.
+     */
+    public void recordStorage(String operation, long startNanos) {
+        Timer.builder("safedrive.storage.operation")
+                .description("Time spent writing file bodies to staging and to the storage backend")
+                .tag("operation", operation)
+                .tag("backend", backend)
+                .serviceLevelObjectives(Duration.ofMillis(10), Duration.ofMillis(50), Duration.ofMillis(100),
+                        Duration.ofMillis(250), Duration.ofMillis(500), Duration.ofSeconds(1), Duration.ofSeconds(5),
+                        Duration.ofSeconds(30))
+                .register(registry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record a database transaction of the upload path that started at
+     * {@code startNanos}: {@code reserve} (the pending-upload row written
+     * before the body is stored) or {@code commit} (linking the blob and
+     * saving the metadata). Uploads hold a pooled connection only for these,
+     * never while bytes are copied.
+     */
+    public void recordUploadTransaction(String phase, long startNanos) {
+        Timer.builder("safedrive.upload.transaction")
+                .description("Time uploads hold a database connection, per phase")
+                .tag("phase", phase)
+                .serviceLevelObjectives(Duration.ofMillis(5), Duration.ofMillis(10), Duration.ofMillis(25),
+                        Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250), Duration.ofSeconds(1))
+                .register(registry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,268 @@
+package com.safedrive.preview;
+
+import com.safedrive.crypto.ChunkedGcm;
+import com.safedrive.crypto.ChunkedGcmInputStream;
+import com.safedrive.crypto.ChunkedGcmOutputStream;
+import com.safedrive.crypto.FileEncryption;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import javax.crypto.SecretKey;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Rendered thumbnails and previews on local disk, keyed by file id and
+ * variant, holding at most the configured number of bytes. The index is
+ * kept in memory in access order, so once the cache is full the least
+ * recently served entries are deleted first. On startup the index is
+ * rebuilt from the directory, oldest file first.
+ *
+ * Entries are written to a temporary file and moved into place, so a
+ * reader never sees half an entry. Derivatives can always be made again,
+ * and a file that disappears underneath the index is treated as a miss.
+ *
+ * A thumbnail shows what the file holds, so while file encryption is on
+ * each entry is encrypted like a blob, under its own data key stored
+ * wrapped at the start of the entry. Entries left over from the other
+ * setting are deleted on startup.
+ */
+@Component
+public class DerivativeCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(DerivativeCache.class);
+
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String ENCRYPTED_SUFFIX = ".enc";
+
+    private final Path directory;
+    private final FileEncryption fileEncryption;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    public DerivativeCache(@Value("${app.thumbnails.cache.dir:uploads/derivatives}") String directory,
+            @Value("${app.thumbnails.cache.max-size:512MB}") DataSize maxSize, FileEncryption fileEncryption,
+            MeterRegistry registry) {
+        this.directory = Paths.get(directory);
+        this.fileEncryption = fileEncryption;
+        this.maxBytes = maxSize.toBytes();
+        load();
+
+        Gauge.builder("safedrive.thumbnails.cache.bytes", this, DerivativeCache::getTotalBytes)
+                .description("Bytes of rendered thumbnails and previews kept on disk")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("safedrive.thumbnails.cache.entries", this, DerivativeCache::getEntryCount)
+                .description("Rendered thumbnails and previews kept on disk")
+                .register(registry);
+    }
+
+    /**
+     * @return the entry's bytes, decrypted, or {@code null} on a miss
+     */
+    public byte[] get(String key) {
+        synchronized (this) {
+            if (entries.get(key) == null) {
+                return null;
+            }
+        }
+        byte[] stored;
+        try {
+            stored = Files.readAllBytes(pathOf(key));
+        } catch (NoSuchFileException e) {
+            remove(key);
+            return null;
+        } catch (IOException e) {
+            logger.warn("Could not read cached derivative {}: {}", key, e.getMessage());
+            return null;
+        }
+        if (!fileEncryption.isEnabled()) {
+            return stored;
+        }
+        try {
+            return open(stored);
+        } catch (IOException | IllegalStateException e) {
+            logger.warn("Dropping unreadable cached derivative {}: {}", key, e.getMessage());
+            remove(key);
+            deleteQuietly(pathOf(key));
+            return null;
+        }
+    }
+
+    public void put(String key, byte[] data) {
+        Path target = pathOf(key);
+        Path temp = directory.resolve(UUID.randomUUID() + TEMP_SUFFIX);
+        long size;
+        try {
+            byte[] stored = fileEncryption.isEnabled() ? seal(data) : data;
+            Files.write(temp, stored);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            size = stored.length;
+        } catch (IOException e) {
+            // Still served to this caller; only the next one has to render it again
+            deleteQuietly(temp);
+            logger.warn("Could not cache derivative {}: {}", key, e.getMessage());
+            return;
+        }
+
+        List<String> evicted = new ArrayList<>();
+        synchronized (this) {
+            Long previous = entries.put(key, size);
+            totalBytes += size - (previous != null ? previous : 0);
+            Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, Long> entry = eldest.next();
+                if (entry.getKey().equals(key)) {
+                    continue;
+                }
+                totalBytes -= entry.getValue();
+                evicted.add(entry.getKey());
+                eldest.remove();
+            }
+        }
+        for (String old : evicted) {
+            deleteQuietly(pathOf(old));
+        }
+    }
+
+    /**
+     * Drops every variant of a file.
+     */
+    public void removeAll(Long fileId) {
+        String prefix = fileId + "-";
+        List<String> removed = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Long> entry = it.next();
+                if (entry.getKey().startsWith(prefix)) {
+                    totalBytes -= entry.getValue();
+                    removed.add(entry.getKey());
+                    it.remove();
+                }
+            }
+        }
+        for (String key : removed) {
+            deleteQuietly(pathOf(key));
+        }
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    private synchronized void remove(String key) {
+        Long size = entries.remove(key);
+        if (size != null) {
+            totalBytes -= size;
+        }
+    }
+
+    // Wrapped data key, plaintext length, then the body in ChunkedGcm format
+    private byte[] seal(byte[] data) throws IOException {
+        FileEncryption.DataKey dataKey = fileEncryption.newDataKey();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(data.length + 128);
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeShort(dataKey.getWrapped().length);
+        out.write(dataKey.getWrapped());
+        out.writeInt(data.length);
+        ChunkedGcmOutputStream sealed = fileEncryption.encrypt(out, dataKey.getKey());
+        sealed.write(data);
+        sealed.finish();
+        return buffer.toByteArray();
+    }
+
+    private byte[] open(byte[] stored) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(stored));
+        byte[] wrapped = new byte[in.readUnsignedShort()];
+        in.readFully(wrapped);
+        int length = in.readInt();
+        SecretKey key = fileEncryption.unwrap(wrapped);
+        ChunkedGcm.Header header = ChunkedGcm.readHeader(in);
+        return new ChunkedGcmInputStream(in, key, header, 0, length).readAllBytes();
+    }
+
+    private void load() {
+        record Found(String key, long size, long modified) {
+        }
+
+        List<Found> found = new ArrayList<>();
+        try (Stream<Path> files = Files.list(Files.createDirectories(directory))) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                String name = path.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX) || name.endsWith(ENCRYPTED_SUFFIX) != fileEncryption.isEnabled()) {
+                    deleteQuietly(path);
+                    continue;
+                }
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                if (attributes.isRegularFile()) {
+                    String key = fileEncryption.isEnabled()
+                            ? name.substring(0, name.length() - ENCRYPTED_SUFFIX.length())
+                            : name;
+                    found.add(new Found(key, attributes.size(), attributes.lastModifiedTime().toMillis()));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open thumbnail cache " + directory, e);
+        }
+
+        found.sort(Comparator.comparingLong(Found::modified));
+        List<String> evicted = new ArrayList<>();
+        for (Found entry : found) {
+            entries.put(entry.key(), entry.size());
+            totalBytes += entry.size();
+        }
+        Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            totalBytes -= entry.getValue();
+            evicted.add(entry.getKey());
+            eldest.remove();
+        }
+        for (String key : evicted) {
+            deleteQuietly(pathOf(key));
+        }
+        if (!entries.isEmpty()) {
+            logger.info("Thumbnail cache holds {} entries, {} bytes", entries.size(), totalBytes);
+        }
+    }
+
+    private Path pathOf(String key) {
+        return directory.resolve(fileEncryption.isEnabled() ? key + ENCRYPTED_SUFFIX : key);
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Could not remove {}: {}", path, e.getMessage());
+        }
+    }
+}
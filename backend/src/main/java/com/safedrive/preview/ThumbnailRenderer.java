@@ -0,0 +1,140 @@
+package com.safedrive.preview;
+
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/**
+ * Makes thumbnails and text previews with the JDK alone. Images are
+ * decoded with source subsampling, so a large photo is read at a few
+ * times the thumbnail size rather than in full, then halved step by step
+ * and written as JPEG.
+ */
+final class ThumbnailRenderer {
+
+    private ThumbnailRenderer() {
+    }
+
+    /**
+     * @param size longest side of the thumbnail; smaller images keep their
+     *        size
+     * @throws IIOException if the image cannot be decoded or has more than
+     *         {@code maxPixels} pixels
+     */
+    static byte[] renderImage(InputStream in, int size, float quality, long maxPixels) throws IOException {
+        BufferedImage source;
+        try (ImageInputStream input = new MemoryCacheImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IIOException("No decoder for this image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new IIOException("Image of " + width + "x" + height + " is too large to preview");
+                }
+                // Decode at no less than twice the target, which the halving steps below smooth out
+                int step = Math.max(1, Math.max(width, height) / (2 * size));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                source = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        double scale = Math.min(1.0, (double) size / Math.max(source.getWidth(), source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage image = source;
+        while (image.getWidth() / 2 >= targetWidth && image.getHeight() / 2 >= targetHeight) {
+            image = scale(image, image.getWidth() / 2, image.getHeight() / 2);
+        }
+        // JPEG has no alpha: flatten onto white
+        return writeJpeg(scale(image, targetWidth, targetHeight), quality);
+    }
+
+    /**
+     * Decodes the start of a text file as UTF-8, leaving out a character
+     * cut in half at the end.
+     */
+    static String textPreview(byte[] head, boolean truncated) {
+        int length = truncated ? completeLength(head) : head.length;
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        try {
+            return decoder.decode(ByteBuffer.wrap(head, 0, length)).toString();
+        } catch (CharacterCodingException e) {
+            throw new IllegalStateException("Decoding with replacement cannot fail", e);
+        }
+    }
+
+    // Length up to the last UTF-8 sequence that is not missing bytes
+    private static int completeLength(byte[] b) {
+        for (int i = b.length - 1; i >= 0 && i >= b.length - 4; i--) {
+            int c = b[i] & 0xFF;
+            if (c < 0x80) {
+                return b.length;
+            }
+            if (c >= 0xC0) {
+                int needed = c >= 0xF0 ? 4 : c >= 0xE0 ? 3 : 2;
+                return b.length - i >= needed ? b.length : i;
+            }
+        }
+        return b.length;
+    }
+
+    private static BufferedImage scale(BufferedImage image, int width, int height) {
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(image, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+
+    private static byte[] writeJpeg(BufferedImage image, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream output = new MemoryCacheImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
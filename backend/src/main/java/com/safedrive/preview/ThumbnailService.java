@@ -0,0 +1,305 @@
+package com.safedrive.preview;
+
+import com.safedrive.content.ContentTypes;
+import com.safedrive.entity.FileEntity;
+import com.safedrive.exception.FileStorageException;
+import com.safedrive.exception.PreviewUnavailableException;
+import com.safedrive.exception.ServiceBusyException;
+import com.safedrive.jobs.JobQueue;
+import com.safedrive.jobs.ThumbnailJob;
+import com.safedrive.repository.FileRepository;
+import com.safedrive.service.FileDownloadService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import javax.imageio.IIOException;
+import javax.imageio.ImageIO;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Small renderings of stored files, so a file list does not have to
+ * download originals: JPEG thumbnails of images in a few fixed sizes, and
+ * the first few KB of text files. Each is rendered on first request (or by
+ * a {@link ThumbnailJob} after an image upload) and kept in the
+ * {@link DerivativeCache}.
+ *
+ * Requests for a variant that is being rendered wait for that rendering
+ * instead of starting their own, so a page of tiles opened in several tabs
+ * decodes each image once. Rendering itself is limited to a few at a time,
+ * since decoding a large image takes a lot of CPU and memory.
+ */
+@Service
+public class ThumbnailService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThumbnailService.class);
+
+    private static final String TEXT_VARIANT = "text";
+    private static final MediaType TEXT_PREVIEW_TYPE = new MediaType("text", "plain", StandardCharsets.UTF_8);
+
+    @Autowired
+    private DerivativeCache derivativeCache;
+
+    @Autowired
+    private FileDownloadService fileDownloadService;
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private JobQueue jobQueue;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Longest side of each variant; requested sizes are rounded up to one of these
+    @Value("${app.thumbnails.sizes:128,256,512}")
+    private List<Integer> sizes;
+
+    @Value("${app.thumbnails.default-size:256}")
+    private int defaultSize;
+
+    @Value("${app.thumbnails.quality:0.8}")
+    private float quality;
+
+    @Value("${app.thumbnails.max-pixels:50000000}")
+    private long maxPixels;
+
+    @Value("${app.thumbnails.text-preview-bytes:4096}")
+    private int textPreviewBytes;
+
+    @Value("${app.thumbnails.max-concurrent:2}")
+    private int maxConcurrent;
+
+    @Value("${app.thumbnails.max-wait:PT10S}")
+    private Duration maxWait;
+
+    @Value("${app.thumbnails.pregenerate:true}")
+    private boolean pregenerate;
+
+    private final ConcurrentHashMap<String, CompletableFuture<byte[]>> rendering = new ConcurrentHashMap<>();
+    // Bumped by every eviction, so a render that overlapped one knows to check its file still exists
+    private final AtomicLong evictions = new AtomicLong();
+    private Semaphore renderPermits;
+    private Counter hits;
+    private Counter rendered;
+    private Counter coalesced;
+    private Timer renderTime;
+
+    public static class Thumbnail {
+        private final byte[] data;
+        private final MediaType contentType;
+
+        public Thumbnail(byte[] data, MediaType contentType) {
+            this.data = data;
+            this.contentType = contentType;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+
+        public MediaType getContentType() {
+            return contentType;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        sizes = sizes.stream().sorted().toList();
+        renderPermits = new Semaphore(maxConcurrent);
+        hits = request("hit");
+        rendered = request("rendered");
+        coalesced = request("coalesced");
+        renderTime = Timer.builder("safedrive.thumbnails.render")
+                .description("Time to render a thumbnail or preview, including reading the file")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Names the variant that serves a request: the smallest configured size
+     * at least {@code requestedSize} for images, or the text preview.
+     *
+     * @throws PreviewUnavailableException for files of other types
+     */
+    public String variant(FileEntity file, Integer requestedSize) {
+        if (isText(file)) {
+            return TEXT_VARIANT;
+        }
+        if (!isImage(file)) {
+            throw new PreviewUnavailableException("No preview for files of type " + file.getContentType());
+        }
+        if (file.getWidth() != null && file.getHeight() != null
+                && (long) file.getWidth() * file.getHeight() > maxPixels) {
+            throw new PreviewUnavailableException("Image is too large to preview");
+        }
+        int wanted = requestedSize != null ? requestedSize : defaultSize;
+        for (int size : sizes) {
+            if (size >= wanted) {
+                return Integer.toString(size);
+            }
+        }
+        return Integer.toString(sizes.get(sizes.size() - 1));
+    }
+
+    public Thumbnail get(FileEntity file, String variant) {
+        MediaType contentType = TEXT_VARIANT.equals(variant) ? TEXT_PREVIEW_TYPE : MediaType.IMAGE_JPEG;
+        String key = file.getId() + "-" + variant + (TEXT_VARIANT.equals(variant) ? ".txt" : ".jpg");
+
+        byte[] cached = derivativeCache.get(key);
+        if (cached != null) {
+            hits.increment();
+            return new Thumbnail(cached, contentType);
+        }
+
+        CompletableFuture<byte[]> mine = new CompletableFuture<>();
+        CompletableFuture<byte[]> running = rendering.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.increment();
+            return new Thumbnail(await(running), contentType);
+        }
+        try {
+            // Another request may have finished rendering between the cache miss and putIfAbsent
+            byte[] data = derivativeCache.get(key);
+            if (data == null) {
+                long evictionsBefore = evictions.get();
+                data = render(file, variant);
+                derivativeCache.put(key, data);
+                // A delete that committed while this rendered has already evicted; drop what was just cached
+                if (evictions.get() != evictionsBefore && !fileRepository.existsById(file.getId())) {
+                    derivativeCache.removeAll(file.getId());
+                }
+                rendered.increment();
+            }
+            mine.complete(data);
+            return new Thumbnail(data, contentType);
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            rendering.remove(key, mine);
+        }
+    }
+
+    /**
+     * Queues rendering of the default thumbnail of a new image, so the
+     * first listing that shows it does not wait. Call in the transaction
+     * that saves the file.
+     */
+    public void schedule(FileEntity file) {
+        if (pregenerate && isImage(file)) {
+            jobQueue.enqueue(ThumbnailJob.TYPE, file.getId().toString());
+        }
+    }
+
+    public void renderDefault(FileEntity file) {
+        get(file, variant(file, defaultSize));
+    }
+
+    /**
+     * Drops every variant of a deleted file. Inside a transaction this
+     * waits until it commits: evicting earlier would let a request that
+     * still sees the file cache a rendering again, and a rollback would
+     * leave the file without its thumbnails for no reason.
+     */
+    public void evict(Long fileId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    removeAll(fileId);
+                }
+            });
+        } else {
+            removeAll(fileId);
+        }
+    }
+
+    private void removeAll(Long fileId) {
+        evictions.incrementAndGet();
+        derivativeCache.removeAll(fileId);
+    }
+
+    private byte[] render(FileEntity file, String variant) {
+        acquire();
+        long startNanos = System.nanoTime();
+        try (InputStream in = fileDownloadService.open(file)) {
+            if (TEXT_VARIANT.equals(variant)) {
+                byte[] head = in.readNBytes(textPreviewBytes);
+                return ThumbnailRenderer.textPreview(head, file.getSize() > head.length)
+                        .getBytes(StandardCharsets.UTF_8);
+            }
+            return ThumbnailRenderer.renderImage(in, Integer.parseInt(variant), quality, maxPixels);
+        } catch (IIOException e) {
+            logger.warn("Cannot render thumbnail of file {}: {}", file.getId(), e.getMessage());
+            throw new PreviewUnavailableException("Image could not be read: " + e.getMessage());
+        } catch (IOException e) {
+            throw new FileStorageException("Failed to read file for preview: " + e.getMessage(), e);
+        } finally {
+            renderPermits.release();
+            renderTime.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void acquire() {
+        try {
+            if (!renderPermits.tryAcquire(maxWait.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new ServiceBusyException("Too many previews being rendered, please retry",
+                        Duration.ofSeconds(1));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Interrupted waiting to render a preview", Duration.ofSeconds(1));
+        }
+    }
+
+    private byte[] await(CompletableFuture<byte[]> running) {
+        try {
+            return running.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new FileStorageException("Failed to render preview: " + e.getCause().getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Interrupted waiting for a preview", Duration.ofSeconds(1));
+        }
+    }
+
+    private Counter request(String result) {
+        return Counter.builder("safedrive.thumbnails.requests")
+                .description("Thumbnail and preview requests, by how they were answered")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static boolean isImage(FileEntity file) {
+        String type = file.getContentType();
+        return type != null && type.startsWith("image/") && ImageIO.getImageReadersByMIMEType(type).hasNext();
+    }
+
+    private static boolean isText(FileEntity file) {
+        String type = ContentTypes.normalize(file.getContentType());
+        return type != null && (type.startsWith("text/") || type.equals("application/json")
+                || type.equals("application/xml") || type.endsWith("+xml") || type.endsWith("+json"));
+    }
+}
@@ -0,0 +1,50 @@
+package com.safedrive.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+/**
+ * Buckets in a bounded Caffeine map. A bucket left alone for a whole
+ * period is full again, indistinguishable from a new one, so each entry
+ * expires one period after it was last used. When the map is full the
+ * least recently used keys are dropped first.
+ */
+public class LocalRateLimiter implements RateLimiter {
+
+    private final Cache<String, TokenBucket> buckets;
+
+    public LocalRateLimiter(long maxKeys) {
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfter(new Expiry<String, TokenBucket>() {
+                    @Override
+                    public long expireAfterCreate(String key, TokenBucket bucket, long currentTime) {
+                        return bucket.getPolicy().getPeriod().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, TokenBucket bucket, long currentTime,
+                            long currentDuration) {
+                        return bucket.getPolicy().getPeriod().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, TokenBucket bucket, long currentTime,
+                            long currentDuration) {
+                        return bucket.getPolicy().getPeriod().toNanos();
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public RateLimitDecision tryConsume(String key, RateLimitPolicy policy) {
+        long now = System.nanoTime();
+        return buckets.get(key, k -> new TokenBucket(policy, now)).tryConsume(now);
+    }
+
+    public long getSize() {
+        return buckets.estimatedSize();
+    }
+}
@@ -0,0 +1,47 @@
+package com.safedrive.ratelimit;
+
+import com.safedrive.repository.RateLimitBucketRepository;
+import com.safedrive.repository.RateLimitRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buckets in the {@code rate_limit_buckets} table, so every node counts
+ * against the same budget. Costs one upsert per request. If the database
+ * cannot be reached the request is let through: a rate limiter that fails
+ * closed would turn a database hiccup into a full outage.
+ */
+public class PostgresRateLimiter implements RateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostgresRateLimiter.class);
+
+    private final RateLimitBucketRepository repository;
+
+    public PostgresRateLimiter(RateLimitBucketRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public RateLimitDecision tryConsume(String key, RateLimitPolicy policy) {
+        try {
+            RateLimitRow row = repository.consume(key, TimeUnit.NANOSECONDS.toMicros(policy.getIntervalNanos()),
+                    TimeUnit.NANOSECONDS.toMicros(policy.getPeriod().toNanos()));
+            long fullInNanos = TimeUnit.MICROSECONDS.toNanos(row.getFullInMicros());
+            return RateLimitDecision.of(policy, row.getAllowed(), fullInNanos);
+        } catch (DataAccessException e) {
+            logger.warn("Rate limit store unavailable, allowing request: {}", e.getMessage());
+            return RateLimitDecision.of(policy, true, 0);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.sweep-interval:PT10M}")
+    public void sweep() {
+        int deleted = repository.deleteFull();
+        if (deleted > 0) {
+            logger.info("Removed {} full rate limit buckets", deleted);
+        }
+    }
+}
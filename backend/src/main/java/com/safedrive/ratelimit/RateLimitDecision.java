@@ -0,0 +1,62 @@
+package com.safedrive.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * Outcome of one request against a bucket. Buckets keep a single number,
+ * the time at which they will be full again; everything reported here is
+ * derived from how far that lies in the future.
+ */
+public class RateLimitDecision {
+
+    private final RateLimitPolicy policy;
+    private final boolean allowed;
+    private final long remaining;
+    private final Duration resetAfter;
+    private final Duration retryAfter;
+
+    private RateLimitDecision(RateLimitPolicy policy, boolean allowed, long remaining, Duration resetAfter,
+            Duration retryAfter) {
+        this.policy = policy;
+        this.allowed = allowed;
+        this.remaining = remaining;
+        this.resetAfter = resetAfter;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @param fullInNanos how long until the bucket is full again, after
+     *                    this request was counted (or refused)
+     */
+    public static RateLimitDecision of(RateLimitPolicy policy, boolean allowed, long fullInNanos) {
+        long interval = policy.getIntervalNanos();
+        long period = policy.getPeriod().toNanos();
+        long full = Math.max(0, fullInNanos);
+        if (allowed) {
+            return new RateLimitDecision(policy, true, (period - full) / interval, Duration.ofNanos(full),
+                    Duration.ZERO);
+        }
+        return new RateLimitDecision(policy, false, 0, Duration.ofNanos(full),
+                Duration.ofNanos(Math.max(0, full + interval - period)));
+    }
+
+    public RateLimitPolicy getPolicy() {
+        return policy;
+    }
+
+    public boolean isAllowed() {
+        return allowed;
+    }
+
+    public long getRemaining() {
+        return remaining;
+    }
+
+    public Duration getResetAfter() {
+        return resetAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,40 @@
+package com.safedrive.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * A budget of {@code capacity} requests per {@code period}, refilled
+ * evenly: one request every {@code period / capacity}, with bursts of up
+ * to the full capacity after a quiet spell.
+ */
+public class RateLimitPolicy {
+
+    private final String name;
+    private final int capacity;
+    private final Duration period;
+
+    public RateLimitPolicy(String name, int capacity, Duration period) {
+        if (capacity < 1 || period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("Rate limit " + name + " needs a positive capacity and period");
+        }
+        this.name = name;
+        this.capacity = capacity;
+        this.period = period;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public Duration getPeriod() {
+        return period;
+    }
+
+    public long getIntervalNanos() {
+        return period.toNanos() / capacity;
+    }
+}
@@ -0,0 +1,10 @@
+package com.safedrive.ratelimit;
+
+/**
+ * Where buckets live: in this process ({@link LocalRateLimiter}) or in
+ * PostgreSQL, shared by every node ({@link PostgresRateLimiter}).
+ */
+public interface RateLimiter {
+
+    RateLimitDecision tryConsume(String key, RateLimitPolicy policy);
+}
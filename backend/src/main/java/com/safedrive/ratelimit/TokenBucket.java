@@ -0,0 +1,39 @@
+package com.safedrive.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket kept as one atomic value: the instant at which the bucket
+ * will be full again. Taking a token pushes that instant one interval
+ * further out; the request is refused if it would land more than a whole
+ * period ahead. A compare-and-set loop makes this lock-free.
+ */
+public class TokenBucket {
+
+    private final RateLimitPolicy policy;
+    private final AtomicLong fullAt;
+
+    public TokenBucket(RateLimitPolicy policy, long nowNanos) {
+        this.policy = policy;
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    public RateLimitDecision tryConsume(long nowNanos) {
+        long interval = policy.getIntervalNanos();
+        long period = policy.getPeriod().toNanos();
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, nowNanos) + interval;
+            if (next - nowNanos > period) {
+                return RateLimitDecision.of(policy, false, current - nowNanos);
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return RateLimitDecision.of(policy, true, next - nowNanos);
+            }
+        }
+    }
+
+    public RateLimitPolicy getPolicy() {
+        return policy;
+    }
+}
@@ -0,0 +1,37 @@
+package com.safedrive.repository;
+
+import com.safedrive.entity.BlobEntity;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BlobRepository extends JpaRepository<BlobEntity, String> {
+
+    @Modifying
+    @Query(value = "INSERT INTO blobs (digest, size, storage_path, wrapped_key) " +
+            "VALUES (:digest, :size, :storagePath, :wrappedKey) ON CONFLICT (digest) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("digest") String digest, @Param("size") long size,
+            @Param("storagePath") String storagePath, @Param("wrappedKey") byte[] wrappedKey);
+
+    @Query("SELECT b.wrappedKey FROM BlobEntity b WHERE b.digest = :digest")
+    Optional<byte[]> findWrappedKey(@Param("digest") String digest);
+
+    @Query("SELECT b.storagePath FROM BlobEntity b WHERE b.digest = :digest")
+    Optional<String> findStoragePath(@Param("digest") String digest);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM BlobEntity b WHERE b.digest = :digest")
+    Optional<BlobEntity> findByDigestForUpdate(@Param("digest") String digest);
+
+    @Query(value = "SELECT b.digest FROM blobs b WHERE b.created_at < :cutoff AND " +
+            "NOT EXISTS (SELECT 1 FROM files f WHERE f.content_hash = b.digest) LIMIT :limit", nativeQuery = true)
+    List<String> findUnreferencedDigests(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+}
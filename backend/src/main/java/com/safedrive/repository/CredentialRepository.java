@@ -1,13 +1,17 @@
 package com.safedrive.repository;
 
+import com.safedrive.dto.response.CredentialResponse;
 import com.safedrive.entity.Credential;
 import com.safedrive.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,10 +26,24 @@ public interface CredentialRepository extends JpaRepository<Credential, Long> {
 
     void deleteByIdAndUserId(Long id, Long userId);
 
-    @Query("SELECT c FROM Credential c WHERE c.user.id = :userId AND " +
-            "(LOWER(c.service) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
-            "LOWER(c.username) LIKE LOWER(CONCAT('%', :query, '%')))")
-    List<Credential> searchCredentialsByUserId(@Param("userId") Long userId, @Param("query") String query);
+    // Substring or fuzzy word match on service and username via their trigram indexes
+    @Query(value = "SELECT c.* FROM credentials c WHERE c.user_id = :userId AND " +
+            "(c.service ILIKE :pattern OR c.username ILIKE :pattern OR :query <% c.service) " +
+            "ORDER BY GREATEST(word_similarity(:query, c.service), word_similarity(:query, c.username)) DESC, " +
+            "c.id DESC",
+            nativeQuery = true)
+    List<Credential> searchCredentialsByUserId(@Param("userId") Long userId, @Param("query") String query,
+            @Param("pattern") String pattern);
+
+    @Query(value = "SELECT c.id AS id, c.service AS title, c.username AS subtitle, CAST(NULL AS TEXT) AS highlight, " +
+            "CAST(GREATEST(word_similarity(:query, c.service), word_similarity(:query, c.username)) " +
+            "AS DOUBLE PRECISION) AS rank, c.created_date AS date " +
+            "FROM credentials c WHERE c.user_id = :userId AND " +
+            "(c.service ILIKE :pattern OR c.username ILIKE :pattern OR :query <% c.service) " +
+            "ORDER BY rank DESC, c.id DESC LIMIT :limit OFFSET :offset",
+            nativeQuery = true)
+    List<SearchRow> searchRanked(@Param("userId") Long userId, @Param("query") String query,
+            @Param("pattern") String pattern, @Param("limit") int limit, @Param("offset") int offset);
 
     @Query("SELECT c FROM Credential c WHERE c.user.id = :userId AND LOWER(c.service) LIKE LOWER(CONCAT('%', :service, '%'))")
     List<Credential> findByUserIdAndServiceContainingIgnoreCase(@Param("userId") Long userId,
@@ -37,4 +55,29 @@ public interface CredentialRepository extends JpaRepository<Credential, Long> {
     long countByUserId(@Param("userId") Long userId);
 
     boolean existsByUserIdAndService(Long userId, String service);
-}
\ No newline at end of file
+
+    // Keyset pagination over (created_date, id); the encrypted password is never selected
+
+    @Query("SELECT new com.safedrive.dto.response.CredentialResponse(c.id, c.service, c.username, c.url, " +
+            "c.notes, c.createdDate, c.updatedDate) FROM Credential c WHERE c.user.id = :userId " +
+            "ORDER BY c.createdDate DESC, c.id DESC")
+    List<CredentialResponse> findPageByUserId(@Param("userId") Long userId, Limit limit);
+
+    @Query("SELECT new com.safedrive.dto.response.CredentialResponse(c.id, c.service, c.username, c.url, " +
+            "c.notes, c.createdDate, c.updatedDate) FROM Credential c WHERE c.user.id = :userId " +
+            "AND (c.createdDate, c.id) < (:createdDate, :id) ORDER BY c.createdDate DESC, c.id DESC")
+    List<CredentialResponse> findPageByUserIdAfter(@Param("userId") Long userId,
+            @Param("createdDate") LocalDateTime createdDate, @Param("id") Long id, Limit limit);
+
+    @Query("SELECT c.id AS id, c.encryptedPassword AS encryptedPassword FROM Credential c " +
+            "WHERE c.id > :afterId AND LOCATE(:prefix, c.encryptedPassword) <> 1 ORDER BY c.id")
+    List<CredentialSecret> findNeedingReencryption(@Param("prefix") String prefix, @Param("afterId") Long afterId,
+            Limit limit);
+
+    // Only replaces the value that was read, so a concurrent password change is never overwritten
+    @Modifying
+    @Query("UPDATE Credential c SET c.encryptedPassword = :updated " +
+            "WHERE c.id = :id AND c.encryptedPassword = :current")
+    int replaceEncryptedPassword(@Param("id") Long id, @Param("current") String current,
+            @Param("updated") String updated);
+}
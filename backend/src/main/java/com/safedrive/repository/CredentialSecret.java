@@ -0,0 +1,11 @@
+package com.safedrive.repository;
+
+/**
+ * Just the id and stored ciphertext of a credential, for re-encryption.
+ */
+public interface CredentialSecret {
+
+    Long getId();
+
+    String getEncryptedPassword();
+}
@@ -1,13 +1,16 @@
 package com.safedrive.repository;
 
+import com.safedrive.dto.response.FileResponse;
 import com.safedrive.entity.FileEntity;
 import com.safedrive.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,10 +25,23 @@ public interface FileRepository extends JpaRepository<FileEntity, Long> {
 
     void deleteByIdAndUserId(Long id, Long userId);
 
-    @Query("SELECT f FROM FileEntity f WHERE f.user.id = :userId AND " +
-            "(LOWER(f.originalName) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
-            "LOWER(f.filename) LIKE LOWER(CONCAT('%', :query, '%')))")
-    List<FileEntity> searchFilesByUserId(@Param("userId") Long userId, @Param("query") String query);
+    // Substring (ILIKE) or fuzzy word match (<%), both served by the trigram index on original_name
+    @Query(value = "SELECT f.* FROM files f WHERE f.user_id = :userId AND " +
+            "(f.original_name ILIKE :pattern OR :query <% f.original_name) " +
+            "ORDER BY word_similarity(:query, f.original_name) DESC, f.upload_date DESC, f.id DESC",
+            nativeQuery = true)
+    List<FileEntity> searchFilesByUserId(@Param("userId") Long userId, @Param("query") String query,
+            @Param("pattern") String pattern);
+
+    @Query(value = "SELECT f.id AS id, f.original_name AS title, f.content_type AS subtitle, " +
+            "CAST(NULL AS TEXT) AS highlight, " +
+            "CAST(word_similarity(:query, f.original_name) AS DOUBLE PRECISION) AS rank, f.upload_date AS date " +
+            "FROM files f WHERE f.user_id = :userId AND " +
+            "(f.original_name ILIKE :pattern OR :query <% f.original_name) " +
+            "ORDER BY rank DESC, f.upload_date DESC, f.id DESC LIMIT :limit OFFSET :offset",
+            nativeQuery = true)
+    List<SearchRow> searchRanked(@Param("userId") Long userId, @Param("query") String query,
+            @Param("pattern") String pattern, @Param("limit") int limit, @Param("offset") int offset);
 
     @Query("SELECT f FROM FileEntity f WHERE f.user.id = :userId AND f.contentType = :contentType")
     List<FileEntity> findByUserIdAndContentType(@Param("userId") Long userId, @Param("contentType") String contentType);
@@ -37,4 +53,46 @@ public interface FileRepository extends JpaRepository<FileEntity, Long> {
 
     @Query("SELECT COUNT(f) FROM FileEntity f WHERE f.user.id = :userId")
     long countByUserId(@Param("userId") Long userId);
+
+    long countByContentHash(String contentHash);
+
+    // Keyset pagination over (upload_date, id); selects only the columns of FileResponse.
+    // The filtered variants follow idx_files_user_content_type and idx_files_user_content_family.
+
+    @Query("SELECT new com.safedrive.dto.response.FileResponse(" + RESPONSE_COLUMNS + ") FROM FileEntity f " +
+            "WHERE f.user.id = :userId ORDER BY f.uploadDate DESC, f.id DESC")
+    List<FileResponse> findPageByUserId(@Param("userId") Long userId, Limit limit);
+
+    @Query("SELECT new com.safedrive.dto.response.FileResponse(" + RESPONSE_COLUMNS + ") FROM FileEntity f " +
+            "WHERE f.user.id = :userId AND (f.uploadDate, f.id) < (:uploadDate, :id) " +
+            "ORDER BY f.uploadDate DESC, f.id DESC")
+    List<FileResponse> findPageByUserIdAfter(@Param("userId") Long userId,
+            @Param("uploadDate") LocalDateTime uploadDate, @Param("id") Long id, Limit limit);
+
+    @Query("SELECT new com.safedrive.dto.response.FileResponse(" + RESPONSE_COLUMNS + ") FROM FileEntity f " +
+            "WHERE f.user.id = :userId AND f.contentType = :contentType ORDER BY f.uploadDate DESC, f.id DESC")
+    List<FileResponse> findPageByUserIdAndContentType(@Param("userId") Long userId,
+            @Param("contentType") String contentType, Limit limit);
+
+    @Query("SELECT new com.safedrive.dto.response.FileResponse(" + RESPONSE_COLUMNS + ") FROM FileEntity f " +
+            "WHERE f.user.id = :userId AND f.contentType = :contentType " +
+            "AND (f.uploadDate, f.id) < (:uploadDate, :id) ORDER BY f.uploadDate DESC, f.id DESC")
+    List<FileResponse> findPageByUserIdAndContentTypeAfter(@Param("userId") Long userId,
+            @Param("contentType") String contentType, @Param("uploadDate") LocalDateTime uploadDate,
+            @Param("id") Long id, Limit limit);
+
+    @Query("SELECT new com.safedrive.dto.response.FileResponse(" + RESPONSE_COLUMNS + ") FROM FileEntity f " +
+            "WHERE f.user.id = :userId AND f.contentFamily = :family ORDER BY f.uploadDate DESC, f.id DESC")
+    List<FileResponse> findPageByUserIdAndContentFamily(@Param("userId") Long userId,
+            @Param("family") String family, Limit limit);
+
+    @Query("SELECT new com.safedrive.dto.response.FileResponse(" + RESPONSE_COLUMNS + ") FROM FileEntity f " +
+            "WHERE f.user.id = :userId AND f.contentFamily = :family " +
+            "AND (f.uploadDate, f.id) < (:uploadDate, :id) ORDER BY f.uploadDate DESC, f.id DESC")
+    List<FileResponse> findPageByUserIdAndContentFamilyAfter(@Param("userId") Long userId,
+            @Param("family") String family, @Param("uploadDate") LocalDateTime uploadDate, @Param("id") Long id,
+            Limit limit);
+
+    String RESPONSE_COLUMNS = "f.id, f.filename, f.originalName, f.contentType, f.size, f.uploadDate, " +
+            "f.width, f.height, f.pageCount, f.durationMillis";
 }
\ No newline at end of file
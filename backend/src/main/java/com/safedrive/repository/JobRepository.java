@@ -0,0 +1,80 @@
+package com.safedrive.repository;
+
+import com.safedrive.entity.Job;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.List;
+
+@Repository
+public interface JobRepository extends JpaRepository<Job, Long> {
+
+    /**
+     * Claims up to {@code limit} due jobs of one type and marks them RUNNING
+     * until the lease runs out. Rows another worker is claiming are skipped
+     * rather than waited for. Each claim counts as an attempt, which also
+     * fences off a worker whose lease expired: its
+     * {@link #complete}/{@link #retry} no longer match.
+     */
+    @Transactional
+    @Query(value = "WITH due AS (" +
+            "SELECT id FROM jobs WHERE type = :type AND status <> 'DEAD' AND run_at <= LOCALTIMESTAMP " +
+            "AND (status = 'QUEUED' OR attempts < max_attempts) " +
+            "ORDER BY run_at LIMIT :limit FOR UPDATE SKIP LOCKED) " +
+            "UPDATE jobs j SET status = 'RUNNING', attempts = j.attempts + 1, locked_by = :worker, " +
+            "run_at = LOCALTIMESTAMP + make_interval(secs => :leaseSeconds), updated_at = LOCALTIMESTAMP " +
+            "FROM due WHERE j.id = due.id RETURNING j.*",
+            nativeQuery = true)
+    List<Job> claim(@Param("type") String type, @Param("limit") int limit, @Param("worker") String worker,
+            @Param("leaseSeconds") long leaseSeconds);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM jobs WHERE id = :id AND attempts = :attempt", nativeQuery = true)
+    int complete(@Param("id") Long id, @Param("attempt") int attempt);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE jobs SET status = 'QUEUED', locked_by = NULL, last_error = :error, " +
+            "run_at = LOCALTIMESTAMP + make_interval(secs => :delaySeconds), updated_at = LOCALTIMESTAMP " +
+            "WHERE id = :id AND attempts = :attempt",
+            nativeQuery = true)
+    int retry(@Param("id") Long id, @Param("attempt") int attempt, @Param("delaySeconds") double delaySeconds,
+            @Param("error") String error);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE jobs SET status = 'DEAD', locked_by = NULL, last_error = :error, " +
+            "updated_at = LOCALTIMESTAMP WHERE id = :id AND attempts = :attempt",
+            nativeQuery = true)
+    int bury(@Param("id") Long id, @Param("attempt") int attempt, @Param("error") String error);
+
+    /**
+     * Jobs whose worker died on their last attempt.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE jobs SET status = 'DEAD', locked_by = NULL, updated_at = LOCALTIMESTAMP, " +
+            "last_error = COALESCE(last_error || E'\\n', '') || 'Lease expired on the last attempt' " +
+            "WHERE status = 'RUNNING' AND run_at < LOCALTIMESTAMP AND attempts >= max_attempts",
+            nativeQuery = true)
+    int buryAbandoned();
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM jobs WHERE status = 'DEAD' AND updated_at < LOCALTIMESTAMP - make_interval(secs => :retentionSeconds)",
+            nativeQuery = true)
+    int deleteDead(@Param("retentionSeconds") long retentionSeconds);
+
+    @Query(value = "SELECT type AS type, " +
+            "COUNT(*) FILTER (WHERE status = 'QUEUED' AND run_at <= LOCALTIMESTAMP) AS ready, " +
+            "COUNT(*) FILTER (WHERE status = 'DEAD') AS dead, " +
+            "COALESCE(EXTRACT(EPOCH FROM LOCALTIMESTAMP - MIN(run_at) " +
+            "FILTER (WHERE status = 'QUEUED' AND run_at <= LOCALTIMESTAMP)), 0) AS lagSeconds " +
+            "FROM jobs GROUP BY type",
+            nativeQuery = true)
+    List<JobStats> stats();
+}
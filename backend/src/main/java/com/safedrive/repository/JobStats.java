@@ -0,0 +1,15 @@
+package com.safedrive.repository;
+
+/**
+ * Queue depth per job type from {@link JobRepository#stats}.
+ */
+public interface JobStats {
+
+    String getType();
+
+    Long getReady();
+
+    Long getDead();
+
+    Double getLagSeconds();
+}
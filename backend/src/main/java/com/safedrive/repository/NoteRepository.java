@@ -1,13 +1,16 @@
 package com.safedrive.repository;
 
+import com.safedrive.dto.response.NoteSummaryResponse;
 import com.safedrive.entity.Note;
 import com.safedrive.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,8 +25,29 @@ public interface NoteRepository extends JpaRepository<Note, Long> {
 
     void deleteByIdAndUserId(Long id, Long userId);
 
-    @Query("SELECT n FROM Note n WHERE n.user.id = :userId AND (LOWER(n.title) LIKE LOWER(CONCAT('%', :query, '%')) OR n.content LIKE CONCAT('%', :query, '%'))")
-    List<Note> searchNotesByUserId(@Param("userId") Long userId, @Param("query") String query);
+    // Full-text match on title and content (GIN on search_vector) or a substring of the title (trigram index)
+    @Query(value = "SELECT n.* FROM notes n, websearch_to_tsquery('english', :query) AS q(tsq) " +
+            "WHERE n.user_id = :userId AND (n.search_vector @@ q.tsq OR n.title ILIKE :pattern) " +
+            "ORDER BY ts_rank_cd(n.search_vector, q.tsq) + word_similarity(:query, n.title) DESC, n.id DESC",
+            nativeQuery = true)
+    List<Note> searchNotesByUserId(@Param("userId") Long userId, @Param("query") String query,
+            @Param("pattern") String pattern);
+
+    // Ranks and pages first, so ts_headline only runs on the rows that are returned
+    @Query(value = "SELECT r.id AS id, r.title AS title, CAST(NULL AS TEXT) AS subtitle, " +
+            "ts_headline('english', replace(replace(replace(coalesce(n.content, ''), '&', '&amp;'), " +
+            "'<', '&lt;'), '>', '&gt;'), r.tsq, " +
+            "'StartSel=<mark>, StopSel=</mark>, MaxFragments=2, MaxWords=30, MinWords=10') AS highlight, " +
+            "r.rank AS rank, r.updated_date AS date " +
+            "FROM (SELECT n.id, n.title, n.updated_date, q.tsq, " +
+            "CAST(ts_rank_cd(n.search_vector, q.tsq) + word_similarity(:query, n.title) AS DOUBLE PRECISION) AS rank " +
+            "FROM notes n, websearch_to_tsquery('english', :query) AS q(tsq) " +
+            "WHERE n.user_id = :userId AND (n.search_vector @@ q.tsq OR n.title ILIKE :pattern) " +
+            "ORDER BY rank DESC, n.id DESC LIMIT :limit OFFSET :offset) r " +
+            "JOIN notes n ON n.id = r.id ORDER BY r.rank DESC, r.id DESC",
+            nativeQuery = true)
+    List<SearchRow> searchRanked(@Param("userId") Long userId, @Param("query") String query,
+            @Param("pattern") String pattern, @Param("limit") int limit, @Param("offset") int offset);
 
     @Query("SELECT n FROM Note n WHERE n.user.id = :userId AND LOWER(n.title) LIKE LOWER(CONCAT('%', :title, '%'))")
     List<Note> findByUserIdAndTitleContainingIgnoreCase(@Param("userId") Long userId, @Param("title") String title);
@@ -32,4 +56,17 @@ public interface NoteRepository extends JpaRepository<Note, Long> {
 
     @Query("SELECT COUNT(n) FROM Note n WHERE n.user.id = :userId")
     long countByUserId(@Param("userId") Long userId);
+
+    // Keyset pagination over (updated_date, id); only a prefix of the content is read
+
+    @Query("SELECT new com.safedrive.dto.response.NoteSummaryResponse(n.id, n.title, " +
+            "SUBSTRING(n.content, 1, 200), n.createdDate, n.updatedDate) FROM Note n WHERE n.user.id = :userId " +
+            "ORDER BY n.updatedDate DESC, n.id DESC")
+    List<NoteSummaryResponse> findPageByUserId(@Param("userId") Long userId, Limit limit);
+
+    @Query("SELECT new com.safedrive.dto.response.NoteSummaryResponse(n.id, n.title, " +
+            "SUBSTRING(n.content, 1, 200), n.createdDate, n.updatedDate) FROM Note n WHERE n.user.id = :userId " +
+            "AND (n.updatedDate, n.id) < (:updatedDate, :id) ORDER BY n.updatedDate DESC, n.id DESC")
+    List<NoteSummaryResponse> findPageByUserIdAfter(@Param("userId") Long userId,
+            @Param("updatedDate") LocalDateTime updatedDate, @Param("id") Long id, Limit limit);
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.safedrive.repository;
+
+import com.safedrive.entity.PendingUpload;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PendingUploadRepository extends JpaRepository<PendingUpload, String> {
+
+    List<PendingUpload> findByCreatedAtBeforeOrderByCreatedAt(LocalDateTime cutoff, Limit limit);
+
+    /**
+     * @return 1 if this call removed the row, 0 if it was already gone
+     */
+    @Modifying
+    @Query("DELETE FROM PendingUpload p WHERE p.id = :id")
+    int removeById(@Param("id") String id);
+}
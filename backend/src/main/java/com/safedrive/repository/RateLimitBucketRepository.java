@@ -0,0 +1,42 @@
+package com.safedrive.repository;
+
+import com.safedrive.entity.RateLimitBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface RateLimitBucketRepository extends JpaRepository<RateLimitBucket, String> {
+
+    /**
+     * Takes one token from the bucket in a single statement, creating it on
+     * first use. The row lock taken by the upsert serialises nodes hitting
+     * the same key; time comes from the database so node clocks need not
+     * agree.
+     */
+    @Transactional
+    @Query(value = "WITH t AS MATERIALIZED (" +
+            "SELECT CAST(EXTRACT(EPOCH FROM clock_timestamp()) * 1000000 AS BIGINT) AS now_us) " +
+            "INSERT INTO rate_limit_buckets AS b (bucket_key, full_at_us, allowed) " +
+            "SELECT :key, t.now_us + :intervalUs, true FROM t " +
+            "ON CONFLICT (bucket_key) DO UPDATE SET " +
+            "allowed = GREATEST(b.full_at_us, (SELECT now_us FROM t)) + :intervalUs " +
+            "- (SELECT now_us FROM t) <= :periodUs, " +
+            "full_at_us = CASE WHEN GREATEST(b.full_at_us, (SELECT now_us FROM t)) + :intervalUs " +
+            "- (SELECT now_us FROM t) <= :periodUs " +
+            "THEN GREATEST(b.full_at_us, (SELECT now_us FROM t)) + :intervalUs ELSE b.full_at_us END " +
+            "RETURNING b.allowed AS allowed, b.full_at_us - (SELECT now_us FROM t) AS fullInMicros",
+            nativeQuery = true)
+    RateLimitRow consume(@Param("key") String key, @Param("intervalUs") long intervalMicros,
+            @Param("periodUs") long periodMicros);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM rate_limit_buckets " +
+            "WHERE full_at_us < CAST(EXTRACT(EPOCH FROM clock_timestamp()) * 1000000 AS BIGINT)",
+            nativeQuery = true)
+    int deleteFull();
+}
@@ -0,0 +1,12 @@
+package com.safedrive.repository;
+
+/**
+ * Result of {@link RateLimitBucketRepository#consume}: whether the request
+ * was counted, and how many microseconds until the bucket is full again.
+ */
+public interface RateLimitRow {
+
+    Boolean getAllowed();
+
+    Long getFullInMicros();
+}
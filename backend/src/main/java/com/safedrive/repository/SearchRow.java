@@ -0,0 +1,26 @@
+package com.safedrive.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * One ranked search result, shared by the file, note and credential search
+ * queries. Columns are aliased to these names in the native SQL.
+ */
+public interface SearchRow {
+
+    Long getId();
+
+    String getTitle();
+
+    String getSubtitle();
+
+    /**
+     * Pre-highlighted, HTML-escaped snippet, or {@code null} when the caller
+     * highlights the title itself.
+     */
+    String getHighlight();
+
+    Double getRank();
+
+    LocalDateTime getDate();
+}
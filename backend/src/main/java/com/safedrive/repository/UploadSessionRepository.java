@@ -0,0 +1,28 @@
+package com.safedrive.repository;
+
+import com.safedrive.entity.UploadSession;
+import com.safedrive.entity.UploadStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+
+    Optional<UploadSession> findByIdAndUserId(String id, Long userId);
+
+    List<UploadSession> findByExpiresAtBefore(LocalDateTime cutoff);
+
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.status = :to WHERE s.id = :id AND s.status = :from")
+    int transitionStatus(@Param("id") String id, @Param("from") UploadStatus from, @Param("to") UploadStatus to);
+
+    @Modifying
+    @Query("DELETE FROM UploadSession s WHERE s.id = :id AND s.status <> :status")
+    int deleteUnlessStatus(@Param("id") String id, @Param("status") UploadStatus status);
+}
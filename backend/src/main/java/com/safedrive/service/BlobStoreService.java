@@ -0,0 +1,534 @@
+package com.safedrive.service;
+
+import com.safedrive.content.ContentInfo;
+import com.safedrive.content.ContentInspector;
+import com.safedrive.content.InspectingInputStream;
+import com.safedrive.crypto.ChunkedGcmOutputStream;
+import com.safedrive.crypto.FileEncryption;
+import com.safedrive.entity.BlobEntity;
+import com.safedrive.entity.PendingUpload;
+import com.safedrive.exception.FileStorageException;
+import com.safedrive.jobs.BlobDeleteJob;
+import com.safedrive.jobs.BlobVerifyJob;
+import com.safedrive.jobs.JobQueue;
+import com.safedrive.metrics.TransferMetrics;
+import com.safedrive.repository.BlobRepository;
+import com.safedrive.repository.FileRepository;
+import com.safedrive.repository.PendingUploadRepository;
+import com.safedrive.storage.StorageBackend;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed storage for file bodies. Uploads are hashed (SHA-256)
+ * while they are written to a local staging file, and each distinct body is
+ * kept once in the {@link StorageBackend} under
+ * {@code blobs/aa/bb/<digest>-<suffix>}. Duplicate uploads only add a
+ * {@code files} row pointing at the existing blob.
+ *
+ * Bodies reach the backend in two phases: {@link #prepare} stores the
+ * object outside any transaction, and {@link #link} records it in the short
+ * transaction that saves the file metadata. A pending_uploads row bridges the
+ * gap so objects orphaned by a crash can be found again.
+ *
+ * The same pass feeds a {@link ContentInspector}, which detects the type
+ * from the bytes and reads dimensions, page count or duration.
+ *
+ * Unless disabled, bodies are encrypted on their way into the staging file
+ * with a per-blob data key (see {@link FileEncryption}); the digest and size
+ * always describe the plaintext.
+ *
+ * A blob is referenced by every {@link com.safedrive.entity.FileEntity} with
+ * its digest, so the reference count is read from {@code files} under a row
+ * lock on the blob instead of being kept as a separate counter that could
+ * drift (for example when a user is deleted and their files cascade away).
+ */
+@Service
+public class BlobStoreService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlobStoreService.class);
+
+    private static final int SWEEP_BATCH_SIZE = 100;
+
+    @Autowired
+    private BlobRepository blobRepository;
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private PendingUploadRepository pendingUploadRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private StorageBackend storageBackend;
+
+    @Autowired
+    private FileEncryption fileEncryption;
+
+    @Autowired
+    private TransferMetrics transferMetrics;
+
+    @Autowired
+    private JobQueue jobQueue;
+
+    @Value("${app.upload.dir:uploads}")
+    private String uploadDir;
+
+    @Value("${app.upload.blobs.orphan-grace-period:1h}")
+    private Duration orphanGracePeriod;
+
+    @Value("${app.upload.pending.timeout:6h}")
+    private Duration pendingTimeout;
+
+    @Value("${app.jobs.verify-uploads:true}")
+    private boolean verifyUploads;
+
+    /**
+     * A body that has been written and hashed but not yet linked into the
+     * store.
+     */
+    public static class StagedBlob {
+        private final Path tempPath;
+        private final String digest;
+        private final long size;
+        private final byte[] wrappedKey;
+        private final ContentInspector inspector;
+
+        public StagedBlob(Path tempPath, String digest, long size, byte[] wrappedKey, ContentInspector inspector) {
+            this.tempPath = tempPath;
+            this.digest = digest;
+            this.size = size;
+            this.wrappedKey = wrappedKey;
+            this.inspector = inspector;
+        }
+
+        public Path getTempPath() {
+            return tempPath;
+        }
+
+        public String getDigest() {
+            return digest;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * Wrapped data key of the staged file, or {@code null} when it was
+         * written in plaintext.
+         */
+        public byte[] getWrappedKey() {
+            return wrappedKey;
+        }
+
+        /**
+         * Type and metadata of the body, read while it was staged.
+         */
+        public ContentInfo inspect(String declaredType) {
+            return inspector.inspect(declaredType);
+        }
+    }
+
+    /**
+     * A staged body that is in the storage backend, or matched a blob that
+     * already is, but is not referenced by committed metadata yet.
+     */
+    public static class PreparedBlob {
+        private final StagedBlob staged;
+        private final String pendingId;
+        private final String storagePath;
+
+        PreparedBlob(StagedBlob staged, String pendingId, String storagePath) {
+            this.staged = staged;
+            this.pendingId = pendingId;
+            this.storagePath = storagePath;
+        }
+
+        public StagedBlob getStaged() {
+            return staged;
+        }
+
+        /**
+         * Id of the pending_uploads row, or {@code null} when the body was
+         * deduplicated and nothing was written.
+         */
+        public String getPendingId() {
+            return pendingId;
+        }
+
+        public String getStoragePath() {
+            return storagePath;
+        }
+
+        public boolean isStored() {
+            return pendingId != null;
+        }
+    }
+
+    /**
+     * Copy a stream into the staging area, hashing and inspecting it on the
+     * way.
+     */
+    public StagedBlob stage(InputStream source) {
+        Path tempPath = newStagingPath();
+        MessageDigest digest = newDigest();
+        ContentInspector inspector = new ContentInspector();
+        FileEncryption.DataKey dataKey = newDataKey();
+        long startNanos = System.nanoTime();
+
+        try (InputStream in = new InspectingInputStream(new DigestInputStream(source, digest), inspector);
+                FileChannel target = FileChannel.open(tempPath, StandardOpenOption.CREATE_NEW,
+                        StandardOpenOption.WRITE)) {
+            OutputStream sink = openSink(target, dataKey);
+            long size = in.transferTo(sink);
+            finish(sink);
+            target.force(true);
+            transferMetrics.recordStorage("stage", startNanos);
+            return new StagedBlob(tempPath, HexFormat.of().formatHex(digest.digest()), size, wrappedKey(dataKey),
+                    inspector);
+        } catch (IOException e) {
+            deleteQuietly(tempPath);
+            throw new FileStorageException("Failed to stage upload: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            // The source may reject the body itself, for example when it exceeds the size limit
+            deleteQuietly(tempPath);
+            throw e;
+        }
+    }
+
+    /**
+     * Concatenate parts into the staging area. The parts are read once, and
+     * that single pass feeds the digest, the inspector and the output file.
+     */
+    public StagedBlob stageParts(List<Path> parts) {
+        Path tempPath = newStagingPath();
+        MessageDigest digest = newDigest();
+        ContentInspector inspector = new ContentInspector();
+        FileEncryption.DataKey dataKey = newDataKey();
+        long size = 0;
+        long startNanos = System.nanoTime();
+
+        try (FileChannel target = FileChannel.open(tempPath, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE)) {
+            OutputStream sink = openSink(target, dataKey);
+            for (Path part : parts) {
+                try (InputStream in = new InspectingInputStream(
+                        new DigestInputStream(Files.newInputStream(part), digest), inspector)) {
+                    size += in.transferTo(sink);
+                }
+            }
+            finish(sink);
+            target.force(true);
+            transferMetrics.recordStorage("assemble", startNanos);
+            return new StagedBlob(tempPath, HexFormat.of().formatHex(digest.digest()), size, wrappedKey(dataKey),
+                    inspector);
+        } catch (IOException e) {
+            deleteQuietly(tempPath);
+            throw new FileStorageException("Failed to assemble upload: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * First phase of linking a staged body: hand it to the storage backend
+     * outside any transaction, so a slow copy does not hold a pooled
+     * connection. A pending_uploads row is committed before the object is
+     * written and removed by {@link #link(PreparedBlob)}; if the process dies
+     * in between, {@link #sweepPendingUploads()} deletes the object.
+     *
+     * A body whose digest is already stored is not written again.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public PreparedBlob prepare(StagedBlob staged, Long userId) {
+        String key = blobKey(staged.getDigest());
+        PendingUpload pending = new PendingUpload(UUID.randomUUID().toString(), userId, staged.getDigest(), key,
+                staged.getTempPath().toString());
+
+        // Look up and reserve in one transaction: a query outside it would keep its connection
+        // for the rest of this method, and the caller's commit would then need a second one
+        long reserveNanos = System.nanoTime();
+        Optional<String> existing = transactionTemplate.execute(status -> {
+            Optional<String> storagePath = blobRepository.findStoragePath(staged.getDigest());
+            if (storagePath.isEmpty()) {
+                pendingUploadRepository.save(pending);
+            }
+            return storagePath;
+        });
+        transferMetrics.recordUploadTransaction("reserve", reserveNanos);
+        if (existing.isPresent()) {
+            return new PreparedBlob(staged, null, existing.get());
+        }
+
+        try {
+            long startNanos = System.nanoTime();
+            storageBackend.put(key, staged.getTempPath());
+            transferMetrics.recordStorage("put", startNanos);
+        } catch (IOException e) {
+            abandon(pending.getId(), key);
+            throw new FileStorageException("Failed to store blob: " + e.getMessage(), e);
+        }
+        return new PreparedBlob(staged, pending.getId(), key);
+    }
+
+    /**
+     * Second phase: register a prepared body and return its storage key.
+     * Must run in the transaction that inserts the referencing file row: the
+     * blob row stays locked until that commit, which serialises this against
+     * a concurrent {@link #release(String)} of the same digest, and the
+     * pending row is removed in the same commit.
+     *
+     * Every blob row gets its own key, so an object written for a row that is
+     * later rolled back or released never collides with a newer row for the
+     * same digest.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public String link(PreparedBlob prepared) {
+        StagedBlob staged = prepared.getStaged();
+        if (prepared.isStored() && pendingUploadRepository.removeById(prepared.getPendingId()) == 0) {
+            // The janitor gave up on this upload and may already have deleted the object
+            throw new FileStorageException("Upload expired before it could be saved");
+        }
+
+        String key = prepared.isStored() ? prepared.getStoragePath() : blobKey(staged.getDigest());
+        int inserted = blobRepository.insertIfAbsent(staged.getDigest(), staged.getSize(), key,
+                staged.getWrappedKey());
+        BlobEntity blob = blobRepository.findByDigestForUpdate(staged.getDigest())
+                .orElseThrow(() -> new FileStorageException("Blob vanished: " + staged.getDigest()));
+
+        if (inserted == 0) {
+            logger.info("Deduplicated upload against existing blob {}", staged.getDigest());
+            if (prepared.isStored()) {
+                // A concurrent upload of the same body linked first; ours is surplus
+                jobQueue.enqueue(BlobDeleteJob.TYPE, key);
+            }
+            return blob.getStoragePath();
+        }
+
+        if (!prepared.isStored()) {
+            // The blob matched by prepare() was released since, so the body has to be stored after all
+            try {
+                long startNanos = System.nanoTime();
+                storageBackend.put(key, staged.getTempPath());
+                transferMetrics.recordStorage("put", startNanos);
+            } catch (IOException e) {
+                throw new FileStorageException("Failed to store blob: " + e.getMessage(), e);
+            }
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        deleteObjectQuietly(key);
+                    }
+                }
+            });
+        }
+        if (verifyUploads) {
+            jobQueue.enqueue(BlobVerifyJob.TYPE, staged.getDigest());
+        }
+        return key;
+    }
+
+    /**
+     * Undo {@link #prepare} after the metadata transaction failed. Safe when
+     * the outcome of that transaction is unknown: the object is only deleted
+     * if its pending row was still there, which means nothing links to it.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void abandon(PreparedBlob prepared) {
+        if (prepared != null && prepared.isStored()) {
+            abandon(prepared.getPendingId(), prepared.getStoragePath());
+        }
+    }
+
+    /**
+     * Drop the blob if no file references it any more. Must run in the
+     * transaction that removed the file row. The object is deleted by a
+     * {@link BlobDeleteJob} queued in that transaction, so a rollback leaves
+     * the blob intact and the request does not wait on the backend.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(String digest) {
+        Optional<BlobEntity> blob = blobRepository.findByDigestForUpdate(digest);
+        if (blob.isEmpty() || fileRepository.countByContentHash(digest) > 0) {
+            return;
+        }
+
+        blobRepository.delete(blob.get());
+        jobQueue.enqueue(BlobDeleteJob.TYPE, blob.get().getStoragePath());
+        logger.info("Released unreferenced blob {}", digest);
+    }
+
+    public void discard(StagedBlob staged) {
+        if (staged != null) {
+            deleteQuietly(staged.getTempPath());
+        }
+    }
+
+    /**
+     * Delete objects that were stored but never linked, because the process
+     * died between the two phases or {@link #abandon} could not reach the
+     * database.
+     */
+    @Scheduled(fixedDelayString = "${app.upload.pending.sweep-interval:PT15M}")
+    public void sweepPendingUploads() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(pendingTimeout);
+        List<PendingUpload> stale = pendingUploadRepository.findByCreatedAtBeforeOrderByCreatedAt(cutoff,
+                Limit.of(SWEEP_BATCH_SIZE));
+        int removed = 0;
+        for (PendingUpload pending : stale) {
+            Integer claimed = transactionTemplate.execute(
+                    status -> pendingUploadRepository.removeById(pending.getId()));
+            if (claimed == null || claimed == 0) {
+                continue;
+            }
+            deleteObjectQuietly(pending.getStoragePath());
+            if (pending.getStagingPath() != null) {
+                deleteQuietly(Paths.get(pending.getStagingPath()));
+            }
+            removed++;
+        }
+        if (removed > 0) {
+            logger.info("Removed {} uploads that were stored but never saved", removed);
+        }
+    }
+
+    /**
+     * Collect blobs whose last reference disappeared without going through
+     * {@link #release(String)} (cascading user deletes) and staging files left
+     * behind by interrupted uploads.
+     */
+    @Scheduled(fixedDelayString = "${app.upload.blobs.sweep-interval:PT6H}")
+    public void sweepOrphans() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(orphanGracePeriod);
+        List<String> digests = blobRepository.findUnreferencedDigests(cutoff, SWEEP_BATCH_SIZE);
+        for (String digest : digests) {
+            transactionTemplate.executeWithoutResult(status -> release(digest));
+        }
+
+        Path incoming = incomingDirectory();
+        if (!Files.isDirectory(incoming)) {
+            return;
+        }
+        Instant stagingCutoff = Instant.now().minus(orphanGracePeriod);
+        try (Stream<Path> entries = Files.list(incoming)) {
+            entries.filter(path -> isOlderThan(path, stagingCutoff)).forEach(this::deleteQuietly);
+        } catch (IOException e) {
+            logger.warn("Could not sweep staging directory {}: {}", incoming, e.getMessage());
+        }
+    }
+
+    private void abandon(String pendingId, String key) {
+        try {
+            Integer removed = transactionTemplate.execute(status -> pendingUploadRepository.removeById(pendingId));
+            if (removed != null && removed > 0) {
+                deleteObjectQuietly(key);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not abandon pending upload {}, leaving it to the janitor: {}", pendingId,
+                    e.getMessage());
+        }
+    }
+
+    private FileEncryption.DataKey newDataKey() {
+        return fileEncryption.isEnabled() ? fileEncryption.newDataKey() : null;
+    }
+
+    private byte[] wrappedKey(FileEncryption.DataKey dataKey) {
+        return dataKey != null ? dataKey.getWrapped() : null;
+    }
+
+    // The channel is closed by the caller, after the final chunk is written and synced
+    private OutputStream openSink(FileChannel target, FileEncryption.DataKey dataKey) throws IOException {
+        OutputStream out = Channels.newOutputStream(target);
+        return dataKey != null ? fileEncryption.encrypt(out, dataKey.getKey()) : out;
+    }
+
+    private void finish(OutputStream sink) throws IOException {
+        if (sink instanceof ChunkedGcmOutputStream encrypting) {
+            encrypting.finish();
+        }
+    }
+
+    private String blobKey(String digest) {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        return "blobs/" + digest.substring(0, 2) + "/" + digest.substring(2, 4) + "/" + digest + "-" + suffix;
+    }
+
+    private Path incomingDirectory() {
+        return Paths.get(uploadDir, "blobs", "incoming");
+    }
+
+    private Path newStagingPath() {
+        try {
+            Path incoming = Files.createDirectories(incomingDirectory());
+            return incoming.resolve(UUID.randomUUID() + ".tmp");
+        } catch (IOException e) {
+            throw new FileStorageException("Failed to create staging directory: " + e.getMessage(), e);
+        }
+    }
+
+    private MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private boolean isOlderThan(Path path, Instant cutoff) {
+        try {
+            return Files.getLastModifiedTime(path).toInstant().isBefore(cutoff);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void deleteObjectQuietly(String key) {
+        try {
+            storageBackend.delete(key);
+        } catch (IOException e) {
+            logger.warn("Could not remove blob object {}: {}", key, e.getMessage());
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Could not remove {}: {}", path, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,377 @@
+package com.safedrive.service;
+
+import com.safedrive.content.ContentInfo;
+import com.safedrive.entity.FileEntity;
+import com.safedrive.entity.UploadSession;
+import com.safedrive.entity.UploadStatus;
+import com.safedrive.entity.User;
+import com.safedrive.exception.FileNotFoundException;
+import com.safedrive.exception.FileStorageException;
+import com.safedrive.exception.InvalidUploadException;
+import com.safedrive.exception.UploadSessionNotFoundException;
+import com.safedrive.metrics.TransferMetrics;
+import com.safedrive.preview.ThumbnailService;
+import com.safedrive.repository.FileRepository;
+import com.safedrive.repository.UploadSessionRepository;
+import com.safedrive.util.SecurityUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Resumable chunked uploads. A session is opened with the final size, the
+ * client PUTs numbered parts (in any order, concurrently, and retried
+ * individually) which are staged on disk, and a final commit assembles them
+ * into the blob store.
+ *
+ * Unlike the other services this one is not class-level transactional: part
+ * transfers can take minutes and must not pin a pooled connection, so each
+ * repository call runs in its own short transaction.
+ */
+@Service
+public class ChunkedUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedUploadService.class);
+
+    private static final String PART_PREFIX = "part-";
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private BlobStoreService blobStoreService;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TransferMetrics transferMetrics;
+
+    @Value("${app.upload.dir:uploads}")
+    private String uploadDir;
+
+    @Value("${app.upload.chunked.part-size:8MB}")
+    private DataSize partSize;
+
+    @Value("${app.upload.chunked.max-size:10GB}")
+    private DataSize maxSize;
+
+    @Value("${app.upload.chunked.session-ttl:24h}")
+    private Duration sessionTtl;
+
+    public UploadSession initUpload(String filename, String contentType, long size, User user) {
+        logger.info("Opening chunked upload '{}' ({} bytes) for user ID: {}", filename, size, user.getId());
+
+        SecurityUtil.validateUserAccess(user.getId());
+
+        if (filename == null || filename.trim().isEmpty()) {
+            throw new InvalidUploadException("File must have a name");
+        }
+        if (size <= 0) {
+            throw new InvalidUploadException("Cannot upload empty file");
+        }
+        if (size > maxSize.toBytes()) {
+            throw new InvalidUploadException("File size exceeds maximum limit of " + maxSize);
+        }
+
+        long chunk = partSize.toBytes();
+        int partCount = (int) ((size + chunk - 1) / chunk);
+        String resolvedType = contentType == null || contentType.isBlank()
+                ? "application/octet-stream"
+                : contentType;
+
+        UploadSession session = new UploadSession(
+                UUID.randomUUID().toString(),
+                filename,
+                resolvedType,
+                size,
+                chunk,
+                partCount,
+                LocalDateTime.now().plus(sessionTtl),
+                user);
+
+        try {
+            Files.createDirectories(stagingDirectory(session.getId()));
+        } catch (IOException e) {
+            throw new FileStorageException("Failed to create upload staging area: " + e.getMessage(), e);
+        }
+
+        UploadSession saved = uploadSessionRepository.save(session);
+        logger.info("Chunked upload {} opened with {} parts of {} bytes", saved.getId(), partCount, chunk);
+        return saved;
+    }
+
+    /**
+     * Stream one part straight from the request body to its staging file. The
+     * part is written under a temporary name and renamed into place only when
+     * exactly the expected number of bytes arrived, so a broken connection
+     * never leaves a half-written part that looks complete.
+     */
+    public void uploadPart(String uploadId, int partNumber, InputStream body, long contentLength, Long userId) {
+        UploadSession session = getUpload(uploadId, userId);
+
+        if (session.getStatus() != UploadStatus.ACTIVE) {
+            throw new InvalidUploadException("Upload " + uploadId + " is no longer accepting parts");
+        }
+        if (partNumber < 1 || partNumber > session.getPartCount()) {
+            throw new InvalidUploadException(
+                    "Part number must be between 1 and " + session.getPartCount());
+        }
+
+        long expected = session.getExpectedPartLength(partNumber);
+        if (contentLength >= 0 && contentLength != expected) {
+            throw new InvalidUploadException(
+                    "Part " + partNumber + " must be " + expected + " bytes, got " + contentLength);
+        }
+
+        Path stagingDir = stagingDirectory(uploadId);
+        Path partPath = stagingDir.resolve(PART_PREFIX + partNumber);
+        Path tempPath = stagingDir.resolve(PART_PREFIX + partNumber + "." + UUID.randomUUID() + ".tmp");
+
+        long startNanos = transferMetrics.startTransfer(TransferMetrics.Direction.UPLOAD);
+        long written = 0;
+        try {
+            try (ReadableByteChannel source = Channels.newChannel(body);
+                    FileChannel target = FileChannel.open(tempPath, StandardOpenOption.CREATE_NEW,
+                            StandardOpenOption.WRITE)) {
+                while (written < expected) {
+                    long transferred = target.transferFrom(source, written, expected - written);
+                    if (transferred <= 0) {
+                        break;
+                    }
+                    written += transferred;
+                }
+
+                if (written != expected || body.read() != -1) {
+                    throw new InvalidUploadException(
+                            "Part " + partNumber + " must be exactly " + expected + " bytes");
+                }
+                target.force(false);
+            }
+
+            Files.move(tempPath, partPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("Stored part {} of upload {} ({} bytes)", partNumber, uploadId, written);
+
+        } catch (IOException e) {
+            logger.error("Error storing part {} of upload {}: {}", partNumber, uploadId, e.getMessage());
+            throw new FileStorageException("Failed to store upload part: " + e.getMessage(), e);
+        } finally {
+            transferMetrics.finishTransfer(TransferMetrics.Direction.UPLOAD, "chunked", written, startNanos, true);
+            try {
+                Files.deleteIfExists(tempPath);
+            } catch (IOException e) {
+                logger.warn("Could not remove temporary part {}: {}", tempPath, e.getMessage());
+            }
+        }
+    }
+
+    public UploadSession getUpload(String uploadId, Long userId) {
+        SecurityUtil.validateUserAccess(userId);
+        return uploadSessionRepository.findByIdAndUserId(uploadId, userId)
+                .filter(session -> session.getExpiresAt().isAfter(LocalDateTime.now()))
+                .orElseThrow(() -> new UploadSessionNotFoundException("Upload not found with ID: " + uploadId));
+    }
+
+    public List<Integer> getReceivedParts(UploadSession session) {
+        Path stagingDir = stagingDirectory(session.getId());
+        List<Integer> received = new ArrayList<>();
+        if (!Files.isDirectory(stagingDir)) {
+            return received;
+        }
+
+        try (Stream<Path> entries = Files.list(stagingDir)) {
+            entries.map(path -> path.getFileName().toString())
+                    .filter(name -> name.matches(PART_PREFIX + "\\d+"))
+                    .map(name -> Integer.valueOf(name.substring(PART_PREFIX.length())))
+                    .sorted()
+                    .forEach(received::add);
+        } catch (IOException e) {
+            throw new FileStorageException("Failed to read upload staging area: " + e.getMessage(), e);
+        }
+        return received;
+    }
+
+    /**
+     * Assemble all parts and register the resulting file. Completing an upload
+     * that has already been committed returns the same file, so clients can
+     * safely retry the commit after a timeout.
+     */
+    public FileEntity completeUpload(String uploadId, User user) {
+        logger.info("Completing chunked upload {} for user ID: {}", uploadId, user.getId());
+
+        UploadSession session = getUpload(uploadId, user.getId());
+        if (session.getStatus() == UploadStatus.COMPLETED) {
+            return fileRepository.findByIdAndUserId(session.getFileId(), user.getId())
+                    .orElseThrow(() -> new FileNotFoundException("File not found for upload: " + uploadId));
+        }
+
+        List<Path> parts = new ArrayList<>();
+        List<Integer> missing = new ArrayList<>();
+        Path stagingDir = stagingDirectory(uploadId);
+        for (int partNumber = 1; partNumber <= session.getPartCount(); partNumber++) {
+            Path part = stagingDir.resolve(PART_PREFIX + partNumber);
+            if (!isPartComplete(part, session.getExpectedPartLength(partNumber))) {
+                missing.add(partNumber);
+            }
+            parts.add(part);
+        }
+        if (!missing.isEmpty()) {
+            throw new InvalidUploadException("Upload is missing parts: " + missing);
+        }
+
+        Integer claimed = transactionTemplate.execute(status -> uploadSessionRepository.transitionStatus(
+                uploadId, UploadStatus.ACTIVE, UploadStatus.ASSEMBLING));
+        if (claimed == null || claimed == 0) {
+            throw new InvalidUploadException("Upload " + uploadId + " is already being completed");
+        }
+
+        BlobStoreService.StagedBlob staged = null;
+        BlobStoreService.PreparedBlob prepared = null;
+        try {
+            staged = blobStoreService.stageParts(parts);
+            ContentInfo info = staged.inspect(session.getContentType());
+            prepared = blobStoreService.prepare(staged, user.getId());
+            BlobStoreService.StagedBlob assembled = staged;
+            BlobStoreService.PreparedBlob stored = prepared;
+
+            long commitNanos = System.nanoTime();
+            FileEntity savedFile = transactionTemplate.execute(status -> {
+                FileEntity fileEntity = new FileEntity(
+                        generateUniqueFilename(session.getOriginalName()),
+                        session.getOriginalName(),
+                        session.getContentType(),
+                        assembled.getSize(),
+                        blobStoreService.link(stored),
+                        user);
+                fileEntity.setContentHash(assembled.getDigest());
+                fileEntity.setDeclaredContentType(session.getContentType());
+                info.applyTo(fileEntity);
+                FileEntity saved = fileRepository.save(fileEntity);
+                thumbnailService.schedule(saved);
+
+                session.setStatus(UploadStatus.COMPLETED);
+                session.setFileId(saved.getId());
+                uploadSessionRepository.save(session);
+                return saved;
+            });
+            transferMetrics.recordUploadTransaction("commit", commitNanos);
+
+            deleteStagingDirectory(uploadId);
+            logger.info("Chunked upload {} completed as file ID: {}", uploadId, savedFile.getId());
+            return savedFile;
+
+        } catch (RuntimeException e) {
+            blobStoreService.abandon(prepared);
+            transactionTemplate.execute(status -> uploadSessionRepository.transitionStatus(
+                    uploadId, UploadStatus.ASSEMBLING, UploadStatus.ACTIVE));
+            throw e;
+        } finally {
+            blobStoreService.discard(staged);
+        }
+    }
+
+    public void abortUpload(String uploadId, Long userId) {
+        logger.info("Aborting chunked upload {} for user ID: {}", uploadId, userId);
+
+        UploadSession session = getUpload(uploadId, userId);
+        if (session.getStatus() == UploadStatus.ASSEMBLING) {
+            throw new InvalidUploadException("Upload " + uploadId + " is being completed");
+        }
+
+        deleteStagingDirectory(uploadId);
+        uploadSessionRepository.deleteById(uploadId);
+    }
+
+    /**
+     * Remove expired sessions and their parts. A session being assembled is
+     * left alone even past its expiry, since its commit is still reading the
+     * parts; the row is deleted before the parts so that a commit starting
+     * concurrently fails to claim it instead of finding its parts gone. Only
+     * once a further session TTL has passed is an assembling session taken to
+     * belong to a commit that died, and removed as well.
+     */
+    @Scheduled(fixedDelayString = "${app.upload.chunked.cleanup-interval:PT1H}")
+    public void cleanupExpiredUploads() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime abandonedBefore = now.minus(sessionTtl);
+        int removed = 0;
+        for (UploadSession session : uploadSessionRepository.findByExpiresAtBefore(now)) {
+            Integer deleted;
+            if (session.getExpiresAt().isBefore(abandonedBefore)) {
+                uploadSessionRepository.deleteById(session.getId());
+                deleted = 1;
+            } else {
+                deleted = transactionTemplate.execute(status -> uploadSessionRepository.deleteUnlessStatus(
+                        session.getId(), UploadStatus.ASSEMBLING));
+            }
+            if (deleted != null && deleted > 0) {
+                deleteStagingDirectory(session.getId());
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            logger.info("Removed {} expired upload sessions", removed);
+        }
+    }
+
+    private String generateUniqueFilename(String originalFilename) {
+        int lastDotIndex = originalFilename.lastIndexOf('.');
+        String extension = lastDotIndex > 0 ? originalFilename.substring(lastDotIndex) : "";
+        return UUID.randomUUID() + extension;
+    }
+
+    private boolean isPartComplete(Path part, long expectedLength) {
+        try {
+            return Files.isRegularFile(part) && Files.size(part) == expectedLength;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private Path stagingDirectory(String uploadId) {
+        return Paths.get(uploadDir, "staging", uploadId);
+    }
+
+    private void deleteStagingDirectory(String uploadId) {
+        Path stagingDir = stagingDirectory(uploadId);
+        if (!Files.isDirectory(stagingDir)) {
+            return;
+        }
+
+        try (Stream<Path> entries = Files.list(stagingDir)) {
+            for (Path entry : (Iterable<Path>) entries::iterator) {
+                Files.deleteIfExists(entry);
+            }
+            Files.deleteIfExists(stagingDir);
+        } catch (IOException e) {
+            logger.warn("Could not remove staging directory {}: {}", stagingDir, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.safedrive.service;
+
+import com.safedrive.repository.CredentialRepository;
+import com.safedrive.repository.CredentialSecret;
+import com.safedrive.util.EncryptionUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves stored credential passwords to the current envelope and active key
+ * in the background: legacy AES/ECB values and values sealed with a rotated
+ * key. Works in small batches, each in its own short transaction, so it never
+ * holds many rows or a long lock.
+ */
+@Service
+public class CredentialReencryptionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CredentialReencryptionService.class);
+
+    @Autowired
+    private CredentialRepository credentialRepository;
+
+    @Autowired
+    private EncryptionUtil encryptionUtil;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.encryption.reencrypt.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.encryption.reencrypt.batch-size:200}")
+    private int batchSize;
+
+    @Scheduled(initialDelayString = "${app.encryption.reencrypt.initial-delay:PT1M}",
+            fixedDelayString = "${app.encryption.reencrypt.interval:PT6H}")
+    public void reencryptCredentials() {
+        if (!enabled) {
+            return;
+        }
+
+        long afterId = 0;
+        int migrated = 0;
+        int failed = 0;
+        while (true) {
+            List<CredentialSecret> batch = credentialRepository.findNeedingReencryption(
+                    encryptionUtil.getActivePrefix(), afterId, Limit.of(batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            afterId = batch.get(batch.size() - 1).getId();
+
+            List<CredentialSecret> readable = new ArrayList<>(batch.size());
+            List<String> plainTexts = new ArrayList<>(batch.size());
+            for (CredentialSecret secret : batch) {
+                try {
+                    plainTexts.add(encryptionUtil.decrypt(secret.getEncryptedPassword()));
+                    readable.add(secret);
+                } catch (RuntimeException e) {
+                    failed++;
+                    logger.warn("Cannot re-encrypt credential {}: {}", secret.getId(), e.getMessage());
+                }
+            }
+            List<String> updated = encryptionUtil.encryptAll(plainTexts);
+
+            Integer replaced = transactionTemplate.execute(status -> {
+                int count = 0;
+                for (int i = 0; i < readable.size(); i++) {
+                    count += credentialRepository.replaceEncryptedPassword(readable.get(i).getId(),
+                            readable.get(i).getEncryptedPassword(), updated.get(i));
+                }
+                return count;
+            });
+            migrated += replaced != null ? replaced : 0;
+        }
+
+        if (migrated > 0 || failed > 0) {
+            logger.info("Re-encrypted {} credential(s), {} could not be decrypted", migrated, failed);
+        }
+    }
+}
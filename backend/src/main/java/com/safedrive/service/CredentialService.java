@@ -1,14 +1,19 @@
 package com.safedrive.service;
 
+import com.safedrive.dto.response.CredentialResponse;
+import com.safedrive.dto.response.CursorPage;
 import com.safedrive.entity.Credential;
 import com.safedrive.entity.User;
 import com.safedrive.repository.CredentialRepository;
 import com.safedrive.exception.CredentialNotFoundException;
 import com.safedrive.exception.DuplicateCredentialException;
+import com.safedrive.util.Cursor;
 import com.safedrive.util.EncryptionUtil;
+import com.safedrive.util.SearchText;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -53,6 +58,19 @@ public class CredentialService {
         return credentialRepository.findByUserIdOrderByCreatedDateDesc(userId);
     }
 
+    @Transactional(readOnly = true)
+    public CursorPage<CredentialResponse> getUserCredentialsPage(Long userId, String cursor, int limit) {
+        int pageSize = CursorPage.clampLimit(limit);
+        Cursor after = Cursor.decode(cursor);
+        List<CredentialResponse> rows = after == null
+                ? credentialRepository.findPageByUserId(userId, Limit.of(pageSize + 1))
+                : credentialRepository.findPageByUserIdAfter(userId, after.getTimestamp(), after.getId(),
+                        Limit.of(pageSize + 1));
+
+        return CursorPage.of(rows, pageSize,
+                credential -> new Cursor(credential.getCreatedDate(), credential.getId()).encode());
+    }
+
     @Transactional(readOnly = true)
     public Page<Credential> getUserCredentials(Long userId, Pageable pageable) {
         return credentialRepository.findByUserIdOrderByCreatedDateDesc(userId, pageable);
@@ -108,7 +126,7 @@ public class CredentialService {
 
     @Transactional(readOnly = true)
     public List<Credential> searchCredentials(String query, Long userId) {
-        return credentialRepository.searchCredentialsByUserId(userId, query);
+        return credentialRepository.searchCredentialsByUserId(userId, query, SearchText.containsPattern(query));
     }
 
     @Transactional(readOnly = true)
@@ -0,0 +1,401 @@
+package com.safedrive.service;
+
+import com.safedrive.crypto.FileEncryption;
+import com.safedrive.entity.FileEntity;
+import com.safedrive.exception.FileNotFoundException;
+import com.safedrive.metrics.TransferMetrics;
+import com.safedrive.repository.BlobRepository;
+import com.safedrive.storage.StorageBackend;
+import com.safedrive.storage.StoredObject;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Writes stored files to the HTTP response with support for conditional GET
+ * (strong ETag / Last-Modified, 304) and byte ranges (206, including
+ * multipart/byteranges). File content is never read into the heap: when the
+ * {@link StorageBackend} keeps the object on local disk, single regions are
+ * handed to Tomcat's sendfile if the connector supports it and everything
+ * else goes through {@link FileChannel#transferTo}; remote objects are
+ * streamed with ranged reads. Encrypted blobs are decrypted chunk by chunk,
+ * reading only the chunks that cover the requested range.
+ */
+@Service
+public class FileDownloadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileDownloadService.class);
+
+    private static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    private static final int MAX_RANGES = 16;
+
+    @Autowired
+    private StorageBackend storageBackend;
+
+    @Autowired
+    private BlobRepository blobRepository;
+
+    @Autowired
+    private FileEncryption fileEncryption;
+
+    @Autowired
+    private TransferMetrics transferMetrics;
+
+    /**
+     * Where a file's bytes come from: a local path for zero-copy transfers, or
+     * ranged (and possibly decrypting) reads from the backend.
+     */
+    private class StoredContent {
+        private final String key;
+        private final Path localPath;
+        private final SecretKey dataKey;
+        private final long length;
+
+        StoredContent(String key, Path localPath, SecretKey dataKey, long length) {
+            this.key = key;
+            this.localPath = localPath;
+            this.dataKey = dataKey;
+            this.length = length;
+        }
+
+        InputStream open(long start, long count) throws IOException {
+            if (dataKey != null) {
+                return fileEncryption.openRange(storageBackend, key, dataKey, length, start, count);
+            }
+            return storageBackend.getRange(key, start, count);
+        }
+    }
+
+    /**
+     * Whether the body of this file would be handed to Tomcat's sendfile,
+     * which sends it from the connector without holding a request thread.
+     * Sendfile is only available to a handler running on the request thread,
+     * not in an async dispatch.
+     */
+    public boolean canSendfile(FileEntity file, SecretKey dataKey, HttpServletRequest request) {
+        // Only plaintext objects qualify: encrypted ones (the default for new uploads) go through the application
+        return dataKey == null
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR))
+                && !request.isAsyncStarted()
+                && storageBackend.localPath(file.getFilePath()).isPresent();
+    }
+
+    public void serve(FileEntity file, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        serve(file, dataKeyOf(file), request, response);
+    }
+
+    /**
+     * @param dataKey the file's key from {@link #dataKeyOf(FileEntity)},
+     *        resolved once by the caller
+     */
+    public void serve(FileEntity file, SecretKey dataKey, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        long startNanos = transferMetrics.startTransfer(TransferMetrics.Direction.DOWNLOAD);
+        long bytes = 0;
+        try {
+            bytes = writeContent(file, dataKey, request, response);
+        } finally {
+            // With sendfile the bytes go out after we return, so the duration is unknown here
+            boolean sendfile = request.getAttribute(SENDFILE_FILENAME_ATTR) != null;
+            transferMetrics.finishTransfer(TransferMetrics.Direction.DOWNLOAD, sendfile ? "sendfile" : "stream",
+                    bytes, startNanos, !sendfile);
+        }
+    }
+
+    /**
+     * @return the number of body bytes sent (or handed to sendfile)
+     */
+    private long writeContent(FileEntity file, SecretKey dataKey, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        String key = file.getFilePath();
+        Optional<StoredObject> stored = storageBackend.stat(key);
+        if (stored.isEmpty()) {
+            logger.error("File not accessible: key={}", key);
+            throw new FileNotFoundException("File content not found for ID: " + file.getId());
+        }
+
+        String etag = buildETag(file);
+        long lastModified = file.getUploadDate().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        // Stored files are immutable, so clients may keep a copy but must revalidate it
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        // Sets ETag/Last-Modified and answers If-None-Match / If-Modified-Since with 304
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return 0;
+        }
+
+        // Encrypted objects are longer than the plaintext and cannot be sent as they are on disk
+        StoredContent content = dataKey != null
+                ? new StoredContent(key, null, dataKey, file.getSize())
+                : new StoredContent(key, storageBackend.localPath(key).orElse(null), null, stored.get().getSize());
+        long length = content.length;
+
+        String contentType = file.getContentType() != null
+                ? file.getContentType()
+                : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(file.getOriginalName(), StandardCharsets.UTF_8)
+                .build()
+                .toString());
+
+        boolean headOnly = "HEAD".equalsIgnoreCase(request.getMethod());
+        List<long[]> ranges = resolveRanges(request, etag, lastModified, length);
+
+        if (ranges == null) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(contentType);
+            response.setContentLengthLong(length);
+            if (headOnly) {
+                return 0;
+            }
+            writeRegion(content, 0, length, request, response);
+            return length;
+        }
+
+        if (ranges.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            return 0;
+        }
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+
+        if (ranges.size() == 1) {
+            long start = ranges.get(0)[0];
+            long end = ranges.get(0)[1];
+            response.setContentType(contentType);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            response.setContentLengthLong(end - start + 1);
+            if (headOnly) {
+                return 0;
+            }
+            writeRegion(content, start, end - start + 1, request, response);
+            return end - start + 1;
+        }
+
+        writeMultipartRanges(content, contentType, ranges, headOnly, response);
+        return headOnly ? 0 : ranges.stream().mapToLong(range -> range[1] - range[0] + 1).sum();
+    }
+
+    /**
+     * Strong validator derived from metadata that never changes for a stored
+     * file, so it can be computed without touching the disk. Content-addressed
+     * files use their SHA-256 digest directly.
+     */
+    public String buildETag(FileEntity file) {
+        if (file.getContentHash() != null) {
+            return "\"" + file.getContentHash() + "\"";
+        }
+        long uploaded = file.getUploadDate().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return "\"" + Long.toHexString(file.getId()) + "-" + Long.toHexString(file.getSize()) + "-"
+                + Long.toHexString(uploaded) + "\"";
+    }
+
+    /**
+     * @return {@code null} to serve the whole file, an empty list when the
+     *         requested ranges are unsatisfiable, otherwise inclusive
+     *         {@code [start, end]} pairs
+     */
+    private List<long[]> resolveRanges(HttpServletRequest request, String etag, long lastModified, long length) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null || !rangeHeader.startsWith("bytes=")) {
+            return null;
+        }
+
+        // A stale If-Range means the client's partial copy is outdated: send everything
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+                return null;
+            }
+            try {
+                long ifRangeDate = request.getDateHeader(HttpHeaders.IF_RANGE);
+                if (ifRangeDate / 1000 != lastModified / 1000) {
+                    return null;
+                }
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        List<HttpRange> httpRanges;
+        try {
+            httpRanges = HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            logger.debug("Ignoring malformed Range header '{}': {}", rangeHeader, e.getMessage());
+            return null;
+        }
+        if (httpRanges.isEmpty() || httpRanges.size() > MAX_RANGES) {
+            return null;
+        }
+
+        List<long[]> resolved = new ArrayList<>();
+        long total = 0;
+        for (HttpRange httpRange : httpRanges) {
+            // Unsatisfiable ranges are skipped; 416 only if none remain
+            try {
+                long start = httpRange.getRangeStart(length);
+                long end = httpRange.getRangeEnd(length);
+                if (start < length && start <= end) {
+                    resolved.add(new long[] { start, end });
+                    total += end - start + 1;
+                }
+            } catch (IllegalArgumentException e) {
+                logger.debug("Skipping unsatisfiable range {}: {}", httpRange, e.getMessage());
+            }
+        }
+
+        // Overlapping ranges that add up to more than the file are not worth honouring
+        if (total > length) {
+            return null;
+        }
+        return resolved;
+    }
+
+    private void writeMultipartRanges(StoredContent content, String contentType, List<long[]> ranges,
+            boolean headOnly, HttpServletResponse response) throws IOException {
+        long length = content.length;
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        List<byte[]> partHeaders = new ArrayList<>();
+        long contentLength = 0;
+
+        for (long[] range : ranges) {
+            byte[] header = ("\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": bytes " + range[0] + "-" + range[1] + "/" + length
+                    + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(header);
+            contentLength += header.length + (range[1] - range[0] + 1);
+        }
+        byte[] trailer = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        contentLength += trailer.length;
+
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(contentLength);
+        if (headOnly) {
+            return;
+        }
+
+        OutputStream out = response.getOutputStream();
+        if (content.localPath != null) {
+            WritableByteChannel target = Channels.newChannel(out);
+            try (FileChannel source = FileChannel.open(content.localPath, StandardOpenOption.READ)) {
+                for (int i = 0; i < ranges.size(); i++) {
+                    out.write(partHeaders.get(i));
+                    long[] range = ranges.get(i);
+                    transfer(source, range[0], range[1] - range[0] + 1, target);
+                }
+            }
+        } else {
+            for (int i = 0; i < ranges.size(); i++) {
+                out.write(partHeaders.get(i));
+                long[] range = ranges.get(i);
+                copyRange(content, range[0], range[1] - range[0] + 1, out);
+            }
+        }
+        out.write(trailer);
+        out.flush();
+    }
+
+    private void writeRegion(StoredContent content, long start, long count, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        Path filePath = content.localPath;
+        if (filePath == null) {
+            // Remote or encrypted object: stream the region from the backend
+            copyRange(content, start, count, response.getOutputStream());
+            response.flushBuffer();
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR)) && !request.isAsyncStarted()) {
+            // Tomcat streams the region with sendfile once the handler returns
+            request.setAttribute(SENDFILE_FILENAME_ATTR, filePath.toString());
+            request.setAttribute(SENDFILE_START_ATTR, start);
+            request.setAttribute(SENDFILE_END_ATTR, start + count);
+            return;
+        }
+
+        try (FileChannel source = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            transfer(source, start, count, Channels.newChannel(response.getOutputStream()));
+        }
+        response.flushBuffer();
+    }
+
+    /**
+     * Opens the whole plaintext body of a file, for work done away from a
+     * request such as inspecting it.
+     */
+    public InputStream open(FileEntity file) throws IOException {
+        SecretKey dataKey = dataKeyOf(file);
+        if (dataKey != null) {
+            return fileEncryption.openRange(storageBackend, file.getFilePath(), dataKey, file.getSize(), 0,
+                    file.getSize());
+        }
+        return storageBackend.get(file.getFilePath());
+    }
+
+    /**
+     * The unwrapped data key of a file's blob, or {@code null} when the file
+     * is stored in plaintext.
+     */
+    public SecretKey dataKeyOf(FileEntity file) {
+        // Files stored before deduplication have no blob row and were never encrypted
+        if (file.getContentHash() == null) {
+            return null;
+        }
+        return blobRepository.findWrappedKey(file.getContentHash())
+                .map(fileEncryption::unwrap)
+                .orElse(null);
+    }
+
+    private void copyRange(StoredContent content, long start, long count, OutputStream out) throws IOException {
+        try (InputStream in = content.open(start, count)) {
+            long copied = in.transferTo(out);
+            if (copied != count) {
+                throw new IOException("Unexpected end of object " + content.key + " at offset " + (start + copied));
+            }
+        }
+    }
+
+    private void transfer(FileChannel source, long position, long count, WritableByteChannel target)
+            throws IOException {
+        long end = position + count;
+        while (position < end) {
+            long transferred = source.transferTo(position, end - position, target);
+            if (transferred <= 0) {
+                throw new IOException("Unexpected end of file at offset " + position);
+            }
+            position += transferred;
+        }
+    }
+}
@@ -1,25 +1,38 @@
 package com.safedrive.service;
 
+import com.safedrive.content.ContentInfo;
+import com.safedrive.content.ContentTypes;
+import com.safedrive.dto.response.CursorPage;
+import com.safedrive.dto.response.FileResponse;
 import com.safedrive.entity.FileEntity;
 import com.safedrive.entity.User;
 import com.safedrive.repository.FileRepository;
 import com.safedrive.exception.FileNotFoundException;
 import com.safedrive.exception.FileStorageException;
+import com.safedrive.exception.InvalidUploadException;
+import com.safedrive.jobs.BlobDeleteJob;
+import com.safedrive.preview.ThumbnailService;
+import com.safedrive.jobs.JobQueue;
+import com.safedrive.metrics.TransferMetrics;
+import com.safedrive.util.Cursor;
+import com.safedrive.util.MultipartReader;
+import com.safedrive.util.SearchText;
 import com.safedrive.util.SecurityUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -33,52 +46,123 @@ public class FileService {
     @Autowired
     private FileRepository fileRepository;
 
-    @Value("${app.upload.dir:uploads}")
-    private String uploadDir;
+    @Autowired
+    private BlobStoreService blobStoreService;
 
-    @Value("${app.upload.max-size:50MB}")
-    private String maxFileSize;
+    @Autowired
+    private ThumbnailService thumbnailService;
 
+    @Autowired
+    private TransferMetrics transferMetrics;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JobQueue jobQueue;
+
+    @Value("${app.upload.max-size:50MB}")
+    private DataSize maxFileSize;
+
+    /**
+     * Runs without a transaction: the body is staged and stored first, and a
+     * pooled connection is only taken for the two short transactions around
+     * that (see {@link BlobStoreService#prepare}).
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public FileEntity uploadFile(MultipartFile file, User user) {
         logger.info("Uploading file '{}' for user ID: {}", file.getOriginalFilename(), user.getId());
 
         // Validate that the current user matches the provided user
         SecurityUtil.validateUserAccess(user.getId());
 
-        try {
-            // Create user-specific upload directory
-            Path userUploadPath = Paths.get(uploadDir, "users", user.getId().toString());
-            if (!Files.exists(userUploadPath)) {
-                Files.createDirectories(userUploadPath);
-            }
+        // Validate file
+        validateFile(file);
 
-            // Validate file
-            validateFile(file);
+        try (InputStream in = file.getInputStream()) {
+            return store(in, file.getOriginalFilename(), file.getContentType(), "multipart", user);
+        } catch (IOException e) {
+            logger.error("Error uploading file: {}", e.getMessage());
+            throw new FileStorageException("Failed to upload file: " + e.getMessage());
+        }
+    }
 
-            // Generate unique filename
-            String filename = generateUniqueFilename(file.getOriginalFilename());
-            Path filePath = userUploadPath.resolve(filename);
+    /**
+     * Upload from a raw {@code multipart/form-data} request body. The body is
+     * parsed as it arrives and the {@code file} part is hashed, size-checked
+     * and staged in one pass, so unlike {@link #uploadFile} the container never
+     * spools it to a temporary file first. Other form fields are skipped.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public FileEntity uploadStream(InputStream body, String contentType, User user) {
+        SecurityUtil.validateUserAccess(user.getId());
 
-            // Save file to disk
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+        MultipartReader reader = new MultipartReader(body, MultipartReader.boundary(contentType),
+                maxFileSize.toBytes());
+        try {
+            MultipartReader.Part part = reader.next();
+            while (part != null && !("file".equals(part.getName()) && part.getFilename() != null)) {
+                part = reader.next();
+            }
+            if (part == null) {
+                throw new InvalidUploadException("Request has no file part");
+            }
+            if (part.getFilename().trim().isEmpty()) {
+                throw new FileStorageException("File must have a name");
+            }
 
-            // Create file entity
-            FileEntity fileEntity = new FileEntity(
-                    filename,
-                    file.getOriginalFilename(),
-                    file.getContentType(),
-                    file.getSize(),
-                    filePath.toString(),
-                    user);
+            logger.info("Streaming upload of '{}' for user ID: {}", part.getFilename(), user.getId());
+            return store(part.getInputStream(), part.getFilename(), part.getContentType(), "stream", user);
+        } catch (IOException e) {
+            logger.error("Error reading upload: {}", e.getMessage());
+            throw new FileStorageException("Failed to upload file: " + e.getMessage());
+        }
+    }
 
-            FileEntity savedFile = fileRepository.save(fileEntity);
+    private FileEntity store(InputStream in, String originalName, String contentType, String kind, User user) {
+        BlobStoreService.StagedBlob staged = null;
+        BlobStoreService.PreparedBlob prepared = null;
+        long startNanos = transferMetrics.startTransfer(TransferMetrics.Direction.UPLOAD);
+        try {
+            // Write to the staging area while hashing, then store the body before touching the database
+            staged = blobStoreService.stage(in);
+            if (staged.getSize() == 0) {
+                throw new FileStorageException("Cannot upload empty file");
+            }
+            ContentInfo info = staged.inspect(contentType);
+            prepared = blobStoreService.prepare(staged, user.getId());
+            BlobStoreService.PreparedBlob stored = prepared;
+            BlobStoreService.StagedBlob body = staged;
+
+            long commitNanos = System.nanoTime();
+            FileEntity savedFile = transactionTemplate.execute(status -> {
+                FileEntity fileEntity = new FileEntity(
+                        generateUniqueFilename(originalName),
+                        originalName,
+                        contentType != null ? contentType : "application/octet-stream",
+                        body.getSize(),
+                        blobStoreService.link(stored),
+                        user);
+                fileEntity.setContentHash(body.getDigest());
+                fileEntity.setDeclaredContentType(contentType);
+                info.applyTo(fileEntity);
+                FileEntity saved = fileRepository.save(fileEntity);
+                thumbnailService.schedule(saved);
+                return saved;
+            });
+            transferMetrics.recordUploadTransaction("commit", commitNanos);
             logger.info("File uploaded successfully with ID: {} for user {}", savedFile.getId(), user.getId());
 
             return savedFile;
 
-        } catch (IOException e) {
-            logger.error("Error uploading file: {}", e.getMessage());
-            throw new FileStorageException("Failed to upload file: " + e.getMessage());
+        } catch (RuntimeException e) {
+            blobStoreService.abandon(prepared);
+            throw e;
+        } finally {
+            transferMetrics.finishTransfer(TransferMetrics.Direction.UPLOAD, kind,
+                    staged != null ? staged.getSize() : 0, startNanos, true);
+            // No-op once stored: the staging file has been moved into the store
+            blobStoreService.discard(staged);
         }
     }
 
@@ -89,6 +173,45 @@ public class FileService {
         return fileRepository.findByUserIdOrderByUploadDateDesc(userId);
     }
 
+    @Transactional(readOnly = true)
+    public CursorPage<FileResponse> getUserFilesPage(Long userId, String cursor, int limit) {
+        return getUserFilesPage(userId, null, cursor, limit);
+    }
+
+    /**
+     * @param type an exact detected type such as {@code image/png}, a family
+     *        such as {@code image} (or {@code image/*}), or {@code null} for
+     *        all files
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<FileResponse> getUserFilesPage(Long userId, String type, String cursor, int limit) {
+        SecurityUtil.validateUserAccess(userId);
+
+        int pageSize = CursorPage.clampLimit(limit);
+        Limit rowLimit = Limit.of(pageSize + 1);
+        Cursor after = Cursor.decode(cursor);
+        String filter = ContentTypes.normalize(type);
+        List<FileResponse> rows;
+        if (filter == null) {
+            rows = after == null
+                    ? fileRepository.findPageByUserId(userId, rowLimit)
+                    : fileRepository.findPageByUserIdAfter(userId, after.getTimestamp(), after.getId(), rowLimit);
+        } else if (filter.endsWith("/*") || !filter.contains("/")) {
+            String family = filter.endsWith("/*") ? filter.substring(0, filter.length() - 2) : filter;
+            rows = after == null
+                    ? fileRepository.findPageByUserIdAndContentFamily(userId, family, rowLimit)
+                    : fileRepository.findPageByUserIdAndContentFamilyAfter(userId, family, after.getTimestamp(),
+                            after.getId(), rowLimit);
+        } else {
+            rows = after == null
+                    ? fileRepository.findPageByUserIdAndContentType(userId, filter, rowLimit)
+                    : fileRepository.findPageByUserIdAndContentTypeAfter(userId, filter, after.getTimestamp(),
+                            after.getId(), rowLimit);
+        }
+
+        return CursorPage.of(rows, pageSize, file -> new Cursor(file.getUploadDate(), file.getId()).encode());
+    }
+
     @Transactional(readOnly = true)
     public Page<FileEntity> getUserFiles(Long userId, Pageable pageable) {
         // Validate that the current user is requesting their own files
@@ -119,19 +242,21 @@ public class FileService {
 
         Optional<FileEntity> fileEntity = fileRepository.findByIdAndUserId(fileId, userId);
         if (fileEntity.isPresent()) {
-            try {
-                // Delete file from disk
-                Path filePath = Paths.get(fileEntity.get().getFilePath());
-                Files.deleteIfExists(filePath);
-
-                // Delete from database
-                fileRepository.deleteByIdAndUserId(fileId, userId);
-
-                logger.info("File deleted successfully for user {}", userId);
-            } catch (IOException e) {
-                logger.error("Error deleting file from disk: {}", e.getMessage());
-                throw new FileStorageException("Failed to delete file: " + e.getMessage());
+            // Delete from database
+            fileRepository.deleteByIdAndUserId(fileId, userId);
+
+            String contentHash = fileEntity.get().getContentHash();
+            if (contentHash != null) {
+                // Shared blob: removed only when this was the last reference
+                blobStoreService.release(contentHash);
+            } else {
+                // Files stored before deduplication own their object; it goes once this commits
+                jobQueue.enqueue(BlobDeleteJob.TYPE, fileEntity.get().getFilePath());
             }
+
+            // Its thumbnails go once the delete commits
+            thumbnailService.evict(fileId);
+            logger.info("File deleted successfully for user {}", userId);
         } else {
             throw new FileNotFoundException("File not found with ID: " + fileId);
         }
@@ -141,7 +266,7 @@ public class FileService {
     public List<FileEntity> searchFiles(String query, Long userId) {
         // Validate that the current user is searching their own files
         SecurityUtil.validateUserAccess(userId);
-        return fileRepository.searchFilesByUserId(userId, query);
+        return fileRepository.searchFilesByUserId(userId, query, SearchText.containsPattern(query));
     }
 
     @Transactional(readOnly = true)
@@ -1,12 +1,17 @@
 package com.safedrive.service;
 
+import com.safedrive.dto.response.CursorPage;
+import com.safedrive.dto.response.NoteSummaryResponse;
 import com.safedrive.entity.Note;
 import com.safedrive.entity.User;
 import com.safedrive.repository.NoteRepository;
 import com.safedrive.exception.NoteNotFoundException;
+import com.safedrive.util.Cursor;
+import com.safedrive.util.SearchText;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -38,6 +43,18 @@ public class NoteService {
         return noteRepository.findByUserIdOrderByUpdatedDateDesc(userId);
     }
 
+    @Transactional(readOnly = true)
+    public CursorPage<NoteSummaryResponse> getUserNotesPage(Long userId, String cursor, int limit) {
+        int pageSize = CursorPage.clampLimit(limit);
+        Cursor after = Cursor.decode(cursor);
+        List<NoteSummaryResponse> rows = after == null
+                ? noteRepository.findPageByUserId(userId, Limit.of(pageSize + 1))
+                : noteRepository.findPageByUserIdAfter(userId, after.getTimestamp(), after.getId(),
+                        Limit.of(pageSize + 1));
+
+        return CursorPage.of(rows, pageSize, note -> new Cursor(note.getUpdatedDate(), note.getId()).encode());
+    }
+
     @Transactional(readOnly = true)
     public Page<Note> getUserNotes(Long userId, Pageable pageable) {
         return noteRepository.findByUserIdOrderByUpdatedDateDesc(userId, pageable);
@@ -80,7 +97,7 @@ public class NoteService {
 
     @Transactional(readOnly = true)
     public List<Note> searchNotes(String query, Long userId) {
-        return noteRepository.searchNotesByUserId(userId, query);
+        return noteRepository.searchNotesByUserId(userId, query, SearchText.containsPattern(query));
     }
 
     @Transactional(readOnly = true)
@@ -0,0 +1,77 @@
+package com.safedrive.service;
+
+import com.safedrive.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Runs password hashing and verification on {@code passwordExecutor}
+ * instead of the caller's thread. Each call costs tens of milliseconds of
+ * CPU by design; when the pool's queue is full the call fails straight
+ * away with {@link TooManyRequestsException}.
+ */
+@Service
+public class PasswordService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolTaskExecutor passwordExecutor;
+    private final Duration retryAfter;
+    private final Timer encodeTimer;
+    private final Timer verifyTimer;
+    private final Counter rejected;
+
+    public PasswordService(PasswordEncoder passwordEncoder,
+            @Qualifier("passwordExecutor") ThreadPoolTaskExecutor passwordExecutor, MeterRegistry registry,
+            @Value("${app.password.retry-after:2s}") Duration retryAfter) {
+        this.passwordEncoder = passwordEncoder;
+        this.passwordExecutor = passwordExecutor;
+        this.retryAfter = retryAfter;
+        this.encodeTimer = Timer.builder("safedrive.password.hash")
+                .description("CPU time spent hashing or verifying a password")
+                .tag("operation", "encode")
+                .register(registry);
+        this.verifyTimer = Timer.builder("safedrive.password.hash")
+                .description("CPU time spent hashing or verifying a password")
+                .tag("operation", "verify")
+                .register(registry);
+        this.rejected = Counter.builder("safedrive.lane.rejected")
+                .description("Requests turned away because their lane was full")
+                .tag("lane", "password")
+                .register(registry);
+    }
+
+    public CompletableFuture<String> encode(String rawPassword) {
+        return submit(() -> encodeTimer.record(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    public CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword) {
+        return submit(() -> verifyTimer.record(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    /**
+     * Whether the stored hash uses another algorithm or a lower cost than
+     * new hashes get, and should be replaced after the next successful login.
+     */
+    public boolean needsUpgrade(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> work) {
+        try {
+            return CompletableFuture.supplyAsync(work, passwordExecutor);
+        } catch (TaskRejectedException e) {
+            rejected.increment();
+            throw new TooManyRequestsException("Too many sign-ins in progress, please retry", retryAfter);
+        }
+    }
+}
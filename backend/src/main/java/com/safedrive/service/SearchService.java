@@ -0,0 +1,177 @@
+package com.safedrive.service;
+
+import com.safedrive.dto.response.SearchHit;
+import com.safedrive.dto.response.SearchResponse;
+import com.safedrive.dto.response.SearchResults;
+import com.safedrive.exception.InvalidSearchQueryException;
+import com.safedrive.exception.SearchUnavailableException;
+import com.safedrive.repository.CredentialRepository;
+import com.safedrive.repository.FileRepository;
+import com.safedrive.repository.NoteRepository;
+import com.safedrive.repository.SearchRow;
+import com.safedrive.util.SearchText;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Searches files, notes and credentials of one user at once. Each domain is
+ * queried on the search executor, so the response takes as long as the
+ * slowest domain rather than the sum of all three. Not transactional on
+ * purpose: every repository call runs in its own read-only transaction on
+ * its own thread.
+ */
+@Service
+public class SearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchService.class);
+
+    public static final int MAX_PAGE_SIZE = 50;
+
+    public enum SearchType {
+        FILES, NOTES, CREDENTIALS
+    }
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private CredentialRepository credentialRepository;
+
+    @Autowired
+    @Qualifier("searchExecutor")
+    private ThreadPoolTaskExecutor searchExecutor;
+
+    @Value("${app.search.timeout:5s}")
+    private Duration timeout;
+
+    @Value("${app.search.max-query-length:200}")
+    private int maxQueryLength;
+
+    public SearchResponse search(Long userId, String query, Set<SearchType> types, int page, int size) {
+        String q = query == null ? "" : query.trim();
+        if (q.isEmpty()) {
+            throw new InvalidSearchQueryException("Search query must not be empty");
+        }
+        if (q.length() > maxQueryLength) {
+            throw new InvalidSearchQueryException("Search query must be at most " + maxQueryLength + " characters");
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int pageIndex = Math.max(0, page);
+        Set<SearchType> requested = types == null || types.isEmpty() ? EnumSet.allOf(SearchType.class) : types;
+
+        String pattern = SearchText.containsPattern(q);
+        // One extra row tells us whether another page exists
+        int limit = pageSize + 1;
+        int offset = pageIndex * pageSize;
+
+        Map<SearchType, CompletableFuture<List<SearchRow>>> futures = new EnumMap<>(SearchType.class);
+        try {
+            for (SearchType type : requested) {
+                futures.put(type, CompletableFuture.supplyAsync(
+                        () -> query(type, userId, q, pattern, limit, offset), searchExecutor));
+            }
+            CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0]))
+                    .get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TaskRejectedException e) {
+            futures.values().forEach(future -> future.cancel(true));
+            throw new SearchUnavailableException("Too many searches in progress, please retry");
+        } catch (TimeoutException e) {
+            futures.values().forEach(future -> future.cancel(true));
+            logger.warn("Search for user {} timed out after {}", userId, timeout);
+            throw new SearchUnavailableException("Search timed out, please retry");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SearchUnavailableException("Search was interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Search failed", cause);
+        }
+
+        SearchResponse response = new SearchResponse(q, pageIndex, pageSize);
+        futures.forEach((type, future) -> {
+            SearchResults results = toResults(type, future.join(), q, pageSize);
+            switch (type) {
+                case FILES:
+                    response.setFiles(results);
+                    break;
+                case NOTES:
+                    response.setNotes(results);
+                    break;
+                default:
+                    response.setCredentials(results);
+            }
+        });
+        return response;
+    }
+
+    public static Set<SearchType> parseTypes(String types) {
+        if (types == null || types.isBlank()) {
+            return EnumSet.allOf(SearchType.class);
+        }
+        try {
+            return EnumSet.copyOf(Arrays.stream(types.split(","))
+                    .map(String::trim)
+                    .filter(type -> !type.isEmpty())
+                    .map(type -> SearchType.valueOf(type.toUpperCase(Locale.ROOT)))
+                    .collect(Collectors.toSet()));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidSearchQueryException("Unknown search type in '" + types
+                    + "', expected files, notes or credentials");
+        }
+    }
+
+    private List<SearchRow> query(SearchType type, Long userId, String q, String pattern, int limit, int offset) {
+        switch (type) {
+            case FILES:
+                return fileRepository.searchRanked(userId, q, pattern, limit, offset);
+            case NOTES:
+                return noteRepository.searchRanked(userId, q, pattern, limit, offset);
+            default:
+                return credentialRepository.searchRanked(userId, q, pattern, limit, offset);
+        }
+    }
+
+    private SearchResults toResults(SearchType type, List<SearchRow> rows, String q, int pageSize) {
+        boolean hasMore = rows.size() > pageSize;
+        String typeName = type.name().toLowerCase(Locale.ROOT);
+        List<SearchHit> hits = rows.stream()
+                .limit(pageSize)
+                .map(row -> new SearchHit(
+                        typeName,
+                        row.getId(),
+                        row.getTitle(),
+                        row.getSubtitle(),
+                        // Notes come back with a ts_headline snippet; the other domains match on the title
+                        row.getHighlight() != null ? row.getHighlight() : SearchText.highlight(row.getTitle(), q),
+                        row.getRank(),
+                        row.getDate()))
+                .collect(Collectors.toList());
+        return new SearchResults(hits, hasMore);
+    }
+}
@@ -0,0 +1,149 @@
+package com.safedrive.service;
+
+import com.safedrive.entity.RevokedToken;
+import com.safedrive.repository.RevokedTokenRepository;
+import com.safedrive.util.BloomFilter;
+import com.safedrive.util.ParsedToken;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The denylist of access tokens revoked before they expire. Lookups go
+ * through an in-memory Bloom filter first, so a token that was never
+ * revoked (nearly every request) is cleared without touching the database;
+ * only a "maybe" is confirmed against {@code revoked_tokens}. The filter
+ * learns new entries from {@link #revoke} on this node and from the
+ * {@code token_revoked} notifications of other nodes, and is rebuilt from
+ * the table periodically to forget expired ones.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.jwt.denylist.expected-size:100000}")
+    private int expectedSize;
+
+    @Value("${app.jwt.denylist.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+
+    private final Object rebuildLock = new Object();
+    // Ids seen while a rebuild is reading the table; guarded by rebuildLock
+    private List<String> addedDuringRebuild;
+
+    private Counter confirmed;
+    private Counter falsePositives;
+
+    @PostConstruct
+    void init() {
+        confirmed = denylistCounter("revoked");
+        falsePositives = denylistCounter("false_positive");
+        rebuild();
+    }
+
+    public boolean isRevoked(ParsedToken token) {
+        String id = token.getId();
+        if (id == null || !filter.mightContain(id)) {
+            return false;
+        }
+        boolean revoked = revokedTokenRepository.existsById(id);
+        (revoked ? confirmed : falsePositives).increment();
+        return revoked;
+    }
+
+    /**
+     * Deny the token from now until it expires, on every node. Tokens
+     * without a {@code jti} cannot be revoked individually and are left to
+     * expire.
+     */
+    @Transactional
+    public void revoke(ParsedToken token) {
+        if (token.getId() == null || token.isExpired()) {
+            return;
+        }
+        LocalDateTime expiresAt = LocalDateTime.ofInstant(token.getExpiration(), ZoneId.systemDefault());
+        revokedTokenRepository.save(new RevokedToken(token.getId(), expiresAt));
+        onRevoked(token.getId());
+        logger.info("Revoked access token {} of {}", token.getId(), token.getSubject());
+    }
+
+    /**
+     * Record a revocation made on any node; called for each
+     * {@code token_revoked} notification.
+     */
+    public void onRevoked(String tokenId) {
+        synchronized (rebuildLock) {
+            filter.add(tokenId);
+            if (addedDuringRebuild != null) {
+                addedDuringRebuild.add(tokenId);
+            }
+        }
+    }
+
+    /**
+     * Replace the filter with one built from the unexpired rows, dropping
+     * the bits of tokens that have since expired.
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.denylist.rebuild-interval:PT10M}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            if (filter == null) {
+                filter = new BloomFilter(expectedSize, falsePositiveRate);
+            }
+            addedDuringRebuild = new ArrayList<>();
+        }
+        List<String> ids;
+        try {
+            ids = revokedTokenRepository.findActiveIds(LocalDateTime.now());
+        } catch (RuntimeException e) {
+            synchronized (rebuildLock) {
+                addedDuringRebuild = null;
+            }
+            throw e;
+        }
+        BloomFilter next = new BloomFilter(Math.max(expectedSize, ids.size() * 2), falsePositiveRate);
+        ids.forEach(next::add);
+        synchronized (rebuildLock) {
+            addedDuringRebuild.forEach(next::add);
+            addedDuringRebuild = null;
+            filter = next;
+        }
+        logger.debug("Rebuilt token denylist filter with {} entries", ids.size());
+    }
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${app.jwt.denylist.rebuild-interval:PT10M}")
+    public void purgeExpired() {
+        int deleted = revokedTokenRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            logger.info("Removed {} expired entries from the token denylist", deleted);
+        }
+    }
+
+    private Counter denylistCounter(String result) {
+        return Counter.builder("safedrive.auth.denylist.lookups")
+                .description("Denylist lookups the Bloom filter could not clear, by database answer")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
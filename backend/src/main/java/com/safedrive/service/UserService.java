@@ -1,5 +1,6 @@
 package com.safedrive.service;
 
+import com.safedrive.config.PrincipalCache;
 import com.safedrive.entity.User;
 import com.safedrive.entity.Role;
 import com.safedrive.repository.UserRepository;
@@ -8,7 +9,6 @@ import com.safedrive.exception.UserNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
@@ -24,16 +24,17 @@ public class UserService {
     private UserRepository userRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PrincipalCache principalCache;
 
-    public User createUser(String email, String password, String name) {
+    /**
+     * @param passwordHash already encoded, see {@link PasswordService#encode}
+     */
+    public User createUser(String email, String passwordHash, String name) {
         logger.info("Creating user with email: {}", email);
 
-        if (userRepository.existsByEmail(email)) {
-            throw new UserAlreadyExistsException("User already exists with email: " + email);
-        }
+        checkEmailAvailable(email);
 
-        User user = new User(email, passwordEncoder.encode(password), name);
+        User user = new User(email, passwordHash, name);
         User savedUser = userRepository.save(user);
 
         logger.info("User created successfully with ID: {}", savedUser.getId());
@@ -62,8 +63,16 @@ public class UserService {
     }
 
     @Transactional(readOnly = true)
-    public boolean validatePassword(String rawPassword, String encodedPassword) {
-        return passwordEncoder.matches(rawPassword, encodedPassword);
+    public void checkEmailAvailable(String email) {
+        if (userRepository.existsByEmail(email)) {
+            throw new UserAlreadyExistsException("User already exists with email: " + email);
+        }
+    }
+
+    public void updatePasswordHash(Long id, String passwordHash) {
+        User user = getUserById(id);
+        user.setPassword(passwordHash);
+        userRepository.save(user);
     }
 
     @Transactional(readOnly = true)
@@ -79,6 +88,7 @@ public class UserService {
         }
 
         userRepository.deleteById(id);
+        principalCache.invalidateUser(id);
         logger.info("User deleted successfully with ID: {}", id);
     }
 
@@ -90,6 +100,7 @@ public class UserService {
         user.setEmail(email);
 
         User updatedUser = userRepository.save(user);
+        principalCache.invalidateUser(id);
         logger.info("User updated successfully with ID: {}", id);
 
         return updatedUser;
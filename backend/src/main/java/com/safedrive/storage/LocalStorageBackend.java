@@ -0,0 +1,117 @@
+package com.safedrive.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * Stores objects as files below a single root directory.
+ */
+public class LocalStorageBackend implements StorageBackend {
+
+    private final Path root;
+    private final Path configuredRoot;
+
+    public LocalStorageBackend(Path root) {
+        this.configuredRoot = root.normalize();
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Different filesystem: copy next to the target, then rename into place
+            Path partial = target.resolveSibling(target.getFileName() + ".partial");
+            Files.copy(source, partial, StandardCopyOption.REPLACE_EXISTING);
+            try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            Files.delete(source);
+        }
+        syncDirectory(target.getParent());
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public InputStream getRange(String key, long offset, long length) throws IOException {
+        FileChannel channel = FileChannel.open(resolve(key), StandardOpenOption.READ);
+        try {
+            channel.position(offset);
+            return new BoundedInputStream(Channels.newInputStream(channel), length);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        return Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public Optional<StoredObject> stat(String key) throws IOException {
+        Path path = resolve(key);
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        return Optional.of(new StoredObject(key, Files.size(path), Files.getLastModifiedTime(path).toInstant()));
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return Optional.of(resolve(key));
+    }
+
+    /**
+     * Whether this backend owns the given key. Keys written before storage
+     * keys were introduced are full paths that already include the upload
+     * directory (for example {@code uploads/users/4/<uuid>.png}).
+     */
+    boolean ownsLegacyPath(String key) {
+        Path path = Paths.get(key);
+        return path.isAbsolute() ? path.normalize().startsWith(root) : path.normalize().startsWith(configuredRoot);
+    }
+
+    // Make the rename itself durable; not every platform can open a directory, which is fine to skip
+    private void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Best effort
+        }
+    }
+
+    Path resolve(String key) {
+        if (ownsLegacyPath(key)) {
+            return Paths.get(key).toAbsolutePath().normalize();
+        }
+
+        Path resolved = root.resolve(key).normalize();
+        if (!resolved.startsWith(root)) {
+            throw new IllegalArgumentException("Storage key escapes the storage root: " + key);
+        }
+        return resolved;
+    }
+}
@@ -0,0 +1,112 @@
+package com.safedrive.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+/**
+ * Spreads objects over several local volumes (mount points). The volume is
+ * chosen from the first two key segments ({@code users/<id>} or
+ * {@code blobs/<aa>}), so one user's files or one digest bucket always land
+ * together. Rendezvous hashing keeps most placements stable when a volume is
+ * added: only the keys that now hash highest on the new volume get a new
+ * home. Objects already written there are not moved; reads look for them on
+ * the remaining volumes in score order, so they stay where they are.
+ */
+public class ShardedStorageBackend implements StorageBackend {
+
+    private final List<LocalStorageBackend> volumes;
+
+    public ShardedStorageBackend(List<Path> volumeRoots) {
+        if (volumeRoots.isEmpty()) {
+            throw new IllegalArgumentException("At least one storage volume is required");
+        }
+        this.volumes = new ArrayList<>();
+        for (Path volumeRoot : volumeRoots) {
+            volumes.add(new LocalStorageBackend(volumeRoot));
+        }
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        volumeFor(key).put(key, source);
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        return volumeHolding(key).get(key);
+    }
+
+    @Override
+    public InputStream getRange(String key, long offset, long length) throws IOException {
+        return volumeHolding(key).getRange(key, offset, length);
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        return volumeHolding(key).delete(key);
+    }
+
+    @Override
+    public Optional<StoredObject> stat(String key) throws IOException {
+        return volumeHolding(key).stat(key);
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return volumeHolding(key).localPath(key);
+    }
+
+    /**
+     * The volume new writes of {@code key} go to.
+     */
+    LocalStorageBackend volumeFor(String key) {
+        return ranked(key).get(0);
+    }
+
+    /**
+     * The first volume in score order that has {@code key}, or the one it
+     * would be written to if none has it.
+     */
+    LocalStorageBackend volumeHolding(String key) {
+        List<LocalStorageBackend> ranked = ranked(key);
+        for (LocalStorageBackend volume : ranked) {
+            if (Files.isRegularFile(volume.resolve(key))) {
+                return volume;
+            }
+        }
+        return ranked.get(0);
+    }
+
+    private List<LocalStorageBackend> ranked(String key) {
+        for (LocalStorageBackend volume : volumes) {
+            if (volume.ownsLegacyPath(key)) {
+                return List.of(volume);
+            }
+        }
+
+        String shardToken = shardToken(key);
+        List<LocalStorageBackend> ranked = new ArrayList<>(volumes);
+        ranked.sort(Comparator.comparingLong(
+                (LocalStorageBackend volume) -> score(volume.getRoot().toString(), shardToken)).reversed());
+        return ranked;
+    }
+
+    private String shardToken(String key) {
+        String[] segments = key.split("/", 3);
+        return segments.length >= 2 ? segments[0] + "/" + segments[1] : key;
+    }
+
+    private long score(String volume, String shardToken) {
+        CRC32 crc = new CRC32();
+        crc.update((volume + "\n" + shardToken).getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+}
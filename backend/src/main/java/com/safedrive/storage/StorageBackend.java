@@ -0,0 +1,41 @@
+package com.safedrive.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Where file bodies live. Objects are addressed by a relative key such as
+ * {@code blobs/ab/cd/<digest>-<suffix>}; the key, not a node-local path, is
+ * what gets stored in the database so any node can serve any file.
+ */
+public interface StorageBackend {
+
+    /**
+     * Store the contents of a local file under {@code key}. The source file
+     * is consumed: it is moved or deleted once the object is stored.
+     */
+    void put(String key, Path source) throws IOException;
+
+    InputStream get(String key) throws IOException;
+
+    /**
+     * Open {@code length} bytes starting at {@code offset}.
+     */
+    InputStream getRange(String key, long offset, long length) throws IOException;
+
+    /**
+     * @return {@code true} if an object was removed
+     */
+    boolean delete(String key) throws IOException;
+
+    Optional<StoredObject> stat(String key) throws IOException;
+
+    /**
+     * The object's location on this node's filesystem, if it has one. Callers
+     * use it for zero-copy transfers and fall back to {@link #getRange} when
+     * it is empty.
+     */
+    Optional<Path> localPath(String key);
+}
@@ -0,0 +1,28 @@
+package com.safedrive.storage;
+
+import java.time.Instant;
+
+public class StoredObject {
+    private final String key;
+    private final long size;
+    private final Instant lastModified;
+
+    public StoredObject(String key, long size, Instant lastModified) {
+        this.key = key;
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    // Getters
+    public String getKey() {
+        return key;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+}
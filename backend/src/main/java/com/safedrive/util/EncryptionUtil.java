@@ -1,40 +1,219 @@
 package com.safedrive.util;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import jakarta.annotation.PostConstruct;
 import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
+/**
+ * Encrypts short strings (credential passwords) with AES-256-GCM.
+ *
+ * Values are stored in a versioned envelope,
+ * {@code v1:A256GCM:<key id>:<iv>:<ciphertext and tag>} (base64url parts),
+ * so keys can be rotated: new values use the active key, and any key still in
+ * the key ring can decrypt. Values written before the envelope existed
+ * (AES/ECB, base64) are still readable; {@link #needsReencryption(String)}
+ * tells the re-encryption job which values to migrate.
+ *
+ * Keys are built once at startup and {@link Cipher} instances are pooled,
+ * so a call costs one cipher init instead of a provider lookup. A pool
+ * rather than one cipher per thread, because with virtual threads every
+ * request runs on a new thread and would never reuse one.
+ */
 @Component
 public class EncryptionUtil {
 
+    private static final Logger logger = LoggerFactory.getLogger(EncryptionUtil.class);
+
+    private static final String VERSION = "v1";
+    private static final String ALGORITHM_ID = "A256GCM";
+    private static final String GCM_TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final String LEGACY_TRANSFORMATION = "AES";
+    private static final String DERIVED_KEY_ID = "s0";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+
+    private static final int CIPHER_POOL_SIZE = 64;
+
+    private static final BlockingQueue<Cipher> GCM_CIPHERS = new ArrayBlockingQueue<>(CIPHER_POOL_SIZE);
+    private static final BlockingQueue<Cipher> LEGACY_CIPHERS = new ArrayBlockingQueue<>(CIPHER_POOL_SIZE);
+
     @Value("${app.encryption.secret:MySecretKey12345}")
     private String encryptionSecret;
 
-    private static final String ALGORITHM = "AES";
+    // Comma-separated "id:base64key" pairs of 32-byte keys
+    @Value("${app.encryption.keys:}")
+    private String keyRing;
+
+    @Value("${app.encryption.active-key-id:}")
+    private String activeKeyId;
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final Map<String, SecretKeySpec> keys = new HashMap<>();
+
+    private SecretKeySpec activeKey;
+
+    private String activePrefix;
+
+    private SecretKeySpec legacyKey;
+
+    @PostConstruct
+    public void init() {
+        keys.clear();
+        String defaultKeyId = DERIVED_KEY_ID;
+        if (keyRing != null && !keyRing.isBlank()) {
+            for (String entry : keyRing.split(",")) {
+                String[] parts = entry.trim().split(":", 2);
+                if (parts.length != 2) {
+                    throw new IllegalStateException("app.encryption.keys entries must look like id:base64key");
+                }
+                byte[] raw = Base64.getDecoder().decode(parts[1].trim());
+                if (raw.length != 32) {
+                    throw new IllegalStateException("Encryption key " + parts[0] + " must be 32 bytes");
+                }
+                keys.put(parts[0].trim(), new SecretKeySpec(raw, "AES"));
+                defaultKeyId = parts[0].trim();
+            }
+        }
+
+        // The key derived from the shared secret is always readable, so values sealed
+        // before a key ring was configured still decrypt
+        keys.putIfAbsent(DERIVED_KEY_ID, new SecretKeySpec(
+                sha256("safedrive-field-key:" + encryptionSecret), "AES"));
+
+        // Default to the last key in the ring, or the derived key without one
+        String keyId = activeKeyId == null || activeKeyId.isBlank() ? defaultKeyId : activeKeyId.trim();
+        if (keyId == null || !keys.containsKey(keyId)) {
+            throw new IllegalStateException("app.encryption.active-key-id must name a key in app.encryption.keys");
+        }
+        activeKeyId = keyId;
+        activeKey = keys.get(keyId);
+        activePrefix = VERSION + ":" + ALGORITHM_ID + ":" + keyId + ":";
+        legacyKey = new SecretKeySpec(encryptionSecret.getBytes(StandardCharsets.UTF_8), "AES");
+        logger.info("Field encryption uses key {} ({} key(s) loaded)", keyId, keys.size());
+    }
 
     public String encrypt(String plainText) {
+        Cipher cipher = borrow(GCM_CIPHERS, GCM_TRANSFORMATION);
         try {
-            SecretKeySpec key = new SecretKeySpec(encryptionSecret.getBytes(), ALGORITHM);
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            cipher.init(Cipher.ENCRYPT_MODE, key);
-            byte[] encrypted = cipher.doFinal(plainText.getBytes());
-            return Base64.getEncoder().encodeToString(encrypted);
+            byte[] iv = new byte[IV_LENGTH];
+            random.nextBytes(iv);
+            cipher.init(Cipher.ENCRYPT_MODE, activeKey, new GCMParameterSpec(TAG_BITS, iv));
+            byte[] encrypted = cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8));
+
+            Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+            return activePrefix + encoder.encodeToString(iv) + ":" + encoder.encodeToString(encrypted);
         } catch (Exception e) {
             throw new RuntimeException("Error encrypting data", e);
+        } finally {
+            GCM_CIPHERS.offer(cipher);
         }
     }
 
     public String decrypt(String encryptedText) {
         try {
-            SecretKeySpec key = new SecretKeySpec(encryptionSecret.getBytes(), ALGORITHM);
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            cipher.init(Cipher.DECRYPT_MODE, key);
-            byte[] decrypted = cipher.doFinal(Base64.getDecoder().decode(encryptedText));
-            return new String(decrypted);
+            if (!encryptedText.startsWith(VERSION + ":")) {
+                return decryptLegacy(encryptedText);
+            }
+
+            String[] parts = encryptedText.split(":");
+            if (parts.length != 5 || !ALGORITHM_ID.equals(parts[1])) {
+                throw new IllegalArgumentException("Unsupported envelope");
+            }
+            SecretKeySpec key = keys.get(parts[2]);
+            if (key == null) {
+                throw new IllegalArgumentException("Unknown key id " + parts[2]);
+            }
+
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            Cipher cipher = borrow(GCM_CIPHERS, GCM_TRANSFORMATION);
+            try {
+                cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, decoder.decode(parts[3])));
+                return new String(cipher.doFinal(decoder.decode(parts[4])), StandardCharsets.UTF_8);
+            } finally {
+                GCM_CIPHERS.offer(cipher);
+            }
         } catch (Exception e) {
             throw new RuntimeException("Error decrypting data", e);
         }
     }
+
+    public List<String> encryptAll(List<String> plainTexts) {
+        List<String> encrypted = new ArrayList<>(plainTexts.size());
+        for (String plainText : plainTexts) {
+            encrypted.add(encrypt(plainText));
+        }
+        return encrypted;
+    }
+
+    public List<String> decryptAll(List<String> encryptedTexts) {
+        List<String> decrypted = new ArrayList<>(encryptedTexts.size());
+        for (String encryptedText : encryptedTexts) {
+            decrypted.add(decrypt(encryptedText));
+        }
+        return decrypted;
+    }
+
+    /**
+     * True for values not yet in the current envelope under the active key:
+     * legacy ECB values and values sealed with a retired key.
+     */
+    public boolean needsReencryption(String encryptedText) {
+        return !encryptedText.startsWith(activePrefix);
+    }
+
+    public String getActivePrefix() {
+        return activePrefix;
+    }
+
+    private String decryptLegacy(String encryptedText) throws GeneralSecurityException {
+        Cipher cipher = borrow(LEGACY_CIPHERS, LEGACY_TRANSFORMATION);
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, legacyKey);
+            byte[] decrypted = cipher.doFinal(Base64.getDecoder().decode(encryptedText));
+            return new String(decrypted, StandardCharsets.UTF_8);
+        } finally {
+            LEGACY_CIPHERS.offer(cipher);
+        }
+    }
+
+    // Returned with offer(), which drops the cipher when the pool is already full
+    private static Cipher borrow(BlockingQueue<Cipher> pool, String transformation) {
+        Cipher cipher = pool.poll();
+        return cipher != null ? cipher : newCipher(transformation);
+    }
+
+    private static Cipher newCipher(String transformation) {
+        try {
+            return Cipher.getInstance(transformation);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            throw new IllegalStateException(transformation + " not available", e);
+        }
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
 }
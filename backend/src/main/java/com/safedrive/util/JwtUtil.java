@@ -1,53 +1,71 @@
 package com.safedrive.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import javax.crypto.SecretKey;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.Set;
+import java.util.UUID;
 
 @Component
 public class JwtUtil {
 
+    private static final Set<String> REGISTERED_CLAIMS = Set.of(
+            Claims.ISSUER, Claims.SUBJECT, Claims.AUDIENCE, Claims.EXPIRATION,
+            Claims.NOT_BEFORE, Claims.ISSUED_AT, Claims.ID);
+
     @Value("${app.jwt.secret:mySecretKey}")
     private String jwtSecret;
 
-    @Value("${app.jwt.expiration:86400000}")
-    private long jwtExpiration; // 24 hours in milliseconds
+    @Value("${app.jwt.expiration:900000}")
+    private long jwtExpiration; // 15 minutes in milliseconds; clients renew with a refresh token
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
-    }
+    // Built once: the key and parser are immutable and thread-safe
+    private SecretKey signingKey;
+    private JwtParser parser;
 
-    public String extractEmail(String token) {
-        return extractClaim(token, Claims::getSubject);
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
     }
 
-    public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
+    /**
+     * Verify the signature and expiry in a single pass.
+     *
+     * @throws JwtException if the token is malformed, forged or expired
+     */
+    public ParsedToken parseToken(String token) {
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+
+        Map<String, Object> customClaims = new HashMap<>();
+        claims.forEach((name, value) -> {
+            if (!REGISTERED_CLAIMS.contains(name)) {
+                customClaims.put(name, value);
+            }
+        });
 
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+        return new ParsedToken(claims.getId(), claims.getSubject(), toInstant(claims.getIssuedAt()),
+                toInstant(claims.getExpiration()), customClaims);
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    public String extractEmail(String token) {
+        return parseToken(token).getSubject();
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public Date extractExpiration(String token) {
+        return Date.from(parseToken(token).getExpiration());
     }
 
     public String generateToken(String email) {
@@ -60,25 +78,40 @@ public class JwtUtil {
     }
 
     private String createToken(Map<String, Object> claims, String subject) {
+        long now = System.currentTimeMillis();
+        // The algorithm follows the key: HS256 for a 256-bit secret, HS384/HS512 for longer ones
         return Jwts.builder()
-                .setClaims(claims)
-                .setSubject(subject)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .claims(claims)
+                .subject(subject)
+                .id(UUID.randomUUID().toString())
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + jwtExpiration))
+                .signWith(signingKey)
                 .compact();
     }
 
+    public long getExpirationMillis() {
+        return jwtExpiration;
+    }
+
     public Boolean validateToken(String token, String email) {
-        final String tokenEmail = extractEmail(token);
-        return (tokenEmail.equals(email) && !isTokenExpired(token));
+        try {
+            ParsedToken parsed = parseToken(token);
+            return parsed.getSubject().equals(email) && !parsed.isExpired();
+        } catch (JwtException | IllegalArgumentException e) {
+            return false;
+        }
     }
 
     public Boolean isTokenValid(String token) {
         try {
-            return !isTokenExpired(token);
+            return !parseToken(token).isExpired();
         } catch (Exception e) {
             return false;
         }
     }
-}
\ No newline at end of file
+
+    private Instant toInstant(Date date) {
+        return date != null ? date.toInstant() : null;
+    }
+}
@@ -0,0 +1,299 @@
+package com.safedrive.util;
+
+import com.safedrive.exception.InvalidUploadException;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads a {@code multipart/form-data} body (RFC 7578) as it arrives. Each
+ * part is returned with a stream that ends at the next boundary, so a file
+ * part can be consumed while the request is still being received, without
+ * the container spooling it to a temporary file first.
+ *
+ * Parts are read strictly in order: {@link #next()} skips whatever is left
+ * of the previous part.
+ */
+public class MultipartReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_HEADER_BYTES = 16 * 1024;
+    private static final int MAX_BOUNDARY_LENGTH = 70;
+
+    private final InputStream in;
+    private final byte[] delimiter;
+    private final byte[] buffer;
+    private final long maxPartSize;
+    private int pos;
+    private int limit;
+    // No delimiter starts before this index; saves rescanning the buffer on every read
+    private int scanFrom;
+    private PartInputStream current;
+    private boolean finished;
+
+    /**
+     * One part of the body. Its stream is only valid until the next call to
+     * {@link MultipartReader#next()}.
+     */
+    public static class Part {
+        private final Map<String, String> headers;
+        private final ContentDisposition disposition;
+        private final InputStream inputStream;
+
+        Part(Map<String, String> headers, InputStream inputStream) {
+            this.headers = headers;
+            String header = headers.get("content-disposition");
+            this.disposition = header != null ? parseDisposition(header) : ContentDisposition.empty();
+            this.inputStream = inputStream;
+        }
+
+        public String getName() {
+            return disposition.getName();
+        }
+
+        /**
+         * @return the submitted file name, or {@code null} for a plain form field
+         */
+        public String getFilename() {
+            return disposition.getFilename();
+        }
+
+        public String getContentType() {
+            return headers.get("content-type");
+        }
+
+        public String getHeader(String name) {
+            return headers.get(name.toLowerCase(Locale.ROOT));
+        }
+
+        public InputStream getInputStream() {
+            return inputStream;
+        }
+
+        private static ContentDisposition parseDisposition(String header) {
+            try {
+                return ContentDisposition.parse(header);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidUploadException("Malformed Content-Disposition: " + header);
+            }
+        }
+    }
+
+    /**
+     * @param maxPartSize largest part body accepted; a longer one fails with
+     *                    {@link MaxUploadSizeExceededException}
+     */
+    public MultipartReader(InputStream in, String boundary, long maxPartSize) {
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.US_ASCII);
+        this.buffer = new byte[BUFFER_SIZE + delimiter.length];
+        this.maxPartSize = maxPartSize;
+
+        // Pretend the body starts with CRLF so the first boundary looks like all the others,
+        // and treat anything before it (the preamble) as a part nobody reads
+        buffer[0] = '\r';
+        buffer[1] = '\n';
+        limit = 2;
+        current = new PartInputStream();
+    }
+
+    /**
+     * The boundary parameter of a {@code multipart/form-data} content type.
+     */
+    public static String boundary(String contentType) {
+        MediaType mediaType;
+        try {
+            mediaType = contentType != null ? MediaType.parseMediaType(contentType) : null;
+        } catch (InvalidMediaTypeException e) {
+            mediaType = null;
+        }
+        if (mediaType == null || !MediaType.MULTIPART_FORM_DATA.includes(mediaType)) {
+            throw new InvalidUploadException("Expected a multipart/form-data request");
+        }
+
+        String boundary = mediaType.getParameter("boundary");
+        if (boundary != null && boundary.length() > 1 && boundary.startsWith("\"") && boundary.endsWith("\"")) {
+            boundary = boundary.substring(1, boundary.length() - 1);
+        }
+        if (boundary == null || boundary.isEmpty() || boundary.length() > MAX_BOUNDARY_LENGTH) {
+            throw new InvalidUploadException("Missing or invalid multipart boundary");
+        }
+        return boundary;
+    }
+
+    /**
+     * @return the next part, or {@code null} after the closing boundary
+     */
+    public Part next() throws IOException {
+        if (finished) {
+            return null;
+        }
+        current.skipRemaining();
+        current = null;
+
+        // After a boundary: "--" closes the body, otherwise optional whitespace and CRLF
+        ensure(2);
+        if (buffer[pos] == '-' && buffer[pos + 1] == '-') {
+            finished = true;
+            return null;
+        }
+        String padding = readLine();
+        if (!padding.isBlank()) {
+            throw new InvalidUploadException("Malformed multipart boundary");
+        }
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        int headerBytes = 0;
+        String line;
+        while (!(line = readLine()).isEmpty()) {
+            headerBytes += line.length();
+            if (headerBytes > MAX_HEADER_BYTES) {
+                throw new InvalidUploadException("Multipart headers too large");
+            }
+            int colon = line.indexOf(':');
+            if (colon <= 0) {
+                throw new InvalidUploadException("Malformed multipart header");
+            }
+            headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+        }
+
+        current = new PartInputStream();
+        return new Part(headers, current);
+    }
+
+    private String readLine() throws IOException {
+        while (true) {
+            for (int i = pos; i + 1 < limit; i++) {
+                if (buffer[i] == '\r' && buffer[i + 1] == '\n') {
+                    String line = new String(buffer, pos, i - pos, StandardCharsets.UTF_8);
+                    pos = i + 2;
+                    return line;
+                }
+            }
+            if (limit - pos > MAX_HEADER_BYTES) {
+                throw new InvalidUploadException("Multipart header line too long");
+            }
+            if (!fill()) {
+                throw new EOFException("Multipart body ended inside the part headers");
+            }
+        }
+    }
+
+    private void ensure(int count) throws IOException {
+        while (limit - pos < count) {
+            if (!fill()) {
+                throw new EOFException("Multipart body ended before the closing boundary");
+            }
+        }
+    }
+
+    /**
+     * Move the unread bytes to the front and read more behind them.
+     *
+     * @return false at the end of the input
+     */
+    private boolean fill() throws IOException {
+        if (pos > 0) {
+            System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+            limit -= pos;
+            scanFrom = Math.max(0, scanFrom - pos);
+            pos = 0;
+        }
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    private int indexOfDelimiter() {
+        int last = limit - delimiter.length;
+        for (int i = Math.max(pos, scanFrom); i <= last; i++) {
+            if (buffer[i] != '\r') {
+                continue;
+            }
+            int j = 1;
+            while (j < delimiter.length && buffer[i + j] == delimiter[j]) {
+                j++;
+            }
+            if (j == delimiter.length) {
+                return i;
+            }
+        }
+        scanFrom = Math.max(pos, last + 1);
+        return -1;
+    }
+
+    private class PartInputStream extends InputStream {
+
+        private boolean done;
+        private long consumed;
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int n = read(single, 0, 1);
+            return n < 0 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (done || current != this) {
+                return -1;
+            }
+            if (len == 0) {
+                return 0;
+            }
+
+            while (true) {
+                int match = indexOfDelimiter();
+                // Without a match, a delimiter may still start in the last few bytes
+                int end = match >= 0 ? match : limit - delimiter.length + 1;
+                if (match == pos) {
+                    pos += delimiter.length;
+                    scanFrom = pos;
+                    done = true;
+                    return -1;
+                }
+                if (end > pos) {
+                    int count = Math.min(len, end - pos);
+                    System.arraycopy(buffer, pos, b, off, count);
+                    pos += count;
+                    consumed += count;
+                    if (consumed > maxPartSize) {
+                        throw new MaxUploadSizeExceededException(maxPartSize);
+                    }
+                    return count;
+                }
+                if (!fill()) {
+                    throw new EOFException("Multipart body ended before the closing boundary");
+                }
+            }
+        }
+
+        void skipRemaining() throws IOException {
+            while (!done) {
+                int match = indexOfDelimiter();
+                int end = match >= 0 ? match : limit - delimiter.length + 1;
+                if (match == pos) {
+                    pos += delimiter.length;
+                    scanFrom = pos;
+                    done = true;
+                } else if (end > pos) {
+                    pos = end;
+                } else if (!fill()) {
+                    throw new EOFException("Multipart body ended before the closing boundary");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.safedrive.util;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A JWT whose signature and expiry have already been verified. Immutable, so
+ * it can be cached and shared between threads.
+ */
+public final class ParsedToken {
+
+    private final String id;
+    private final String subject;
+    private final Instant issuedAt;
+    private final Instant expiration;
+    private final Map<String, Object> claims;
+
+    public ParsedToken(String subject, Instant issuedAt, Instant expiration, Map<String, Object> claims) {
+        this(null, subject, issuedAt, expiration, claims);
+    }
+
+    public ParsedToken(String id, String subject, Instant issuedAt, Instant expiration, Map<String, Object> claims) {
+        this.id = id;
+        this.subject = subject;
+        this.issuedAt = issuedAt;
+        this.expiration = expiration;
+        this.claims = Collections.unmodifiableMap(new LinkedHashMap<>(claims));
+    }
+
+    /**
+     * The {@code jti} claim, used to revoke this token; {@code null} for
+     * tokens issued before tokens carried one.
+     */
+    public String getId() {
+        return id;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public Instant getIssuedAt() {
+        return issuedAt;
+    }
+
+    public Instant getExpiration() {
+        return expiration;
+    }
+
+    /**
+     * Custom (non-registered) claims.
+     */
+    public Map<String, Object> getClaims() {
+        return claims;
+    }
+
+    public Object getClaim(String name) {
+        return claims.get(name);
+    }
+
+    public boolean isExpired() {
+        return expiration != null && !expiration.isAfter(Instant.now());
+    }
+}
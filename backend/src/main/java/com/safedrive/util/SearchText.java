@@ -0,0 +1,55 @@
+package com.safedrive.util;
+
+import org.springframework.web.util.HtmlUtils;
+
+/**
+ * Helpers for building search patterns and highlighted snippets.
+ */
+public final class SearchText {
+
+    public static final String MARK_START = "<mark>";
+    public static final String MARK_END = "</mark>";
+
+    private SearchText() {
+    }
+
+    /**
+     * A {@code LIKE}/{@code ILIKE} pattern matching {@code query} anywhere,
+     * with the query's own wildcards escaped.
+     */
+    public static String containsPattern(String query) {
+        String escaped = query.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+
+    /**
+     * HTML-escape {@code text} and wrap the first case-insensitive occurrence
+     * of {@code query} in {@code <mark>}. Text without a literal match (a
+     * fuzzy hit) is returned escaped but unmarked.
+     */
+    public static String highlight(String text, String query) {
+        if (text == null) {
+            return null;
+        }
+        int start = indexOfIgnoreCase(text, query);
+        if (start < 0) {
+            return HtmlUtils.htmlEscape(text);
+        }
+        int end = start + query.length();
+        return HtmlUtils.htmlEscape(text.substring(0, start)) + MARK_START
+                + HtmlUtils.htmlEscape(text.substring(start, end)) + MARK_END
+                + HtmlUtils.htmlEscape(text.substring(end));
+    }
+
+    private static int indexOfIgnoreCase(String text, String query) {
+        if (query.isEmpty()) {
+            return -1;
+        }
+        for (int i = 0; i + query.length() <= text.length(); i++) {
+            if (text.regionMatches(true, i, query, 0, query.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
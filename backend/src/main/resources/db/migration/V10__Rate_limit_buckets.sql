@@ -0,0 +1,11 @@
+-- Token buckets shared by every node when app.rate-limit.store is postgres.
+-- full_at_us is the instant (microseconds since the epoch, database clock)
+-- at which the bucket is full again; rows in the past carry no information
+-- and are swept.
+CREATE TABLE rate_limit_buckets (
+    bucket_key VARCHAR(200) PRIMARY KEY,
+    full_at_us BIGINT NOT NULL,
+    allowed BOOLEAN NOT NULL
+);
+
+CREATE INDEX idx_rate_limit_buckets_full_at ON rate_limit_buckets (full_at_us);
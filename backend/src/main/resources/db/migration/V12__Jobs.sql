@@ -0,0 +1,22 @@
+-- Background work queued in the same transaction as the change that needs
+-- it, so a job exists exactly when that change committed. Workers claim
+-- due rows with FOR UPDATE SKIP LOCKED; a claimed row is RUNNING with
+-- run_at pushed out by the lease, so it becomes claimable again if the
+-- worker dies. Finished jobs are deleted; jobs out of attempts stay as DEAD.
+CREATE TABLE jobs (
+    id BIGSERIAL PRIMARY KEY,
+    type VARCHAR(50) NOT NULL,
+    payload TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'QUEUED',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    max_attempts INTEGER NOT NULL,
+    run_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    locked_by VARCHAR(100),
+    last_error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Claims scan only live jobs of one type in due order
+CREATE INDEX idx_jobs_due ON jobs (type, run_at) WHERE status <> 'DEAD';
+CREATE INDEX idx_jobs_dead ON jobs (updated_at) WHERE status = 'DEAD';
@@ -0,0 +1,20 @@
+-- content_type now holds the type detected from the file's bytes; what the
+-- client claimed moves to declared_content_type. Media metadata read during
+-- upload goes in its own columns.
+ALTER TABLE files
+    ADD COLUMN declared_content_type VARCHAR(255),
+    ADD COLUMN width INTEGER,
+    ADD COLUMN height INTEGER,
+    ADD COLUMN page_count INTEGER,
+    ADD COLUMN duration_ms BIGINT,
+    ADD COLUMN content_family VARCHAR(255) GENERATED ALWAYS AS (split_part(content_type, '/', 1)) STORED;
+
+UPDATE files SET declared_content_type = content_type;
+
+-- Type-filtered listings by exact type (image/png) or family (image), in list order
+CREATE INDEX idx_files_user_content_type ON files (user_id, content_type, upload_date DESC, id DESC);
+CREATE INDEX idx_files_user_content_family ON files (user_id, content_family, upload_date DESC, id DESC);
+
+-- Existing rows still carry the client's type; inspect their bodies in the background
+INSERT INTO jobs (type, payload, max_attempts)
+SELECT 'file-inspect', CAST(id AS TEXT), 8 FROM files;
@@ -0,0 +1,20 @@
+-- Resumable chunked uploads: one row per upload session, parts are staged on disk
+CREATE TABLE upload_sessions (
+    id VARCHAR(36) PRIMARY KEY,
+    original_name VARCHAR(255) NOT NULL,
+    content_type VARCHAR(255) NOT NULL,
+    total_size BIGINT NOT NULL,
+    part_size BIGINT NOT NULL,
+    part_count INTEGER NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'ACTIVE',
+    file_id BIGINT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL,
+    user_id BIGINT NOT NULL,
+    FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE,
+    FOREIGN KEY (file_id) REFERENCES files (id) ON DELETE SET NULL
+);
+
+CREATE INDEX idx_upload_sessions_user_id ON upload_sessions (user_id);
+
+CREATE INDEX idx_upload_sessions_expires_at ON upload_sessions (expires_at);
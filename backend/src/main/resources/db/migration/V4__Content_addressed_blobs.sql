@@ -0,0 +1,12 @@
+-- Content-addressed blob store: identical uploads share one blob on disk
+CREATE TABLE blobs (
+    digest CHAR(64) PRIMARY KEY,
+    size BIGINT NOT NULL,
+    storage_path VARCHAR(500) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Files uploaded before this migration keep their own file_path and no hash
+ALTER TABLE files ADD COLUMN content_hash CHAR(64) REFERENCES blobs (digest);
+
+CREATE INDEX idx_files_content_hash ON files (content_hash);
@@ -0,0 +1,6 @@
+-- Composite indexes matching the list endpoints' ORDER BY, so each page is an index range scan
+CREATE INDEX idx_files_user_upload_date_id ON files (user_id, upload_date DESC, id DESC);
+
+CREATE INDEX idx_notes_user_updated_date_id ON notes (user_id, updated_date DESC, id DESC);
+
+CREATE INDEX idx_credentials_user_created_date_id ON credentials (user_id, created_date DESC, id DESC);
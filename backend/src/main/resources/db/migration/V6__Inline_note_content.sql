@@ -0,0 +1,22 @@
+-- Note content used to be mapped as @Lob, which made Hibernate store it as a
+-- PostgreSQL large object and keep only the OID in notes.content. Copy the
+-- text back into the column so it can be queried, then drop the large objects.
+CREATE TEMPORARY TABLE note_content_oids AS
+SELECT n.id, n.content::oid AS lo
+FROM notes n
+WHERE n.content ~ '^[0-9]+$'
+  AND EXISTS (SELECT 1 FROM pg_largeobject_metadata m WHERE m.oid = n.content::oid);
+
+-- Keep updated_date as it was: this is not a user edit
+ALTER TABLE notes DISABLE TRIGGER update_notes_updated_date;
+
+UPDATE notes n
+SET content = convert_from(lo_get(o.lo), 'UTF8')
+FROM note_content_oids o
+WHERE n.id = o.id;
+
+ALTER TABLE notes ENABLE TRIGGER update_notes_updated_date;
+
+SELECT lo_unlink(lo) FROM note_content_oids;
+
+DROP TABLE note_content_oids;
@@ -0,0 +1,20 @@
+-- Full-text and trigram search
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Notes: ranked full-text search over title (weight A) and content (weight B)
+ALTER TABLE notes ADD COLUMN search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('english', coalesce(title, '')), 'A') ||
+        setweight(to_tsvector('english', coalesce(content, '')), 'B')
+    ) STORED;
+
+CREATE INDEX idx_notes_search_vector ON notes USING GIN (search_vector);
+
+-- Substring and fuzzy matching on short names, also used for partial words in note titles
+CREATE INDEX idx_notes_title_trgm ON notes USING GIN (title gin_trgm_ops);
+
+CREATE INDEX idx_files_original_name_trgm ON files USING GIN (original_name gin_trgm_ops);
+
+CREATE INDEX idx_credentials_service_trgm ON credentials USING GIN (service gin_trgm_ops);
+
+CREATE INDEX idx_credentials_username_trgm ON credentials USING GIN (username gin_trgm_ops);
@@ -0,0 +1,3 @@
+-- Per-blob data key, wrapped by the master key. Blobs stored before at-rest
+-- encryption keep a NULL key and are served as plaintext.
+ALTER TABLE blobs ADD COLUMN wrapped_key BYTEA;
@@ -0,0 +1,14 @@
+-- Bodies written to the storage backend whose metadata is not committed yet.
+-- A row is inserted before the object is stored and removed in the
+-- transaction that links it, so rows left behind by a crash point at objects
+-- the janitor can delete.
+CREATE TABLE pending_uploads (
+    id VARCHAR(36) PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    digest CHAR(64) NOT NULL,
+    storage_path VARCHAR(500) NOT NULL,
+    staging_path VARCHAR(500),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_pending_uploads_created_at ON pending_uploads (created_at);
@@ -0,0 +1,66 @@
+package com.safedrive.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConnectionPermitDataSourceTests {
+
+    @Test
+    void releasesPermitOnceWhenClosedTwice() throws SQLException {
+        ConnectionPermitDataSource dataSource = new ConnectionPermitDataSource(new StubDataSource(), 2,
+                Duration.ofMillis(50), 10);
+
+        Connection connection = dataSource.getConnection();
+        assertThat(dataSource.getAvailablePermits()).isEqualTo(1);
+
+        connection.close();
+        connection.close();
+        assertThat(dataSource.getAvailablePermits()).isEqualTo(2);
+    }
+
+    @Test
+    void failsFastBeyondMaxWaiting() throws SQLException {
+        ConnectionPermitDataSource dataSource = new ConnectionPermitDataSource(new StubDataSource(), 1,
+                Duration.ofSeconds(30), 0);
+        dataSource.getConnection();
+
+        long start = System.nanoTime();
+        assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+        assertThat(dataSource.getWaiting()).isZero();
+    }
+
+    @Test
+    void timesOutWaitingForPermit() throws SQLException {
+        ConnectionPermitDataSource dataSource = new ConnectionPermitDataSource(new StubDataSource(), 1,
+                Duration.ofMillis(50), 10);
+        dataSource.getConnection();
+
+        assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class)
+                .hasMessageContaining("50ms");
+        assertThat(dataSource.getWaiting()).isZero();
+        assertThat(dataSource.getAvailablePermits()).isZero();
+    }
+
+    private static class StubDataSource extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() {
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] { Connection.class }, (proxy, method, args) -> null);
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) {
+            return getConnection();
+        }
+    }
+}
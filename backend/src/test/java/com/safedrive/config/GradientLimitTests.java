@@ -0,0 +1,79 @@
+package com.safedrive.config;
+
+import com.safedrive.config.ConcurrencyLimitFilter.RequestClass;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GradientLimitTests {
+
+    private static final long MILLIS = 1_000_000;
+
+    @Test
+    void refusesBeyondLimit() {
+        GradientLimit limit = new GradientLimit(2, 1, 10);
+
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isFalse();
+
+        limit.release();
+        assertThat(limit.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void growsWhileLatencyHoldsAndShrinksWhenItRises() {
+        GradientLimit limit = new GradientLimit(10, 4, 100);
+
+        runWindows(limit, 10, 10 * MILLIS);
+        int grown = limit.getLimit();
+        assertThat(grown).isGreaterThan(10);
+
+        runWindows(limit, 10, 200 * MILLIS);
+        assertThat(limit.getLimit()).isLessThan(grown);
+    }
+
+    @Test
+    void doesNotGrowWhileMostlyIdle() {
+        GradientLimit limit = new GradientLimit(20, 4, 100);
+
+        for (int i = 0; i < 200; i++) {
+            limit.tryAcquire();
+            limit.release(10 * MILLIS);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(20);
+    }
+
+    @Test
+    void classifiesRequests() {
+        assertThat(classify("GET", "/api/files", true)).isEqualTo(RequestClass.READ);
+        assertThat(classify("DELETE", "/api/files/7", true)).isEqualTo(RequestClass.WRITE);
+        assertThat(classify("GET", "/api/files/7", true)).isEqualTo(RequestClass.TRANSFER);
+        assertThat(classify("PUT", "/api/files/uploads/abc/parts/3", true)).isEqualTo(RequestClass.TRANSFER);
+        assertThat(classify("GET", "/api/files/uploads/abc", true)).isEqualTo(RequestClass.READ);
+        assertThat(classify("POST", "/api/auth/login", false)).isEqualTo(RequestClass.ANONYMOUS);
+        assertThat(classify("GET", "/api/notes", false)).isEqualTo(RequestClass.ANONYMOUS);
+    }
+
+    // Keeps the limit fully used so each window may grow it
+    private static void runWindows(GradientLimit limit, int windows, long latencyNanos) {
+        for (int i = 0; i < windows * 20; i++) {
+            while (limit.tryAcquire()) {
+            }
+            limit.release(latencyNanos);
+        }
+        while (limit.getInFlight() > 0) {
+            limit.release();
+        }
+    }
+
+    private static RequestClass classify(String method, String path, boolean token) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        if (token) {
+            request.addHeader("Authorization", "Bearer abc");
+        }
+        return ConcurrencyLimitFilter.classify(request);
+    }
+}
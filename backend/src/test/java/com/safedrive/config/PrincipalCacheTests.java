@@ -0,0 +1,57 @@
+package com.safedrive.config;
+
+import com.safedrive.entity.User;
+import com.safedrive.util.ParsedToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrincipalCacheTests {
+
+    private final PrincipalCache principalCache = new PrincipalCache();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(principalCache, "maxSize", 100L);
+        ReflectionTestUtils.setField(principalCache, "ttl", Duration.ofMinutes(5));
+        principalCache.init();
+    }
+
+    @Test
+    void returnsCachedUserUntilInvalidated() {
+        User alice = user(1L, "alice@example.com");
+        User bob = user(2L, "bob@example.com");
+        principalCache.put("token-a", alice, token(alice, Instant.now().plusSeconds(60)));
+        principalCache.put("token-b", bob, token(bob, Instant.now().plusSeconds(60)));
+
+        assertThat(principalCache.get("token-a").getUser()).isSameAs(alice);
+
+        principalCache.invalidateUser(1L);
+
+        assertThat(principalCache.get("token-a")).isNull();
+        assertThat(principalCache.get("token-b").getUser()).isSameAs(bob);
+    }
+
+    @Test
+    void ignoresExpiredTokens() {
+        User alice = user(1L, "alice@example.com");
+        principalCache.put("token-a", alice, token(alice, Instant.now().minusMillis(1)));
+
+        assertThat(principalCache.get("token-a")).isNull();
+    }
+
+    private ParsedToken token(User user, Instant expiration) {
+        return new ParsedToken(user.getEmail(), Instant.now(), expiration, Map.of());
+    }
+
+    private User user(Long id, String email) {
+        User user = new User(email, "hash", "Test");
+        user.setId(id);
+        return user;
+    }
+}
@@ -0,0 +1,59 @@
+package com.safedrive.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safedrive.ratelimit.LocalRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import org.apache.catalina.filters.RemoteIpFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Login requests arriving through a proxy, with the client address read
+ * from X-Forwarded-For the way Tomcat does for
+ * {@code server.forward-headers-strategy: native}.
+ */
+class RateLimitFilterTests {
+
+    private static final String PROXY = "10.0.0.5";
+
+    private final RateLimitFilter rateLimitFilter = new RateLimitFilter(new LocalRateLimiter(1000),
+            new ObjectMapper().findAndRegisterModules(), new SimpleMeterRegistry(), true,
+            2, Duration.ofMinutes(1), 10, Duration.ofMinutes(1), 10, Duration.ofMinutes(1));
+
+    @Test
+    void forwardedClientsGetSeparateBuckets() throws Exception {
+        assertThat(login("203.0.113.7")).isEqualTo(200);
+        assertThat(login("203.0.113.7")).isEqualTo(200);
+        assertThat(login("203.0.113.7")).isEqualTo(429);
+
+        // Same proxy, another client
+        assertThat(login("198.51.100.20")).isEqualTo(200);
+        assertThat(login("198.51.100.20")).isEqualTo(200);
+    }
+
+    @Test
+    void addressSuppliedByClientIsNotTrusted() throws Exception {
+        assertThat(login("1.1.1.1, 203.0.113.7")).isEqualTo(200);
+        assertThat(login("2.2.2.2, 203.0.113.7")).isEqualTo(200);
+        // The proxy appended the real address; the spoofed first hop does not buy a new bucket
+        assertThat(login("3.3.3.3, 203.0.113.7")).isEqualTo(429);
+    }
+
+    private int login(String forwardedFor) throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setRemoteAddr(PROXY);
+        request.addHeader("X-Forwarded-For", forwardedFor);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new RemoteIpFilter().doFilter(request, response,
+                (req, res) -> rateLimitFilter.doFilter(req, res, new MockFilterChain()));
+        return response.getStatus();
+    }
+}
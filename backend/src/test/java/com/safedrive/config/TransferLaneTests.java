@@ -0,0 +1,60 @@
+package com.safedrive.config;
+
+import com.safedrive.exception.ServiceBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TransferLaneTests {
+
+    @Test
+    void turnsAwayTransfersBeyondThreadsAndQueue() throws InterruptedException {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.initialize();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TransferLane lane = new TransferLane(executor, registry, Duration.ofSeconds(7));
+
+        CountDownLatch release = new CountDownLatch(1);
+        AsyncTaskExecutor admitting = lane.run(() -> null).getExecutor();
+        try {
+            admitting.execute(() -> await(release));
+            admitting.execute(() -> await(release));
+
+            assertThatThrownBy(() -> admitting.execute(() -> { }))
+                    .isInstanceOfSatisfying(ServiceBusyException.class,
+                            e -> assertThat(e.getRetryAfter()).isEqualTo(Duration.ofSeconds(7)));
+            assertThat(registry.get("safedrive.lane.rejected").counter().count()).isEqualTo(1);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void transfersHaveNoAsyncTimeout() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        TransferLane lane = new TransferLane(executor, new SimpleMeterRegistry(), Duration.ofSeconds(5));
+
+        WebAsyncTask<Void> task = lane.run(() -> null);
+
+        assertThat(task.getTimeout()).isNegative();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
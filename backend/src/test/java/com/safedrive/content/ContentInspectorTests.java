@@ -0,0 +1,126 @@
+package com.safedrive.content;
+
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContentInspectorTests {
+
+    @Test
+    void detectsImageDespiteDeclaredType() {
+        ByteBuffer png = ByteBuffer.allocate(33);
+        png.put(new byte[] { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' });
+        png.putInt(13).put(ascii("IHDR")).putInt(640).putInt(480);
+
+        ContentInfo info = inspect(png.array(), 5, "text/plain");
+
+        assertThat(info.getContentType()).isEqualTo("image/png");
+        assertThat(info.getWidth()).isEqualTo(640);
+        assertThat(info.getHeight()).isEqualTo(480);
+    }
+
+    @Test
+    void readsGifDimensions() {
+        ByteBuffer gif = ByteBuffer.allocate(13).order(ByteOrder.LITTLE_ENDIAN);
+        gif.put(ascii("GIF89a")).putShort((short) 32).putShort((short) 16);
+
+        ContentInfo info = inspect(gif.array(), 64, null);
+
+        assertThat(info.getContentType()).isEqualTo("image/gif");
+        assertThat(info.getWidth()).isEqualTo(32);
+        assertThat(info.getHeight()).isEqualTo(16);
+    }
+
+    @Test
+    void readsWavDuration() {
+        int dataLength = 88_200;
+        ByteBuffer wav = ByteBuffer.allocate(44 + dataLength).order(ByteOrder.LITTLE_ENDIAN);
+        wav.put(ascii("RIFF")).putInt(36 + dataLength).put(ascii("WAVE"));
+        wav.put(ascii("fmt ")).putInt(16).putShort((short) 1).putShort((short) 1).putInt(44_100).putInt(88_200)
+                .putShort((short) 2).putShort((short) 16);
+        wav.put(ascii("data")).putInt(dataLength);
+
+        ContentInfo info = inspect(wav.array(), 4096, "application/octet-stream");
+
+        assertThat(info.getContentType()).isEqualTo("audio/wav");
+        assertThat(info.getDurationMillis()).isEqualTo(1000);
+    }
+
+    @Test
+    void countsPdfPagesAcrossChunks() {
+        String pdf = "%PDF-1.4\n1 0 obj << /Type /Pages /Kids [2 0 R 3 0 R] /Count 2 >> endobj\n"
+                + "2 0 obj << /Type /Page /Parent 1 0 R >> endobj\n"
+                + "3 0 obj << /Type/Page/Parent 1 0 R >> endobj\n%%EOF\n";
+
+        ContentInfo info = inspect(ascii(pdf), 3, null);
+
+        assertThat(info.getContentType()).isEqualTo("application/pdf");
+        assertThat(info.getPageCount()).isEqualTo(2);
+    }
+
+    @Test
+    void findsMovieBoxAfterMediaData() {
+        ByteArrayOutputStream mp4 = new ByteArrayOutputStream();
+        mp4.writeBytes(box("ftyp", ByteBuffer.allocate(8).put(ascii("isom")).putInt(0).array()));
+        mp4.writeBytes(box("mdat", new byte[100_000]));
+
+        ByteBuffer mvhd = ByteBuffer.allocate(20);
+        mvhd.putInt(0).putInt(0).putInt(0).putInt(1000).putInt(12_500);
+        ByteBuffer tkhd = ByteBuffer.allocate(84);
+        tkhd.position(76);
+        tkhd.putInt(1920 << 16).putInt(1080 << 16);
+        ByteArrayOutputStream moov = new ByteArrayOutputStream();
+        moov.writeBytes(box("mvhd", mvhd.array()));
+        moov.writeBytes(box("trak", box("tkhd", tkhd.array())));
+        mp4.writeBytes(box("moov", moov.toByteArray()));
+
+        ContentInfo info = inspect(mp4.toByteArray(), 1000, null);
+
+        assertThat(info.getContentType()).isEqualTo("video/mp4");
+        assertThat(info.getDurationMillis()).isEqualTo(12_500);
+        assertThat(info.getWidth()).isEqualTo(1920);
+        assertThat(info.getHeight()).isEqualTo(1080);
+    }
+
+    @Test
+    void keepsDeclaredTextTypeButNotMarkup() {
+        byte[] csv = ascii("name,size\nreport.pdf,1024\n");
+        assertThat(inspect(csv, 64, "text/csv; charset=utf-8").getContentType()).isEqualTo("text/csv");
+        assertThat(inspect(csv, 64, null).getContentType()).isEqualTo("text/plain");
+
+        byte[] page = ascii("<!DOCTYPE html><html><body>hi</body></html>");
+        assertThat(inspect(page, 64, "image/png").getContentType()).isEqualTo("text/html");
+        assertThat(inspect(ascii("<p>hi</p>"), 64, "text/html").getContentType()).isEqualTo("text/plain");
+    }
+
+    @Test
+    void fallsBackToOctetStreamForUnknownBinary() {
+        byte[] body = { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 0, 0 };
+
+        ContentInfo info = inspect(body, 64, "image/png");
+
+        assertThat(info.getContentType()).isEqualTo("application/octet-stream");
+        assertThat(info.getWidth()).isNull();
+    }
+
+    private static ContentInfo inspect(byte[] body, int chunkSize, String declaredType) {
+        ContentInspector inspector = new ContentInspector();
+        for (int off = 0; off < body.length; off += chunkSize) {
+            inspector.update(body, off, Math.min(chunkSize, body.length - off));
+        }
+        assertThat(inspector.getSize()).isEqualTo(body.length);
+        return inspector.inspect(declaredType);
+    }
+
+    private static byte[] box(String type, byte[] body) {
+        return ByteBuffer.allocate(8 + body.length).putInt(8 + body.length).put(ascii(type)).put(body).array();
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
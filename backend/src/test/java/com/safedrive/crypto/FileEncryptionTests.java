@@ -0,0 +1,98 @@
+package com.safedrive.crypto;
+
+import com.safedrive.storage.LocalStorageBackend;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileEncryptionTests {
+
+    private static final int CHUNK_SIZE = 1024;
+
+    @TempDir
+    Path tempDir;
+
+    private final FileEncryption fileEncryption = new FileEncryption();
+    private LocalStorageBackend backend;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(fileEncryption, "enabled", true);
+        ReflectionTestUtils.setField(fileEncryption, "chunkSize", CHUNK_SIZE);
+        ReflectionTestUtils.setField(fileEncryption, "masterKeyBase64", "");
+        ReflectionTestUtils.setField(fileEncryption, "encryptionSecret", "test-secret");
+        fileEncryption.init();
+        backend = new LocalStorageBackend(tempDir.resolve("store"));
+    }
+
+    @Test
+    void decryptsAnyRangeAcrossChunkBoundaries() throws IOException {
+        byte[] plain = randomBytes(5 * CHUNK_SIZE + 17);
+        FileEncryption.DataKey dataKey = fileEncryption.newDataKey();
+        store("obj", plain, dataKey.getKey());
+
+        SecretKey unwrapped = fileEncryption.unwrap(dataKey.getWrapped());
+        assertThat(Files.size(tempDir.resolve("store/obj")))
+                .isEqualTo(ChunkedGcm.encryptedLength(plain.length, CHUNK_SIZE));
+
+        int[][] ranges = { { 0, plain.length }, { 0, 1 }, { CHUNK_SIZE - 3, 10 }, { 2 * CHUNK_SIZE, CHUNK_SIZE },
+                { plain.length - 5, 5 } };
+        for (int[] range : ranges) {
+            try (InputStream in = fileEncryption.openRange(backend, "obj", unwrapped, plain.length, range[0],
+                    range[1])) {
+                assertThat(in.readAllBytes()).isEqualTo(Arrays.copyOfRange(plain, range[0], range[0] + range[1]));
+            }
+        }
+    }
+
+    @Test
+    void rejectsTamperedAndTruncatedObjects() throws IOException {
+        byte[] plain = randomBytes(3 * CHUNK_SIZE);
+        FileEncryption.DataKey dataKey = fileEncryption.newDataKey();
+        store("obj", plain, dataKey.getKey());
+        Path stored = tempDir.resolve("store/obj");
+
+        byte[] sealed = Files.readAllBytes(stored);
+        sealed[ChunkedGcm.HEADER_LENGTH + 5] ^= 1;
+        Files.write(stored, sealed);
+        assertThatThrownBy(() -> readAll(plain.length, dataKey.getKey())).isInstanceOf(IOException.class);
+
+        store("obj", plain, dataKey.getKey());
+        byte[] whole = Files.readAllBytes(stored);
+        // Dropping the final chunk must not look like a shorter, valid file
+        Files.write(stored, Arrays.copyOf(whole, (int) ChunkedGcm.chunkOffset(2, CHUNK_SIZE)));
+        assertThatThrownBy(() -> readAll(2 * CHUNK_SIZE, dataKey.getKey())).isInstanceOf(IOException.class);
+    }
+
+    private void store(String key, byte[] plain, SecretKey dataKey) throws IOException {
+        Path staged = tempDir.resolve("staged");
+        try (OutputStream out = fileEncryption.encrypt(Files.newOutputStream(staged), dataKey)) {
+            out.write(plain);
+        }
+        backend.put(key, staged);
+    }
+
+    private byte[] readAll(long length, SecretKey dataKey) throws IOException {
+        try (InputStream in = fileEncryption.openRange(backend, "obj", dataKey, length, 0, length)) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,62 @@
+package com.safedrive.dto.response;
+
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CursorPageTests {
+
+    @Test
+    void limitPlusOneRowsMeansAnotherPage() {
+        CursorPage<Integer> page = CursorPage.of(rows(11), 10, String::valueOf);
+
+        assertThat(page.getItems()).containsExactlyElementsOf(rows(10));
+        assertThat(page.getNextCursor()).isEqualTo("10");
+    }
+
+    @Test
+    void exactlyLimitRowsIsLastPage() {
+        CursorPage<Integer> page = CursorPage.of(rows(10), 10, String::valueOf);
+
+        assertThat(page.getItems()).hasSize(10);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void fewerRowsThanLimitIsLastPage() {
+        assertThat(CursorPage.of(rows(3), 10, String::valueOf).getNextCursor()).isNull();
+        assertThat(CursorPage.of(List.<Integer>of(), 10, String::valueOf).getItems()).isEmpty();
+    }
+
+    @Test
+    void pagesAtMaxLimit() {
+        int limit = CursorPage.clampLimit(10_000);
+        assertThat(limit).isEqualTo(CursorPage.MAX_LIMIT);
+
+        CursorPage<Integer> full = CursorPage.of(rows(limit + 1), limit, String::valueOf);
+        assertThat(full.getItems()).hasSize(CursorPage.MAX_LIMIT);
+        assertThat(full.getNextCursor()).isEqualTo(String.valueOf(CursorPage.MAX_LIMIT));
+
+        CursorPage<Integer> last = CursorPage.of(rows(limit), limit, String::valueOf);
+        assertThat(last.getItems()).hasSize(CursorPage.MAX_LIMIT);
+        assertThat(last.getNextCursor()).isNull();
+    }
+
+    @Test
+    void clampsLimitToAtLeastOneRow() {
+        assertThat(CursorPage.clampLimit(0)).isOne();
+        assertThat(CursorPage.clampLimit(-5)).isOne();
+        assertThat(CursorPage.clampLimit(CursorPage.MAX_LIMIT)).isEqualTo(CursorPage.MAX_LIMIT);
+
+        CursorPage<Integer> page = CursorPage.of(rows(2), CursorPage.clampLimit(0), String::valueOf);
+        assertThat(page.getItems()).containsExactly(1);
+        assertThat(page.getNextCursor()).isEqualTo("1");
+    }
+
+    // Rows numbered from 1, so the cursor of the last item on a page is its position
+    private static List<Integer> rows(int count) {
+        return IntStream.rangeClosed(1, count).boxed().toList();
+    }
+}
@@ -0,0 +1,29 @@
+package com.safedrive.jobs;
+
+import org.junit.jupiter.api.Test;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JobRunnerTests {
+
+    private static final Duration BASE = Duration.ofSeconds(5);
+    private static final Duration MAX = Duration.ofHours(1);
+
+    @Test
+    void backoffDoublesWithinJitter() {
+        for (int attempt = 1; attempt <= 6; attempt++) {
+            long ceiling = BASE.toMillis() << (attempt - 1);
+            for (int i = 0; i < 100; i++) {
+                long millis = JobRunner.backoff(attempt, BASE, MAX).toMillis();
+                assertThat(millis).isBetween(ceiling / 2, ceiling);
+            }
+        }
+    }
+
+    @Test
+    void backoffIsCapped() {
+        assertThat(JobRunner.backoff(20, BASE, MAX)).isLessThanOrEqualTo(MAX).isGreaterThanOrEqualTo(MAX.dividedBy(2));
+        assertThat(JobRunner.backoff(100, BASE, MAX)).isLessThanOrEqualTo(MAX);
+    }
+}
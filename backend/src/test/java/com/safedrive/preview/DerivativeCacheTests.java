@@ -0,0 +1,122 @@
+package com.safedrive.preview;
+
+import com.safedrive.crypto.FileEncryption;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DerivativeCacheTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void evictsLeastRecentlyUsedOverLimit() {
+        DerivativeCache cache = cache(30);
+        cache.put("1-128.jpg", new byte[10]);
+        cache.put("2-128.jpg", new byte[10]);
+        cache.put("3-128.jpg", new byte[10]);
+        assertThat(cache.get("1-128.jpg")).hasSize(10);
+
+        cache.put("4-128.jpg", new byte[10]);
+
+        assertThat(cache.get("2-128.jpg")).isNull();
+        assertThat(dir.resolve("2-128.jpg")).doesNotExist();
+        assertThat(cache.get("1-128.jpg")).isNotNull();
+        assertThat(cache.getTotalBytes()).isEqualTo(30);
+    }
+
+    @Test
+    void removesEveryVariantOfFile() {
+        DerivativeCache cache = cache(100);
+        cache.put("7-128.jpg", new byte[5]);
+        cache.put("7-text.txt", new byte[5]);
+        cache.put("70-128.jpg", new byte[5]);
+
+        cache.removeAll(7L);
+
+        assertThat(cache.get("7-128.jpg")).isNull();
+        assertThat(cache.get("7-text.txt")).isNull();
+        assertThat(cache.get("70-128.jpg")).isNotNull();
+        assertThat(cache.getEntryCount()).isEqualTo(1);
+    }
+
+    @Test
+    void reloadsOldestFirstAndDropsPartialWrites() throws IOException {
+        Files.write(dir.resolve("1-128.jpg"), new byte[10]);
+        Files.write(dir.resolve("2-128.jpg"), new byte[10]);
+        Files.write(dir.resolve("3-128.jpg"), new byte[10]);
+        Files.write(dir.resolve("abc.tmp"), new byte[10]);
+        Files.setLastModifiedTime(dir.resolve("2-128.jpg"), FileTime.fromMillis(1_000));
+
+        DerivativeCache cache = cache(20);
+
+        assertThat(cache.getEntryCount()).isEqualTo(2);
+        assertThat(dir.resolve("2-128.jpg")).doesNotExist();
+        assertThat(dir.resolve("abc.tmp")).doesNotExist();
+    }
+
+    @Test
+    void treatsVanishedFileAsMiss() throws IOException {
+        DerivativeCache cache = cache(100);
+        cache.put("1-text.txt", new byte[4]);
+        Files.delete(dir.resolve("1-text.txt"));
+
+        assertThat(cache.get("1-text.txt")).isNull();
+        assertThat(cache.getTotalBytes()).isZero();
+    }
+
+    @Test
+    void encryptsEntriesWhenFileEncryptionIsOn() throws IOException {
+        byte[] preview = "quarterly numbers: 1,234,567".getBytes(StandardCharsets.UTF_8);
+        DerivativeCache cache = cache(1000, true);
+        cache.put("5-text.txt", preview);
+
+        byte[] onDisk = Files.readAllBytes(dir.resolve("5-text.txt.enc"));
+        assertThat(new String(onDisk, StandardCharsets.ISO_8859_1)).doesNotContain("quarterly");
+        assertThat(cache.getTotalBytes()).isEqualTo(onDisk.length);
+        assertThat(cache.get("5-text.txt")).isEqualTo(preview);
+
+        // Survives a restart, and a tampered entry is a miss
+        DerivativeCache reloaded = cache(1000, true);
+        assertThat(reloaded.get("5-text.txt")).isEqualTo(preview);
+        onDisk[onDisk.length - 1] ^= 1;
+        Files.write(dir.resolve("5-text.txt.enc"), onDisk);
+        assertThat(reloaded.get("5-text.txt")).isNull();
+        assertThat(dir.resolve("5-text.txt.enc")).doesNotExist();
+    }
+
+    @Test
+    void dropsPlaintextEntriesOnceEncryptionIsOn() throws IOException {
+        cache(100, false).put("1-128.jpg", new byte[10]);
+
+        DerivativeCache cache = cache(100, true);
+
+        assertThat(cache.getEntryCount()).isZero();
+        assertThat(dir.resolve("1-128.jpg")).doesNotExist();
+    }
+
+    private DerivativeCache cache(long maxBytes) {
+        return cache(maxBytes, false);
+    }
+
+    private DerivativeCache cache(long maxBytes, boolean encrypted) {
+        FileEncryption fileEncryption = new FileEncryption();
+        ReflectionTestUtils.setField(fileEncryption, "enabled", encrypted);
+        ReflectionTestUtils.setField(fileEncryption, "chunkSize", 1024);
+        ReflectionTestUtils.setField(fileEncryption, "masterKeyBase64", "");
+        ReflectionTestUtils.setField(fileEncryption, "encryptionSecret", "test-secret");
+        fileEncryption.init();
+        return new DerivativeCache(dir.toString(), DataSize.ofBytes(maxBytes), fileEncryption,
+                new SimpleMeterRegistry());
+    }
+}
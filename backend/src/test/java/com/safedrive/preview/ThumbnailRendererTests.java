@@ -0,0 +1,69 @@
+package com.safedrive.preview;
+
+import org.junit.jupiter.api.Test;
+import javax.imageio.IIOException;
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ThumbnailRendererTests {
+
+    @Test
+    void fitsImageWithinSizeKeepingAspect() throws IOException {
+        byte[] png = png(2000, 1000, BufferedImage.TYPE_INT_ARGB);
+
+        BufferedImage thumbnail = read(ThumbnailRenderer.renderImage(new ByteArrayInputStream(png), 256, 0.8f,
+                10_000_000));
+
+        assertThat(thumbnail.getWidth()).isEqualTo(256);
+        assertThat(thumbnail.getHeight()).isEqualTo(128);
+    }
+
+    @Test
+    void keepsSmallImageSize() throws IOException {
+        byte[] png = png(40, 30, BufferedImage.TYPE_INT_RGB);
+
+        BufferedImage thumbnail = read(ThumbnailRenderer.renderImage(new ByteArrayInputStream(png), 256, 0.8f,
+                10_000_000));
+
+        assertThat(thumbnail.getWidth()).isEqualTo(40);
+        assertThat(thumbnail.getHeight()).isEqualTo(30);
+    }
+
+    @Test
+    void refusesImagesOverPixelLimit() throws IOException {
+        byte[] png = png(400, 300, BufferedImage.TYPE_INT_RGB);
+
+        assertThatThrownBy(() -> ThumbnailRenderer.renderImage(new ByteArrayInputStream(png), 128, 0.8f, 100_000))
+                .isInstanceOf(IIOException.class)
+                .hasMessageContaining("400x300");
+        assertThatThrownBy(() -> ThumbnailRenderer.renderImage(new ByteArrayInputStream(new byte[64]), 128, 0.8f,
+                100_000)).isInstanceOf(IIOException.class);
+    }
+
+    @Test
+    void dropsCharacterCutAtEndOfPreview() {
+        byte[] text = "naïve café".getBytes(StandardCharsets.UTF_8);
+        byte[] head = Arrays.copyOf(text, text.length - 1);
+
+        assertThat(ThumbnailRenderer.textPreview(head, true)).isEqualTo("naïve caf");
+        assertThat(ThumbnailRenderer.textPreview(text, false)).isEqualTo("naïve café");
+    }
+
+    private static byte[] png(int width, int height, int type) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, type), "png", out);
+        return out.toByteArray();
+    }
+
+    private static BufferedImage read(byte[] jpeg) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(jpeg));
+    }
+}
@@ -0,0 +1,54 @@
+package com.safedrive.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTests {
+
+    private static final RateLimitPolicy TEN_PER_SECOND = new RateLimitPolicy("test", 10, Duration.ofSeconds(1));
+
+    @Test
+    void allowsBurstOfCapacityThenRefills() {
+        TokenBucket bucket = new TokenBucket(TEN_PER_SECOND, 0);
+
+        for (int i = 0; i < 10; i++) {
+            RateLimitDecision decision = bucket.tryConsume(0);
+            assertThat(decision.isAllowed()).isTrue();
+            assertThat(decision.getRemaining()).isEqualTo(9 - i);
+        }
+        RateLimitDecision refused = bucket.tryConsume(0);
+        assertThat(refused.isAllowed()).isFalse();
+        assertThat(refused.getRetryAfter()).isEqualTo(Duration.ofMillis(100));
+        assertThat(refused.getResetAfter()).isEqualTo(Duration.ofSeconds(1));
+
+        // One interval later exactly one token is back
+        long later = Duration.ofMillis(100).toNanos();
+        assertThat(bucket.tryConsume(later).isAllowed()).isTrue();
+        assertThat(bucket.tryConsume(later).isAllowed()).isFalse();
+    }
+
+    @Test
+    void concurrentCallersShareTheBudget() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(new RateLimitPolicy("test", 1000, Duration.ofHours(1)), 0);
+        AtomicInteger allowed = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 5000; i++) {
+            pool.execute(() -> {
+                if (bucket.tryConsume(0).isAllowed()) {
+                    allowed.incrementAndGet();
+                }
+            });
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(allowed.get()).isEqualTo(1000);
+    }
+}
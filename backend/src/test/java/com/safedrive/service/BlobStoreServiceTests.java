@@ -0,0 +1,273 @@
+package com.safedrive.service;
+
+import com.safedrive.entity.FileEntity;
+import com.safedrive.entity.User;
+import com.safedrive.exception.FileStorageException;
+import com.safedrive.jobs.BlobDeleteJob;
+import com.safedrive.repository.FileRepository;
+import com.safedrive.repository.UserRepository;
+import com.safedrive.storage.StorageBackend;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs against the database, with the job runner off so queued jobs stay
+ * visible in the {@code jobs} table.
+ */
+@SpringBootTest(properties = {
+        "app.jobs.enabled=false",
+        "app.storage.type=local",
+        "app.upload.dir=target/blob-store-tests",
+        "app.upload.blobs.orphan-grace-period=1h",
+        "app.upload.pending.timeout=6h" })
+class BlobStoreServiceTests {
+
+    private static final Path UPLOAD_DIR = Paths.get("target/blob-store-tests");
+
+    @Autowired
+    private BlobStoreService blobStoreService;
+
+    @Autowired
+    private StorageBackend storageBackend;
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private final List<String> digests = new ArrayList<>();
+
+    @BeforeEach
+    void createUser() {
+        user = userRepository.save(new User("blobs-" + UUID.randomUUID() + "@example.com", "x", "Blob Tester"));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM files WHERE user_id = ?", user.getId());
+        jdbcTemplate.update("DELETE FROM pending_uploads WHERE user_id = ?", user.getId());
+        userRepository.deleteById(user.getId());
+        for (String digest : digests) {
+            jdbcTemplate.update("DELETE FROM jobs WHERE payload = ? OR payload LIKE ?", digest,
+                    "blobs/%/" + digest + "-%");
+            jdbcTemplate.update("DELETE FROM blobs WHERE digest = ?", digest);
+        }
+    }
+
+    @Test
+    void secondUploadOfSameBodyOnlyAddsFileRow() throws IOException {
+        byte[] body = uniqueBody();
+        FileEntity first = upload(body);
+
+        BlobStoreService.PreparedBlob again = blobStoreService.prepare(blobStoreService.stage(stream(body)),
+                user.getId());
+        assertThat(again.isStored()).isFalse();
+        FileEntity second = saveFile(again);
+
+        assertThat(second.getFilePath()).isEqualTo(first.getFilePath());
+        assertThat(storedObjects(first.getContentHash())).containsExactly(first.getFilePath());
+        assertThat(blobCount(first.getContentHash())).isOne();
+        assertThat(deleteJobs(first.getFilePath())).isZero();
+    }
+
+    @Test
+    void concurrentUploadOfSameBodyQueuesDeleteOfSurplusObject() throws IOException {
+        byte[] body = uniqueBody();
+        BlobStoreService.PreparedBlob winner = prepare(body);
+        BlobStoreService.PreparedBlob loser = prepare(body);
+        assertThat(winner.isStored()).isTrue();
+        assertThat(loser.isStored()).isTrue();
+        assertThat(loser.getStoragePath()).isNotEqualTo(winner.getStoragePath());
+
+        FileEntity first = saveFile(winner);
+        FileEntity second = saveFile(loser);
+
+        assertThat(second.getFilePath()).isEqualTo(first.getFilePath()).isEqualTo(winner.getStoragePath());
+        assertThat(deleteJobs(loser.getStoragePath())).isOne();
+        assertThat(deleteJobs(winner.getStoragePath())).isZero();
+        assertThat(pendingRows()).isZero();
+    }
+
+    @Test
+    void releaseQueuesDeleteOnlyForLastReference() throws IOException {
+        byte[] body = uniqueBody();
+        FileEntity first = upload(body);
+        FileEntity second = upload(body);
+        String digest = first.getContentHash();
+
+        deleteFile(first);
+        assertThat(blobCount(digest)).isOne();
+        assertThat(deleteJobs(first.getFilePath())).isZero();
+
+        deleteFile(second);
+        assertThat(blobCount(digest)).isZero();
+        assertThat(deleteJobs(first.getFilePath())).isOne();
+    }
+
+    @Test
+    void sweepsBlobsLeftWithoutReferences() throws IOException {
+        FileEntity old = upload(uniqueBody());
+        FileEntity recent = upload(uniqueBody());
+        // Rows that cascaded away without release(), as when a user is deleted
+        jdbcTemplate.update("DELETE FROM files WHERE id IN (?, ?)", old.getId(), recent.getId());
+        jdbcTemplate.update("UPDATE blobs SET created_at = created_at - INTERVAL '2 hours' WHERE digest = ?",
+                old.getContentHash());
+
+        Path incoming = Files.createDirectories(UPLOAD_DIR.resolve("blobs/incoming"));
+        Path staleStaging = Files.writeString(incoming.resolve(UUID.randomUUID() + ".tmp"), "partial");
+        Files.setLastModifiedTime(staleStaging, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+        Path activeStaging = Files.writeString(incoming.resolve(UUID.randomUUID() + ".tmp"), "partial");
+
+        // The sweep takes a bounded batch, and other tests may have left unreferenced blobs behind
+        for (int i = 0; i < 20 && blobCount(old.getContentHash()) > 0; i++) {
+            blobStoreService.sweepOrphans();
+        }
+
+        assertThat(blobCount(old.getContentHash())).isZero();
+        assertThat(deleteJobs(old.getFilePath())).isOne();
+        assertThat(blobCount(recent.getContentHash())).isOne();
+        assertThat(staleStaging).doesNotExist();
+        assertThat(activeStaging).exists();
+        Files.delete(activeStaging);
+    }
+
+    @Test
+    void janitorDeletesObjectOfUploadWhoseLinkFailed() throws IOException {
+        BlobStoreService.PreparedBlob prepared = prepare(uniqueBody());
+        assertThat(storageBackend.stat(prepared.getStoragePath())).isPresent();
+
+        // The metadata transaction rolls back, and the process dies before abandon()
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+            saveFileInTransaction(prepared);
+            throw new IllegalStateException("crash");
+        })).hasMessage("crash");
+        assertThat(pendingRows()).isOne();
+
+        expirePendingRows();
+        blobStoreService.sweepPendingUploads();
+
+        assertThat(pendingRows()).isZero();
+        assertThat(storageBackend.stat(prepared.getStoragePath())).isEmpty();
+        assertThat(blobCount(prepared.getStaged().getDigest())).isZero();
+    }
+
+    @Test
+    void janitorNeverSweepsCommittedUpload() throws IOException {
+        FileEntity file = upload(uniqueBody());
+        assertThat(pendingRows()).isZero();
+
+        expirePendingRows();
+        blobStoreService.sweepPendingUploads();
+
+        assertThat(storageBackend.stat(file.getFilePath())).isPresent();
+        assertThat(blobCount(file.getContentHash())).isOne();
+    }
+
+    @Test
+    void uploadSweptBeforeItsLinkCannotBeSaved() throws IOException {
+        BlobStoreService.PreparedBlob prepared = prepare(uniqueBody());
+        expirePendingRows();
+        blobStoreService.sweepPendingUploads();
+
+        assertThatThrownBy(() -> saveFile(prepared))
+                .isInstanceOf(FileStorageException.class)
+                .hasMessageContaining("expired");
+        assertThat(blobCount(prepared.getStaged().getDigest())).isZero();
+        assertThat(fileRepository.findByUserIdOrderByUploadDateDesc(user.getId())).isEmpty();
+    }
+
+    private FileEntity upload(byte[] body) {
+        return saveFile(prepare(body));
+    }
+
+    private BlobStoreService.PreparedBlob prepare(byte[] body) {
+        BlobStoreService.StagedBlob staged = blobStoreService.stage(stream(body));
+        digests.add(staged.getDigest());
+        return blobStoreService.prepare(staged, user.getId());
+    }
+
+    // The same transaction FileService saves an upload in
+    private FileEntity saveFile(BlobStoreService.PreparedBlob prepared) {
+        return transactionTemplate.execute(status -> saveFileInTransaction(prepared));
+    }
+
+    private FileEntity saveFileInTransaction(BlobStoreService.PreparedBlob prepared) {
+        BlobStoreService.StagedBlob staged = prepared.getStaged();
+        FileEntity file = new FileEntity(UUID.randomUUID() + ".bin", "body.bin", "application/octet-stream",
+                staged.getSize(), blobStoreService.link(prepared), user);
+        file.setContentHash(staged.getDigest());
+        return fileRepository.save(file);
+    }
+
+    private void deleteFile(FileEntity file) {
+        transactionTemplate.executeWithoutResult(status -> {
+            fileRepository.deleteById(file.getId());
+            fileRepository.flush();
+            blobStoreService.release(file.getContentHash());
+        });
+    }
+
+    private void expirePendingRows() {
+        jdbcTemplate.update("UPDATE pending_uploads SET created_at = created_at - INTERVAL '7 hours' "
+                + "WHERE user_id = ?", user.getId());
+    }
+
+    private List<String> storedObjects(String digest) throws IOException {
+        Path bucket = UPLOAD_DIR.resolve("blobs").resolve(digest.substring(0, 2)).resolve(digest.substring(2, 4));
+        try (var entries = Files.list(bucket)) {
+            return entries.map(path -> UPLOAD_DIR.relativize(path).toString().replace('\\', '/'))
+                    .filter(key -> key.contains(digest))
+                    .toList();
+        }
+    }
+
+    private int blobCount(String digest) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM blobs WHERE digest = ?", Integer.class, digest);
+    }
+
+    private int deleteJobs(String storagePath) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM jobs WHERE type = ? AND payload = ?",
+                Integer.class, BlobDeleteJob.TYPE, storagePath);
+    }
+
+    private int pendingRows() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pending_uploads WHERE user_id = ?",
+                Integer.class, user.getId());
+    }
+
+    private static byte[] uniqueBody() {
+        return ("body " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static ByteArrayInputStream stream(byte[] body) {
+        return new ByteArrayInputStream(body);
+    }
+}
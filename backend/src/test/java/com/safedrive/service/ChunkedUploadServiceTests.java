@@ -0,0 +1,253 @@
+package com.safedrive.service;
+
+import com.safedrive.entity.FileEntity;
+import com.safedrive.entity.UploadSession;
+import com.safedrive.entity.UploadStatus;
+import com.safedrive.entity.User;
+import com.safedrive.exception.InvalidUploadException;
+import com.safedrive.exception.UploadSessionNotFoundException;
+import com.safedrive.repository.UploadSessionRepository;
+import com.safedrive.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.security.core.context.SecurityContextHolder;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs against the database with parts of {@value #PART_SIZE} bytes, so a
+ * session of a few dozen bytes already spans several parts.
+ */
+@SpringBootTest(properties = {
+        "app.jobs.enabled=false",
+        "app.storage.type=local",
+        "app.upload.dir=target/chunked-upload-tests",
+        "app.upload.chunked.part-size=16B",
+        "app.upload.chunked.session-ttl=1h" })
+class ChunkedUploadServiceTests {
+
+    private static final int PART_SIZE = 16;
+    private static final Path STAGING_DIR = Paths.get("target/chunked-upload-tests/staging");
+
+    @Autowired
+    private ChunkedUploadService chunkedUploadService;
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private FileDownloadService fileDownloadService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private final List<String> digests = new ArrayList<>();
+
+    @BeforeEach
+    void signIn() {
+        user = userRepository.save(new User("chunks-" + UUID.randomUUID() + "@example.com", "x", "Chunk Tester"));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, Collections.emptyList()));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        SecurityContextHolder.clearContext();
+        jdbcTemplate.update("DELETE FROM upload_sessions WHERE user_id = ?", user.getId());
+        jdbcTemplate.update("DELETE FROM files WHERE user_id = ?", user.getId());
+        jdbcTemplate.update("DELETE FROM pending_uploads WHERE user_id = ?", user.getId());
+        userRepository.deleteById(user.getId());
+        for (String digest : digests) {
+            jdbcTemplate.update("DELETE FROM blobs WHERE digest = ?", digest);
+        }
+    }
+
+    @Test
+    void assemblesPartsSentOutOfOrderAndConcurrently() throws Exception {
+        byte[] body = body(PART_SIZE * 5 + 7);
+        UploadSession session = open(body);
+        assertThat(session.getPartCount()).isEqualTo(6);
+
+        ExecutorService clients = new DelegatingSecurityContextExecutorService(Executors.newFixedThreadPool(6));
+        try {
+            List<Future<?>> sent = new ArrayList<>();
+            for (int partNumber = session.getPartCount(); partNumber >= 1; partNumber--) {
+                int part = partNumber;
+                sent.add(clients.submit(() -> send(session, part, body)));
+            }
+            for (Future<?> future : sent) {
+                future.get();
+            }
+        } finally {
+            clients.shutdown();
+        }
+        // A retried part replaces the first copy
+        send(session, 3, body);
+
+        assertThat(chunkedUploadService.getReceivedParts(session)).containsExactly(1, 2, 3, 4, 5, 6);
+        FileEntity file = complete(session);
+
+        assertThat(file.getSize()).isEqualTo((long) body.length);
+        try (InputStream stored = fileDownloadService.open(file)) {
+            assertThat(stored.readAllBytes()).isEqualTo(body);
+        }
+        assertThat(STAGING_DIR.resolve(session.getId())).doesNotExist();
+        // Retrying the commit returns the same file
+        assertThat(chunkedUploadService.completeUpload(session.getId(), user).getId()).isEqualTo(file.getId());
+    }
+
+    @Test
+    void rejectsPartOfWrongLength() {
+        byte[] body = body(PART_SIZE * 2 + 3);
+        UploadSession session = open(body);
+
+        assertThatThrownBy(() -> chunkedUploadService.uploadPart(session.getId(), 1,
+                new ByteArrayInputStream(body, 0, PART_SIZE), PART_SIZE - 1, user.getId()))
+                .isInstanceOf(InvalidUploadException.class);
+        // Without a Content-Length the body itself is measured, whether short or long
+        assertThatThrownBy(() -> chunkedUploadService.uploadPart(session.getId(), 1,
+                new ByteArrayInputStream(body, 0, PART_SIZE - 1), -1, user.getId()))
+                .isInstanceOf(InvalidUploadException.class);
+        assertThatThrownBy(() -> chunkedUploadService.uploadPart(session.getId(), 3,
+                new ByteArrayInputStream(new byte[4]), -1, user.getId()))
+                .isInstanceOf(InvalidUploadException.class);
+        assertThatThrownBy(() -> chunkedUploadService.uploadPart(session.getId(), 4,
+                new ByteArrayInputStream(new byte[3]), 3, user.getId()))
+                .isInstanceOf(InvalidUploadException.class);
+
+        assertThat(chunkedUploadService.getReceivedParts(session)).isEmpty();
+        assertThat(STAGING_DIR.resolve(session.getId()).toFile().list()).isEmpty();
+    }
+
+    @Test
+    void completingWithMissingPartsNamesThemAndKeepsSessionOpen() {
+        byte[] body = body(PART_SIZE * 3 + 1);
+        UploadSession session = open(body);
+        send(session, 1, body);
+        send(session, 3, body);
+
+        assertThatThrownBy(() -> chunkedUploadService.completeUpload(session.getId(), user))
+                .isInstanceOf(InvalidUploadException.class)
+                .hasMessageContaining("[2, 4]");
+        assertThat(status(session)).isEqualTo(UploadStatus.ACTIVE);
+
+        send(session, 2, body);
+        send(session, 4, body);
+        assertThat(complete(session).getSize()).isEqualTo((long) body.length);
+    }
+
+    @Test
+    void abortRemovesSessionAndParts() {
+        byte[] body = body(PART_SIZE * 2);
+        UploadSession session = open(body);
+        send(session, 1, body);
+
+        chunkedUploadService.abortUpload(session.getId(), user.getId());
+
+        assertThat(STAGING_DIR.resolve(session.getId())).doesNotExist();
+        assertThatThrownBy(() -> chunkedUploadService.getUpload(session.getId(), user.getId()))
+                .isInstanceOf(UploadSessionNotFoundException.class);
+        assertThatThrownBy(() -> send(session, 2, body))
+                .isInstanceOf(UploadSessionNotFoundException.class);
+    }
+
+    @Test
+    void abortIsRefusedWhileUploadIsBeingAssembled() {
+        byte[] body = body(PART_SIZE);
+        UploadSession session = open(body);
+        send(session, 1, body);
+        setStatus(session, UploadStatus.ASSEMBLING);
+
+        assertThatThrownBy(() -> chunkedUploadService.abortUpload(session.getId(), user.getId()))
+                .isInstanceOf(InvalidUploadException.class);
+        assertThat(chunkedUploadService.getReceivedParts(session)).containsExactly(1);
+    }
+
+    @Test
+    void cleanupLeavesSessionsBeingAssembledAlone() {
+        byte[] body = body(PART_SIZE * 2);
+        UploadSession idle = open(body);
+        send(idle, 1, body);
+        UploadSession assembling = open(body);
+        send(assembling, 1, body);
+        send(assembling, 2, body);
+        setStatus(assembling, UploadStatus.ASSEMBLING);
+        expire(idle, "1 minute");
+        expire(assembling, "1 minute");
+
+        chunkedUploadService.cleanupExpiredUploads();
+
+        assertThat(uploadSessionRepository.findById(idle.getId())).isEmpty();
+        assertThat(STAGING_DIR.resolve(idle.getId())).doesNotExist();
+        assertThat(uploadSessionRepository.findById(assembling.getId())).isPresent();
+        assertThat(chunkedUploadService.getReceivedParts(assembling)).containsExactly(1, 2);
+
+        // A commit that died mid-assembly is cleaned up one session TTL later
+        expire(assembling, "2 hours");
+        chunkedUploadService.cleanupExpiredUploads();
+
+        assertThat(uploadSessionRepository.findById(assembling.getId())).isEmpty();
+        assertThat(STAGING_DIR.resolve(assembling.getId())).doesNotExist();
+    }
+
+    private UploadSession open(byte[] body) {
+        return chunkedUploadService.initUpload("body.bin", "application/octet-stream", body.length, user);
+    }
+
+    private void send(UploadSession session, int partNumber, byte[] body) {
+        int offset = (partNumber - 1) * PART_SIZE;
+        int length = (int) session.getExpectedPartLength(partNumber);
+        chunkedUploadService.uploadPart(session.getId(), partNumber,
+                new ByteArrayInputStream(body, offset, length), length, user.getId());
+    }
+
+    private FileEntity complete(UploadSession session) {
+        FileEntity file = chunkedUploadService.completeUpload(session.getId(), user);
+        digests.add(file.getContentHash());
+        return file;
+    }
+
+    private UploadStatus status(UploadSession session) {
+        return uploadSessionRepository.findById(session.getId()).orElseThrow().getStatus();
+    }
+
+    private void setStatus(UploadSession session, UploadStatus status) {
+        jdbcTemplate.update("UPDATE upload_sessions SET status = ? WHERE id = ?", status.name(), session.getId());
+    }
+
+    private void expire(UploadSession session, String ago) {
+        jdbcTemplate.update("UPDATE upload_sessions SET expires_at = NOW() - CAST(? AS INTERVAL) WHERE id = ?",
+                ago, session.getId());
+    }
+
+    private static byte[] body(int length) {
+        byte[] body = new byte[length];
+        byte[] seed = UUID.randomUUID().toString().getBytes();
+        for (int i = 0; i < length; i++) {
+            body[i] = (byte) (seed[i % seed.length] + i);
+        }
+        return body;
+    }
+}
@@ -0,0 +1,87 @@
+package com.safedrive.service;
+
+import com.safedrive.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PasswordServiceTests {
+
+    @Test
+    void hashesOnThePoolAndVerifies() throws Exception {
+        ThreadPoolTaskExecutor executor = executor(1, 1);
+        PasswordService service = new PasswordService(new BlockingEncoder(new CountDownLatch(0)), executor,
+                new SimpleMeterRegistry(), Duration.ofSeconds(2));
+        try {
+            String hash = service.encode("secret").get();
+
+            assertThat(hash).isEqualTo("hashed:secret");
+            assertThat(service.matches("secret", hash).get()).isTrue();
+            assertThat(service.matches("other", hash).get()).isFalse();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void refusesBeyondThreadsAndQueue() {
+        ThreadPoolTaskExecutor executor = executor(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PasswordService service = new PasswordService(new BlockingEncoder(release), executor, registry,
+                Duration.ofSeconds(2));
+        try {
+            service.encode("one");
+            service.encode("two");
+
+            assertThatThrownBy(() -> service.encode("three"))
+                    .isInstanceOfSatisfying(TooManyRequestsException.class,
+                            e -> assertThat(e.getRetryAfter()).isEqualTo(Duration.ofSeconds(2)));
+            assertThat(registry.get("safedrive.lane.rejected").tag("lane", "password").counter().count())
+                    .isEqualTo(1);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    private static ThreadPoolTaskExecutor executor(int threads, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.initialize();
+        return executor;
+    }
+
+    // Stands in for BCrypt; holds each call until released so the pool can be filled
+    private static class BlockingEncoder implements PasswordEncoder {
+
+        private final CountDownLatch release;
+
+        BlockingEncoder(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "hashed:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    }
+}
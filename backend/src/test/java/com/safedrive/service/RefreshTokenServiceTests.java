@@ -0,0 +1,118 @@
+package com.safedrive.service;
+
+import com.safedrive.entity.User;
+import com.safedrive.exception.InvalidRefreshTokenException;
+import com.safedrive.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs against the database without a surrounding test transaction, so what
+ * each rotation commits is what a later request would see.
+ */
+@SpringBootTest(properties = "app.jobs.enabled=false")
+class RefreshTokenServiceTests {
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+
+    @BeforeEach
+    void createUser() {
+        user = userRepository.save(new User("refresh-" + UUID.randomUUID() + "@example.com", "x", "Refresh Tester"));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM refresh_tokens WHERE user_id = ?", user.getId());
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    void rotationReturnsNewTokenAndRetiresOldOne() {
+        String first = refreshTokenService.issue(user.getId());
+
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(first);
+
+        assertThat(rotation.getUserId()).isEqualTo(user.getId());
+        assertThat(rotation.getRefreshToken()).isNotEqualTo(first);
+        assertThat(refreshTokenService.rotate(rotation.getRefreshToken()).getRefreshToken())
+                .isNotEqualTo(rotation.getRefreshToken());
+        assertThat(familyCount()).isOne();
+        assertThat(tokenCount()).isEqualTo(3);
+    }
+
+    @Test
+    void reusedTokenRevokesWholeFamily() {
+        String first = refreshTokenService.issue(user.getId());
+        String second = refreshTokenService.rotate(first).getRefreshToken();
+        String otherLogin = refreshTokenService.issue(user.getId());
+
+        assertThatThrownBy(() -> refreshTokenService.rotate(first))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessageContaining("already been used");
+
+        // Committed despite the exception, so the successor is dead on its next use
+        assertThat(revokedCount()).isEqualTo(2);
+        assertThatThrownBy(() -> refreshTokenService.rotate(second))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessageContaining("revoked");
+        assertThat(refreshTokenService.rotate(otherLogin).getUserId()).isEqualTo(user.getId());
+    }
+
+    @Test
+    void rejectsExpiredToken() {
+        String token = refreshTokenService.issue(user.getId());
+        jdbcTemplate.update("UPDATE refresh_tokens SET expires_at = NOW() - INTERVAL '1 minute' WHERE user_id = ?",
+                user.getId());
+
+        assertThatThrownBy(() -> refreshTokenService.rotate(token))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessageContaining("expired");
+        assertThat(tokenCount()).isOne();
+    }
+
+    @Test
+    void rejectsUnknownAndLoggedOutTokens() {
+        String token = refreshTokenService.issue(user.getId());
+        refreshTokenService.revoke(token);
+
+        assertThatThrownBy(() -> refreshTokenService.rotate(token))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessageContaining("revoked");
+        assertThatThrownBy(() -> refreshTokenService.rotate("not-a-token"))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessageContaining("Unknown");
+    }
+
+    private int tokenCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM refresh_tokens WHERE user_id = ?",
+                Integer.class, user.getId());
+    }
+
+    private int familyCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT family_id) FROM refresh_tokens WHERE user_id = ?",
+                Integer.class, user.getId());
+    }
+
+    private int revokedCount() {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM refresh_tokens WHERE user_id = ? AND revoked_at IS NOT NULL",
+                Integer.class, user.getId());
+    }
+}
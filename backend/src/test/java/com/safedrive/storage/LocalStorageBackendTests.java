@@ -0,0 +1,88 @@
+package com.safedrive.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalStorageBackendTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void storesReadsAndDeletesObject() throws IOException {
+        LocalStorageBackend backend = new LocalStorageBackend(dir.resolve("store"));
+        Path source = stage("0123456789");
+
+        backend.put("blobs/ab/cd/digest-1", source);
+
+        assertThat(source).doesNotExist();
+        assertThat(backend.stat("blobs/ab/cd/digest-1")).get()
+                .satisfies(object -> assertThat(object.getSize()).isEqualTo(10));
+        try (InputStream in = backend.get("blobs/ab/cd/digest-1")) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.US_ASCII)).isEqualTo("0123456789");
+        }
+        try (InputStream in = backend.getRange("blobs/ab/cd/digest-1", 3, 4)) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.US_ASCII)).isEqualTo("3456");
+        }
+        assertThat(backend.localPath("blobs/ab/cd/digest-1"))
+                .contains(dir.resolve("store/blobs/ab/cd/digest-1").toAbsolutePath());
+
+        assertThat(backend.delete("blobs/ab/cd/digest-1")).isTrue();
+        assertThat(backend.delete("blobs/ab/cd/digest-1")).isFalse();
+        assertThat(backend.stat("blobs/ab/cd/digest-1")).isEmpty();
+    }
+
+    @Test
+    void directoryIsNotAnObject() throws IOException {
+        LocalStorageBackend backend = new LocalStorageBackend(dir);
+        Files.createDirectories(dir.resolve("users/4"));
+
+        assertThat(backend.stat("users/4")).isEmpty();
+        assertThat(backend.stat("users/4/missing.png")).isEmpty();
+    }
+
+    @Test
+    void rejectsKeysOutsideRoot() {
+        LocalStorageBackend backend = new LocalStorageBackend(dir.resolve("store"));
+
+        assertThatThrownBy(() -> backend.resolve("../outside")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> backend.resolve("blobs/../../outside")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> backend.resolve(dir.resolve("elsewhere/file").toString()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> backend.get("../store-sibling/secret")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void resolvesLegacyPathsThatIncludeUploadDirectory() throws IOException {
+        // Relative to the working directory, as app.upload.dir usually is
+        LocalStorageBackend relative = new LocalStorageBackend(Path.of("uploads"));
+        assertThat(relative.resolve("uploads/users/4/a1b2.png"))
+                .isEqualTo(Path.of("uploads/users/4/a1b2.png").toAbsolutePath());
+        assertThat(relative.resolve("users/4/a1b2.png"))
+                .isEqualTo(Path.of("uploads/users/4/a1b2.png").toAbsolutePath());
+
+        // Absolute paths stored by deployments with an absolute upload directory
+        LocalStorageBackend absolute = new LocalStorageBackend(dir);
+        Path legacy = dir.resolve("users/4/a1b2.png");
+        Files.createDirectories(legacy.getParent());
+        Files.writeString(legacy, "old");
+        assertThat(absolute.stat(legacy.toString())).isPresent();
+        try (InputStream in = absolute.get(legacy.toString())) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.US_ASCII)).isEqualTo("old");
+        }
+    }
+
+    private Path stage(String body) throws IOException {
+        Path source = Files.createTempFile(dir, "upload", ".tmp");
+        Files.writeString(source, body);
+        return source;
+    }
+}
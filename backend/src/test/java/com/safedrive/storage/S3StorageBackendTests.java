@@ -0,0 +1,121 @@
+package com.safedrive.storage;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.testcontainers.containers.MinIOContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.ListMultipartUploadsRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs against a MinIO container; skipped where Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class S3StorageBackendTests {
+
+    private static final String BUCKET = "safedrive-test";
+    private static final long PART_SIZE = S3StorageBackend.MIN_PART_SIZE;
+
+    @Container
+    static final MinIOContainer minio = new MinIOContainer("minio/minio:RELEASE.2025-04-22T22-12-26Z");
+
+    static S3Client client;
+    static S3StorageBackend backend;
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void connect() {
+        client = S3Client.builder()
+                .endpointOverride(URI.create(minio.getS3URL()))
+                .region(Region.US_EAST_1)
+                .forcePathStyle(true)
+                .credentialsProvider(StaticCredentialsProvider.create(
+                        AwsBasicCredentials.create(minio.getUserName(), minio.getPassword())))
+                .build();
+        client.createBucket(request -> request.bucket(BUCKET));
+        backend = new S3StorageBackend(client, BUCKET, PART_SIZE);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        client.close();
+    }
+
+    @Test
+    void storesReadsAndDeletesObject() throws IOException {
+        byte[] body = randomBytes(10_000);
+        Path source = stage(body);
+
+        backend.put("users/1/report.bin", source);
+
+        assertThat(source).doesNotExist();
+        assertThat(backend.stat("users/1/report.bin")).get()
+                .satisfies(object -> assertThat(object.getSize()).isEqualTo(body.length));
+        try (InputStream in = backend.get("users/1/report.bin")) {
+            assertThat(in.readAllBytes()).isEqualTo(body);
+        }
+        try (InputStream in = backend.getRange("users/1/report.bin", 100, 50)) {
+            assertThat(in.readAllBytes()).isEqualTo(Arrays.copyOfRange(body, 100, 150));
+        }
+        assertThat(backend.localPath("users/1/report.bin")).isEmpty();
+
+        assertThat(backend.delete("users/1/report.bin")).isTrue();
+        assertThat(backend.stat("users/1/report.bin")).isEmpty();
+    }
+
+    @Test
+    void missingObjectHasNoStatAndFailsToRead() throws IOException {
+        assertThat(backend.stat("blobs/00/00/missing")).isEmpty();
+        assertThatThrownBy(() -> backend.get("blobs/00/00/missing")).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void uploadsLargeObjectInParts() throws IOException {
+        // Two full parts and a short one
+        byte[] body = randomBytes((int) (2 * PART_SIZE + 12_345));
+
+        backend.put("blobs/ab/cd/large", stage(body));
+
+        assertThat(backend.stat("blobs/ab/cd/large")).get()
+                .satisfies(object -> assertThat(object.getSize()).isEqualTo(body.length));
+        try (InputStream in = backend.get("blobs/ab/cd/large")) {
+            assertThat(in.readAllBytes()).isEqualTo(body);
+        }
+        int boundary = (int) PART_SIZE;
+        try (InputStream in = backend.getRange("blobs/ab/cd/large", boundary - 10, 20)) {
+            assertThat(in.readAllBytes()).isEqualTo(Arrays.copyOfRange(body, boundary - 10, boundary + 10));
+        }
+        assertThat(client.listMultipartUploads(ListMultipartUploadsRequest.builder().bucket(BUCKET).build())
+                .uploads()).isEmpty();
+    }
+
+    private Path stage(byte[] body) throws IOException {
+        Path source = Files.createTempFile(dir, "upload", ".tmp");
+        Files.write(source, body);
+        return source;
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
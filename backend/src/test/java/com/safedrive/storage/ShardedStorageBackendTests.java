@@ -0,0 +1,97 @@
+package com.safedrive.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShardedStorageBackendTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void keepsObjectsOfOneShardTogether() throws IOException {
+        ShardedStorageBackend backend = new ShardedStorageBackend(List.of(dir.resolve("a"), dir.resolve("b"),
+                dir.resolve("c")));
+
+        for (int bucket = 0; bucket < 16; bucket++) {
+            String prefix = String.format("blobs/%02x/", bucket);
+            LocalStorageBackend volume = backend.volumeFor(prefix + "00/first");
+            assertThat(backend.volumeFor(prefix + "ff/second")).isSameAs(volume);
+
+            put(backend, prefix + "00/first", "x");
+            assertThat(Files.exists(volume.getRoot().resolve(prefix + "00/first"))).isTrue();
+        }
+    }
+
+    @Test
+    void findsObjectsWrittenBeforeVolumeWasAdded() throws IOException {
+        List<Path> roots = new ArrayList<>(List.of(dir.resolve("a"), dir.resolve("b")));
+        ShardedStorageBackend before = new ShardedStorageBackend(roots);
+        List<String> keys = new ArrayList<>();
+        for (int bucket = 0; bucket < 256; bucket++) {
+            String key = String.format("blobs/%02x/00/object-%d", bucket, bucket);
+            put(before, key, "body " + bucket);
+            keys.add(key);
+        }
+
+        roots.add(dir.resolve("c"));
+        ShardedStorageBackend after = new ShardedStorageBackend(roots);
+        long rehomed = keys.stream()
+                .filter(key -> after.volumeFor(key).getRoot().equals(dir.resolve("c").toAbsolutePath()))
+                .count();
+        assertThat(rehomed).as("keys whose preferred volume is now the new one").isPositive();
+
+        for (int bucket = 0; bucket < keys.size(); bucket++) {
+            String key = keys.get(bucket);
+            assertThat(after.stat(key)).isPresent();
+            try (InputStream in = after.get(key)) {
+                assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("body " + bucket);
+            }
+            try (InputStream in = after.getRange(key, 5, 1)) {
+                assertThat(in.readAllBytes()).containsExactly((byte) Integer.toString(bucket).charAt(0));
+            }
+            assertThat(after.localPath(key)).get().matches(Files::exists);
+        }
+
+        for (String key : keys) {
+            assertThat(after.delete(key)).isTrue();
+            assertThat(after.stat(key)).isEmpty();
+        }
+    }
+
+    @Test
+    void newWritesGoToPreferredVolume() throws IOException {
+        ShardedStorageBackend backend = new ShardedStorageBackend(List.of(dir.resolve("a"), dir.resolve("b")));
+
+        put(backend, "users/4/report.pdf", "pdf");
+
+        Path expected = backend.volumeFor("users/4/report.pdf").getRoot().resolve("users/4/report.pdf");
+        assertThat(backend.localPath("users/4/report.pdf")).contains(expected);
+    }
+
+    @Test
+    void legacyPathsStayOnTheirVolume() throws IOException {
+        Path legacy = dir.resolve("b/users/4/old.png");
+        Files.createDirectories(legacy.getParent());
+        Files.writeString(legacy, "old");
+        ShardedStorageBackend backend = new ShardedStorageBackend(List.of(dir.resolve("a"), dir.resolve("b")));
+
+        assertThat(backend.volumeFor(legacy.toString()).getRoot()).isEqualTo(dir.resolve("b").toAbsolutePath());
+        assertThat(backend.stat(legacy.toString())).isPresent();
+    }
+
+    private void put(StorageBackend backend, String key, String body) throws IOException {
+        Path source = Files.createTempFile(dir, "upload", ".tmp");
+        Files.writeString(source, body);
+        backend.put(key, source);
+    }
+}
@@ -0,0 +1,95 @@
+package com.safedrive.util;
+
+import com.safedrive.exception.GlobalExceptionHandler;
+import com.safedrive.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class CursorTests {
+
+    @Test
+    void roundTripsTimestampsAtEveryPrecision() {
+        for (LocalDateTime timestamp : new LocalDateTime[] {
+                LocalDateTime.of(2024, 3, 1, 10, 0),
+                LocalDateTime.of(2024, 3, 1, 10, 0, 5),
+                LocalDateTime.of(2024, 3, 1, 10, 0, 5, 120_000_000),
+                LocalDateTime.of(2024, 3, 1, 10, 0, 5, 123_456_000),
+                LocalDateTime.of(2024, 3, 1, 10, 0, 5, 123_456_789) }) {
+            Cursor decoded = Cursor.decode(new Cursor(timestamp, 42L).encode());
+
+            assertThat(decoded.getTimestamp()).isEqualTo(timestamp);
+            assertThat(decoded.getId()).isEqualTo(42L);
+        }
+    }
+
+    @Test
+    void encodesAsUrlSafeToken() {
+        String encoded = new Cursor(LocalDateTime.of(2024, 3, 1, 10, 0, 5, 123_456_789), Long.MAX_VALUE).encode();
+
+        assertThat(encoded).matches("[A-Za-z0-9_-]+");
+        assertThat(Cursor.decode(encoded).getId()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void missingCursorMeansFirstPage() {
+        assertThat(Cursor.decode(null)).isNull();
+        assertThat(Cursor.decode("")).isNull();
+        assertThat(Cursor.decode("  ")).isNull();
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        for (String malformed : new String[] {
+                "not base64!",
+                encode("no separator"),
+                encode("2024-03-01T10:00:05|"),
+                encode("|42"),
+                encode("yesterday|42"),
+                encode("2024-03-01T10:00:05|forty-two"),
+                encode("2024-13-01T10:00:05|42") }) {
+            assertThatThrownBy(() -> Cursor.decode(malformed))
+                    .as(malformed)
+                    .isInstanceOf(InvalidCursorException.class);
+        }
+    }
+
+    @Test
+    void malformedCursorIsBadRequest() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new PagedController())
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+
+        mockMvc.perform(get("/items").param("cursor", encode("yesterday|42")))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("INVALID_CURSOR"));
+        mockMvc.perform(get("/items").param("cursor", new Cursor(LocalDateTime.now(), 1L).encode()))
+                .andExpect(status().isOk());
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @RestController
+    static class PagedController {
+
+        @GetMapping("/items")
+        String items(@RequestParam(required = false) String cursor) {
+            Cursor.decode(cursor);
+            return "ok";
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.safedrive.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EncryptionUtilTests {
+
+    private static final String SECRET = "MySecretKey12345";
+    private static final String KEY_A = Base64.getEncoder().encodeToString(new byte[32]);
+    private static final String KEY_B = Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef"
+            .getBytes(StandardCharsets.US_ASCII));
+
+    @Test
+    void roundTripsThroughVersionedEnvelope() {
+        EncryptionUtil util = encryptionUtil("", "");
+
+        String encrypted = util.encrypt("pässword");
+
+        assertThat(encrypted).startsWith("v1:A256GCM:s0:");
+        assertThat(util.encrypt("pässword")).isNotEqualTo(encrypted);
+        assertThat(util.decrypt(encrypted)).isEqualTo("pässword");
+        assertThat(util.decryptAll(util.encryptAll(List.of("a", "b")))).containsExactly("a", "b");
+    }
+
+    @Test
+    void readsLegacyEcbValuesAndFlagsThemForMigration() throws Exception {
+        Cipher ecb = Cipher.getInstance("AES");
+        ecb.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(SECRET.getBytes(), "AES"));
+        String legacy = Base64.getEncoder().encodeToString(ecb.doFinal("secret".getBytes()));
+        EncryptionUtil util = encryptionUtil("", "");
+
+        assertThat(util.decrypt(legacy)).isEqualTo("secret");
+        assertThat(util.needsReencryption(legacy)).isTrue();
+        assertThat(util.needsReencryption(util.encrypt("secret"))).isFalse();
+    }
+
+    @Test
+    void decryptsValuesSealedWithRetiredKeys() {
+        String sealedWithA = encryptionUtil("a:" + KEY_A, "a").encrypt("secret");
+        EncryptionUtil rotated = encryptionUtil("a:" + KEY_A + ",b:" + KEY_B, "b");
+
+        assertThat(rotated.decrypt(sealedWithA)).isEqualTo("secret");
+        assertThat(rotated.needsReencryption(sealedWithA)).isTrue();
+        assertThat(rotated.encrypt("secret")).startsWith("v1:A256GCM:b:");
+    }
+
+    private EncryptionUtil encryptionUtil(String keys, String activeKeyId) {
+        EncryptionUtil util = new EncryptionUtil();
+        ReflectionTestUtils.setField(util, "encryptionSecret", SECRET);
+        ReflectionTestUtils.setField(util, "keyRing", keys);
+        ReflectionTestUtils.setField(util, "activeKeyId", activeKeyId);
+        util.init();
+        return util;
+    }
+}
@@ -0,0 +1,110 @@
+package com.safedrive.util;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtUtilTests {
+
+    // The development secret from application.yml, long enough for HS384
+    private static final String SECRET = "myVerySecretKeyThatIsLongEnoughForHS256Algorithm";
+    private static final String OTHER_SECRET = "anotherSecretKeyThatIsAlsoLongEnoughForHS256Algorithm";
+
+    @Test
+    void roundTripsRegisteredAndCustomClaims() {
+        JwtUtil jwtUtil = jwtUtil(SECRET, 900_000);
+        Instant before = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+        String token = jwtUtil.generateToken("alice@example.com", Map.of("role", "ADMIN", "tier", 3));
+        ParsedToken parsed = jwtUtil.parseToken(token);
+
+        Instant after = Instant.now();
+        assertThat(parsed.getSubject()).isEqualTo("alice@example.com");
+        assertThat(parsed.getIssuedAt()).isBetween(before, after);
+        assertThat(Duration.between(parsed.getIssuedAt(), parsed.getExpiration())).isEqualTo(Duration.ofMinutes(15));
+        assertThat(parsed.getId()).isNotBlank();
+        assertThat(parsed.getClaims()).containsOnly(Map.entry("role", "ADMIN"), Map.entry("tier", 3));
+        assertThat(parsed.isExpired()).isFalse();
+        assertThat(jwtUtil.parseToken(jwtUtil.generateToken("alice@example.com")).getId())
+                .isNotEqualTo(parsed.getId());
+        assertThat(jwtUtil.validateToken(token, "alice@example.com")).isTrue();
+        assertThat(jwtUtil.validateToken(token, "bob@example.com")).isFalse();
+    }
+
+    @Test
+    void rejectsExpiredToken() {
+        String token = jwtUtil(SECRET, -60_000).generateToken("alice@example.com");
+        JwtUtil jwtUtil = jwtUtil(SECRET, 900_000);
+
+        assertThatThrownBy(() -> jwtUtil.parseToken(token)).isInstanceOf(ExpiredJwtException.class);
+        assertThat(jwtUtil.isTokenValid(token)).isFalse();
+        assertThat(jwtUtil.validateToken(token, "alice@example.com")).isFalse();
+    }
+
+    @Test
+    void rejectsTamperedToken() {
+        JwtUtil jwtUtil = jwtUtil(SECRET, 900_000);
+        String[] parts = jwtUtil.generateToken("alice@example.com").split("\\.");
+        String payload = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8)
+                .replace("alice@example.com", "admin@example.com");
+        String tampered = parts[0] + "."
+                + Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8))
+                + "." + parts[2];
+
+        assertThatThrownBy(() -> jwtUtil.parseToken(tampered)).isInstanceOf(SignatureException.class);
+        assertThat(jwtUtil.validateToken(tampered, "admin@example.com")).isFalse();
+    }
+
+    @Test
+    void rejectsTokenSignedWithDifferentKey() {
+        String token = jwtUtil(OTHER_SECRET, 900_000).generateToken("alice@example.com");
+        JwtUtil jwtUtil = jwtUtil(SECRET, 900_000);
+
+        assertThatThrownBy(() -> jwtUtil.parseToken(token)).isInstanceOf(SignatureException.class);
+        assertThat(jwtUtil.isTokenValid(token)).isFalse();
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void parsesTokenIssuedBeforeBuilderChange() {
+        // How tokens were built before the move to the jjwt 0.12 builder: always HS256
+        long now = System.currentTimeMillis();
+        String legacy = Jwts.builder()
+                .setClaims(Map.of("role", "USER"))
+                .setSubject("alice@example.com")
+                .setId("legacy-id")
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + 900_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+
+        ParsedToken parsed = jwtUtil(SECRET, 900_000).parseToken(legacy);
+
+        assertThat(parsed.getSubject()).isEqualTo("alice@example.com");
+        assertThat(parsed.getId()).isEqualTo("legacy-id");
+        assertThat(parsed.getExpiration()).isEqualTo(Instant.ofEpochSecond((now + 900_000) / 1000));
+        assertThat(parsed.getClaims()).containsOnly(Map.entry("role", "USER"));
+    }
+
+    private static JwtUtil jwtUtil(String secret, long expirationMillis) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "jwtSecret", secret);
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpiration", expirationMillis);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+}
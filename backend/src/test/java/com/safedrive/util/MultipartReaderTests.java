@@ -0,0 +1,122 @@
+package com.safedrive.util;
+
+import com.safedrive.exception.InvalidUploadException;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MultipartReaderTests {
+
+    private static final String BOUNDARY = "----boundary42";
+
+    @Test
+    void readsFieldsAndFileAcrossShortReads() throws IOException {
+        byte[] content = new byte[200_000];
+        new Random(7).nextBytes(content);
+        byte[] body = body(content);
+
+        MultipartReader reader = new MultipartReader(new TricklingInputStream(body), BOUNDARY, Long.MAX_VALUE);
+
+        MultipartReader.Part field = reader.next();
+        assertThat(field.getName()).isEqualTo("description");
+        assertThat(field.getFilename()).isNull();
+        assertThat(new String(field.getInputStream().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("holiday");
+
+        MultipartReader.Part file = reader.next();
+        assertThat(file.getName()).isEqualTo("file");
+        assertThat(file.getFilename()).isEqualTo("photo.jpg");
+        assertThat(file.getContentType()).isEqualTo("image/jpeg");
+        assertThat(file.getInputStream().readAllBytes()).isEqualTo(content);
+
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void keepsBytesThatOnlyResembleTheBoundary() throws IOException {
+        String almostBoundary = BOUNDARY.substring(0, BOUNDARY.length() - 1);
+        byte[] content = ("a\r\n--" + almostBoundary + "b\r\n-\r\n--" + almostBoundary)
+                .getBytes(StandardCharsets.US_ASCII);
+
+        MultipartReader reader = new MultipartReader(new ByteArrayInputStream(body(content)), BOUNDARY, 1 << 20);
+        reader.next();
+
+        assertThat(reader.next().getInputStream().readAllBytes()).isEqualTo(content);
+    }
+
+    @Test
+    void skipsPartsThatAreNotRead() throws IOException {
+        MultipartReader reader = new MultipartReader(new ByteArrayInputStream(body(new byte[100_000])), BOUNDARY,
+                1 << 20);
+
+        assertThat(reader.next().getName()).isEqualTo("description");
+        assertThat(reader.next().getName()).isEqualTo("file");
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void rejectsTruncatedBody() throws IOException {
+        byte[] body = body(new byte[10_000]);
+        MultipartReader reader = new MultipartReader(new ByteArrayInputStream(Arrays.copyOf(body, body.length - 30)),
+                BOUNDARY, 1 << 20);
+        reader.next();
+        InputStream file = reader.next().getInputStream();
+
+        assertThatThrownBy(file::readAllBytes).isInstanceOf(EOFException.class);
+    }
+
+    @Test
+    void enforcesPartSizeLimit() throws IOException {
+        MultipartReader reader = new MultipartReader(new ByteArrayInputStream(body(new byte[10_000])), BOUNDARY,
+                4096);
+        reader.next();
+        InputStream file = reader.next().getInputStream();
+
+        assertThatThrownBy(file::readAllBytes).isInstanceOf(MaxUploadSizeExceededException.class);
+    }
+
+    @Test
+    void extractsBoundaryFromContentType() {
+        assertThat(MultipartReader.boundary("multipart/form-data; boundary=abc")).isEqualTo("abc");
+        assertThat(MultipartReader.boundary("multipart/form-data; boundary=\"a b\"")).isEqualTo("a b");
+        assertThatThrownBy(() -> MultipartReader.boundary("application/json"))
+                .isInstanceOf(InvalidUploadException.class);
+        assertThatThrownBy(() -> MultipartReader.boundary("multipart/form-data"))
+                .isInstanceOf(InvalidUploadException.class);
+    }
+
+    private static byte[] body(byte[] content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(("preamble\r\n--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"description\"\r\n\r\n"
+                + "holiday\r\n--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"photo.jpg\"\r\n"
+                + "Content-Type: image/jpeg\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(content);
+        out.write(("\r\n--" + BOUNDARY + "--\r\nepilogue").getBytes(StandardCharsets.US_ASCII));
+        return out.toByteArray();
+    }
+
+    // Hands out a few bytes per read, like a slow network connection
+    private static class TricklingInputStream extends ByteArrayInputStream {
+        private final Random random = new Random(11);
+
+        TricklingInputStream(byte[] data) {
+            super(data);
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            return super.read(b, off, Math.min(len, 1 + random.nextInt(13)));
+        }
+    }
+}
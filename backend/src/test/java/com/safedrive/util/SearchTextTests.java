@@ -0,0 +1,24 @@
+package com.safedrive.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchTextTests {
+
+    @Test
+    void escapesLikeWildcardsInPattern() {
+        assertThat(SearchText.containsPattern("50%_off\\")).isEqualTo("%50\\%\\_off\\\\%");
+    }
+
+    @Test
+    void marksFirstMatchAndEscapesHtml() {
+        assertThat(SearchText.highlight("<b>Tax</b> return tax", "TAX"))
+                .isEqualTo("&lt;b&gt;<mark>Tax</mark>&lt;/b&gt; return tax");
+    }
+
+    @Test
+    void leavesFuzzyMatchesUnmarked() {
+        assertThat(SearchText.highlight("Github", "githb")).isEqualTo("Github");
+    }
+}
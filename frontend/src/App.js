@@ -14,6 +14,7 @@ import NoteModal from "./components/notes/NoteModal";
 import CredentialList from "./components/credentials/CredentialList";
 import CredentialModal from "./components/credentials/CredentialModal";
 import FileSection from "./components/files/FileSection";
+import LoadMoreButton from "./components/common/LoadMoreButton";
 
 // Import hooks
 import { useAuth } from "./hooks/AuthContext";
@@ -40,6 +41,8 @@ const App = () => {
     updateNote,
     deleteNote,
     loading: notesLoading,
+    hasMore: hasMoreNotes,
+    loadMore: loadMoreNotes,
     setNotes, // Add this
   } = useNotes(user);
   const {
@@ -49,6 +52,8 @@ const App = () => {
     deleteCredential,
     getDecryptedPassword,
     loading: credentialsLoading,
+    hasMore: hasMoreCredentials,
+    loadMore: loadMoreCredentials,
     setCredentials, // Add this
   } = useCredentials();
 
@@ -140,9 +145,15 @@ const App = () => {
     setShowNoteModal(true);
   };
 
-  const handleNoteEdit = (note) => {
-    setEditingNote(note);
-    setShowNoteModal(true);
+  const handleNoteEdit = async (note) => {
+    try {
+      // The list only carries a preview, so load the full note for editing
+      const fullNote = await apiService.getNote(note.id);
+      setEditingNote(fullNote);
+      setShowNoteModal(true);
+    } catch (error) {
+      showNotification("Failed to load note", "error");
+    }
   };
 
   const handleNoteSave = async (noteData) => {
@@ -300,7 +311,9 @@ const App = () => {
   const filteredNotes = notes.filter(
     (note) =>
       note.title.toLowerCase().includes(searchQuery.toLowerCase()) ||
-      note.content.toLowerCase().includes(searchQuery.toLowerCase())
+      (note.preview ?? note.content ?? "")
+        .toLowerCase()
+        .includes(searchQuery.toLowerCase())
   );
 
   const filteredCredentials = credentials.filter(
@@ -397,11 +410,17 @@ const App = () => {
                   <div className="animate-spin rounded-full h-8 w-8 border-b-2 border-blue-600"></div>
                 </div>
               ) : (
-                <NoteList
-                  notes={filteredNotes}
-                  onEditNote={handleNoteEdit}
-                  onDeleteNote={handleNoteDelete}
-                />
+                <>
+                  <NoteList
+                    notes={filteredNotes}
+                    onEditNote={handleNoteEdit}
+                    onDeleteNote={handleNoteDelete}
+                  />
+                  <LoadMoreButton
+                    hasMore={hasMoreNotes}
+                    onLoadMore={loadMoreNotes}
+                  />
+                </>
               )}
             </div>
           )}
@@ -429,13 +448,19 @@ const App = () => {
                       <div className="animate-spin rounded-full h-8 w-8 border-b-2 border-blue-600"></div>
                     </div>
                   ) : (
-                    <CredentialList
-                      credentials={filteredCredentials}
-                      onEditCredential={handleCredentialEdit}
-                      onDeleteCredential={handleCredentialDelete}
-                      onTogglePassword={handleTogglePassword}
-                      visiblePasswords={visiblePasswords}
-                    />
+                    <>
+                      <CredentialList
+                        credentials={filteredCredentials}
+                        onEditCredential={handleCredentialEdit}
+                        onDeleteCredential={handleCredentialDelete}
+                        onTogglePassword={handleTogglePassword}
+                        visiblePasswords={visiblePasswords}
+                      />
+                      <LoadMoreButton
+                        hasMore={hasMoreCredentials}
+                        onLoadMore={loadMoreCredentials}
+                      />
+                    </>
                   )}
                 </div>
               </div>
@@ -0,0 +1,30 @@
+import React, { useState } from "react";
+
+const LoadMoreButton = ({ hasMore, onLoadMore }) => {
+  const [loading, setLoading] = useState(false);
+
+  if (!hasMore) return null;
+
+  const handleClick = async () => {
+    setLoading(true);
+    try {
+      await onLoadMore();
+    } finally {
+      setLoading(false);
+    }
+  };
+
+  return (
+    <div className="flex justify-center pt-6">
+      <button
+        onClick={handleClick}
+        disabled={loading}
+        className="px-4 py-2 border border-gray-300 rounded-lg text-gray-700 hover:bg-gray-50 transition-colors disabled:opacity-50"
+      >
+        {loading ? "Loading..." : "Load more"}
+      </button>
+    </div>
+  );
+};
+
+export default LoadMoreButton;
@@ -1,5 +1,6 @@
 import React from "react";
-import { File, Download, Trash2, FolderOpen } from "lucide-react";
+import { Download, Trash2, FolderOpen } from "lucide-react";
+import FileThumbnail from "./FileThumbnail";
 import { formatFileSize, formatDate } from "../../utils/helpers";
 
 const FileList = ({ files, onDeleteFile, onDownloadFile }) => {
@@ -23,7 +24,7 @@ const FileList = ({ files, onDeleteFile, onDownloadFile }) => {
           className="flex items-center justify-between p-4 bg-gray-50 rounded-lg hover:bg-gray-100 transition-colors"
         >
           <div className="flex items-center space-x-3">
-            <File className="w-8 h-8 text-blue-600" />
+            <FileThumbnail file={file} />
             <div>
               <p className="font-medium text-gray-800">{file.originalName}</p>
               <p className="text-sm text-gray-500">
@@ -2,6 +2,7 @@ import React from "react";
 import { useFiles } from "../../hooks/useFiles";
 import FileUpload from "./FileUpload";
 import FileList from "./FileList";
+import LoadMoreButton from "../common/LoadMoreButton";
 
 const FileSection = ({ user, showNotification }) => {
   console.log("FileSection mounted for user:", user);
@@ -10,6 +11,8 @@ const FileSection = ({ user, showNotification }) => {
     uploadFile,
     deleteFile,
     loading: filesLoading,
+    hasMore,
+    loadMore,
   } = useFiles(user);
 
   const handleFileUpload = async (file) => {
@@ -55,6 +58,7 @@ const FileSection = ({ user, showNotification }) => {
             onDeleteFile={handleFileDelete}
             // onDownloadFile can be added if needed
           />
+          <LoadMoreButton hasMore={hasMore} onLoadMore={loadMore} />
         </div>
       </div>
     </div>
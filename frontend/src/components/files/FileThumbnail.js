@@ -0,0 +1,48 @@
+import React, { useEffect, useState } from "react";
+import { File } from "lucide-react";
+import apiService from "../../services/apiService";
+
+const THUMBNAIL_SIZE = 128;
+
+// Shows a thumbnail for images and falls back to the file icon for everything else
+const FileThumbnail = ({ file }) => {
+  const [url, setUrl] = useState(null);
+  const isImage = file.contentType && file.contentType.startsWith("image/");
+
+  useEffect(() => {
+    if (!isImage) {
+      return undefined;
+    }
+    let objectUrl = null;
+    let cancelled = false;
+    apiService
+      .getThumbnail(file.id, THUMBNAIL_SIZE)
+      .then((blob) => {
+        if (!cancelled) {
+          objectUrl = URL.createObjectURL(blob);
+          setUrl(objectUrl);
+        }
+      })
+      .catch(() => setUrl(null));
+    return () => {
+      cancelled = true;
+      if (objectUrl) {
+        URL.revokeObjectURL(objectUrl);
+      }
+    };
+  }, [file.id, isImage]);
+
+  if (!url) {
+    return <File className="w-8 h-8 text-blue-600" />;
+  }
+  return (
+    <img
+      src={url}
+      alt=""
+      className="w-8 h-8 object-cover rounded"
+      loading="lazy"
+    />
+  );
+};
+
+export default FileThumbnail;
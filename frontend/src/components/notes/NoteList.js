@@ -45,7 +45,7 @@ const NoteList = ({ notes, onEditNote, onDeleteNote }) => {
           </div>
 
           <p className="text-gray-600 text-sm mb-4 line-clamp-3">
-            {truncateText(note.content, 150)}
+            {truncateText(note.preview ?? note.content, 150)}
           </p>
 
           <div className="flex justify-between items-center text-xs text-gray-400">
@@ -5,12 +5,14 @@ export const useCredentials = () => {
   const [credentials, setCredentials] = useState([]);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState(null);
+  const [nextCursor, setNextCursor] = useState(null);
 
   const fetchCredentials = async () => {
     try {
       setLoading(true);
-      const response = await apiService.getCredentials();
-      setCredentials(response);
+      const page = await apiService.getCredentials();
+      setCredentials(page.items);
+      setNextCursor(page.nextCursor);
       setError(null);
     } catch (err) {
       setError(err.message);
@@ -19,6 +21,17 @@ export const useCredentials = () => {
     }
   };
 
+  const loadMore = async () => {
+    if (!nextCursor) return;
+    try {
+      const page = await apiService.getCredentials(nextCursor);
+      setCredentials((prev) => [...prev, ...page.items]);
+      setNextCursor(page.nextCursor);
+    } catch (err) {
+      setError(err.message);
+    }
+  };
+
   const createCredential = async (credentialData) => {
     try {
       const response = await apiService.createCredential(credentialData);
@@ -70,6 +83,7 @@ export const useCredentials = () => {
       setLoading(true);
       const response = await apiService.searchCredentials(query);
       setCredentials(response);
+      setNextCursor(null);
       setError(null);
     } catch (err) {
       setError(err.message);
@@ -86,6 +100,8 @@ export const useCredentials = () => {
     credentials,
     loading,
     error,
+    hasMore: nextCursor !== null,
+    loadMore,
     createCredential,
     updateCredential,
     deleteCredential,
@@ -5,13 +5,15 @@ export const useFiles = (user) => {
   const [files, setFiles] = useState([]);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState(null);
+  const [nextCursor, setNextCursor] = useState(null);
 
   const fetchFiles = async () => {
     if (!user) return; // Only fetch if user is present
     try {
       setLoading(true);
-      const response = await apiService.getFiles();
-      setFiles(response);
+      const page = await apiService.getFiles();
+      setFiles(page.items);
+      setNextCursor(page.nextCursor);
       setError(null);
     } catch (err) {
       setError(err.message);
@@ -20,6 +22,17 @@ export const useFiles = (user) => {
     }
   };
 
+  const loadMore = async () => {
+    if (!nextCursor) return;
+    try {
+      const page = await apiService.getFiles(nextCursor);
+      setFiles((prev) => [...prev, ...page.items]);
+      setNextCursor(page.nextCursor);
+    } catch (err) {
+      setError(err.message);
+    }
+  };
+
   // Only fetch files if user is present
   useEffect(() => {
     if (user) {
@@ -33,6 +46,8 @@ export const useFiles = (user) => {
     files,
     loading,
     error,
+    hasMore: nextCursor !== null,
+    loadMore,
     uploadFile: async (file) => {
       try {
         const response = await apiService.uploadFile(file);
@@ -57,6 +72,7 @@ export const useFiles = (user) => {
         setLoading(true);
         const response = await apiService.searchFiles(query);
         setFiles(response);
+        setNextCursor(null);
         setError(null);
       } catch (err) {
         setError(err.message);
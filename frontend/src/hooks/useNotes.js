@@ -5,13 +5,15 @@ export const useNotes = (user) => {
   const [notes, setNotes] = useState([]);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState(null);
+  const [nextCursor, setNextCursor] = useState(null);
 
   const fetchNotes = async () => {
     if (!user) return; // Only fetch if user is present
     try {
       setLoading(true);
-      const response = await apiService.getNotes();
-      setNotes(response);
+      const page = await apiService.getNotes();
+      setNotes(page.items);
+      setNextCursor(page.nextCursor);
       setError(null);
     } catch (err) {
       setError(err.message);
@@ -20,6 +22,17 @@ export const useNotes = (user) => {
     }
   };
 
+  const loadMore = async () => {
+    if (!nextCursor) return;
+    try {
+      const page = await apiService.getNotes(nextCursor);
+      setNotes((prev) => [...prev, ...page.items]);
+      setNextCursor(page.nextCursor);
+    } catch (err) {
+      setError(err.message);
+    }
+  };
+
   const createNote = async (noteData) => {
     try {
       const response = await apiService.createNote(noteData);
@@ -59,6 +72,7 @@ export const useNotes = (user) => {
       setLoading(true);
       const response = await apiService.searchNotes(query);
       setNotes(response);
+      setNextCursor(null);
       setError(null);
     } catch (err) {
       setError(err.message);
@@ -79,6 +93,8 @@ export const useNotes = (user) => {
     notes,
     loading,
     error,
+    hasMore: nextCursor !== null,
+    loadMore,
     createNote,
     updateNote,
     deleteNote,
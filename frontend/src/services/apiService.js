@@ -1,8 +1,49 @@
 import { API_BASE_URL, STORAGE_KEYS } from "../utils/constants";
 
+const pageQuery = (cursor) =>
+  cursor ? `?cursor=${encodeURIComponent(cursor)}` : "";
+
 class ApiService {
   constructor() {
     this.baseURL = API_BASE_URL;
+    this.refreshing = null;
+  }
+
+  storeSession(response) {
+    localStorage.setItem(STORAGE_KEYS.AUTH_TOKEN, response.token);
+    if (response.refreshToken) {
+      localStorage.setItem(STORAGE_KEYS.REFRESH_TOKEN, response.refreshToken);
+    }
+    localStorage.setItem(STORAGE_KEYS.USER_DATA, JSON.stringify(response.user));
+  }
+
+  // Access tokens last minutes; trade the refresh token for a new pair.
+  // Concurrent 401s share one refresh, since each refresh token is single-use.
+  refreshSession() {
+    const refreshToken = localStorage.getItem(STORAGE_KEYS.REFRESH_TOKEN);
+    if (!refreshToken) {
+      return Promise.resolve(false);
+    }
+    if (!this.refreshing) {
+      this.refreshing = fetch(`${this.baseURL}/auth/refresh`, {
+        method: "POST",
+        headers: { "Content-Type": "application/json" },
+        body: JSON.stringify({ refreshToken }),
+      })
+        .then(async (response) => {
+          if (!response.ok) {
+            this.logout();
+            return false;
+          }
+          this.storeSession(await response.json());
+          return true;
+        })
+        .catch(() => false)
+        .finally(() => {
+          this.refreshing = null;
+        });
+    }
+    return this.refreshing;
   }
 
   getAuthHeaders() {
@@ -20,7 +61,7 @@ class ApiService {
     return headers;
   }
 
-  async request(endpoint, options = {}) {
+  async request(endpoint, options = {}, retried = false) {
     const config = {
       ...options,
       headers: {
@@ -48,6 +89,15 @@ class ApiService {
         headers: Object.fromEntries(response.headers.entries()),
       });
 
+      if (
+        response.status === 401 &&
+        !retried &&
+        !endpoint.startsWith("/auth/") &&
+        (await this.refreshSession())
+      ) {
+        return this.request(endpoint, options, true);
+      }
+
       if (!response.ok) {
         const errorData = await response.json().catch(() => ({}));
         console.error(
@@ -94,11 +144,7 @@ class ApiService {
     });
 
     if (response.token) {
-      localStorage.setItem(STORAGE_KEYS.AUTH_TOKEN, response.token);
-      localStorage.setItem(
-        STORAGE_KEYS.USER_DATA,
-        JSON.stringify(response.user)
-      );
+      this.storeSession(response);
     }
 
     return response;
@@ -113,19 +159,30 @@ class ApiService {
     console.log("[apiService] register response:", response);
 
     if (response.token) {
-      localStorage.setItem(STORAGE_KEYS.AUTH_TOKEN, response.token);
-      localStorage.setItem(
-        STORAGE_KEYS.USER_DATA,
-        JSON.stringify(response.user)
-      );
+      this.storeSession(response);
     }
 
     return response;
   }
 
   logout() {
+    const token = localStorage.getItem(STORAGE_KEYS.AUTH_TOKEN);
+    const refreshToken = localStorage.getItem(STORAGE_KEYS.REFRESH_TOKEN);
     localStorage.removeItem(STORAGE_KEYS.AUTH_TOKEN);
+    localStorage.removeItem(STORAGE_KEYS.REFRESH_TOKEN);
     localStorage.removeItem(STORAGE_KEYS.USER_DATA);
+
+    // Revoke both tokens server-side; local state is already cleared
+    if (token || refreshToken) {
+      fetch(`${this.baseURL}/auth/logout`, {
+        method: "POST",
+        headers: {
+          "Content-Type": "application/json",
+          ...(token && { Authorization: `Bearer ${token}` }),
+        },
+        body: JSON.stringify({ refreshToken }),
+      }).catch(() => {});
+    }
   }
 
   getCurrentUser() {
@@ -134,7 +191,7 @@ class ApiService {
   }
 
   // File methods
-  async uploadFile(file) {
+  async uploadFile(file, retried = false) {
     const formData = new FormData();
     formData.append("file", file);
 
@@ -147,12 +204,31 @@ class ApiService {
       body: formData,
     });
 
+    if (response.status === 401 && !retried && (await this.refreshSession())) {
+      return this.uploadFile(file, true);
+    }
     if (!response.ok) throw new Error("Upload failed");
     return response.json();
   }
 
-  async getFiles() {
-    return this.request("/files");
+  // List endpoints return { items, nextCursor }; pass nextCursor back for the next page
+  async getFiles(cursor) {
+    return this.request(`/files${pageQuery(cursor)}`);
+  }
+
+  // Resolves to an image Blob; the server keeps a rendered copy and the browser caches it for a day
+  async getThumbnail(fileId, size, retried = false) {
+    const token = localStorage.getItem(STORAGE_KEYS.AUTH_TOKEN);
+    const response = await fetch(
+      `${this.baseURL}/files/${fileId}/thumbnail?size=${size}`,
+      { headers: { Authorization: `Bearer ${token}` } }
+    );
+
+    if (response.status === 401 && !retried && (await this.refreshSession())) {
+      return this.getThumbnail(fileId, size, true);
+    }
+    if (!response.ok) throw new Error("Thumbnail unavailable");
+    return response.blob();
   }
 
   async deleteFile(fileId) {
@@ -164,8 +240,12 @@ class ApiService {
   }
 
   // Note methods
-  async getNotes() {
-    return this.request("/notes");
+  async getNotes(cursor) {
+    return this.request(`/notes${pageQuery(cursor)}`);
+  }
+
+  async getNote(noteId) {
+    return this.request(`/notes/${noteId}`);
   }
 
   async createNote(noteData) {
@@ -191,8 +271,8 @@ class ApiService {
   }
 
   // Credential methods
-  async getCredentials() {
-    return this.request("/credentials");
+  async getCredentials(cursor) {
+    return this.request(`/credentials${pageQuery(cursor)}`);
   }
 
   async createCredential(credentialData) {
@@ -3,6 +3,7 @@ export const API_BASE_URL =
 
 export const STORAGE_KEYS = {
   AUTH_TOKEN: "authToken",
+  REFRESH_TOKEN: "refreshToken",
   USER_DATA: "userData",
 };
 